@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.afm;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tom_roush.fontbox.util.BoundingBox;
+import com.tom_roush.pdfbox.io.IOUtils;
+
+/**
+ * Reads font metrics in a compact binary form, which is loaded much faster than parsing an AFM
+ * file. The binary form is created from the AFM files at build time.
+ */
+public final class CompiledAFM
+{
+    // "AFM" and the version of the format
+    static final int MAGIC = 0x41464D01;
+
+    private CompiledAFM()
+    {
+    }
+
+    /**
+     * Reads font metrics in the binary form. The input stream is closed when the reading is
+     * finished.
+     *
+     * @param in the binary form of the font metrics
+     * @return the font metrics
+     * @throws IOException If there is an error reading the data or if it isn't in the binary form.
+     */
+    public static FontMetrics read(InputStream in) throws IOException
+    {
+        try
+        {
+            // read completely, so that the counts can be checked against the remaining length
+            DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(IOUtils.toByteArray(in)));
+            if (data.readInt() != MAGIC)
+            {
+                throw new IOException("Error: Unknown format of the compiled font metrics");
+            }
+            FontMetrics metrics = new FontMetrics();
+            metrics.setAFMVersion(data.readFloat());
+            metrics.setMetricSets(data.readInt());
+            metrics.setFontName(readString(data));
+            metrics.setFullName(readString(data));
+            metrics.setFamilyName(readString(data));
+            metrics.setWeight(readString(data));
+            metrics.setFontBBox(readBoundingBox(data));
+            metrics.setFontVersion(readString(data));
+            metrics.setNotice(readString(data));
+            metrics.setEncodingScheme(readString(data));
+            metrics.setMappingScheme(data.readInt());
+            metrics.setEscChar(data.readInt());
+            metrics.setCharacterSet(readString(data));
+            metrics.setCharacters(data.readInt());
+            metrics.setIsBaseFont(data.readBoolean());
+            metrics.setVVector(readFloats(data));
+            metrics.setIsFixedV(data.readBoolean());
+            metrics.setCapHeight(data.readFloat());
+            metrics.setXHeight(data.readFloat());
+            metrics.setAscender(data.readFloat());
+            metrics.setDescender(data.readFloat());
+            int commentCount = data.readInt();
+            for (int i = 0; i < commentCount; i++)
+            {
+                metrics.addComment(readString(data));
+            }
+            metrics.setUnderlinePosition(data.readFloat());
+            metrics.setUnderlineThickness(data.readFloat());
+            metrics.setItalicAngle(data.readFloat());
+            metrics.setCharWidth(readFloats(data));
+            metrics.setFixedPitch(data.readBoolean());
+            metrics.setStandardHorizontalWidth(data.readFloat());
+            metrics.setStandardVerticalWidth(data.readFloat());
+
+            int charMetricCount = readCount(data, 1);
+            List<CharMetric> charMetrics = new ArrayList<CharMetric>(charMetricCount);
+            for (int i = 0; i < charMetricCount; i++)
+            {
+                CharMetric metric = new CharMetric();
+                metric.setCharacterCode(data.readInt());
+                metric.setWx(data.readFloat());
+                metric.setW0x(data.readFloat());
+                metric.setW1x(data.readFloat());
+                metric.setWy(data.readFloat());
+                metric.setW0y(data.readFloat());
+                metric.setW1y(data.readFloat());
+                metric.setW(readFloats(data));
+                metric.setW0(readFloats(data));
+                metric.setW1(readFloats(data));
+                metric.setVv(readFloats(data));
+                metric.setName(readString(data));
+                metric.setBoundingBox(readBoundingBox(data));
+                int ligatureCount = data.readInt();
+                for (int j = 0; j < ligatureCount; j++)
+                {
+                    Ligature ligature = new Ligature();
+                    ligature.setSuccessor(readString(data));
+                    ligature.setLigature(readString(data));
+                    metric.addLigature(ligature);
+                }
+                charMetrics.add(metric);
+            }
+            metrics.setCharMetrics(charMetrics);
+
+            int trackKernCount = data.readInt();
+            for (int i = 0; i < trackKernCount; i++)
+            {
+                TrackKern kern = new TrackKern();
+                kern.setDegree(data.readInt());
+                kern.setMinPointSize(data.readFloat());
+                kern.setMinKern(data.readFloat());
+                kern.setMaxPointSize(data.readFloat());
+                kern.setMaxKern(data.readFloat());
+                metrics.addTrackKern(kern);
+            }
+
+            int compositeCount = data.readInt();
+            for (int i = 0; i < compositeCount; i++)
+            {
+                Composite composite = new Composite();
+                composite.setName(readString(data));
+                int partCount = data.readInt();
+                for (int j = 0; j < partCount; j++)
+                {
+                    CompositePart part = new CompositePart();
+                    part.setName(readString(data));
+                    part.setXDisplacement(data.readInt());
+                    part.setYDisplacement(data.readInt());
+                    composite.addPart(part);
+                }
+                metrics.addComposite(composite);
+            }
+
+            int kernPairCount = data.readInt();
+            for (int i = 0; i < kernPairCount; i++)
+            {
+                metrics.addKernPair(readKernPair(data));
+            }
+            kernPairCount = data.readInt();
+            for (int i = 0; i < kernPairCount; i++)
+            {
+                metrics.addKernPair0(readKernPair(data));
+            }
+            kernPairCount = data.readInt();
+            for (int i = 0; i < kernPairCount; i++)
+            {
+                metrics.addKernPair1(readKernPair(data));
+            }
+            return metrics;
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    private static KernPair readKernPair(DataInputStream data) throws IOException
+    {
+        KernPair kernPair = new KernPair();
+        kernPair.setFirstKernCharacter(readString(data));
+        kernPair.setSecondKernCharacter(readString(data));
+        kernPair.setX(data.readFloat());
+        kernPair.setY(data.readFloat());
+        return kernPair;
+    }
+
+    /**
+     * Reads the number of elements which follow, each of them takes at least the given number
+     * of bytes.
+     */
+    private static int readCount(DataInputStream data, int minSize) throws IOException
+    {
+        int count = data.readInt();
+        if (count < 0 || count > data.available() / minSize)
+        {
+            throw new IOException("Error: Invalid count " + count + " of compiled elements");
+        }
+        return count;
+    }
+
+    private static String readString(DataInputStream data) throws IOException
+    {
+        return data.readBoolean() ? data.readUTF() : null;
+    }
+
+    private static float[] readFloats(DataInputStream data) throws IOException
+    {
+        int length = data.readInt();
+        if (length == -1)
+        {
+            return null;
+        }
+        if (length < 0 || length > data.available() / 4)
+        {
+            throw new IOException("Error: Invalid length " + length + " of compiled values");
+        }
+        float[] values = new float[length];
+        for (int i = 0; i < length; i++)
+        {
+            values[i] = data.readFloat();
+        }
+        return values;
+    }
+
+    private static BoundingBox readBoundingBox(DataInputStream data) throws IOException
+    {
+        if (!data.readBoolean())
+        {
+            return null;
+        }
+        return new BoundingBox(data.readFloat(), data.readFloat(), data.readFloat(),
+            data.readFloat());
+    }
+}
@@ -18,16 +18,20 @@ package com.tom_roush.fontbox.cmap;
 
 import android.util.Log;
 
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 /**
  * This class represents a CMap file.
  *
+ * The mappings are collected while the CMap is parsed and compiled into compact, immutable
+ * lookup tables on first use, so that a cached CMap can be shared by several threads.
+ *
  * @author Ben Litchfield
  */
 public class CMap
@@ -46,13 +50,21 @@ public class CMap
 
     // code lengths
     private final List<CodespaceRange> codespaceRanges = new ArrayList<CodespaceRange>();
+    // the codespace ranges as ints, for readCode()
+    private int[] codespaceStarts = new int[0];
+    private int[] codespaceEnds = new int[0];
+    private int[] codespaceLengths = new int[0];
+
+    // Unicode mappings, the builder is null once the table is compiled
+    private CodeToUnicodeTable.Builder charToUnicodeBuilder = new CodeToUnicodeTable.Builder();
+    private volatile CodeToUnicodeTable charToUnicode;
 
-    // Unicode mappings
-    private final Map<Integer,String> charToUnicode = new HashMap<Integer,String>();
+    // CID mappings, the builder is null once the table is compiled
+    private CodeToCidTable.Builder codeToCidBuilder = new CodeToCidTable.Builder();
+    private volatile CodeToCidTable codeToCid;
 
-    // CID mappings
-    private final Map<Integer,Integer> codeToCid = new HashMap<Integer,Integer>();
-    private final List<CIDRange> codeToCidRanges = new ArrayList<CIDRange>();
+    // "CMP" and the version of the compiled format
+    private static final int COMPILED_MAGIC = 0x434D5001;
 
     private static final String SPACE = " ";
     private int spaceMapping = -1;
@@ -71,7 +83,7 @@ public class CMap
      */
     public boolean hasCIDMappings()
     {
-        return !codeToCid.isEmpty() || !codeToCidRanges.isEmpty();
+        return !getCodeToCid().isEmpty();
     }
 
     /**
@@ -81,7 +93,7 @@ public class CMap
      */
     public boolean hasUnicodeMappings()
     {
-        return !charToUnicode.isEmpty();
+        return !getCharToUnicode().isEmpty();
     }
 
     /**
@@ -92,7 +104,69 @@ public class CMap
      */
     public String toUnicode(int code)
     {
-        return charToUnicode.get(code);
+        return getCharToUnicode().toUnicode(code);
+    }
+
+    private CodeToUnicodeTable getCharToUnicode()
+    {
+        CodeToUnicodeTable table = charToUnicode;
+        if (table == null)
+        {
+            synchronized (this)
+            {
+                table = charToUnicode;
+                if (table == null)
+                {
+                    table = charToUnicodeBuilder.build();
+                    charToUnicode = table;
+                    charToUnicodeBuilder = null;
+                }
+            }
+        }
+        return table;
+    }
+
+    private CodeToCidTable getCodeToCid()
+    {
+        CodeToCidTable table = codeToCid;
+        if (table == null)
+        {
+            synchronized (this)
+            {
+                table = codeToCid;
+                if (table == null)
+                {
+                    table = codeToCidBuilder.build();
+                    codeToCid = table;
+                    codeToCidBuilder = null;
+                }
+            }
+        }
+        return table;
+    }
+
+    private CodeToUnicodeTable.Builder getCharToUnicodeBuilder()
+    {
+        if (charToUnicodeBuilder == null)
+        {
+            // a mapping is added after the table was compiled
+            charToUnicodeBuilder = new CodeToUnicodeTable.Builder();
+            charToUnicode.copyTo(charToUnicodeBuilder);
+            charToUnicode = null;
+        }
+        return charToUnicodeBuilder;
+    }
+
+    private CodeToCidTable.Builder getCodeToCidBuilder()
+    {
+        if (codeToCidBuilder == null)
+        {
+            // a mapping is added after the table was compiled
+            codeToCidBuilder = new CodeToCidTable.Builder();
+            codeToCid.copyTo(codeToCidBuilder);
+            codeToCid = null;
+        }
+        return codeToCidBuilder;
     }
 
     /**
@@ -105,27 +179,30 @@ public class CMap
      */
     public int readCode(InputStream in) throws IOException
     {
-        byte[] bytes = new byte[maxCodeLength];
-        in.read(bytes,0,minCodeLength);
-        for (int i = minCodeLength-1; i < maxCodeLength; i++)
+        // missing bytes of the shortest code are read as 0
+        byte[] bytes = new byte[minCodeLength];
+        in.read(bytes, 0, minCodeLength);
+        int code = toInt(bytes, minCodeLength);
+        for (int byteCount = minCodeLength; byteCount <= maxCodeLength; byteCount++)
         {
-            final int byteCount = i+1;
-            for (CodespaceRange range : codespaceRanges)
+            for (int i = 0; i < codespaceLengths.length; i++)
             {
-                if (range.isFullMatch(bytes, byteCount))
+                if (codespaceLengths[i] == byteCount && code >= codespaceStarts[i]
+                    && code <= codespaceEnds[i])
                 {
-                    return toInt(bytes, byteCount);
+                    return code;
                 }
             }
             if (byteCount < maxCodeLength)
             {
-                bytes[byteCount] = (byte)in.read();
+                code = code << 8 | (in.read() & 0xFF);
             }
         }
-        String seq = "";
-        for (int i = 0; i < maxCodeLength; ++i)
+        StringBuilder seq = new StringBuilder();
+        for (int i = maxCodeLength - 1; i >= 0; --i)
         {
-            seq += String.format("0x%02X (%04o) ", bytes[i], bytes[i]);
+            int b = code >>> (8 * i) & 0xFF;
+            seq.append(String.format("0x%02X (%04o) ", b, b));
         }
         Log.w("PdfBox-Android", "Invalid character code sequence " + seq + "in CMap " + cmapName);
         return 0;
@@ -153,20 +230,7 @@ public class CMap
      */
     public int toCID(int code)
     {
-        Integer cid = codeToCid.get(code);
-        if (cid != null)
-        {
-            return cid;
-        }
-        for (CIDRange range : codeToCidRanges)
-        {
-            int ch = range.map((char)code);
-            if (ch != -1)
-            {
-                return ch;
-            }
-        }
-        return 0;
+        return getCodeToCid().toCID(code);
     }
 
     /**
@@ -196,7 +260,7 @@ public class CMap
     void addCharMapping(byte[] codes, String unicode)
     {
         int code = getCodeFromArray(codes, 0, codes.length);
-        charToUnicode.put(code, unicode);
+        getCharToUnicodeBuilder().addMapping(code, unicode);
 
         // fixme: ugly little hack
         if (SPACE.equals(unicode))
@@ -213,7 +277,7 @@ public class CMap
      */
     void addCIDMapping(int code, int cid)
     {
-        codeToCid.put(cid, code);
+        getCodeToCidBuilder().addMapping(cid, code);
     }
 
     /**
@@ -226,15 +290,7 @@ public class CMap
      */
     void addCIDRange(char from, char to, int cid)
     {
-        CIDRange lastRange = null;
-        if (!codeToCidRanges.isEmpty())
-        {
-            lastRange = codeToCidRanges.get(codeToCidRanges.size() - 1);
-        }
-        if (lastRange == null || !lastRange.extend(from, to, cid))
-        {
-            codeToCidRanges.add(new CIDRange(from, to, cid));
-        }
+        getCodeToCidBuilder().addRange(from, to, cid);
     }
 
     /**
@@ -245,6 +301,13 @@ public class CMap
     void addCodespaceRange( CodespaceRange range )
     {
         codespaceRanges.add(range);
+        int count = codespaceRanges.size();
+        codespaceStarts = Arrays.copyOf(codespaceStarts, count);
+        codespaceEnds = Arrays.copyOf(codespaceEnds, count);
+        codespaceLengths = Arrays.copyOf(codespaceLengths, count);
+        codespaceStarts[count - 1] = toInt(range.getStart(), range.getCodeLength());
+        codespaceEnds[count - 1] = toInt(range.getEnd(), range.getEnd().length);
+        codespaceLengths[count - 1] = range.getCodeLength();
         maxCodeLength = Math.max(maxCodeLength, range.getCodeLength());
         minCodeLength = Math.min(minCodeLength, range.getCodeLength());
     }
@@ -261,9 +324,8 @@ public class CMap
         {
             addCodespaceRange(codespaceRange);
         }
-        charToUnicode.putAll(cmap.charToUnicode);
-        codeToCid.putAll(cmap.codeToCid);
-        codeToCidRanges.addAll(cmap.codeToCidRanges);
+        cmap.getCharToUnicode().copyTo(getCharToUnicodeBuilder());
+        cmap.getCodeToCid().copyTo(getCodeToCidBuilder());
     }
 
     /**
@@ -418,6 +480,125 @@ public class CMap
         return spaceMapping;
     }
 
+    /**
+     * Writes this CMap with its compiled mapping tables in a compact binary form, see
+     * {@link CMapParser#parsePredefined(String)}.
+     */
+    void writeCompiled(DataOutputStream out) throws IOException
+    {
+        out.writeInt(COMPILED_MAGIC);
+        out.writeInt(wmode);
+        writeString(out, cmapName);
+        writeString(out, cmapVersion);
+        out.writeInt(cmapType);
+        writeString(out, registry);
+        writeString(out, ordering);
+        out.writeInt(supplement);
+        out.writeInt(spaceMapping);
+        out.writeShort(codespaceRanges.size());
+        for (CodespaceRange range : codespaceRanges)
+        {
+            out.writeByte(range.getStart().length);
+            out.write(range.getStart());
+            out.writeByte(range.getEnd().length);
+            out.write(range.getEnd());
+        }
+        getCharToUnicode().writeTo(out);
+        getCodeToCid().writeTo(out);
+    }
+
+    /**
+     * Reads a CMap written by {@link #writeCompiled(DataOutputStream)}.
+     */
+    static CMap readCompiled(DataInputStream in) throws IOException
+    {
+        if (in.readInt() != COMPILED_MAGIC)
+        {
+            throw new IOException("Unknown format of the compiled CMap");
+        }
+        CMap cmap = new CMap();
+        cmap.wmode = in.readInt();
+        cmap.cmapName = readString(in);
+        cmap.cmapVersion = readString(in);
+        cmap.cmapType = in.readInt();
+        cmap.registry = readString(in);
+        cmap.ordering = readString(in);
+        cmap.supplement = in.readInt();
+        cmap.spaceMapping = in.readInt();
+        int codespaceRangeCount = in.readUnsignedShort();
+        for (int i = 0; i < codespaceRangeCount; i++)
+        {
+            CodespaceRange range = new CodespaceRange();
+            byte[] start = new byte[in.readUnsignedByte()];
+            in.readFully(start);
+            range.setStart(start);
+            byte[] end = new byte[in.readUnsignedByte()];
+            in.readFully(end);
+            range.setEnd(end);
+            cmap.addCodespaceRange(range);
+        }
+        cmap.charToUnicode = CodeToUnicodeTable.readFrom(in);
+        cmap.charToUnicodeBuilder = null;
+        cmap.codeToCid = CodeToCidTable.readFrom(in);
+        cmap.codeToCidBuilder = null;
+        return cmap;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException
+    {
+        out.writeBoolean(value != null);
+        if (value != null)
+        {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException
+    {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+
+    /**
+     * Writes an int as an unsigned variable length quantity of 7 bits per byte.
+     */
+    static void writeVarInt(DataOutputStream out, int value) throws IOException
+    {
+        while ((value & ~0x7F) != 0)
+        {
+            out.writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    static int readVarInt(DataInputStream in) throws IOException
+    {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7)
+        {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0)
+            {
+                return value;
+            }
+        }
+        throw new IOException("Invalid variable length int in compiled CMap");
+    }
+
+    /**
+     * Maps a signed int to an unsigned one, so that small negative values stay small.
+     */
+    static int zigZag(int value)
+    {
+        return value << 1 ^ value >> 31;
+    }
+
+    static int unZigZag(int value)
+    {
+        return value >>> 1 ^ -(value & 1);
+    }
+
     @Override
     public String toString()
     {
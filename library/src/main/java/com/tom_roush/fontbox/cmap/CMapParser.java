@@ -16,6 +16,10 @@
  */
 package com.tom_roush.fontbox.cmap;
 
+import android.util.Log;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
@@ -29,6 +33,7 @@ import java.util.Map;
 
 import com.tom_roush.fontbox.util.Charsets;
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.io.IOUtils;
 
 /**
  * Parses a CMap stream.
@@ -82,6 +87,11 @@ public class CMapParser
      */
     public CMap parsePredefined(String name) throws IOException
     {
+        CMap compiled = readCompiledCMap(name);
+        if (compiled != null)
+        {
+            return compiled;
+        }
         InputStream input = null;
         try
         {
@@ -97,6 +107,51 @@ public class CMapParser
         }
     }
 
+    /**
+     * Reads the compiled form of a predefined CMap.
+     *
+     * @return the CMap, or null if there isn't a usable compiled form
+     */
+    private CMap readCompiledCMap(String name)
+    {
+        InputStream input = PDFBoxResourceLoader.getOptionalStream(
+            "com/tom_roush/fontbox/resources/cmap/" + name + ".bin");
+        if (input == null)
+        {
+            return null;
+        }
+        try
+        {
+            // read completely, so that the counts can be checked against the remaining length
+            return CMap.readCompiled(new DataInputStream(
+                new ByteArrayInputStream(IOUtils.toByteArray(input))));
+        }
+        catch (IOException e)
+        {
+            Log.w("PdfBox-Android", "Could not read compiled CMap " + name
+                + ", parsing the CMap file instead", e);
+            return null;
+        }
+        catch (RuntimeException e)
+        {
+            // a damaged file may have invalid counts or indexes
+            Log.w("PdfBox-Android", "Could not read compiled CMap " + name
+                + ", parsing the CMap file instead", e);
+            return null;
+        }
+        finally
+        {
+            try
+            {
+                input.close();
+            }
+            catch (IOException e)
+            {
+                // ignore
+            }
+        }
+    }
+
     /**
      * This will parse the stream and create a cmap object.
      *
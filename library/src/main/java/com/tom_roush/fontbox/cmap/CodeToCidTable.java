@@ -0,0 +1,313 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.cmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The immutable character code to CID mapping of a CMap. Codes with consecutive CIDs are kept
+ * as sorted ranges, which are looked up with a binary search. If the codes up to 0xFFFF are
+ * fragmented into many short ranges, they are kept in a dense array instead.
+ */
+final class CodeToCidTable
+{
+    static final CodeToCidTable EMPTY = new CodeToCidTable(new int[0], new int[0], new int[0], 0, null);
+
+    private static final int UNMAPPED = -1;
+    private static final int MAX_DENSE_CODE = 0xFFFF;
+
+    private final int[] startCodes;
+    private final int[] endCodes;
+    private final int[] startCids;
+    private final int denseStartCode;
+    // the CIDs of the codes starting at denseStartCode, UNMAPPED or null
+    private final int[] denseCids;
+
+    private CodeToCidTable(int[] startCodes, int[] endCodes, int[] startCids, int denseStartCode,
+        int[] denseCids)
+    {
+        this.startCodes = startCodes;
+        this.endCodes = endCodes;
+        this.startCids = startCids;
+        this.denseStartCode = denseStartCode;
+        this.denseCids = denseCids;
+    }
+
+    /**
+     * Returns the CID for the given character code.
+     *
+     * @param code character code
+     * @return CID, or 0 if the code isn't mapped
+     */
+    int toCID(int code)
+    {
+        if (denseCids != null && code >= denseStartCode && code - denseStartCode < denseCids.length)
+        {
+            int cid = denseCids[code - denseStartCode];
+            return cid == UNMAPPED ? 0 : cid;
+        }
+        int low = 0;
+        int high = startCodes.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (code < startCodes[mid])
+            {
+                high = mid - 1;
+            }
+            else if (code > endCodes[mid])
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                return startCids[mid] + code - startCodes[mid];
+            }
+        }
+        return 0;
+    }
+
+    boolean isEmpty()
+    {
+        return startCodes.length == 0 && denseCids == null;
+    }
+
+    /**
+     * Adds all mappings of this table to the given builder, e.g. for the usecmap operator.
+     */
+    void copyTo(Builder builder)
+    {
+        if (denseCids != null)
+        {
+            for (int i = 0; i < denseCids.length; i++)
+            {
+                if (denseCids[i] != UNMAPPED)
+                {
+                    builder.addRange(denseStartCode + i, denseStartCode + i, denseCids[i]);
+                }
+            }
+        }
+        for (int i = 0; i < startCodes.length; i++)
+        {
+            builder.addRange(startCodes[i], endCodes[i], startCids[i]);
+        }
+    }
+
+    /**
+     * Writes the mappings as ranges sorted by their code, the codes and CIDs are stored as deltas
+     * to the previous range.
+     */
+    void writeTo(DataOutputStream out) throws IOException
+    {
+        Builder ranges = new Builder();
+        copyTo(ranges);
+        long[] sorted = new long[ranges.rangeCount];
+        for (int i = 0; i < sorted.length; i++)
+        {
+            sorted[i] = (long) ranges.rangeStartCodes[i] << 32 | i;
+        }
+        Arrays.sort(sorted);
+        CMap.writeVarInt(out, sorted.length);
+        int nextCode = 0;
+        int nextCid = 0;
+        for (long key : sorted)
+        {
+            int index = (int) key;
+            int startCode = ranges.rangeStartCodes[index];
+            int endCode = ranges.rangeEndCodes[index];
+            int startCid = ranges.rangeStartCids[index];
+            CMap.writeVarInt(out, CMap.zigZag(startCode - nextCode));
+            CMap.writeVarInt(out, endCode - startCode);
+            CMap.writeVarInt(out, CMap.zigZag(startCid - nextCid));
+            nextCode = endCode + 1;
+            nextCid = startCid + endCode - startCode + 1;
+        }
+    }
+
+    /**
+     * Reads the mappings written by {@link #writeTo(DataOutputStream)}.
+     */
+    static CodeToCidTable readFrom(DataInputStream in) throws IOException
+    {
+        Builder builder = new Builder();
+        int rangeCount = CMap.readVarInt(in);
+        int nextCode = 0;
+        int nextCid = 0;
+        for (int i = 0; i < rangeCount; i++)
+        {
+            int startCode = nextCode + CMap.unZigZag(CMap.readVarInt(in));
+            int endCode = startCode + CMap.readVarInt(in);
+            int startCid = nextCid + CMap.unZigZag(CMap.readVarInt(in));
+            builder.addRange(startCode, endCode, startCid);
+            nextCode = endCode + 1;
+            nextCid = startCid + endCode - startCode + 1;
+        }
+        return builder.build();
+    }
+
+    /**
+     * Collects the mappings while a CMap is parsed. A single mapping overrides the ranges, a later
+     * single mapping overrides an earlier one and an earlier range overrides a later one.
+     */
+    static final class Builder
+    {
+        private int[] singleCodes = new int[16];
+        private int[] singleCids = new int[16];
+        private int singleCount;
+        private int[] rangeStartCodes = new int[16];
+        private int[] rangeEndCodes = new int[16];
+        private int[] rangeStartCids = new int[16];
+        private int rangeCount;
+
+        void addMapping(int code, int cid)
+        {
+            if (singleCount == singleCodes.length)
+            {
+                singleCodes = Arrays.copyOf(singleCodes, singleCount * 2);
+                singleCids = Arrays.copyOf(singleCids, singleCount * 2);
+            }
+            singleCodes[singleCount] = code;
+            singleCids[singleCount] = cid;
+            singleCount++;
+        }
+
+        void addRange(int startCode, int endCode, int startCid)
+        {
+            if (rangeCount > 0 && startCode == rangeEndCodes[rangeCount - 1] + 1
+                && startCid == rangeStartCids[rangeCount - 1] + startCode - rangeStartCodes[rangeCount - 1])
+            {
+                // extend the previous range
+                rangeEndCodes[rangeCount - 1] = endCode;
+                return;
+            }
+            if (rangeCount == rangeStartCodes.length)
+            {
+                rangeStartCodes = Arrays.copyOf(rangeStartCodes, rangeCount * 2);
+                rangeEndCodes = Arrays.copyOf(rangeEndCodes, rangeCount * 2);
+                rangeStartCids = Arrays.copyOf(rangeStartCids, rangeCount * 2);
+            }
+            rangeStartCodes[rangeCount] = startCode;
+            rangeEndCodes[rangeCount] = endCode;
+            rangeStartCids[rangeCount] = startCid;
+            rangeCount++;
+        }
+
+        CodeToCidTable build()
+        {
+            if (singleCount == 0 && rangeCount == 0)
+            {
+                return EMPTY;
+            }
+            // resolve the codes up to 0xFFFF by painting them in the order of their precedence
+            int[] cids = new int[MAX_DENSE_CODE + 1];
+            Arrays.fill(cids, UNMAPPED);
+            Builder large = new Builder();
+            for (int i = rangeCount - 1; i >= 0; i--)
+            {
+                int end = Math.min(rangeEndCodes[i], MAX_DENSE_CODE);
+                for (int code = Math.max(rangeStartCodes[i], 0); code <= end; code++)
+                {
+                    cids[code] = rangeStartCids[i] + code - rangeStartCodes[i];
+                }
+                if (rangeEndCodes[i] > MAX_DENSE_CODE)
+                {
+                    int start = Math.max(rangeStartCodes[i], MAX_DENSE_CODE + 1);
+                    for (int code = rangeEndCodes[i]; code >= start; code--)
+                    {
+                        large.addMapping(code, rangeStartCids[i] + code - rangeStartCodes[i]);
+                    }
+                }
+                if (rangeStartCodes[i] < 0)
+                {
+                    for (int code = Math.min(rangeEndCodes[i], -1); code >= rangeStartCodes[i]; code--)
+                    {
+                        large.addMapping(code, rangeStartCids[i] + code - rangeStartCodes[i]);
+                    }
+                }
+            }
+            for (int i = 0; i < singleCount; i++)
+            {
+                if (singleCodes[i] >= 0 && singleCodes[i] <= MAX_DENSE_CODE)
+                {
+                    cids[singleCodes[i]] = singleCids[i];
+                }
+                else
+                {
+                    large.addMapping(singleCodes[i], singleCids[i]);
+                }
+            }
+            // ranges of consecutive codes and CIDs, sorted by their code
+            Builder ranges = new Builder();
+            large.addLargeMappingsTo(ranges, true);
+            int negativeRangeCount = ranges.rangeCount;
+            int minCode = -1;
+            int maxCode = -1;
+            for (int code = 0; code <= MAX_DENSE_CODE; code++)
+            {
+                if (cids[code] != UNMAPPED)
+                {
+                    ranges.addRange(code, code, cids[code]);
+                    minCode = minCode < 0 ? code : minCode;
+                    maxCode = code;
+                }
+            }
+            int[] denseCids = null;
+            int denseRangeCount = ranges.rangeCount - negativeRangeCount;
+            // a dense array is used if it takes at most 4 times the memory of the ranges
+            if (denseRangeCount > 1 && maxCode - minCode + 1 <= 4 * 3 * denseRangeCount)
+            {
+                denseCids = Arrays.copyOfRange(cids, minCode, maxCode + 1);
+                ranges.rangeCount = negativeRangeCount;
+            }
+            large.addLargeMappingsTo(ranges, false);
+            return new CodeToCidTable(Arrays.copyOf(ranges.rangeStartCodes, ranges.rangeCount),
+                Arrays.copyOf(ranges.rangeEndCodes, ranges.rangeCount),
+                Arrays.copyOf(ranges.rangeStartCids, ranges.rangeCount), minCode, denseCids);
+        }
+
+        /**
+         * Adds the negative or the positive single mappings sorted by their code to the given
+         * ranges, a later mapping of the same code wins.
+         */
+        private void addLargeMappingsTo(Builder ranges, boolean negative)
+        {
+            long[] sorted = new long[singleCount];
+            for (int i = 0; i < singleCount; i++)
+            {
+                // sort by code and then by the index of the mapping
+                sorted[i] = (long) singleCodes[i] << 32 | i;
+            }
+            Arrays.sort(sorted);
+            for (int i = 0; i < sorted.length; i++)
+            {
+                if (i + 1 < sorted.length && sorted[i + 1] >>> 32 == sorted[i] >>> 32)
+                {
+                    continue;
+                }
+                int index = (int) sorted[i];
+                if (singleCodes[index] < 0 != negative)
+                {
+                    continue;
+                }
+                ranges.addRange(singleCodes[index], singleCodes[index], singleCids[index]);
+            }
+        }
+    }
+}
@@ -0,0 +1,233 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.cmap;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The immutable character code to Unicode mapping of a CMap. Consecutive codes mapped to
+ * consecutive single characters are kept as sorted ranges, which are looked up with a binary
+ * search. Strings of a single character are shared by all CMaps.
+ */
+final class CodeToUnicodeTable
+{
+    static final CodeToUnicodeTable EMPTY = new CodeToUnicodeTable(new int[0], new int[0], new String[0]);
+
+    // shared strings of a single character, in pages of 256 characters created on demand
+    private static final String[][] SINGLE_CHARS = new String[256][];
+
+    private final int[] startCodes;
+    private final int[] endCodes;
+    // the string of the start code, the strings of the following codes are single characters
+    private final String[] startStrings;
+
+    private CodeToUnicodeTable(int[] startCodes, int[] endCodes, String[] startStrings)
+    {
+        this.startCodes = startCodes;
+        this.endCodes = endCodes;
+        this.startStrings = startStrings;
+    }
+
+    /**
+     * Returns the shared string of the given character.
+     */
+    static String valueOf(char c)
+    {
+        String[] page = SINGLE_CHARS[c >>> 8];
+        if (page == null)
+        {
+            // a page created twice by concurrent threads costs only a few strings
+            page = new String[256];
+            SINGLE_CHARS[c >>> 8] = page;
+        }
+        String value = page[c & 0xFF];
+        if (value == null)
+        {
+            value = String.valueOf(c);
+            page[c & 0xFF] = value;
+        }
+        return value;
+    }
+
+    /**
+     * Returns the sequence of Unicode characters for the given character code.
+     *
+     * @param code character code
+     * @return Unicode characters, or null if the code isn't mapped
+     */
+    String toUnicode(int code)
+    {
+        int low = 0;
+        int high = startCodes.length - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (code < startCodes[mid])
+            {
+                high = mid - 1;
+            }
+            else if (code > endCodes[mid])
+            {
+                low = mid + 1;
+            }
+            else if (code == startCodes[mid])
+            {
+                return startStrings[mid];
+            }
+            else
+            {
+                return valueOf((char) (startStrings[mid].charAt(0) + code - startCodes[mid]));
+            }
+        }
+        return null;
+    }
+
+    boolean isEmpty()
+    {
+        return startCodes.length == 0;
+    }
+
+    /**
+     * Adds all mappings of this table to the given builder, e.g. for the usecmap operator.
+     */
+    void copyTo(Builder builder)
+    {
+        for (int i = 0; i < startCodes.length; i++)
+        {
+            builder.addMapping(startCodes[i], startStrings[i]);
+            for (int code = startCodes[i] + 1; code <= endCodes[i]; code++)
+            {
+                builder.addMapping(code, toUnicode(code));
+            }
+        }
+    }
+
+    /**
+     * Writes the ranges, the codes are stored as deltas to the previous range.
+     */
+    void writeTo(DataOutputStream out) throws IOException
+    {
+        CMap.writeVarInt(out, startCodes.length);
+        int nextCode = 0;
+        for (int i = 0; i < startCodes.length; i++)
+        {
+            CMap.writeVarInt(out, CMap.zigZag(startCodes[i] - nextCode));
+            CMap.writeVarInt(out, endCodes[i] - startCodes[i]);
+            out.writeUTF(startStrings[i]);
+            nextCode = endCodes[i] + 1;
+        }
+    }
+
+    /**
+     * Reads the ranges written by {@link #writeTo(DataOutputStream)}.
+     */
+    static CodeToUnicodeTable readFrom(DataInputStream in) throws IOException
+    {
+        int rangeCount = CMap.readVarInt(in);
+        if (rangeCount == 0)
+        {
+            return EMPTY;
+        }
+        // every range takes at least 4 bytes
+        if (rangeCount < 0 || rangeCount > in.available() / 4)
+        {
+            throw new IOException("Invalid number of ranges in compiled CMap");
+        }
+        int[] startCodes = new int[rangeCount];
+        int[] endCodes = new int[rangeCount];
+        String[] startStrings = new String[rangeCount];
+        int nextCode = 0;
+        for (int i = 0; i < rangeCount; i++)
+        {
+            startCodes[i] = nextCode + CMap.unZigZag(CMap.readVarInt(in));
+            endCodes[i] = startCodes[i] + CMap.readVarInt(in);
+            String unicode = in.readUTF();
+            startStrings[i] = unicode.length() == 1 ? valueOf(unicode.charAt(0)) : unicode;
+            nextCode = endCodes[i] + 1;
+        }
+        return new CodeToUnicodeTable(startCodes, endCodes, startStrings);
+    }
+
+    /**
+     * Collects the mappings while a CMap is parsed, a later mapping of the same code wins.
+     */
+    static final class Builder
+    {
+        private int[] codes = new int[16];
+        private String[] strings = new String[16];
+        private int count;
+
+        void addMapping(int code, String unicode)
+        {
+            if (count == codes.length)
+            {
+                codes = Arrays.copyOf(codes, count * 2);
+                strings = Arrays.copyOf(strings, count * 2);
+            }
+            codes[count] = code;
+            strings[count] = unicode.length() == 1 ? valueOf(unicode.charAt(0)) : unicode;
+            count++;
+        }
+
+        CodeToUnicodeTable build()
+        {
+            if (count == 0)
+            {
+                return EMPTY;
+            }
+            long[] sorted = new long[count];
+            for (int i = 0; i < count; i++)
+            {
+                // sort by code and then by the index of the mapping
+                sorted[i] = (long) codes[i] << 32 | i;
+            }
+            Arrays.sort(sorted);
+            int[] startCodes = new int[count];
+            int[] endCodes = new int[count];
+            String[] startStrings = new String[count];
+            int rangeCount = 0;
+            for (int i = 0; i < sorted.length; i++)
+            {
+                if (i + 1 < sorted.length && sorted[i + 1] >>> 32 == sorted[i] >>> 32)
+                {
+                    continue;
+                }
+                int index = (int) sorted[i];
+                int code = codes[index];
+                String unicode = strings[index];
+                if (rangeCount > 0 && code == endCodes[rangeCount - 1] + 1 && unicode.length() == 1
+                    && startStrings[rangeCount - 1].length() == 1
+                    && unicode.charAt(0) == startStrings[rangeCount - 1].charAt(0) + code - startCodes[rangeCount - 1])
+                {
+                    endCodes[rangeCount - 1] = code;
+                }
+                else
+                {
+                    startCodes[rangeCount] = code;
+                    endCodes[rangeCount] = code;
+                    startStrings[rangeCount] = unicode;
+                    rangeCount++;
+                }
+            }
+            return new CodeToUnicodeTable(Arrays.copyOf(startCodes, rangeCount),
+                Arrays.copyOf(endCodes, rangeCount), Arrays.copyOf(startStrings, rangeCount));
+        }
+    }
+}
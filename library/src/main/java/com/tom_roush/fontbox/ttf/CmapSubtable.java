@@ -21,15 +21,17 @@ import android.util.Log;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 
 /**
  * A "cmap" subtable.
  *
+ * The character code to glyph id mapping isn't expanded, it is kept as sorted ranges of character
+ * codes, which are looked up with a binary search. The gid to character code mapping is built on
+ * first use.
+ *
  * @author Ben Litchfield
  */
 public class CmapSubtable implements CmapLookup
@@ -40,9 +42,22 @@ public class CmapSubtable implements CmapLookup
     private int platformId;
     private int platformEncodingId;
     private long subTableOffset;
-    private int[] glyphIdToCharacterCode;
-    private final Map<Integer, List<Integer>> glyphIdToCharacterCodeMultiple = new HashMap<Integer, List<Integer>>();
-    private Map<Integer, Integer> characterCodeToGlyphId= new HashMap<Integer, Integer>();
+
+    // the glyph id of a range is its code plus the delta
+    private static final int DELTA_RANGE = -1;
+    // all codes of a range map to the same glyph id, which is kept as delta
+    private static final int CONSTANT_RANGE = -2;
+
+    // ranges of character codes, sorted by their start code
+    private int rangeCount;
+    private int[] rangeStartCodes = new int[0];
+    private int[] rangeEndCodes = new int[0];
+    private int[] rangeIdDeltas = new int[0];
+    // DELTA_RANGE, CONSTANT_RANGE or the index of the first glyph index of a range in glyphIndexArray
+    private int[] rangeGlyphIndexOffsets = new int[0];
+    private int[] glyphIndexArray = new int[0];
+    private int glyphIndexCount;
+    private volatile GlyphIdToCharacterCodes glyphIdToCharacterCodes;
 
     /**
      * This will read the required data from the stream.
@@ -137,8 +152,8 @@ public class CmapSubtable implements CmapLookup
             throw new IOException("CMap ( Subtype8 ) is invalid");
         }
 
-        glyphIdToCharacterCode = newGlyphIdToCharacterCode(numGlyphs);
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
+        // the converted codes aren't contiguous, collect them before building the ranges
+        Map<Integer, Integer> characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
         // -- Read all sub header
         for (long i = 0; i < nbGroups; ++i)
         {
@@ -186,10 +201,10 @@ public class CmapSubtable implements CmapLookup
                     throw new IOException("CMap contains an invalid glyph index");
                 }
 
-                glyphIdToCharacterCode[(int) glyphIndex] = currentCharCode;
                 characterCodeToGlyphId.put(currentCharCode, (int) glyphIndex);
             }
         }
+        setRanges(characterCodeToGlyphId);
     }
 
     /**
@@ -226,8 +241,6 @@ public class CmapSubtable implements CmapLookup
     protected void processSubtype12(TTFDataStream data, int numGlyphs) throws IOException
     {
         long nbGroups = data.readUnsignedInt();
-        glyphIdToCharacterCode = newGlyphIdToCharacterCode(numGlyphs);
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
         for (long i = 0; i < nbGroups; ++i)
         {
             long firstCode = data.readUnsignedInt();
@@ -247,24 +260,19 @@ public class CmapSubtable implements CmapLookup
                 throw new IOException("Invalid characters codes");
             }
 
-            for (long j = 0; j <= endCode - firstCode; ++j)
+            if (startGlyph + endCode - firstCode >= numGlyphs)
             {
-                long glyphIndex = startGlyph + j;
-                if (glyphIndex >= numGlyphs)
-                {
-                    Log.w("PdfBox-Android", "Format 12 cmap contains an invalid glyph index");
-                    break;
-                }
-
-                if (firstCode + j > 0x10FFFF)
-                {
-                    Log.w("PdfBox-Android", "Format 12 cmap contains character beyond UCS-4");
-                }
+                Log.w("PdfBox-Android", "Format 12 cmap contains an invalid glyph index");
+                // keep the codes mapped to valid glyph indices
+                endCode = firstCode + numGlyphs - 1 - startGlyph;
+            }
 
-                glyphIdToCharacterCode[(int) glyphIndex] = (int) (firstCode + j);
-                characterCodeToGlyphId.put((int) (firstCode + j), (int) glyphIndex);
+            if (endCode >= firstCode)
+            {
+                addRange((int) firstCode, (int) endCode, (int) (startGlyph - firstCode), DELTA_RANGE);
             }
         }
+        finishRanges();
     }
 
     /**
@@ -277,7 +285,6 @@ public class CmapSubtable implements CmapLookup
     protected void processSubtype13(TTFDataStream data, int numGlyphs) throws IOException
     {
         long nbGroups = data.readUnsignedInt();
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
         for (long i = 0; i < nbGroups; ++i)
         {
             long firstCode = data.readUnsignedInt();
@@ -301,22 +308,12 @@ public class CmapSubtable implements CmapLookup
                 throw new IOException("Invalid Characters codes");
             }
 
-            for (long j = 0; j <= endCode - firstCode; ++j)
+            if (endCode >= firstCode)
             {
-                if (firstCode + j > Integer.MAX_VALUE)
-                {
-                    throw new IOException("Character Code greater than Integer.MAX_VALUE");
-                }
-
-                if (firstCode + j > 0x10FFFF)
-                {
-                    Log.w("PdfBox-Android", "Format 13 cmap contains character beyond UCS-4");
-                }
-
-                glyphIdToCharacterCode[(int) glyphId] = (int) (firstCode + j);
-                characterCodeToGlyphId.put((int) (firstCode + j), (int) glyphId);
+                addRange((int) firstCode, (int) endCode, (int) glyphId, CONSTANT_RANGE);
             }
         }
+        finishRanges();
     }
 
     /**
@@ -349,15 +346,9 @@ public class CmapSubtable implements CmapLookup
         {
             return;
         }
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
         int[] glyphIdArray = data.readUnsignedShortArray(entryCount);
-        int maxGlyphId = 0;
-        for (int i = 0; i < entryCount; i++)
-        {
-            maxGlyphId = Math.max(maxGlyphId, glyphIdArray[i]);
-            characterCodeToGlyphId.put(firstCode + i, glyphIdArray[i]);
-        }
-        buildGlyphIdToCharacterCodeLookup(maxGlyphId);
+        addRange(firstCode, firstCode + entryCount - 1, 0, addGlyphIndices(glyphIdArray));
+        finishRanges();
     }
 
     /**
@@ -381,79 +372,33 @@ public class CmapSubtable implements CmapLookup
         long idRangeOffsetPosition = data.getCurrentPosition();
         int[] idRangeOffset = data.readUnsignedShortArray(segCount);
 
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
-        int maxGlyphId = 0;
-
         for (int i = 0; i < segCount; i++)
         {
             int start = startCount[i];
             int end = endCount[i];
             int delta = idDelta[i];
             int rangeOffset = idRangeOffset[i];
-            long segmentRangeOffset = idRangeOffsetPosition + (i * 2) + rangeOffset;
-            if (start != 65535 && end != 65535)
+            if (start != 65535 && end != 65535 && start <= end)
             {
-                for (int j = start; j <= end; j++)
+                if (rangeOffset == 0)
                 {
-                    if (rangeOffset == 0)
-                    {
-                        int glyphid = (j + delta) & 0xFFFF;
-                        maxGlyphId = Math.max(glyphid, maxGlyphId);
-                        characterCodeToGlyphId.put(j, glyphid);
-                    }
-                    else
-                    {
-                        long glyphOffset = segmentRangeOffset + ((j - start) * 2);
-                        data.seek(glyphOffset);
-                        int glyphIndex = data.readUnsignedShort();
-                        if (glyphIndex != 0)
-                        {
-                            glyphIndex = (glyphIndex + delta) & 0xFFFF;
-                            maxGlyphId = Math.max(glyphIndex, maxGlyphId);
-                            characterCodeToGlyphId.put(j, glyphIndex);
-                        }
-                    }
+                    addRange(start, end, delta, DELTA_RANGE);
+                }
+                else
+                {
+                    data.seek(idRangeOffsetPosition + (i * 2) + rangeOffset);
+                    int[] glyphIndices = data.readUnsignedShortArray(end - start + 1);
+                    addRange(start, end, delta, addGlyphIndices(glyphIndices));
                 }
             }
         }
 
-        /*
-         * this is the final result key=glyphId, value is character codes Create an array that contains MAX(GlyphIds)
-         * element, or -1
-         */
-        if (characterCodeToGlyphId.isEmpty())
+        if (rangeCount == 0)
         {
             Log.w("PdfBox-Android", "cmap format 4 subtable is empty");
             return;
         }
-        buildGlyphIdToCharacterCodeLookup(maxGlyphId);
-    }
-
-    private void buildGlyphIdToCharacterCodeLookup(int maxGlyphId)
-    {
-        glyphIdToCharacterCode = newGlyphIdToCharacterCode(maxGlyphId + 1);
-        for (Entry<Integer, Integer> entry : characterCodeToGlyphId.entrySet())
-        {
-            if (glyphIdToCharacterCode[entry.getValue()] == -1)
-            {
-                // add new value to the array
-                glyphIdToCharacterCode[entry.getValue()] = entry.getKey();
-            }
-            else
-            {
-                // there is already a mapping for the given glyphId
-                List<Integer> mappedValues = glyphIdToCharacterCodeMultiple.get(entry.getValue());
-                if (mappedValues == null)
-                {
-                    mappedValues = new ArrayList<Integer>();
-                    glyphIdToCharacterCodeMultiple.put(entry.getValue(), mappedValues);
-                    mappedValues.add(glyphIdToCharacterCode[entry.getValue()]);
-                    // mark value as multiple mapping
-                    glyphIdToCharacterCode[entry.getValue()] = Integer.MIN_VALUE;
-                }
-                mappedValues.add(entry.getKey());
-            }
-        }
+        finishRanges();
     }
 
     /**
@@ -485,8 +430,6 @@ public class CmapSubtable implements CmapLookup
             subHeaders[i] = new SubHeader(firstCode, entryCount, idDelta, idRangeOffset);
         }
         long startGlyphIndexOffset = data.getCurrentPosition();
-        glyphIdToCharacterCode = newGlyphIdToCharacterCode(numGlyphs);
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(numGlyphs);
         for (int i = 0; i <= maxSubHeaderIndex; ++i)
         {
             SubHeader sh = subHeaders[i];
@@ -494,13 +437,14 @@ public class CmapSubtable implements CmapLookup
             int idRangeOffset = sh.getIdRangeOffset();
             int idDelta = sh.getIdDelta();
             int entryCount = sh.getEntryCount();
+            if (entryCount == 0)
+            {
+                continue;
+            }
             data.seek(startGlyphIndexOffset + idRangeOffset);
+            int[] glyphIndices = new int[entryCount];
             for (int j = 0; j < entryCount; ++j)
             {
-                // ---- compute the Character Code
-                int charCode = i;
-                charCode = (charCode << 8) + (firstCode + j);
-
                 // ---- Go to the CharacterCOde position in the Sub Array
                 // of the glyphIndexArray
                 // glyphIndexArray contains Unsigned Short so add (j * 2) bytes
@@ -518,14 +462,17 @@ public class CmapSubtable implements CmapLookup
 
                 if (p >= numGlyphs)
                 {
-                    Log.w("PdfBox-Android", "glyphId " + p + " for charcode " + charCode + " ignored, numGlyphs is " + numGlyphs);
+                    Log.w("PdfBox-Android", "glyphId " + p + " for charcode " + ((i << 8) + firstCode + j) + " ignored, numGlyphs is " + numGlyphs);
                     continue;
                 }
 
-                glyphIdToCharacterCode[p] = charCode;
-                characterCodeToGlyphId.put(charCode, p);
+                glyphIndices[j] = p;
             }
+            // ---- compute the Character Code
+            int charCode = (i << 8) + firstCode;
+            addRange(charCode, charCode + entryCount - 1, 0, addGlyphIndices(glyphIndices));
         }
+        finishRanges();
     }
 
     /**
@@ -537,25 +484,142 @@ public class CmapSubtable implements CmapLookup
     protected void processSubtype0(TTFDataStream data) throws IOException
     {
         byte[] glyphMapping = data.read(256);
-        glyphIdToCharacterCode = newGlyphIdToCharacterCode(256);
-        characterCodeToGlyphId = new HashMap<Integer, Integer>(glyphMapping.length);
+        int[] glyphIndices = new int[glyphMapping.length];
         for (int i = 0; i < glyphMapping.length; i++)
         {
-            int glyphIndex = glyphMapping[i] & 0xFF;
-            glyphIdToCharacterCode[glyphIndex] = i;
-            characterCodeToGlyphId.put(i, glyphIndex);
+            glyphIndices[i] = glyphMapping[i] & 0xFF;
+        }
+        addRange(0, glyphIndices.length - 1, 0, addGlyphIndices(glyphIndices));
+        finishRanges();
+    }
+
+    /**
+     * Adds a range of character codes.
+     *
+     * @param startCode the first code of the range
+     * @param endCode the last code of the range
+     * @param idDelta the delta added to the code or the glyph index, or the glyph id of a
+     * constant range
+     * @param glyphIndexOffset DELTA_RANGE, CONSTANT_RANGE or the offset returned by
+     * {@link #addGlyphIndices(int[])}
+     */
+    private void addRange(int startCode, int endCode, int idDelta, int glyphIndexOffset)
+    {
+        if (rangeCount == rangeStartCodes.length)
+        {
+            int capacity = Math.max(16, rangeCount * 2);
+            rangeStartCodes = Arrays.copyOf(rangeStartCodes, capacity);
+            rangeEndCodes = Arrays.copyOf(rangeEndCodes, capacity);
+            rangeIdDeltas = Arrays.copyOf(rangeIdDeltas, capacity);
+            rangeGlyphIndexOffsets = Arrays.copyOf(rangeGlyphIndexOffsets, capacity);
+        }
+        rangeStartCodes[rangeCount] = startCode;
+        rangeEndCodes[rangeCount] = endCode;
+        rangeIdDeltas[rangeCount] = idDelta;
+        rangeGlyphIndexOffsets[rangeCount] = glyphIndexOffset;
+        rangeCount++;
+    }
+
+    /**
+     * Adds the glyph indices of a range, an index of 0 means there is no glyph.
+     *
+     * @return the offset of the first index in the glyph index array
+     */
+    private int addGlyphIndices(int[] glyphIndices)
+    {
+        if (glyphIndexCount + glyphIndices.length > glyphIndexArray.length)
+        {
+            int capacity = Math.max(glyphIndexCount + glyphIndices.length, glyphIndexCount * 2);
+            glyphIndexArray = Arrays.copyOf(glyphIndexArray, capacity);
+        }
+        int offset = glyphIndexCount;
+        System.arraycopy(glyphIndices, 0, glyphIndexArray, offset, glyphIndices.length);
+        glyphIndexCount += glyphIndices.length;
+        return offset;
+    }
+
+    /**
+     * Trims the arrays of the ranges. Ranges which aren't sorted or overlap are rebuilt, a later
+     * range wins for a code which is in more than one range.
+     */
+    private void finishRanges()
+    {
+        for (int i = 1; i < rangeCount; i++)
+        {
+            if (rangeStartCodes[i] <= rangeEndCodes[i - 1])
+            {
+                Map<Integer, Integer> characterCodeToGlyphId = new HashMap<Integer, Integer>();
+                for (int range = 0; range < rangeCount; range++)
+                {
+                    for (int code = rangeStartCodes[range]; code <= rangeEndCodes[range]; code++)
+                    {
+                        int glyphId = getGlyphId(range, code);
+                        if (glyphId >= 0)
+                        {
+                            characterCodeToGlyphId.put(code, glyphId);
+                        }
+                    }
+                }
+                setRanges(characterCodeToGlyphId);
+                return;
+            }
+        }
+        rangeStartCodes = Arrays.copyOf(rangeStartCodes, rangeCount);
+        rangeEndCodes = Arrays.copyOf(rangeEndCodes, rangeCount);
+        rangeIdDeltas = Arrays.copyOf(rangeIdDeltas, rangeCount);
+        rangeGlyphIndexOffsets = Arrays.copyOf(rangeGlyphIndexOffsets, rangeCount);
+        glyphIndexArray = Arrays.copyOf(glyphIndexArray, glyphIndexCount);
+    }
+
+    /**
+     * Replaces the ranges with the given mapping, consecutive codes mapped to consecutive glyph
+     * ids are joined to one range.
+     */
+    private void setRanges(Map<Integer, Integer> characterCodeToGlyphId)
+    {
+        int[] codes = new int[characterCodeToGlyphId.size()];
+        int i = 0;
+        for (Integer code : characterCodeToGlyphId.keySet())
+        {
+            codes[i++] = code;
         }
+        Arrays.sort(codes);
+        rangeCount = 0;
+        glyphIndexCount = 0;
+        glyphIndexArray = new int[0];
+        int start = 0;
+        for (i = 1; i <= codes.length; i++)
+        {
+            if (i == codes.length || codes[i] != codes[i - 1] + 1
+                || characterCodeToGlyphId.get(codes[i]) != characterCodeToGlyphId.get(codes[i - 1]) + 1)
+            {
+                int startCode = codes[start];
+                addRange(startCode, codes[i - 1], characterCodeToGlyphId.get(startCode) - startCode,
+                    DELTA_RANGE);
+                start = i;
+            }
+        }
+        finishRanges();
     }
 
     /**
-     * Workaround for the fact that glyphIdToCharacterCode doesn't distinguish between
-     * missing character codes and code 0.
+     * Returns the glyph id of a code of the given range.
+     *
+     * @return the glyph id, or -1 if the code isn't mapped
      */
-    private int[] newGlyphIdToCharacterCode(int size)
+    private int getGlyphId(int range, int characterCode)
     {
-        int[] gidToCode = new int[size];
-        Arrays.fill(gidToCode, -1);
-        return gidToCode;
+        int glyphIndexOffset = rangeGlyphIndexOffsets[range];
+        if (glyphIndexOffset == DELTA_RANGE)
+        {
+            return (characterCode + rangeIdDeltas[range]) & 0xFFFF;
+        }
+        if (glyphIndexOffset == CONSTANT_RANGE)
+        {
+            return rangeIdDeltas[range];
+        }
+        int glyphIndex = glyphIndexArray[glyphIndexOffset + characterCode - rangeStartCodes[range]];
+        return glyphIndex == 0 ? -1 : (glyphIndex + rangeIdDeltas[range]) & 0xFFFF;
     }
 
     /**
@@ -599,8 +663,25 @@ public class CmapSubtable implements CmapLookup
     @Override
     public int getGlyphId(int characterCode)
     {
-        Integer glyphId = characterCodeToGlyphId.get(characterCode);
-        return glyphId == null ? 0 : glyphId;
+        int low = 0;
+        int high = rangeCount - 1;
+        while (low <= high)
+        {
+            int mid = (low + high) >>> 1;
+            if (characterCode < rangeStartCodes[mid])
+            {
+                high = mid - 1;
+            }
+            else if (characterCode > rangeEndCodes[mid])
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                return Math.max(getGlyphId(mid, characterCode), 0);
+            }
+        }
+        return 0;
     }
 
     /**
@@ -609,36 +690,17 @@ public class CmapSubtable implements CmapLookup
      * @param gid glyph id
      * @return character code
      *
-     * @deprecated the mapping may be ambiguous, see {@link #getCharCodes(int)}. The first mapped value is returned by
+     * @deprecated the mapping may be ambiguous, see {@link #getCharCodes(int)}. The lowest mapped value is returned by
      * default.
      */
     public Integer getCharacterCode(int gid)
     {
-        int code = getCharCode(gid);
-        if (code == -1)
+        GlyphIdToCharacterCodes lookup = getGlyphIdToCharacterCodes();
+        if (gid < 0 || gid >= lookup.offsets.length - 1 || lookup.offsets[gid] == lookup.offsets[gid + 1])
         {
             return null;
         }
-        // ambiguous mapping
-        if (code == Integer.MIN_VALUE)
-        {
-            List<Integer> mappedValues = glyphIdToCharacterCodeMultiple.get(gid);
-            if (mappedValues != null)
-            {
-                // use the first mapping
-                return mappedValues.get(0);
-            }
-        }
-        return code;
-    }
-
-    private int getCharCode(int gid)
-    {
-        if (gid < 0 || gid >= glyphIdToCharacterCode.length)
-        {
-            return -1;
-        }
-        return glyphIdToCharacterCode[gid];
+        return lookup.codes[lookup.offsets[gid]];
     }
 
     /**
@@ -651,28 +713,30 @@ public class CmapSubtable implements CmapLookup
     @Override
     public List<Integer> getCharCodes(int gid)
     {
-        int code = getCharCode(gid);
-        if (code == -1)
+        GlyphIdToCharacterCodes lookup = getGlyphIdToCharacterCodes();
+        if (gid < 0 || gid >= lookup.offsets.length - 1 || lookup.offsets[gid] == lookup.offsets[gid + 1])
         {
             return null;
         }
-        List<Integer> codes = null;
-        if (code == Integer.MIN_VALUE)
+        // the codes are sorted to provide a reliable order
+        List<Integer> codes = new ArrayList<Integer>(lookup.offsets[gid + 1] - lookup.offsets[gid]);
+        for (int i = lookup.offsets[gid]; i < lookup.offsets[gid + 1]; i++)
         {
-            List<Integer> mappedValues = glyphIdToCharacterCodeMultiple.get(gid);
-            if (mappedValues != null)
-            {
-                codes = new ArrayList<Integer>(mappedValues);
-                // sort the list to provide a reliable order
-                Collections.sort(codes);
-            }
+            codes.add(lookup.codes[i]);
         }
-        else
+        return codes;
+    }
+
+    private GlyphIdToCharacterCodes getGlyphIdToCharacterCodes()
+    {
+        GlyphIdToCharacterCodes lookup = glyphIdToCharacterCodes;
+        if (lookup == null)
         {
-            codes = new ArrayList<Integer>(1);
-            codes.add(code);
+            // building it twice in concurrent threads does no harm
+            lookup = new GlyphIdToCharacterCodes();
+            glyphIdToCharacterCodes = lookup;
         }
-        return codes;
+        return lookup;
     }
 
     @Override
@@ -681,6 +745,55 @@ public class CmapSubtable implements CmapLookup
         return "{" + getPlatformId() + " " + getPlatformEncodingId() + "}";
     }
 
+    /**
+     * The codes of all glyph ids, the codes of a glyph id are sorted and start at its offset.
+     */
+    private final class GlyphIdToCharacterCodes
+    {
+        private final int[] offsets;
+        private final int[] codes;
+
+        private GlyphIdToCharacterCodes()
+        {
+            // count the codes of each glyph id, glyph ids are unsigned shorts
+            int[] counts = new int[65536];
+            int maxGlyphId = -1;
+            int codeCount = 0;
+            for (int range = 0; range < rangeCount; range++)
+            {
+                for (int code = rangeStartCodes[range]; code <= rangeEndCodes[range]; code++)
+                {
+                    int glyphId = getGlyphId(range, code);
+                    if (glyphId >= 0)
+                    {
+                        counts[glyphId]++;
+                        maxGlyphId = Math.max(maxGlyphId, glyphId);
+                        codeCount++;
+                    }
+                }
+            }
+            offsets = new int[maxGlyphId + 2];
+            for (int glyphId = 0; glyphId <= maxGlyphId; glyphId++)
+            {
+                offsets[glyphId + 1] = offsets[glyphId] + counts[glyphId];
+            }
+            // the ranges are sorted, so the codes of each glyph id are added in ascending order
+            codes = new int[codeCount];
+            int[] next = Arrays.copyOf(offsets, maxGlyphId + 1);
+            for (int range = 0; range < rangeCount; range++)
+            {
+                for (int code = rangeStartCodes[range]; code <= rangeEndCodes[range]; code++)
+                {
+                    int glyphId = getGlyphId(range, code);
+                    if (glyphId >= 0)
+                    {
+                        codes[next[glyphId]++] = code;
+                    }
+                }
+            }
+        }
+    }
+
     /**
      *
      * Class used to manage CMap - Format 2.
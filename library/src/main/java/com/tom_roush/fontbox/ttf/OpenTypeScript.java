@@ -18,19 +18,24 @@ package com.tom_roush.fontbox.ttf;
 
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.LineNumberReader;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.StringTokenizer;
 import java.util.TreeMap;
 
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.io.IOUtils;
 
 /**
  * A class for mapping Unicode codepoints to OpenType script tags
@@ -212,12 +217,88 @@ public final class OpenTypeScript
         }
     }
 
-    private static int[] unicodeRangeStarts;
-    private static String[] unicodeRangeScripts;
+    // "UCS" and the version of the compiled format of Scripts.txt
+    static final int COMPILED_MAGIC = 0x55435301;
+
+    private static UnicodeRanges unicodeRanges;
 
     static
     {
         String path = "com/tom_roush/fontbox/resources/unicode/Scripts.txt";
+        if (!loadCompiledScriptsFile(path + ".bin"))
+        {
+            loadScriptsFile(path);
+        }
+    }
+
+    /**
+     * The unicode scripts of Scripts.txt, as the sorted first code points of the ranges and the
+     * script of each range.
+     */
+    static final class UnicodeRanges
+    {
+        private final int[] starts;
+        private final String[] scripts;
+
+        UnicodeRanges(int[] starts, String[] scripts)
+        {
+            this.starts = starts;
+            this.scripts = scripts;
+        }
+
+        UnicodeRanges(Map<int[], String> unicodeRanges)
+        {
+            starts = new int[unicodeRanges.size()];
+            scripts = new String[unicodeRanges.size()];
+            int i = 0;
+            for (Entry<int[], String> e : unicodeRanges.entrySet())
+            {
+                starts[i] = e.getKey()[0];
+                scripts[i] = e.getValue();
+                i++;
+            }
+        }
+
+        /**
+         * Obtain the OpenType script tags associated with the given Unicode codepoint.
+         *
+         * @param codePoint
+         * @return An array of four-char script tags
+         */
+        String[] getScriptTags(int codePoint)
+        {
+            ensureValidCodePoint(codePoint);
+            return UNICODE_SCRIPT_TO_OPENTYPE_TAG_MAP.get(getUnicodeScript(codePoint));
+        }
+
+        /**
+         * Obtain the Unicode script associated with the given Unicode codepoint.
+         *
+         * @param codePoint
+         * @return A Unicode script string, or {@code #UNKNOWN} if unknown
+         */
+        private String getUnicodeScript(int codePoint)
+        {
+            int type = Character.getType(codePoint);
+            if (type == Character.UNASSIGNED)
+            {
+                return UNKNOWN;
+            }
+            int scriptIndex = Arrays.binarySearch(starts, codePoint);
+            if (scriptIndex < 0)
+            {
+                scriptIndex = -scriptIndex - 2;
+            }
+            return scripts[scriptIndex];
+        }
+    }
+
+    private OpenTypeScript()
+    {
+    }
+
+    private static void loadScriptsFile(String path)
+    {
         InputStream input = null;
         try
         {
@@ -233,7 +314,7 @@ public final class OpenTypeScript
             }
             if (input != null)
             {
-                parseScriptsFile(input);
+                unicodeRanges = new UnicodeRanges(parseScriptsFile(input));
             }
             else
             {
@@ -261,11 +342,80 @@ public final class OpenTypeScript
         }
     }
 
-    private OpenTypeScript()
+    /**
+     * Loads the compiled form of Scripts.txt if it exists.
+     *
+     * @return true if the unicode ranges were loaded
+     */
+    private static boolean loadCompiledScriptsFile(String path)
     {
+        InputStream input = PDFBoxResourceLoader.getOptionalStream(path);
+        if (input == null)
+        {
+            return false;
+        }
+        try
+        {
+            unicodeRanges = readCompiledScriptsFile(input);
+            return true;
+        }
+        catch (IOException e)
+        {
+            Log.w("PdfBox-Android", "Could not read " + path + ", parsing Scripts.txt instead: "
+                + e.getMessage());
+            return false;
+        }
+        catch (RuntimeException e)
+        {
+            // a damaged file may have invalid counts or indexes
+            Log.w("PdfBox-Android", "Could not read " + path + ", parsing Scripts.txt instead: "
+                + e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads the unicode ranges in the binary form written by the resource compiler at build time.
+     * The input stream is closed when the reading is finished.
+     */
+    static UnicodeRanges readCompiledScriptsFile(InputStream input) throws IOException
+    {
+        try
+        {
+            // read completely, so that the counts can be checked against the remaining length
+            DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(IOUtils.toByteArray(input)));
+            if (data.readInt() != COMPILED_MAGIC)
+            {
+                throw new IOException("Unknown format");
+            }
+            String[] scripts = new String[data.readUnsignedShort()];
+            for (int i = 0; i < scripts.length; i++)
+            {
+                scripts[i] = data.readUTF();
+            }
+            int rangeCount = data.readInt();
+            // every range takes 6 bytes
+            if (rangeCount < 0 || rangeCount > data.available() / 6)
+            {
+                throw new IOException("Invalid number of ranges " + rangeCount);
+            }
+            int[] starts = new int[rangeCount];
+            String[] rangeScripts = new String[rangeCount];
+            for (int i = 0; i < rangeCount; i++)
+            {
+                starts[i] = data.readInt();
+                rangeScripts[i] = scripts[data.readUnsignedShort()];
+            }
+            return new UnicodeRanges(starts, rangeScripts);
+        }
+        finally
+        {
+            input.close();
+        }
     }
 
-    private static void parseScriptsFile(InputStream inputStream) throws IOException
+    static Map<int[], String> parseScriptsFile(InputStream inputStream) throws IOException
     {
         Map<int[], String> unicodeRanges = new TreeMap<int[], String>(new Comparator<int[]>()
         {
@@ -331,38 +481,7 @@ public final class OpenTypeScript
         }
         while (true);
         rd.close();
-
-        unicodeRangeStarts = new int[unicodeRanges.size()];
-        unicodeRangeScripts = new String[unicodeRanges.size()];
-        int i = 0;
-        for (Entry<int[], String> e : unicodeRanges.entrySet())
-        {
-            unicodeRangeStarts[i] = e.getKey()[0];
-            unicodeRangeScripts[i] = e.getValue();
-            i++;
-        }
-    }
-
-    /**
-     * Obtain the Unicode script associated with the given Unicode codepoint.
-     *
-     * @param codePoint
-     * @return A Unicode script string, or {@code #UNKNOWN} if unknown
-     */
-    private static String getUnicodeScript(int codePoint)
-    {
-        ensureValidCodePoint(codePoint);
-        int type = Character.getType(codePoint);
-        if (type == Character.UNASSIGNED)
-        {
-            return UNKNOWN;
-        }
-        int scriptIndex = Arrays.binarySearch(unicodeRangeStarts, codePoint);
-        if (scriptIndex < 0)
-        {
-            scriptIndex = -scriptIndex - 2;
-        }
-        return unicodeRangeScripts[scriptIndex];
+        return unicodeRanges;
     }
 
     /**
@@ -378,9 +497,7 @@ public final class OpenTypeScript
      */
     public static String[] getScriptTags(int codePoint)
     {
-        ensureValidCodePoint(codePoint);
-        String unicode = getUnicodeScript(codePoint);
-        return UNICODE_SCRIPT_TO_OPENTYPE_TAG_MAP.get(unicode);
+        return unicodeRanges.getScriptTags(codePoint);
     }
 
     private static void ensureValidCodePoint(int codePoint)
@@ -68,4 +68,29 @@ public class PDFBoxResourceLoader
         }
         return ASSET_MANAGER.open(path);
     }
+
+    /**
+     * Loads an optional resource file located in the assets folder, or from the class path if the
+     * loader hasn't been initialized.
+     *
+     * @param path the path to the resource
+     *
+     * @return the resource as an InputStream, or null if the resource doesn't exist
+     */
+    public static InputStream getOptionalStream(String path)
+    {
+        if (ASSET_MANAGER == null)
+        {
+            // Fallback
+            return PDFBoxResourceLoader.class.getClassLoader().getResourceAsStream(path);
+        }
+        try
+        {
+            return ASSET_MANAGER.open(path);
+        }
+        catch (IOException e)
+        {
+            return null;
+        }
+    }
 }
@@ -25,6 +25,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -73,6 +74,10 @@ public abstract class PDFStreamEngine
 {
     private final Map<String, OperatorProcessor> operators = new HashMap<String, OperatorProcessor>(80);
 
+    // processors by Operator.getIndex(), looked up in the operators map on first use
+    private final OperatorProcessor[] processorsByIndex = new OperatorProcessor[Operator.MAX_INDEX];
+    private final boolean[] processorResolved = new boolean[Operator.MAX_INDEX];
+
     private Matrix textMatrix;
     private Matrix textLineMatrix;
 
@@ -102,6 +107,7 @@ public abstract class PDFStreamEngine
     {
         op.setContext(this);
         operators.put(operator, op);
+        Arrays.fill(processorResolved, false);
     }
 
     /**
@@ -113,6 +119,7 @@ public abstract class PDFStreamEngine
     {
         op.setContext(this);
         operators.put(op.getName(), op);
+        Arrays.fill(processorResolved, false);
     }
 
     /**
@@ -838,8 +845,7 @@ public abstract class PDFStreamEngine
      */
     protected void processOperator(Operator operator, List<COSBase> operands) throws IOException
     {
-        String name = operator.getName();
-        OperatorProcessor processor = operators.get(name);
+        OperatorProcessor processor = getOperatorProcessor(operator);
         if (processor != null)
         {
             processor.setContext(this);
@@ -858,6 +864,24 @@ public abstract class PDFStreamEngine
         }
     }
 
+    /**
+     * Returns the processor of the given operator, or null if there is none.
+     */
+    private OperatorProcessor getOperatorProcessor(Operator operator)
+    {
+        int index = operator.getIndex();
+        if (index < 0)
+        {
+            return operators.get(operator.getName());
+        }
+        if (!processorResolved[index])
+        {
+            processorsByIndex[index] = operators.get(operator.getName());
+            processorResolved[index] = true;
+        }
+        return processorsByIndex[index];
+    }
+
     /**
      * Called when an unsupported operator is encountered.
      *
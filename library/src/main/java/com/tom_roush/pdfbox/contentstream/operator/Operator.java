@@ -18,6 +18,7 @@ package com.tom_roush.pdfbox.contentstream.operator;
 
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import com.tom_roush.pdfbox.cos.COSDictionary;
 
@@ -28,26 +29,35 @@ import com.tom_roush.pdfbox.cos.COSDictionary;
  */
 public final class Operator
 {
+    /** number of distinct singleton operators which get an index */
+    public static final int MAX_INDEX = 256;
+
     private final String theOperator;
+    private final int index;
     private byte[] imageData;
     private COSDictionary imageParameters;
 
     /** map for singleton operator objects; use {@link ConcurrentHashMap} for better scalability with multiple threads */
     private static final ConcurrentMap<String,Operator> operators = new ConcurrentHashMap<String, Operator>();
 
+    private static final AtomicInteger nextIndex = new AtomicInteger();
+
     /**
      * Constructor.
      *
      * @param aOperator The operator that this object will represent.
+     * @param singleton true if the operator is cached and may therefore get an index.
      * @throws IllegalArgumentException if the operator starts with "/".
      */
-    private Operator(String aOperator)
+    private Operator(String aOperator, boolean singleton)
     {
         theOperator = aOperator;
         if( aOperator.startsWith( "/" ) )
         {
             throw new IllegalArgumentException( "Operators are not allowed to start with / '" + aOperator + "'" );
         }
+        int i = singleton && nextIndex.get() < MAX_INDEX ? nextIndex.getAndIncrement() : -1;
+        index = i < MAX_INDEX ? i : -1;
     }
 
     /**
@@ -63,7 +73,7 @@ public final class Operator
         if( operator.equals( "ID" ) || operator.equals( "BI" ) )
         {
             //we can't cache the ID operators.
-            operation = new Operator( operator );
+            operation = new Operator( operator, false );
         }
         else
         {
@@ -72,7 +82,7 @@ public final class Operator
             {
                 // another thread may has already added an operator of this kind
                 // make sure that we get the same operator
-                operation = operators.putIfAbsent( operator, new Operator( operator ) );
+                operation = operators.putIfAbsent( operator, new Operator( operator, true ) );
                 if ( operation == null )
                 {
                     operation = operators.get( operator );
@@ -93,6 +103,18 @@ public final class Operator
         return theOperator;
     }
 
+    /**
+     * Returns a number identifying this operator, which allows to look up data for an operator in
+     * an array instead of a map. Indices are assigned to the first {@link #MAX_INDEX} distinct
+     * operators, they are smaller than {@link #MAX_INDEX}.
+     *
+     * @return the index of the operator, or -1 if it has none, as for the BI and ID operators.
+     */
+    public int getIndex()
+    {
+        return index;
+    }
+
     /**
      * This will print a string rep of this class.
      *
@@ -0,0 +1,496 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A hash map with {@link COSObjectKey} keys, which keeps the object number and the generation
+ * of a key packed into a primitive long instead of a key object. The keys are kept in a single
+ * array with open addressing and linear probing, the subclasses keep the values in an array with
+ * the same indices. Keys which can't be packed, i.e. negative numbers and generations or
+ * generations above 65535, are kept in a {@link HashMap}.
+ *
+ * The key objects returned by the entries are created on demand, changing their generation
+ * doesn't change the map.
+ *
+ * @param <V> the type of the values
+ */
+abstract class AbstractCOSObjectKeyMap<V> extends AbstractMap<COSObjectKey, V>
+{
+    private static final long FREE = -1;
+    private static final long REMOVED = -2;
+    private static final int GENERATION_BITS = 16;
+    private static final int MAX_GENERATION = (1 << GENERATION_BITS) - 1;
+    private static final long MAX_NUMBER = Long.MAX_VALUE >>> GENERATION_BITS;
+    private static final int MIN_CAPACITY = 16;
+
+    // packed keys, FREE or REMOVED, null until the first key is added
+    private long[] keys;
+    private int size;
+    // count of the slots which are not FREE
+    private int used;
+    private int modCount;
+    private Map<COSObjectKey, V> others;
+    private Set<Map.Entry<COSObjectKey, V>> entrySet;
+
+    /**
+     * Returns the value of the given slot.
+     *
+     * @param slot the slot
+     * @return the value
+     */
+    abstract V valueAt(int slot);
+
+    /**
+     * Sets the value of the given slot.
+     *
+     * @param slot the slot
+     * @param value the value
+     */
+    abstract void setValueAt(int slot, V value);
+
+    /**
+     * Releases the value of a slot which was removed.
+     *
+     * @param slot the slot
+     */
+    abstract void clearValueAt(int slot);
+
+    /**
+     * Replaces the array of values with a new one.
+     *
+     * @param capacity the capacity of the new array, 0 to drop the values
+     * @return the old array, or null
+     */
+    abstract Object replaceValues(int capacity);
+
+    /**
+     * Moves a value from the old array of values to the new one.
+     *
+     * @param oldValues the old array returned by {@link #replaceValues(int)}
+     * @param oldSlot the slot in the old array
+     * @param slot the slot in the new array
+     */
+    abstract void moveValue(Object oldValues, int oldSlot, int slot);
+
+    @Override
+    public int size()
+    {
+        return others != null ? size + others.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        long packed = pack(key);
+        if (packed == FREE)
+        {
+            return others != null && others.containsKey(key);
+        }
+        return find(packed) >= 0;
+    }
+
+    @Override
+    public V get(Object key)
+    {
+        long packed = pack(key);
+        if (packed == FREE)
+        {
+            return others != null ? others.get(key) : null;
+        }
+        int slot = find(packed);
+        return slot >= 0 ? valueAt(slot) : null;
+    }
+
+    @Override
+    public V put(COSObjectKey key, V value)
+    {
+        long packed = pack(key);
+        if (packed == FREE)
+        {
+            if (others == null)
+            {
+                others = new HashMap<COSObjectKey, V>();
+            }
+            return others.put(key, value);
+        }
+        int slot = find(packed);
+        if (slot >= 0)
+        {
+            V previous = valueAt(slot);
+            setValueAt(slot, value);
+            return previous;
+        }
+        setValueAt(add(packed), value);
+        return null;
+    }
+
+    @Override
+    public V remove(Object key)
+    {
+        long packed = pack(key);
+        if (packed == FREE)
+        {
+            return others != null ? others.remove(key) : null;
+        }
+        int slot = find(packed);
+        if (slot < 0)
+        {
+            return null;
+        }
+        V previous = valueAt(slot);
+        removeAt(slot);
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        keys = null;
+        replaceValues(0);
+        size = 0;
+        used = 0;
+        others = null;
+        modCount++;
+    }
+
+    @Override
+    public Set<Map.Entry<COSObjectKey, V>> entrySet()
+    {
+        if (entrySet == null)
+        {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private static long pack(Object key)
+    {
+        if (!(key instanceof COSObjectKey))
+        {
+            return FREE;
+        }
+        COSObjectKey objectKey = (COSObjectKey) key;
+        return pack(objectKey.getNumber(), objectKey.getGeneration());
+    }
+
+    private static long pack(long number, int generation)
+    {
+        if (number < 0 || number > MAX_NUMBER || generation < 0 || generation > MAX_GENERATION)
+        {
+            return FREE;
+        }
+        return number << GENERATION_BITS | generation;
+    }
+
+    private static int hash(long packed)
+    {
+        long h = packed * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ h >>> 32);
+    }
+
+    private int find(long packed)
+    {
+        if (keys == null)
+        {
+            return -1;
+        }
+        int mask = keys.length - 1;
+        int slot = hash(packed) & mask;
+        // there is always a free slot, see add()
+        while (keys[slot] != FREE)
+        {
+            if (keys[slot] == packed)
+            {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds a key which isn't in the map.
+     *
+     * @return the slot of the key
+     */
+    private int add(long packed)
+    {
+        // keep at least a third of the slots free
+        if (keys == null || (used + 1) * 3 > keys.length * 2)
+        {
+            rehash();
+        }
+        int mask = keys.length - 1;
+        int slot = hash(packed) & mask;
+        while (keys[slot] >= 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        if (keys[slot] == FREE)
+        {
+            used++;
+        }
+        keys[slot] = packed;
+        size++;
+        modCount++;
+        return slot;
+    }
+
+    private void removeAt(int slot)
+    {
+        // the slot stays in use, so that the keys after it can still be found
+        keys[slot] = REMOVED;
+        clearValueAt(slot);
+        size--;
+        modCount++;
+    }
+
+    /**
+     * Moves the keys to a new array, which is large enough for one more key, and drops the
+     * removed keys.
+     */
+    private void rehash()
+    {
+        int capacity = MIN_CAPACITY;
+        while ((size + 1) * 3 > capacity)
+        {
+            capacity <<= 1;
+        }
+        long[] oldKeys = keys;
+        Object oldValues = replaceValues(capacity);
+        keys = new long[capacity];
+        Arrays.fill(keys, FREE);
+        used = size;
+        if (oldKeys == null)
+        {
+            return;
+        }
+        int mask = capacity - 1;
+        for (int oldSlot = 0; oldSlot < oldKeys.length; oldSlot++)
+        {
+            long packed = oldKeys[oldSlot];
+            if (packed >= 0)
+            {
+                int slot = hash(packed) & mask;
+                while (keys[slot] != FREE)
+                {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = packed;
+                moveValue(oldValues, oldSlot, slot);
+            }
+        }
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return a == b || a != null && a.equals(b);
+    }
+
+    private final class EntrySet extends AbstractSet<Map.Entry<COSObjectKey, V>>
+    {
+        @Override
+        public Iterator<Map.Entry<COSObjectKey, V>> iterator()
+        {
+            return new EntryIterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return AbstractCOSObjectKeyMap.this.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            AbstractCOSObjectKeyMap.this.clear();
+        }
+    }
+
+    /**
+     * Iterates over the packed keys first and then over the other ones.
+     */
+    private final class EntryIterator implements Iterator<Map.Entry<COSObjectKey, V>>
+    {
+        private final long[] iteratedKeys = keys;
+        // the next slot with a key
+        private int next = nextSlot(0);
+        // the slot returned last, -1 if there is none
+        private int last = -1;
+        private Iterator<Map.Entry<COSObjectKey, V>> othersIterator;
+        private int expectedModCount = modCount;
+
+        private int nextSlot(int slot)
+        {
+            while (iteratedKeys != null && slot < iteratedKeys.length && iteratedKeys[slot] < 0)
+            {
+                slot++;
+            }
+            return slot;
+        }
+
+        private boolean hasNextSlot()
+        {
+            return iteratedKeys != null && next < iteratedKeys.length;
+        }
+
+        @Override
+        public boolean hasNext()
+        {
+            if (hasNextSlot())
+            {
+                return true;
+            }
+            if (othersIterator == null && others != null)
+            {
+                othersIterator = others.entrySet().iterator();
+            }
+            return othersIterator != null && othersIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<COSObjectKey, V> next()
+        {
+            checkForComodification();
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            if (hasNextSlot())
+            {
+                last = next;
+                next = nextSlot(next + 1);
+                return new SlotEntry(last, expectedModCount);
+            }
+            last = -1;
+            return othersIterator.next();
+        }
+
+        @Override
+        public void remove()
+        {
+            checkForComodification();
+            if (last >= 0)
+            {
+                removeAt(last);
+                last = -1;
+                expectedModCount = modCount;
+            }
+            else if (othersIterator != null)
+            {
+                othersIterator.remove();
+            }
+            else
+            {
+                throw new IllegalStateException();
+            }
+        }
+
+        private void checkForComodification()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private final class SlotEntry implements Map.Entry<COSObjectKey, V>
+    {
+        private final int slot;
+        private final int expectedModCount;
+
+        SlotEntry(int slot, int expectedModCount)
+        {
+            this.slot = slot;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        public COSObjectKey getKey()
+        {
+            checkForComodification();
+            long packed = keys[slot];
+            return new COSObjectKey(packed >>> GENERATION_BITS, (int) (packed & MAX_GENERATION));
+        }
+
+        @Override
+        public V getValue()
+        {
+            checkForComodification();
+            return valueAt(slot);
+        }
+
+        @Override
+        public V setValue(V value)
+        {
+            checkForComodification();
+            V previous = valueAt(slot);
+            setValueAt(slot, value);
+            return previous;
+        }
+
+        private void checkForComodification()
+        {
+            if (modCount != expectedModCount)
+            {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return getKey().equals(entry.getKey()) && equal(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            V value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decrypts the strings and the stream data of one indirect object of an encrypted document.
+ *
+ * The parser attaches a decryptor to the strings and streams it reads, which are decrypted when
+ * they are accessed for the first time instead of when the object is parsed.
+ */
+public interface COSDecryptor
+{
+    /**
+     * Decrypts the bytes of a string. Implementations must not throw, but return the given
+     * bytes if they can't be decrypted.
+     *
+     * @param encrypted the encrypted bytes
+     * @return the decrypted bytes
+     */
+    byte[] decrypt(byte[] encrypted);
+
+    /**
+     * Returns a stream decrypting the given data while it is read.
+     *
+     * @param encrypted the encrypted data
+     * @return the decrypted data
+     * @throws IOException if the decryption can't be set up
+     */
+    InputStream decrypt(InputStream encrypted) throws IOException;
+}
@@ -21,11 +21,12 @@ import android.util.Log;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
 import com.tom_roush.pdfbox.io.IOUtils;
+import com.tom_roush.pdfbox.io.RandomAccessRead;
+import com.tom_roush.pdfbox.io.RandomAccessReadView;
 import com.tom_roush.pdfbox.io.ScratchFile;
 import com.tom_roush.pdfbox.pdfparser.PDFObjectStreamParser;
 
@@ -44,15 +45,17 @@ public class COSDocument extends COSBase implements Closeable
     /**
      * Maps ObjectKeys to a COSObject. Note that references to these objects
      * are also stored in COSDictionary objects that map a name to a specific object.
+     * The objects read in fast open mode add their references when they are accessed, possibly
+     * by several threads, so objects are looked up and added while holding the lock of the
+     * document.
      */
     private final Map<COSObjectKey, COSObject> objectPool =
-        new HashMap<COSObjectKey, COSObject>();
+        new COSObjectKeyMap<COSObject>();
 
     /**
      * Maps object and generation id to object byte offsets.
      */
-    private final Map<COSObjectKey, Long> xrefTable =
-        new HashMap<COSObjectKey, Long>();
+    private final Map<COSObjectKey, Long> xrefTable = new COSObjectKeyLongMap();
 
     /**
      * List containing all streams which are created when creating a new pdf. 
@@ -84,6 +87,11 @@ public class COSDocument extends COSBase implements Closeable
      */
     private long highestXRefObjectNumber;
 
+    /**
+     * The parser reading objects and xref sections on demand, if any.
+     */
+    private ICOSParser parser;
+
     /**
      * Constructor. Uses main memory to buffer PDF streams.
      */
@@ -136,6 +144,28 @@ public class COSDocument extends COSBase implements Closeable
         return stream;
     }
 
+    /**
+     * Creates a new COSStream whose encoded data isn't copied but read on demand from the given
+     * region of the source. Not for public use. Only COSParser should call this method.
+     *
+     * @param dictionary the corresponding dictionary
+     * @param source the source the stream data is read from
+     * @param startPosition the offset of the stream data within the source
+     * @param streamLength the length of the stream data
+     * @return the new COSStream
+     */
+    public COSStream createCOSStream(COSDictionary dictionary, RandomAccessRead source,
+        long startPosition, long streamLength)
+    {
+        COSStream stream = new COSStream(scratchFile,
+            new RandomAccessReadView(source, startPosition, streamLength));
+        for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet())
+        {
+            stream.setItem(entry.getKey(), entry.getValue());
+        }
+        return stream;
+    }
+
     /**
      * This will get the first dictionary object by type.
      *
@@ -146,7 +176,7 @@ public class COSDocument extends COSBase implements Closeable
      */
     public COSObject getObjectByType(COSName type) throws IOException
     {
-        for( COSObject object : objectPool.values() )
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -201,7 +231,7 @@ public class COSDocument extends COSBase implements Closeable
     public List<COSObject> getObjectsByType( COSName type ) throws IOException
     {
         List<COSObject> retval = new ArrayList<COSObject>();
-        for( COSObject object : objectPool.values() )
+        for( COSObject object : getObjects() )
         {
             COSBase realObject = object.getObject();
             if( realObject instanceof COSDictionary )
@@ -243,7 +273,8 @@ public class COSDocument extends COSBase implements Closeable
     {
         for (Map.Entry<COSObjectKey, COSObject> entry : objectPool.entrySet())
         {
-            if (entry.getValue().getObject() == object)
+            // an object which hasn't been read so far can't be the given one
+            if (!entry.getValue().isObjectNull() && entry.getValue().getObject() == object)
             {
                 return entry.getKey();
             }
@@ -379,7 +410,7 @@ public class COSDocument extends COSBase implements Closeable
      *
      * @return A list of all objects, never null.
      */
-    public List<COSObject> getObjects()
+    public synchronized List<COSObject> getObjects()
     {
         return new ArrayList<COSObject>(objectPool.values());
     }
@@ -413,6 +444,7 @@ public class COSDocument extends COSBase implements Closeable
      */
     public long getHighestXRefObjectNumber()
     {
+        loadXrefTable();
         return highestXRefObjectNumber;
     }
 
@@ -461,6 +493,10 @@ public class COSDocument extends COSBase implements Closeable
             // close all open I/O streams
             for (COSObject object : getObjects())
             {
+                if (object.isObjectNull())
+                {
+                    continue;
+                }
                 COSBase cosObject = object.getObject();
                 if (cosObject instanceof COSStream)
                 {
@@ -476,6 +512,7 @@ public class COSDocument extends COSBase implements Closeable
                 firstException = IOUtils.closeAndLogException(scratchFile, "ScratchFile", firstException);
             }
             closed = true;
+            parser = null;
 
             // rethrow first exception to keep method contract
             if (firstException != null)
@@ -563,7 +600,7 @@ public class COSDocument extends COSBase implements Closeable
      *
      * @throws IOException If there is an error getting the proxy object.
      */
-    public COSObject getObjectFromPool(COSObjectKey key) throws IOException
+    public synchronized COSObject getObjectFromPool(COSObjectKey key) throws IOException
     {
         COSObject obj = null;
         if( key != null )
@@ -573,7 +610,7 @@ public class COSDocument extends COSBase implements Closeable
         if (obj == null)
         {
             // this was a forward reference, make "proxy" object
-            obj = new COSObject(null);
+            obj = new COSObject(null, parser);
             if( key != null )
             {
                 obj.setObjectNumber(key.getNumber());
@@ -589,7 +626,7 @@ public class COSDocument extends COSBase implements Closeable
      * @param key the object key
      * @return the object that was removed or null if the object was not found
      */
-    public COSObject removeObject(COSObjectKey key)
+    public synchronized COSObject removeObject(COSObjectKey key)
     {
         return objectPool.remove(key);
     }
@@ -611,9 +648,48 @@ public class COSDocument extends COSBase implements Closeable
      */
     public Map<COSObjectKey, Long> getXrefTable()
     {
+        loadXrefTable();
         return xrefTable;
     }
 
+    /**
+     * Not for public use. Only COSParser should call this method.
+     * Returns the xref table without reading the xref sections which haven't been read so far.
+     *
+     * @return mapping of ObjectsKeys to byte offsets
+     */
+    public Map<COSObjectKey, Long> getLoadedXrefTable()
+    {
+        return xrefTable;
+    }
+
+    /**
+     * Not for public use. Only COSParser should call this method.
+     * Sets the parser which reads the objects of this document when they are accessed for the
+     * first time. It must be set before the first object is added to the pool.
+     *
+     * @param parser the parser reading objects and xref sections on demand
+     */
+    public void setParser(ICOSParser parser)
+    {
+        this.parser = parser;
+    }
+
+    private void loadXrefTable()
+    {
+        if (parser != null)
+        {
+            try
+            {
+                parser.loadXrefTable();
+            }
+            catch (IOException e)
+            {
+                Log.e("PdfBox-Android", "Can't read the remaining xref sections", e);
+            }
+        }
+    }
+
     /**
      * This method set the startxref value of the document. This will only 
      * be needed for incremental updates.
@@ -28,7 +28,16 @@ import java.math.BigDecimal;
  */
 public class COSFloat extends COSNumber
 {
-    private BigDecimal value;
+    // powers of ten which are exact, for the conversions which are correctly rounded
+    private static final float[] FLOAT_POWERS_OF_TEN = {
+        1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f };
+    private static final double[] DOUBLE_POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15,
+        1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    private float value;
+    private double doubleValue;
+    // created on demand for numbers read by the parsers
     private String valueAsString;
 
     /**
@@ -38,10 +47,42 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( float aFloat )
     {
+        String floatString = String.valueOf(aFloat);
+        // there is no negative zero in PDF
+        value = aFloat + 0.0f;
+        doubleValue = Double.parseDouble(floatString) + 0.0;
         // use a BigDecimal as intermediate state to avoid 
         // a floating point string representation of the float value
-        value = new BigDecimal(String.valueOf(aFloat));
-        valueAsString = removeNullDigits(value.toPlainString());
+        valueAsString = removeNullDigits(new BigDecimal(floatString).toPlainString());
+    }
+
+    /**
+     * Constructor for decimal numbers read by the parsers, which don't need to be turned into a
+     * string first. The value is unscaledValue &times; 10<sup>-scale</sup>.
+     *
+     * @param unscaledValue The digits of the number, without the decimal point.
+     * @param scale The number of digits after the decimal point, must not be negative.
+     */
+    public COSFloat( long unscaledValue, int scale )
+    {
+        if (scale < FLOAT_POWERS_OF_TEN.length && Math.abs(unscaledValue) < 1 << 24)
+        {
+            // both operands are exact, so the quotient is rounded just like Float.parseFloat()
+            value = unscaledValue / FLOAT_POWERS_OF_TEN[scale];
+        }
+        else
+        {
+            value = Float.parseFloat(BigDecimal.valueOf(unscaledValue, scale).toString());
+        }
+        if (scale < DOUBLE_POWERS_OF_TEN.length && Math.abs(unscaledValue) < 1L << 53)
+        {
+            doubleValue = unscaledValue / DOUBLE_POWERS_OF_TEN[scale];
+        }
+        else
+        {
+            doubleValue = Double.parseDouble(BigDecimal.valueOf(unscaledValue, scale).toString());
+        }
+        checkMinMaxValues();
     }
 
     /**
@@ -53,13 +94,8 @@ public class COSFloat extends COSNumber
      */
     public COSFloat( String aFloat ) throws IOException
     {
-        try
-        {
-            valueAsString = aFloat;
-            value = new BigDecimal( valueAsString );
-            checkMinMaxValues();
-        }
-        catch( NumberFormatException e )
+        valueAsString = aFloat;
+        if (!isDecimal(valueAsString))
         {
             if (aFloat.startsWith("--"))
             {
@@ -75,24 +111,80 @@ public class COSFloat extends COSNumber
             }
             else
             {
-                throw new IOException("Error expected floating point number actual='" + aFloat + "'", e);
+                throw new IOException("Error expected floating point number actual='" + aFloat + "'");
+            }
+            if (!isDecimal(valueAsString))
+            {
+                throw new IOException("Error expected floating point number actual='" + aFloat + "'");
+            }
+        }
+        value = Float.parseFloat(valueAsString);
+        doubleValue = Double.parseDouble(valueAsString);
+        checkMinMaxValues();
+    }
+
+    /**
+     * Checks whether the given string is a decimal number, with an optional sign, an optional
+     * decimal point and an optional exponent, as accepted by {@link BigDecimal#BigDecimal(String)}.
+     * Unlike {@link Float#parseFloat(String)}, neither "NaN", "Infinity", hexadecimal numbers nor
+     * type suffixes are accepted.
+     */
+    private static boolean isDecimal(String number)
+    {
+        int length = number.length();
+        int i = 0;
+        if (i < length && (number.charAt(i) == '-' || number.charAt(i) == '+'))
+        {
+            i++;
+        }
+        int digits = 0;
+        boolean dot = false;
+        for (; i < length; i++)
+        {
+            char c = number.charAt(i);
+            if (c >= '0' && c <= '9')
+            {
+                digits++;
+            }
+            else if (c == '.' && !dot)
+            {
+                dot = true;
+            }
+            else
+            {
+                break;
+            }
+        }
+        if (digits == 0)
+        {
+            return false;
+        }
+        if (i < length && (number.charAt(i) == 'e' || number.charAt(i) == 'E'))
+        {
+            i++;
+            if (i < length && (number.charAt(i) == '-' || number.charAt(i) == '+'))
+            {
+                i++;
             }
-            try
+            int exponentDigits = 0;
+            for (; i < length && number.charAt(i) >= '0' && number.charAt(i) <= '9'; i++)
             {
-                value = new BigDecimal(valueAsString);
-                checkMinMaxValues();
+                exponentDigits++;
             }
-            catch (NumberFormatException e2)
+            if (exponentDigits == 0)
             {
-                throw new IOException("Error expected floating point number actual='" + aFloat + "'", e2);
+                return false;
             }
         }
+        return i == length;
     }
 
     private void checkMinMaxValues()
     {
-        float floatValue = value.floatValue();
-        double doubleValue = value.doubleValue();
+        // there is no negative zero in PDF
+        value += 0.0f;
+        doubleValue += 0.0;
+        float floatValue = value;
         boolean valueReplaced = false;
         // check for huge values
         if (floatValue == Float.NEGATIVE_INFINITY  || floatValue == Float.POSITIVE_INFINITY )
@@ -116,12 +208,13 @@ public class COSFloat extends COSNumber
         }
         if (valueReplaced)
         {
-            value = new BigDecimal(floatValue);
-            valueAsString = removeNullDigits(value.toPlainString());
+            value = floatValue;
+            doubleValue = floatValue;
+            valueAsString = removeNullDigits(new BigDecimal(floatValue).toPlainString());
         }
     }
 
-    private String removeNullDigits(String plainStringValue)
+    private static String removeNullDigits(String plainStringValue)
     {
         // remove fraction digit "0" only
         if (plainStringValue.indexOf('.') > -1 && !plainStringValue.endsWith(".0"))
@@ -134,6 +227,20 @@ public class COSFloat extends COSNumber
         return plainStringValue;
     }
 
+    /**
+     * Returns the string written to PDF files. For numbers read by the parsers it is created
+     * from the double value, which is the shortest string that is parsed to the same value.
+     */
+    private String getValueAsString()
+    {
+        if (valueAsString == null)
+        {
+            valueAsString = removeNullDigits(
+                new BigDecimal(Double.toString(doubleValue)).toPlainString());
+        }
+        return valueAsString;
+    }
+
     /**
      * The value of the float object that this one wraps.
      *
@@ -142,7 +249,7 @@ public class COSFloat extends COSNumber
     @Override
     public float floatValue()
     {
-        return value.floatValue();
+        return value;
     }
 
     /**
@@ -153,7 +260,7 @@ public class COSFloat extends COSNumber
     @Override
     public double doubleValue()
     {
-        return value.doubleValue();
+        return doubleValue;
     }
 
     /**
@@ -164,7 +271,7 @@ public class COSFloat extends COSNumber
     @Override
     public long longValue()
     {
-        return value.longValue();
+        return (long) doubleValue;
     }
 
     /**
@@ -175,7 +282,7 @@ public class COSFloat extends COSNumber
     @Override
     public int intValue()
     {
-        return value.intValue();
+        return (int) doubleValue;
     }
 
     /**
@@ -185,7 +292,7 @@ public class COSFloat extends COSNumber
     public boolean equals( Object o )
     {
         return o instanceof COSFloat &&
-            Float.floatToIntBits(((COSFloat)o).value.floatValue()) == Float.floatToIntBits(value.floatValue());
+            Float.floatToIntBits(((COSFloat)o).value) == Float.floatToIntBits(value);
     }
 
     /**
@@ -194,7 +301,7 @@ public class COSFloat extends COSNumber
     @Override
     public int hashCode()
     {
-        return value.hashCode();
+        return Float.floatToIntBits(value);
     }
 
     /**
@@ -203,7 +310,7 @@ public class COSFloat extends COSNumber
     @Override
     public String toString()
     {
-        return "COSFloat{" + valueAsString + "}";
+        return "COSFloat{" + getValueAsString() + "}";
     }
 
     /**
@@ -227,6 +334,6 @@ public class COSFloat extends COSNumber
      */
     public void writePDF( OutputStream output ) throws IOException
     {
-        output.write(valueAsString.getBytes("ISO-8859-1"));
+        output.write(getValueAsString().getBytes("ISO-8859-1"));
     }
 }
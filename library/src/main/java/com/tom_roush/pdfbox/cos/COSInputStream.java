@@ -67,10 +67,19 @@ public final class COSInputStream extends FilterInputStream
         }
         else
         {
+            boolean streaming = Boolean.getBoolean(Filter.SYSPROP_STREAMINGDECODE);
             // apply filters
             for (int i = 0; i < filters.size(); i++)
             {
-                if (scratchFile != null)
+                InputStream streamingInput = streaming ?
+                    filters.get(i).decodeStreaming(input, parameters, i, options) : null;
+                if (streamingInput != null)
+                {
+                    // decoded on demand when the next stage reads from it
+                    results.add(new DecodeResult(parameters));
+                    input = streamingInput;
+                }
+                else if (scratchFile != null)
                 {
                     // scratch file
                     final RandomAccess buffer = scratchFile.createBuffer();
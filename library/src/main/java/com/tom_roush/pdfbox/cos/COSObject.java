@@ -16,6 +16,8 @@
  */
 package com.tom_roush.pdfbox.cos;
 
+import android.util.Log;
+
 import java.io.IOException;
 
 /**
@@ -26,10 +28,14 @@ import java.io.IOException;
  */
 public class COSObject extends COSBase implements COSUpdateInfo
 {
-    private COSBase baseObject;
+    private volatile COSBase baseObject;
     private long objectNumber;
     private int generationNumber;
     private boolean needToBeUpdated;
+    // the parser is removed when the object has been read
+    private volatile ICOSParser parser;
+    // true while the object is read, guarded by the lock of the parser
+    private boolean loading;
 
     /**
      * Constructor.
@@ -43,6 +49,18 @@ public class COSObject extends COSBase implements COSUpdateInfo
         setObject( object );
     }
 
+    /**
+     * Constructor for an object which is read by the given parser when it is accessed.
+     *
+     * @param object The object that this encapsulates, or null if it hasn't been read.
+     * @param parser the parser to read the object, or null
+     */
+    COSObject(COSBase object, ICOSParser parser)
+    {
+        baseObject = object;
+        this.parser = object == null ? parser : null;
+    }
+
     /**
      * This will get the dictionary object in this object that has the name key and
      * if it is a pdfobjref then it will dereference that and return it.
@@ -54,9 +72,10 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getDictionaryObject( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getDictionaryObject( key );
+            retval = ((COSDictionary)object).getDictionaryObject( key );
         }
         return retval;
     }
@@ -71,9 +90,10 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public COSBase getItem( COSName key )
     {
         COSBase retval =null;
-        if( baseObject instanceof COSDictionary )
+        COSBase object = getObject();
+        if( object instanceof COSDictionary )
         {
-            retval = ((COSDictionary)baseObject).getItem( key );
+            retval = ((COSDictionary)object).getItem( key );
         }
         return retval;
     }
@@ -85,9 +105,56 @@ public class COSObject extends COSBase implements COSUpdateInfo
      */
     public COSBase getObject()
     {
+        if (parser != null)
+        {
+            dereference();
+        }
         return baseObject;
     }
 
+    /**
+     * Tells if the encapsulated object is null, without reading an object which hasn't been
+     * read so far.
+     *
+     * @return true if the encapsulated object is null or hasn't been read so far
+     */
+    public boolean isObjectNull()
+    {
+        return baseObject == null;
+    }
+
+    private void dereference()
+    {
+        ICOSParser currentParser = parser;
+        if (currentParser == null)
+        {
+            return;
+        }
+        // other threads wait until the object has been read, the reading thread itself doesn't
+        // read it again if it is accessed while it is read
+        synchronized (currentParser)
+        {
+            if (parser == null || loading)
+            {
+                return;
+            }
+            loading = true;
+            try
+            {
+                currentParser.dereferenceCOSObject(this);
+            }
+            catch (IOException e)
+            {
+                Log.e("PdfBox-Android", "Can't dereference " + this, e);
+            }
+            finally
+            {
+                loading = false;
+                parser = null;
+            }
+        }
+    }
+
     /**
      * This will set the object that this object encapsulates.
      *
@@ -98,6 +165,7 @@ public class COSObject extends COSBase implements COSUpdateInfo
     public final void setObject( COSBase object ) throws IOException
     {
         baseObject = object;
+        parser = null;
     }
 
     /**
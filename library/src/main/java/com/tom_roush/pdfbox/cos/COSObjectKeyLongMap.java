@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+/**
+ * A map of {@link COSObjectKey}s to offsets, as used by the xref table. The keys and the offsets
+ * are kept in primitive arrays, an entry takes 16 bytes instead of the about 100 bytes of a
+ * {@link java.util.HashMap} entry with its key and {@link Long} value.
+ *
+ * The map doesn't accept null values.
+ */
+public class COSObjectKeyLongMap extends AbstractCOSObjectKeyMap<Long>
+{
+    private long[] values;
+
+    @Override
+    public Long put(COSObjectKey key, Long value)
+    {
+        if (value == null)
+        {
+            throw new NullPointerException("null offset for " + key);
+        }
+        return super.put(key, value);
+    }
+
+    @Override
+    Long valueAt(int slot)
+    {
+        return values[slot];
+    }
+
+    @Override
+    void setValueAt(int slot, Long value)
+    {
+        if (value == null)
+        {
+            throw new NullPointerException("null offset");
+        }
+        values[slot] = value;
+    }
+
+    @Override
+    void clearValueAt(int slot)
+    {
+        values[slot] = 0;
+    }
+
+    @Override
+    Object replaceValues(int capacity)
+    {
+        long[] oldValues = values;
+        values = capacity > 0 ? new long[capacity] : null;
+        return oldValues;
+    }
+
+    @Override
+    void moveValue(Object oldValues, int oldSlot, int slot)
+    {
+        values[slot] = ((long[]) oldValues)[oldSlot];
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+/**
+ * A map with {@link COSObjectKey} keys, which are kept as primitive longs instead of key
+ * objects, e.g. the pool of the objects of a document.
+ *
+ * @param <V> the type of the values
+ */
+public class COSObjectKeyMap<V> extends AbstractCOSObjectKeyMap<V>
+{
+    private Object[] values;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    V valueAt(int slot)
+    {
+        return (V) values[slot];
+    }
+
+    @Override
+    void setValueAt(int slot, V value)
+    {
+        values[slot] = value;
+    }
+
+    @Override
+    void clearValueAt(int slot)
+    {
+        values[slot] = null;
+    }
+
+    @Override
+    Object replaceValues(int capacity)
+    {
+        Object[] oldValues = values;
+        values = capacity > 0 ? new Object[capacity] : null;
+        return oldValues;
+    }
+
+    @Override
+    void moveValue(Object oldValues, int oldSlot, int slot)
+    {
+        values[slot] = ((Object[]) oldValues)[oldSlot];
+    }
+}
@@ -25,7 +25,10 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 import com.tom_roush.pdfbox.android.PDFBoxConfig;
 import com.tom_roush.pdfbox.filter.DecodeOptions;
@@ -35,6 +38,7 @@ import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.RandomAccess;
 import com.tom_roush.pdfbox.io.RandomAccessInputStream;
 import com.tom_roush.pdfbox.io.RandomAccessOutputStream;
+import com.tom_roush.pdfbox.io.RandomAccessReadView;
 import com.tom_roush.pdfbox.io.ScratchFile;
 
 /**
@@ -45,8 +49,12 @@ import com.tom_roush.pdfbox.io.ScratchFile;
 public class COSStream extends COSDictionary implements Closeable
 {
     private RandomAccess randomAccess;      // backing store, in-memory or on-disk
+    private RandomAccessReadView randomAccessReadView; // read-only window into the source, if not copied
     private final ScratchFile scratchFile;  // used as a temp buffer during decoding
     private boolean isWriting;              // true if there's an open OutputStream
+    private COSDecryptor decryptor;         // decrypts the data when read, if it is still encrypted
+    private COSStream dataOwner;            // stream whose encoded data is shared, if not copied yet
+    private Set<COSStream> sharingStreams;  // streams sharing the encoded data of this stream
 
     /**
      * Creates a new stream with an empty dictionary.
@@ -72,13 +80,28 @@ public class COSStream extends COSDictionary implements Closeable
         this.scratchFile = scratchFile != null ? scratchFile : ScratchFile.getMainMemoryOnlyInstance();
     }
 
+    /**
+     * Creates a new stream with an empty dictionary. The encoded data isn't copied, it is read on
+     * demand from the given view of the source. Data is only stored in the given scratch file if
+     * the stream is written to.
+     *
+     * @param scratchFile Scratch file for writing stream data.
+     * @param randomAccessReadView read-only view of the encoded stream data within the source.
+     */
+    COSStream(ScratchFile scratchFile, RandomAccessReadView randomAccessReadView)
+    {
+        this(scratchFile);
+        this.randomAccessReadView = randomAccessReadView;
+    }
+
     /**
      * Throws if the random access backing store has been closed. Helpful for catching cases where
      * a user tries to use a COSStream which has outlived its COSDocument.
      */
     private void checkClosed() throws IOException
     {
-        if (randomAccess != null && randomAccess.isClosed())
+        if ((randomAccess != null && randomAccess.isClosed())
+            || (randomAccessReadView != null && randomAccessReadView.isClosed()))
         {
             throw new IOException("COSStream has been closed and cannot be read. " +
                 "Perhaps its enclosing PDDocument has been closed?");
@@ -135,8 +158,17 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot read while there is an open stream writer");
         }
-        ensureRandomAccessExists(true);
-        return new RandomAccessInputStream(randomAccess);
+        InputStream input;
+        if (randomAccessReadView != null)
+        {
+            input = new RandomAccessInputStream(randomAccessReadView);
+        }
+        else
+        {
+            ensureRandomAccessExists(true);
+            input = new RandomAccessInputStream(randomAccess);
+        }
+        return decryptor != null ? decryptor.decrypt(input) : input;
     }
 
     /**
@@ -170,8 +202,21 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot read while there is an open stream writer");
         }
-        ensureRandomAccessExists(true);
-        InputStream input = new RandomAccessInputStream(randomAccess);
+        InputStream input;
+        if (randomAccessReadView != null)
+        {
+            input = new RandomAccessInputStream(randomAccessReadView);
+        }
+        else
+        {
+            ensureRandomAccessExists(true);
+            input = new RandomAccessInputStream(randomAccess);
+        }
+        if (decryptor != null)
+        {
+            // decryption is the first stage of the decoding
+            input = decryptor.decrypt(input);
+        }
         return COSInputStream.create(getFilterList(), this, input, scratchFile, options);
     }
 
@@ -218,6 +263,9 @@ public class COSStream extends COSDictionary implements Closeable
         {
             setItem(COSName.FILTER, filters);
         }
+        discardRandomAccessReadView();
+        unshare();
+        decryptor = null;
         randomAccess = scratchFile.createBuffer(); // discards old data - TODO: close existing buffer?
         OutputStream randomOut = new RandomAccessOutputStream(randomAccess);
         OutputStream cosOut = new COSOutputStream(getFilterList(), this, randomOut, scratchFile);
@@ -268,6 +316,9 @@ public class COSStream extends COSDictionary implements Closeable
         {
             throw new IllegalStateException("Cannot have more than one open stream writer.");
         }
+        discardRandomAccessReadView();
+        unshare();
+        decryptor = null;
         randomAccess = scratchFile.createBuffer(); // discards old data - TODO: close existing buffer?
         OutputStream out = new RandomAccessOutputStream(randomAccess);
         isWriting = true;
@@ -289,6 +340,158 @@ public class COSStream extends COSDictionary implements Closeable
         };
     }
 
+    /**
+     * Sets the decryptor for the data of this stream, which is then decrypted whenever it is read.
+     * This is used when parsing encrypted documents, the data is left as it is in the file until
+     * it is needed, and it is only decrypted as far as it is actually read.
+     * <p>
+     * /Length and {@link #getLength()} keep the length of the encrypted data until
+     * {@link #decrypt()} is called. For AES it includes the initialization vector and the
+     * padding, so it is larger than the data returned by {@link #createRawInputStream()}.
+     *
+     * @param decryptor the decryptor for this stream
+     */
+    public void setDecryptor(COSDecryptor decryptor)
+    {
+        this.decryptor = decryptor;
+    }
+
+    /**
+     * Decrypts the data of this stream now, if it is still encrypted, and updates /Length to the
+     * length of the decrypted data. This is needed before the data is written unencrypted. It is
+     * synchronized, as documents sharing this stream may be saved by different threads.
+     *
+     * @throws IOException if the data can't be read
+     */
+    public synchronized void decrypt() throws IOException
+    {
+        if (decryptor == null)
+        {
+            return;
+        }
+        RandomAccess buffer = scratchFile.createBuffer();
+        InputStream input = createRawInputStream();
+        try
+        {
+            IOUtils.copy(input, new RandomAccessOutputStream(buffer));
+        }
+        finally
+        {
+            input.close();
+        }
+        discardRandomAccessReadView();
+        unshare();
+        decryptor = null;
+        randomAccess = buffer;
+        setInt(COSName.LENGTH, (int) buffer.length());
+    }
+
+    /**
+     * Makes this stream use the encoded data of the given stream, usually of another document,
+     * without copying it. The data is only copied if the given stream is closed while this stream
+     * still uses it, e.g. when the source document is closed before the destination is saved.
+     * Writing to either stream replaces its data without affecting the other one. The dictionary
+     * isn't copied.
+     *
+     * @param source the stream whose encoded data is used
+     * @throws IOException if the source has been closed
+     */
+    public void shareRawData(COSStream source) throws IOException
+    {
+        source.checkClosed();
+        if (isWriting || source.isWriting)
+        {
+            throw new IllegalStateException("Cannot share data while there is an open stream writer");
+        }
+        unshare();
+        discardRandomAccessReadView();
+        COSStream owner;
+        // the source may be decrypted by another thread
+        synchronized (source)
+        {
+            decryptor = source.decryptor;
+            randomAccess = null;
+            if (source.randomAccessReadView != null)
+            {
+                randomAccessReadView = source.randomAccessReadView.copy();
+            }
+            else if (source.randomAccess != null)
+            {
+                randomAccess = source.randomAccess;
+            }
+            else
+            {
+                // nothing has been written to the source
+                decryptor = null;
+                return;
+            }
+            owner = source.dataOwner != null ? source.dataOwner : source;
+        }
+        synchronized (owner)
+        {
+            if (owner.sharingStreams == null)
+            {
+                owner.sharingStreams =
+                    Collections.newSetFromMap(new IdentityHashMap<COSStream, Boolean>());
+            }
+            owner.sharingStreams.add(this);
+        }
+        dataOwner = owner;
+    }
+
+    /**
+     * Stops sharing the data of another stream, the data is about to be replaced.
+     */
+    private void unshare()
+    {
+        if (dataOwner != null)
+        {
+            synchronized (dataOwner)
+            {
+                if (dataOwner.sharingStreams != null)
+                {
+                    dataOwner.sharingStreams.remove(this);
+                }
+            }
+            dataOwner = null;
+            // the buffer belongs to the owner, a view is closed with the other data
+            randomAccess = null;
+        }
+    }
+
+    /**
+     * Copies the shared data into a buffer of this stream, the owner is about to be closed.
+     */
+    private void copySharedData() throws IOException
+    {
+        RandomAccess buffer = scratchFile.createBuffer();
+        InputStream input = new RandomAccessInputStream(
+            randomAccessReadView != null ? randomAccessReadView : randomAccess);
+        try
+        {
+            IOUtils.copy(input, new RandomAccessOutputStream(buffer));
+        }
+        finally
+        {
+            input.close();
+        }
+        discardRandomAccessReadView();
+        randomAccess = buffer;
+        dataOwner = null;
+    }
+
+    /**
+     * Drops the view of the source, the stream data is about to be replaced.
+     */
+    private void discardRandomAccessReadView() throws IOException
+    {
+        if (randomAccessReadView != null)
+        {
+            randomAccessReadView.close();
+            randomAccessReadView = null;
+        }
+    }
+
     /**
      * Returns the list of filters.
      */
@@ -314,6 +517,9 @@ public class COSStream extends COSDictionary implements Closeable
 
     /**
      * Returns the length of the encoded stream.
+     * <p>
+     * If the data of an encrypted document hasn't been decrypted with {@link #decrypt()} yet, this
+     * is the length of the encrypted data, which for AES is larger than the decrypted data.
      *
      * @return length in bytes
      */
@@ -403,10 +609,33 @@ public class COSStream extends COSDictionary implements Closeable
     @Override
     public void close() throws IOException
     {
-        // marks the scratch file pages as free
-        if (randomAccess != null)
+        try
+        {
+            // the streams sharing the data need their own copy now
+            synchronized (this)
+            {
+                if (sharingStreams != null)
+                {
+                    for (COSStream stream : sharingStreams)
+                    {
+                        stream.copySharedData();
+                    }
+                    sharingStreams = null;
+                }
+            }
+        }
+        finally
         {
-            randomAccess.close();
+            unshare();
+            // marks the scratch file pages as free
+            if (randomAccess != null)
+            {
+                randomAccess.close();
+            }
+            if (randomAccessReadView != null)
+            {
+                randomAccessReadView.close();
+            }
         }
     }
 }
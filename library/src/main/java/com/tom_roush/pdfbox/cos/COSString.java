@@ -93,6 +93,8 @@ public final class COSString extends COSBase
 
     private byte[] bytes;
     private boolean forceHexForm;
+    // decrypts the bytes on first access, null if they are not encrypted (anymore)
+    private volatile COSDecryptor decryptor;
 
     /**
      * Creates a new PDF string from a byte array. This method can be used to read a string from
@@ -156,6 +158,18 @@ public final class COSString extends COSBase
     public void setValue(byte[] value)
     {
         bytes = value.clone();
+        decryptor = null;
+    }
+
+    /**
+     * Sets the decryptor for the bytes of this string, which are then decrypted when they are
+     * accessed for the first time. This is used when parsing encrypted documents.
+     *
+     * @param decryptor the decryptor for the object this string belongs to
+     */
+    public void setDecryptor(COSDecryptor decryptor)
+    {
+        this.decryptor = decryptor;
     }
 
     /**
@@ -186,6 +200,7 @@ public final class COSString extends COSBase
      */
     public String getString()
     {
+        byte[] bytes = getBytes();
         // text string - BOM indicates Unicode
         if (bytes.length >= 2)
         {
@@ -212,7 +227,7 @@ public final class COSString extends COSBase
     public String getASCII()
     {
         // ASCII string
-        return new String(bytes, Charsets.US_ASCII);
+        return new String(getBytes(), Charsets.US_ASCII);
     }
 
     /**
@@ -222,6 +237,18 @@ public final class COSString extends COSBase
      */
     public byte[] getBytes()
     {
+        if (decryptor != null)
+        {
+            synchronized (this)
+            {
+                COSDecryptor pending = decryptor;
+                if (pending != null)
+                {
+                    bytes = pending.decrypt(bytes);
+                    decryptor = null;
+                }
+            }
+        }
         return bytes;
     }
 
@@ -232,7 +259,7 @@ public final class COSString extends COSBase
      */
     public String toHexString()
     {
-        return Hex.getString(bytes);
+        return Hex.getString(getBytes());
     }
 
     /**
@@ -263,7 +290,7 @@ public final class COSString extends COSBase
     @Override
     public int hashCode()
     {
-        int result = Arrays.hashCode(bytes);
+        int result = Arrays.hashCode(getBytes());
         return result + (forceHexForm ? 17 : 0);
     }
 
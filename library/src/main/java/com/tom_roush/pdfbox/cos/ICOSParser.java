@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+import java.io.IOException;
+
+/**
+ * A parser reading the indirect objects of a document on demand.
+ *
+ * A document opened this way hands the parser to the objects of its pool, which read their
+ * value when it is accessed for the first time instead of when the document is opened.
+ */
+public interface ICOSParser
+{
+    /**
+     * Reads the value of the given indirect object. The object synchronizes on the parser while
+     * it is read, so that other threads accessing it wait until it has been read.
+     *
+     * @param object the indirect object to be read
+     * @return the value of the object
+     * @throws IOException if the object can't be read
+     */
+    COSBase dereferenceCOSObject(COSObject object) throws IOException;
+
+    /**
+     * Reads all cross reference sections which haven't been read so far.
+     *
+     * @throws IOException if a cross reference section can't be read
+     */
+    void loadXrefTable() throws IOException;
+}
@@ -194,7 +194,7 @@ final class ASCII85InputStream extends FilterInputStream
                 int t = read();
                 if (t == -1)
                 {
-                    return i;
+                    return i == 0 ? -1 : i;
                 }
                 data[i + offset] = (byte) t;
             }
@@ -18,6 +18,7 @@ package com.tom_roush.pdfbox.filter;
 
 import android.util.Log;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -105,6 +106,107 @@ final class ASCIIHexFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options)
+    {
+        return new ASCIIHexInputStream(encoded);
+    }
+
+    /**
+     * Input stream which decodes one pair of hex digits per byte read, with the same handling of
+     * whitespace, EOD and invalid digits as
+     * {@link #decode(InputStream, OutputStream, COSDictionary, int)}.
+     */
+    private final class ASCIIHexInputStream extends FilterInputStream
+    {
+        private boolean eof = false;
+
+        ASCIIHexInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (eof)
+            {
+                return -1;
+            }
+            int firstByte = in.read();
+            while (isWhitespace(firstByte))
+            {
+                firstByte = in.read();
+            }
+            if (firstByte == -1 || isEOD(firstByte))
+            {
+                eof = true;
+                return -1;
+            }
+
+            if (REVERSE_HEX[firstByte] == -1)
+            {
+                Log.e("PdfBox-Android", "Invalid hex, int: " + firstByte + " char: " + (char)firstByte);
+            }
+            int value = REVERSE_HEX[firstByte] * 16;
+            int secondByte = in.read();
+
+            if (secondByte == -1 || isEOD(secondByte))
+            {
+                // second value behaves like 0 in case of EOD
+                eof = true;
+                return value & 0xff;
+            }
+            if (REVERSE_HEX[secondByte] == -1)
+            {
+                Log.e("PdfBox-Android", "Invalid hex, int: " + secondByte + " char: " + (char)secondByte);
+            }
+            value += REVERSE_HEX[secondByte];
+            return value & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            int count = 0;
+            int value;
+            while (count < len && (value = read()) != -1)
+            {
+                b[off + count] = (byte) value;
+                count++;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return eof ? 0 : in.available() / 2;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = 0;
+            while (skipped < n && read() != -1)
+            {
+                skipped++;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     // whitespace
     //   0  0x00  Null (NUL)
     //   9  0x09  Tab (HT)
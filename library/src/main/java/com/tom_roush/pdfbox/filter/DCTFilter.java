@@ -69,6 +69,14 @@ final class DCTFilter extends Filter
         return (int)((value < 0) ? 0 : ((value > 255) ? 255 : value));
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options)
+    {
+        // the data is passed through unchanged
+        return encoded;
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
         throws IOException
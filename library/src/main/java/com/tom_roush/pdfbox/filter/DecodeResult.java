@@ -32,7 +32,12 @@ public final class DecodeResult
     private final COSDictionary parameters;
 //    private PDJPXColorSpace colorSpace; TODO: PdfBox-Android
 
-    DecodeResult(COSDictionary parameters)
+    /**
+     * Constructor.
+     *
+     * @param parameters the stream parameters
+     */
+    public DecodeResult(COSDictionary parameters)
     {
         this.parameters = parameters;
     }
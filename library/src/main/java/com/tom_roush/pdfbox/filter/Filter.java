@@ -44,6 +44,15 @@ public abstract class Filter
      */
     public static final String SYSPROP_DEFLATELEVEL = "com.tom_roush.pdfbox.filter.deflatelevel";
 
+    /**
+     * Streaming Decode System Property. Set this to "true" to decode streams through a chain of
+     * input streams which pull from each other, instead of decoding each filter of a stream
+     * completely into a buffer before the next one is applied. Only filters which support
+     * {@link #decodeStreaming(InputStream, COSDictionary, int, DecodeOptions)} are streamed,
+     * all others are still buffered.
+     */
+    public static final String SYSPROP_STREAMINGDECODE = "com.tom_roush.pdfbox.filter.streamingdecode";
+
     /**
      * Constructor.
      */
@@ -81,6 +90,25 @@ public abstract class Filter
         return decode(encoded, decoded, parameters, index);
     }
 
+    /**
+     * Returns a stream which decodes the given encoded stream on demand, i.e. it only reads as
+     * much encoded data as is needed to serve each read. Filters which can only decode the whole
+     * data at once return <code>null</code>, callers must then use
+     * {@link #decode(InputStream, OutputStream, COSDictionary, int, DecodeOptions)} instead.
+     *
+     * @param encoded the encoded byte stream
+     * @param parameters the parameters used for decoding
+     * @param index the index to the filter being decoded
+     * @param options additional options for decoding
+     * @return a stream of the decoded data, or <code>null</code> if streaming isn't supported
+     * @throws IOException if the stream cannot be decoded
+     */
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options) throws IOException
+    {
+        return null;
+    }
+
     /**
      * Encodes data.
      * @param input the byte stream to encode
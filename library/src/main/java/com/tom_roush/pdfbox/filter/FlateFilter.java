@@ -18,6 +18,7 @@ package com.tom_roush.pdfbox.filter;
 
 import android.util.Log;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -114,6 +115,147 @@ final class FlateFilter extends Filter
         out.flush();
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options) throws IOException
+    {
+        final COSDictionary decodeParams = getDecodeParams(parameters, index);
+        return Predictor.wrapPredictor(new FlateInputStream(encoded), decodeParams);
+    }
+
+    /**
+     * Input stream which inflates the data on demand, with the same error handling as
+     * {@link #decompress(InputStream, OutputStream)}.
+     */
+    private static final class FlateInputStream extends FilterInputStream
+    {
+        private final byte[] buf = new byte[2048];
+        private final byte[] single = new byte[1];
+        private Inflater inflater;
+        private boolean headerSkipped = false;
+        private boolean dataRead = false;
+        private boolean eof = false;
+
+        FlateInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            return read(single, 0, 1) == -1 ? -1 : single[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (eof)
+            {
+                return -1;
+            }
+            if (!headerSkipped)
+            {
+                headerSkipped = true;
+                // skip zlib header
+                in.read(buf, 0, 2);
+                // use nowrap mode to bypass zlib-header and checksum to avoid a DataFormatException
+                inflater = new Inflater(true);
+            }
+            while (true)
+            {
+                int resRead;
+                try
+                {
+                    resRead = inflater.inflate(b, off, len);
+                }
+                catch (DataFormatException exception)
+                {
+                    if (dataRead)
+                    {
+                        // some data could be read -> don't throw an exception
+                        Log.w("PdfBox-Android", "FlateFilter: premature end of stream due to a DataFormatException");
+                        finish();
+                        return -1;
+                    }
+                    // if the stream is corrupt a DataFormatException may occur
+                    Log.e("PdfBox-Android", "FlateFilter: stop reading corrupt stream due to a DataFormatException");
+                    finish();
+                    throw new IOException(exception);
+                }
+                if (resRead != 0)
+                {
+                    dataRead = true;
+                    return resRead;
+                }
+                if (inflater.finished() || inflater.needsDictionary())
+                {
+                    finish();
+                    return -1;
+                }
+                int read = in.read(buf);
+                if (read == -1)
+                {
+                    finish();
+                    return -1;
+                }
+                inflater.setInput(buf, 0, read);
+            }
+        }
+
+        private void finish()
+        {
+            eof = true;
+            if (inflater != null)
+            {
+                inflater.end();
+            }
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            return eof ? 0 : 1;
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            byte[] skipBuf = new byte[(int) Math.min(n, 512)];
+            long skipped = 0;
+            while (skipped < n)
+            {
+                int read = read(skipBuf, 0, (int) Math.min(n - skipped, skipBuf.length));
+                if (read == -1)
+                {
+                    break;
+                }
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if (!eof)
+            {
+                finish();
+            }
+            super.close();
+        }
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
         throws IOException
@@ -40,6 +40,14 @@ final class IdentityFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options)
+    {
+        // the data is passed through unchanged
+        return encoded;
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
         throws IOException
@@ -127,6 +127,163 @@ public class LZWFilter extends Filter
         decoded.flush();
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options) throws IOException
+    {
+        COSDictionary decodeParams = getDecodeParams(parameters, index);
+        int earlyChange = decodeParams.getInt(COSName.EARLY_CHANGE, 1);
+
+        if (earlyChange != 0 && earlyChange != 1)
+        {
+            earlyChange = 1;
+        }
+
+        return Predictor.wrapPredictor(new LZWInputStream(encoded, earlyChange), decodeParams);
+    }
+
+    /**
+     * Input stream which decodes one code at a time when more data is needed, with the same
+     * error handling as {@link #doLZWDecode(InputStream, OutputStream, int)}.
+     */
+    private final class LZWInputStream extends InputStream
+    {
+        // the encoded data already read is discarded after this amount of bytes
+        private static final int FLUSH_THRESHOLD = 4096;
+
+        private final InputStream encoded;
+        private final MemoryCacheImageInputStream in;
+        private final int earlyChange;
+        private List<byte[]> codeTable = new ArrayList<byte[]>();
+        private int chunk = 9;
+        private long prevCommand = -1;
+        // decoded data of the current code
+        private byte[] current;
+        private int currentPosition;
+        private boolean eof = false;
+
+        LZWInputStream(InputStream encoded, int earlyChange)
+        {
+            this.encoded = encoded;
+            this.in = new MemoryCacheImageInputStream(encoded);
+            this.earlyChange = earlyChange;
+        }
+
+        /**
+         * Decodes codes until one of them produces data.
+         *
+         * @return false if there is no more data
+         */
+        private boolean decodeNext() throws IOException
+        {
+            current = null;
+            try
+            {
+                while (!eof && current == null)
+                {
+                    long nextCommand = in.readBits(chunk);
+                    if (nextCommand == EOD)
+                    {
+                        eof = true;
+                    }
+                    else if (nextCommand == CLEAR_TABLE)
+                    {
+                        chunk = 9;
+                        codeTable = createCodeTable();
+                        prevCommand = -1;
+                    }
+                    else
+                    {
+                        if (nextCommand < codeTable.size())
+                        {
+                            current = codeTable.get((int) nextCommand);
+                            if (prevCommand != -1)
+                            {
+                                checkIndexBounds(codeTable, prevCommand, in);
+                                byte[] data = codeTable.get((int) prevCommand);
+                                byte[] newData = Arrays.copyOf(data, data.length + 1);
+                                newData[data.length] = current[0];
+                                codeTable.add(newData);
+                            }
+                        }
+                        else
+                        {
+                            checkIndexBounds(codeTable, prevCommand, in);
+                            byte[] data = codeTable.get((int) prevCommand);
+                            byte[] newData = Arrays.copyOf(data, data.length + 1);
+                            newData[data.length] = data[0];
+                            current = newData;
+                            codeTable.add(newData);
+                        }
+
+                        chunk = calculateChunk(codeTable.size(), earlyChange);
+                        prevCommand = nextCommand;
+                    }
+                }
+            }
+            catch (EOFException ex)
+            {
+                Log.w("PdfBox-Android", "Premature EOF in LZW stream, EOD code missing");
+                eof = true;
+            }
+            if (in.getStreamPosition() - in.getFlushedPosition() > FLUSH_THRESHOLD)
+            {
+                in.flushBefore(in.getStreamPosition());
+            }
+            currentPosition = 0;
+            return current != null;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if ((current == null || currentPosition >= current.length) && !decodeNext())
+            {
+                return -1;
+            }
+            return current[currentPosition++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            int count = 0;
+            while (count < len)
+            {
+                if ((current == null || currentPosition >= current.length) && !decodeNext())
+                {
+                    break;
+                }
+                int toCopy = Math.min(len - count, current.length - currentPosition);
+                System.arraycopy(current, currentPosition, b, off + count, toCopy);
+                currentPosition += toCopy;
+                count += toCopy;
+            }
+            return count == 0 ? -1 : count;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            if (current != null && currentPosition < current.length)
+            {
+                return current.length - currentPosition;
+            }
+            return eof ? 0 : 1;
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            in.close();
+            encoded.close();
+        }
+    }
+
     private void checkIndexBounds(List<byte[]> codeTable, long index, MemoryCacheImageInputStream in)
         throws IOException
     {
@@ -15,6 +15,7 @@
  */
 package com.tom_roush.pdfbox.filter;
 
+import java.io.FilterInputStream;
 import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
@@ -298,6 +299,176 @@ public final class Predictor
         }
     }
 
+    /**
+     * Wraps an <code>InputStream</code> in a predictor decoding stream as necessary.
+     * If no predictor is specified by the parameters, the original stream is returned as is.
+     *
+     * @param in The stream from which data to be decoded is read
+     * @param decodeParams Decode parameters for the stream
+     * @return An <code>InputStream</code> is returned, which will read decoded data
+     * from the given stream. If no predictor is specified, the original stream is returned.
+     */
+    static InputStream wrapPredictor(InputStream in, COSDictionary decodeParams)
+    {
+        int predictor = decodeParams.getInt(COSName.PREDICTOR);
+        if (predictor > 1)
+        {
+            int colors = Math.min(decodeParams.getInt(COSName.COLORS, 1), 32);
+            int bitsPerPixel = decodeParams.getInt(COSName.BITS_PER_COMPONENT, 8);
+            int columns = decodeParams.getInt(COSName.COLUMNS, 1);
+
+            return new PredictorInputStream(in, predictor, colors, bitsPerPixel, columns);
+        }
+        else
+        {
+            return in;
+        }
+    }
+
+    /**
+     * Input stream that implements predictor decoding. A complete row is read from the
+     * underlying stream and decoded whenever the previous one has been consumed.
+     * The previous row is retained for decoding the next row.
+     */
+    private static final class PredictorInputStream extends FilterInputStream
+    {
+        // current predictor type
+        private int predictor;
+        // image decode parameters
+        private final int colors;
+        private final int bitsPerComponent;
+        private final int columns;
+        private final int rowLength;
+        // PNG predictor (predictor>=10) means every row has a (potentially different)
+        // predictor value
+        private final boolean predictorPerRow;
+
+        // data buffers
+        private byte[] currentRow, lastRow;
+        // position of the next byte to be returned from the current row
+        private int currentRowPosition;
+        private boolean eof = false;
+
+        PredictorInputStream(InputStream in, int predictor, int colors, int bitsPerComponent, int columns)
+        {
+            super(in);
+            this.predictor = predictor;
+            this.colors = colors;
+            this.bitsPerComponent = bitsPerComponent;
+            this.columns = columns;
+            this.rowLength = calculateRowLength(colors, bitsPerComponent, columns);
+            this.predictorPerRow = predictor >= 10;
+            currentRow = new byte[rowLength];
+            lastRow = new byte[rowLength];
+            currentRowPosition = rowLength;
+        }
+
+        /**
+         * Reads and decodes the next row.
+         *
+         * @return false if there is no more data
+         */
+        private boolean fillRow() throws IOException
+        {
+            if (eof || rowLength == 0)
+            {
+                return false;
+            }
+            if (predictorPerRow)
+            {
+                // PNG predictor; each row starts with predictor type (0, 1, 2, 3, 4)
+                // read per line predictor, add 10 to tread value 0 as 10, 1 as 11, ...
+                int linePredictor = in.read();
+                if (linePredictor == -1)
+                {
+                    eof = true;
+                    return false;
+                }
+                predictor = (byte) linePredictor + 10;
+            }
+            // flip the row buffers (to avoid copying)
+            byte[] temp = lastRow;
+            lastRow = currentRow;
+            currentRow = temp;
+            int currentRowData = 0;
+            int read;
+            while (currentRowData < rowLength
+                && (read = in.read(currentRow, currentRowData, rowLength - currentRowData)) != -1)
+            {
+                currentRowData += read;
+            }
+            if (currentRowData < rowLength)
+            {
+                eof = true;
+                if (currentRowData == 0)
+                {
+                    return false;
+                }
+                // The last row is allowed to be incomplete, and should be completed with zeros.
+                Arrays.fill(currentRow, currentRowData, rowLength, (byte) 0);
+            }
+            decodePredictorRow(predictor, colors, bitsPerComponent, columns, currentRow, lastRow);
+            currentRowPosition = 0;
+            return true;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            if (currentRowPosition >= rowLength && !fillRow())
+            {
+                return -1;
+            }
+            return currentRow[currentRowPosition++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (currentRowPosition >= rowLength && !fillRow())
+            {
+                return -1;
+            }
+            int toCopy = Math.min(len, rowLength - currentRowPosition);
+            System.arraycopy(currentRow, currentRowPosition, b, off, toCopy);
+            currentRowPosition += toCopy;
+            return toCopy;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            if (currentRowPosition < rowLength)
+            {
+                return rowLength - currentRowPosition;
+            }
+            return eof ? 0 : in.available();
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = 0;
+            while (skipped < n && (currentRowPosition < rowLength || fillRow()))
+            {
+                int toSkip = (int) Math.min(n - skipped, rowLength - currentRowPosition);
+                currentRowPosition += toSkip;
+                skipped += toSkip;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     /**
      * Output stream that implements predictor decoding. Data is buffered until a complete
      * row is available, which is then decoded and written to the underlying stream.
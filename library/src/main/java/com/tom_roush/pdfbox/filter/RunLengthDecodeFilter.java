@@ -18,9 +18,11 @@ package com.tom_roush.pdfbox.filter;
 
 import android.util.Log;
 
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 
 import com.tom_roush.pdfbox.cos.COSDictionary;
 
@@ -75,6 +77,132 @@ final class RunLengthDecodeFilter extends Filter
         return new DecodeResult(parameters);
     }
 
+    @Override
+    public InputStream decodeStreaming(InputStream encoded, COSDictionary parameters, int index,
+        DecodeOptions options)
+    {
+        return new RunLengthInputStream(encoded);
+    }
+
+    /**
+     * Input stream which decodes one run at a time when more data is needed.
+     */
+    private static final class RunLengthInputStream extends FilterInputStream
+    {
+        private final byte[] buffer = new byte[128];
+        // amount of literal bytes left in the current run, read directly from the source
+        private int literalCount = 0;
+        // amount of repetitions left in the current run, and the repeated byte
+        private int repeatCount = 0;
+        private int repeatByte;
+        private boolean eof = false;
+
+        RunLengthInputStream(InputStream in)
+        {
+            super(in);
+        }
+
+        /**
+         * Reads the length byte of the next run.
+         *
+         * @return false if there is no more data
+         */
+        private boolean nextRun() throws IOException
+        {
+            while (!eof && literalCount == 0 && repeatCount == 0)
+            {
+                int dupAmount = in.read();
+                if (dupAmount == -1 || dupAmount == RUN_LENGTH_EOD)
+                {
+                    eof = true;
+                }
+                else if (dupAmount <= 127)
+                {
+                    literalCount = dupAmount + 1;
+                }
+                else
+                {
+                    repeatByte = in.read();
+                    // EOF reached?
+                    if (repeatByte == -1)
+                    {
+                        eof = true;
+                    }
+                    else
+                    {
+                        repeatCount = 257 - dupAmount;
+                    }
+                }
+            }
+            return !eof;
+        }
+
+        @Override
+        public int read() throws IOException
+        {
+            int read = read(buffer, 0, 1);
+            return read == -1 ? -1 : buffer[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException
+        {
+            if (len == 0)
+            {
+                return 0;
+            }
+            if (!nextRun())
+            {
+                return -1;
+            }
+            if (repeatCount > 0)
+            {
+                int count = Math.min(len, repeatCount);
+                Arrays.fill(b, off, off + count, (byte) repeatByte);
+                repeatCount -= count;
+                return count;
+            }
+            int count = in.read(b, off, Math.min(len, literalCount));
+            // EOF reached?
+            if (count == -1)
+            {
+                eof = true;
+                return -1;
+            }
+            literalCount -= count;
+            return count;
+        }
+
+        @Override
+        public int available() throws IOException
+        {
+            if (repeatCount > 0)
+            {
+                return repeatCount;
+            }
+            return eof ? 0 : Math.min(literalCount, in.available());
+        }
+
+        @Override
+        public long skip(long n) throws IOException
+        {
+            long skipped = 0;
+            int read;
+            while (skipped < n
+                && (read = read(buffer, 0, (int) Math.min(n - skipped, buffer.length))) != -1)
+            {
+                skipped += read;
+            }
+            return skipped;
+        }
+
+        @Override
+        public boolean markSupported()
+        {
+            return false;
+        }
+    }
+
     @Override
     protected void encode(InputStream input, OutputStream encoded, COSDictionary parameters)
         throws IOException
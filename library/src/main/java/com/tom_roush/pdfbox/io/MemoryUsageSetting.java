@@ -38,6 +38,9 @@ public final class MemoryUsageSetting
     /** directory to be used for scratch file */
     private File tempDir;
 
+    /** if <code>true</code> a file to be parsed is memory mapped instead of read through a buffer */
+    private boolean useMemoryMappedInput = false;
+
     /**
      * Private constructor for setup buffering memory usage called by one of the setup methods.
      *
@@ -183,6 +186,7 @@ public final class MemoryUsageSetting
         MemoryUsageSetting copy = new MemoryUsageSetting( useMainMemory, useTempFile,
             newMaxMainMemoryBytes, newMaxStorageBytes );
         copy.tempDir = tempDir;
+        copy.useMemoryMappedInput = useMemoryMappedInput;
 
         return copy;
     }
@@ -200,6 +204,29 @@ public final class MemoryUsageSetting
         return this;
     }
 
+    /**
+     * Sets whether a PDF loaded from a file is to be memory mapped instead of read through a
+     * buffered file stream. Mapping avoids a copy and a system call per buffer refill, but the
+     * mapped address space is only released when it is garbage collected.
+     *
+     * @param useMemoryMappedInput <code>true</code> to memory map the input file
+     *
+     * @return this instance
+     */
+    public MemoryUsageSetting setMemoryMappedInput(boolean useMemoryMappedInput)
+    {
+        this.useMemoryMappedInput = useMemoryMappedInput;
+        return this;
+    }
+
+    /**
+     * Returns <code>true</code> if a PDF loaded from a file is to be memory mapped.
+     */
+    public boolean useMemoryMappedInput()
+    {
+        return useMemoryMappedInput;
+    }
+
     /**
      * Returns <code>true</code> if main-memory is to be used.
      *
@@ -0,0 +1,235 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A read-only {@link RandomAccessRead} backed by a memory mapped file.
+ *
+ * The file is mapped in chunks, as a single mapping can't exceed 2 GB. Reads are served straight
+ * from the mapping, so there is neither a read buffer nor a system call per read. Note that a
+ * mapping stays valid until it is garbage collected, even after this object has been closed.
+ */
+public class RandomAccessReadMemoryMappedFile implements RandomAccessRead
+{
+    // 1 GB chunks, a power of two keeps the position to chunk/offset arithmetic cheap
+    private static final int DEFAULT_CHUNK_SHIFT = 30;
+
+    private final int chunkShift;
+    private final long chunkMask;
+    private final long fileLength;
+    private RandomAccessFile file;
+    private FileChannel fileChannel;
+    private MappedByteBuffer[] chunks;
+    private long position = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Create a memory mapped read-only view of the given file.
+     *
+     * @param file the file to be read
+     * @throws IOException if the file can't be opened or mapped
+     */
+    public RandomAccessReadMemoryMappedFile(File file) throws IOException
+    {
+        this(file, DEFAULT_CHUNK_SHIFT);
+    }
+
+    /**
+     * Create a memory mapped read-only view of the given file.
+     *
+     * @param file the file to be read
+     * @param chunkShift the size of a single mapping as a power of two
+     * @throws IOException if the file can't be opened or mapped
+     */
+    RandomAccessReadMemoryMappedFile(File file, int chunkShift) throws IOException
+    {
+        this.chunkShift = chunkShift;
+        this.chunkMask = (1L << chunkShift) - 1;
+        this.file = new RandomAccessFile(file, "r");
+        try
+        {
+            fileChannel = this.file.getChannel();
+            fileLength = fileChannel.size();
+            int chunkCount = (int) ((fileLength + chunkMask) >>> chunkShift);
+            chunks = new MappedByteBuffer[chunkCount];
+            long chunkSize = 1L << chunkShift;
+            for (int i = 0; i < chunkCount; i++)
+            {
+                long chunkStart = (long) i << chunkShift;
+                chunks[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, chunkStart,
+                    Math.min(chunkSize, fileLength - chunkStart));
+            }
+        }
+        catch (IOException e)
+        {
+            IOUtils.closeQuietly(this.file);
+            throw e;
+        }
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return position;
+    }
+
+    @Override
+    public void seek(long newOffset) throws IOException
+    {
+        checkClosed();
+        if (newOffset < 0)
+        {
+            throw new IOException("Invalid position " + newOffset);
+        }
+        position = Math.min(newOffset, fileLength);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (isEOF())
+        {
+            return -1;
+        }
+        MappedByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+        int b = chunk.get((int) (position & chunkMask)) & 0xff;
+        position++;
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (isEOF())
+        {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, fileLength - position);
+        int bytesRead = 0;
+        while (bytesRead < toRead)
+        {
+            MappedByteBuffer chunk = chunks[(int) (position >>> chunkShift)];
+            int chunkOffset = (int) (position & chunkMask);
+            int count = Math.min(toRead - bytesRead, chunk.limit() - chunkOffset);
+            chunk.position(chunkOffset);
+            chunk.get(b, off + bytesRead, count);
+            bytesRead += count;
+            position += count;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return fileLength;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if (isClosed)
+        {
+            return;
+        }
+        isClosed = true;
+        // the mappings themselves are released once they are garbage collected
+        chunks = null;
+        fileChannel = null;
+        file.close();
+        file = null;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return isClosed;
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        int result = read();
+        if (result != -1)
+        {
+            rewind(1);
+        }
+        return result;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        checkClosed();
+        seek(position - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        checkClosed();
+        if (length > fileLength - position)
+        {
+            throw new EOFException();
+        }
+        byte[] b = new byte[length];
+        read(b, 0, length);
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return position >= fileLength;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.min(fileLength - position, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ensure that the RandomAccessReadMemoryMappedFile is not closed.
+     *
+     * @throws IOException If RandomAccessReadMemoryMappedFile already closed
+     */
+    private void checkClosed() throws IOException
+    {
+        if (isClosed)
+        {
+            throw new IOException("RandomAccessReadMemoryMappedFile already closed");
+        }
+    }
+}
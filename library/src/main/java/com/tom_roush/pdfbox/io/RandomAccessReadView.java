@@ -0,0 +1,236 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+/**
+ * A read-only window into a region of another {@link RandomAccessRead}.
+ *
+ * The view keeps its own position. The position of the underlying source is saved before and
+ * restored after every access, so a view may be read while a parser is still working on the
+ * same source. Accesses are synchronized on the source, so that views of the same source may be
+ * read by different threads. Closing the view doesn't close the underlying source.
+ */
+public class RandomAccessReadView implements RandomAccessRead
+{
+    // the underlying source, shared with other views and the parser
+    private final RandomAccessRead randomAccessRead;
+    // offset of the window within the underlying source
+    private final long startPosition;
+    // length of the window
+    private final long streamLength;
+    // current position within the window
+    private long currentPosition = 0;
+    private boolean isClosed = false;
+
+    /**
+     * Constructor.
+     *
+     * @param randomAccessRead the underlying source
+     * @param startPosition start position of the view within the underlying source
+     * @param streamLength length of the view
+     */
+    public RandomAccessReadView(RandomAccessRead randomAccessRead, long startPosition,
+        long streamLength)
+    {
+        this.randomAccessRead = randomAccessRead;
+        this.startPosition = startPosition;
+        this.streamLength = streamLength;
+    }
+
+    /**
+     * Returns the start position of the view within the underlying source.
+     *
+     * @return the start position
+     */
+    public long getStartPosition()
+    {
+        return startPosition;
+    }
+
+    /**
+     * Creates another view of the same region of the underlying source, with its own position.
+     *
+     * @return the new view
+     */
+    public RandomAccessReadView copy()
+    {
+        return new RandomAccessReadView(randomAccessRead, startPosition, streamLength);
+    }
+
+    @Override
+    public long getPosition() throws IOException
+    {
+        checkClosed();
+        return currentPosition;
+    }
+
+    @Override
+    public void seek(long newOffset) throws IOException
+    {
+        checkClosed();
+        if (newOffset < 0)
+        {
+            throw new IOException("Invalid position " + newOffset);
+        }
+        currentPosition = Math.min(newOffset, streamLength);
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (isEOF())
+        {
+            return -1;
+        }
+        synchronized (randomAccessRead)
+        {
+            long savedPosition = randomAccessRead.getPosition();
+            try
+            {
+                randomAccessRead.seek(startPosition + currentPosition);
+                int readValue = randomAccessRead.read();
+                if (readValue > -1)
+                {
+                    currentPosition++;
+                }
+                return readValue;
+            }
+            finally
+            {
+                randomAccessRead.seek(savedPosition);
+            }
+        }
+    }
+
+    @Override
+    public int read(byte[] b) throws IOException
+    {
+        return read(b, 0, b.length);
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (isEOF())
+        {
+            return -1;
+        }
+        int toRead = (int) Math.min(len, streamLength - currentPosition);
+        synchronized (randomAccessRead)
+        {
+            long savedPosition = randomAccessRead.getPosition();
+            try
+            {
+                randomAccessRead.seek(startPosition + currentPosition);
+                int readBytes = randomAccessRead.read(b, off, toRead);
+                if (readBytes > 0)
+                {
+                    currentPosition += readBytes;
+                }
+                return readBytes;
+            }
+            finally
+            {
+                randomAccessRead.seek(savedPosition);
+            }
+        }
+    }
+
+    @Override
+    public long length() throws IOException
+    {
+        checkClosed();
+        return streamLength;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        isClosed = true;
+    }
+
+    @Override
+    public boolean isClosed()
+    {
+        return isClosed || randomAccessRead.isClosed();
+    }
+
+    @Override
+    public int peek() throws IOException
+    {
+        int result = read();
+        if (result != -1)
+        {
+            rewind(1);
+        }
+        return result;
+    }
+
+    @Override
+    public void rewind(int bytes) throws IOException
+    {
+        checkClosed();
+        seek(currentPosition - bytes);
+    }
+
+    @Override
+    public byte[] readFully(int length) throws IOException
+    {
+        byte[] b = new byte[length];
+        int bytesRead = 0;
+        while (bytesRead < length)
+        {
+            int count = read(b, bytesRead, length - bytesRead);
+            if (count < 0)
+            {
+                throw new EOFException();
+            }
+            bytesRead += count;
+        }
+        return b;
+    }
+
+    @Override
+    public boolean isEOF() throws IOException
+    {
+        checkClosed();
+        return currentPosition >= streamLength;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        checkClosed();
+        return (int) Math.min(streamLength - currentPosition, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Ensure that the view and its underlying source are not closed.
+     *
+     * @throws IOException If RandomAccessReadView already closed
+     */
+    private void checkClosed() throws IOException
+    {
+        if (isClosed())
+        {
+            throw new IOException("RandomAccessReadView already closed");
+        }
+    }
+}
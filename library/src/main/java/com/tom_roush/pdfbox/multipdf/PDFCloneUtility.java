@@ -17,8 +17,6 @@
 package com.tom_roush.pdfbox.multipdf;
 
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,7 +26,6 @@ import com.tom_roush.pdfbox.cos.COSDictionary;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSObject;
 import com.tom_roush.pdfbox.cos.COSStream;
-import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
 import com.tom_roush.pdfbox.pdmodel.common.COSObjectable;
 
@@ -116,11 +113,8 @@ public class PDFCloneUtility
         {
             COSStream originalStream = (COSStream)base;
             COSStream stream = destination.getDocument().createCOSStream();
-            OutputStream output = stream.createRawOutputStream();
-            InputStream input = originalStream.createRawInputStream();
-            IOUtils.copy(input, output );
-            input.close();
-            output.close();
+            // the encoded data is only copied if the source is closed first
+            stream.shareRawData(originalStream);
             clonedVersion.put( base, stream );
             for( Map.Entry<COSName, COSBase> entry :  originalStream.entrySet() )
             {
@@ -197,12 +191,9 @@ public class PDFCloneUtility
         }
         else if( base instanceof COSStream )
         {
-            // does that make sense???
             COSStream originalStream = (COSStream)base;
             COSStream stream = destination.getDocument().createCOSStream();
-            OutputStream output = stream.createOutputStream(originalStream.getFilters());
-            IOUtils.copy( originalStream.createInputStream(), output );
-            output.close();
+            stream.shareRawData(originalStream);
             clonedVersion.put( base, stream );
             for( Map.Entry<COSName, COSBase> entry : originalStream.entrySet() )
             {
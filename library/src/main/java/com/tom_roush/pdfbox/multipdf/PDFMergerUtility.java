@@ -18,8 +18,10 @@ package com.tom_roush.pdfbox.multipdf;
 
 import android.util.Log;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -42,12 +44,14 @@ import com.tom_roush.pdfbox.cos.COSObject;
 import com.tom_roush.pdfbox.cos.COSStream;
 import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.MemoryUsageSetting;
+import com.tom_roush.pdfbox.pdfwriter.COSWriter;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
 import com.tom_roush.pdfbox.pdmodel.PDDocumentCatalog;
 import com.tom_roush.pdfbox.pdmodel.PDDocumentInformation;
 import com.tom_roush.pdfbox.pdmodel.PDDocumentNameDestinationDictionary;
 import com.tom_roush.pdfbox.pdmodel.PDDocumentNameDictionary;
 import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageTree;
 import com.tom_roush.pdfbox.pdmodel.PDResources;
 import com.tom_roush.pdfbox.pdmodel.PageMode;
 import com.tom_roush.pdfbox.pdmodel.common.PDDestinationOrAction;
@@ -96,12 +100,17 @@ public class PDFMergerUtility
      * <li>{@link DocumentMergeMode#PDFBOX_LEGACY_MODE} Keeps all files open until the
      *      merge has been completed. This is  currently necessary to merge documents
      *      containing a Structure Tree. <br>This is the standard mode for PDFBox 2.0.
+     * <li>{@link DocumentMergeMode#STREAMING_MODE} Merges the same elements as the
+     *      OPTIMIZE_RESOURCES_MODE, but writes the pages of each source document as soon as it
+     *      has been processed, so that only one source document is held in memory at a time.
+     *      The page tree and the cross-reference table are written at the end.
      * </ul>
      */
     public enum DocumentMergeMode
     {
         OPTIMIZE_RESOURCES_MODE,
-        PDFBOX_LEGACY_MODE
+        PDFBOX_LEGACY_MODE,
+        STREAMING_MODE
     }
 
     /**
@@ -112,6 +121,27 @@ public class PDFMergerUtility
         sources = new ArrayList<Object>();
     }
 
+    /**
+     * Get the mode used to merge the documents.
+     *
+     * @return the merge mode
+     */
+    public DocumentMergeMode getDocumentMergeMode()
+    {
+        return documentMergeMode;
+    }
+
+    /**
+     * Set the mode used to merge the documents. The default is
+     * {@link DocumentMergeMode#PDFBOX_LEGACY_MODE}.
+     *
+     * @param theDocumentMergeMode the merge mode
+     */
+    public void setDocumentMergeMode(DocumentMergeMode theDocumentMergeMode)
+    {
+        this.documentMergeMode = theDocumentMergeMode;
+    }
+
     /**
      * Get the name of the destination file.
      *
@@ -272,6 +302,10 @@ public class PDFMergerUtility
         {
             optimizedMergeDocuments(memUsageSetting, sources);
         }
+        else if (documentMergeMode == DocumentMergeMode.STREAMING_MODE)
+        {
+            streamingMergeDocuments(memUsageSetting);
+        }
     }
 
     private void optimizedMergeDocuments(MemoryUsageSetting memUsageSetting,
@@ -337,6 +371,117 @@ public class PDFMergerUtility
         }
     }
 
+    private void streamingMergeDocuments(MemoryUsageSetting memUsageSetting) throws IOException
+    {
+        PDDocument destination = null;
+        COSWriter writer = null;
+        try
+        {
+            destination = new PDDocument(memUsageSetting);
+            if (destinationDocumentInformation != null)
+            {
+                destination.setDocumentInformation(destinationDocumentInformation);
+            }
+            if (destinationMetadata != null)
+            {
+                destination.getDocumentCatalog().setMetadata(destinationMetadata);
+            }
+            OutputStream output = destinationStream;
+            if (output == null)
+            {
+                output = new BufferedOutputStream(new FileOutputStream(destinationFileName));
+            }
+            writer = new COSWriter(output);
+            writer.startAppending(destination);
+            PDPageTree destinationPages = destination.getPages();
+
+            for (Object sourceObject : sources)
+            {
+                PDDocument sourceDoc = null;
+                // holds the streams cloned from the source until they have been written
+                PDDocument clones = null;
+                try
+                {
+                    if (sourceObject instanceof File)
+                    {
+                        sourceDoc = PDDocument.load((File) sourceObject, memUsageSetting);
+                    }
+                    else
+                    {
+                        sourceDoc = PDDocument.load((InputStream) sourceObject, memUsageSetting);
+                    }
+                    clones = new PDDocument(memUsageSetting);
+                    PDFCloneUtility cloner = new PDFCloneUtility(clones);
+                    List<COSDictionary> newPages = new ArrayList<COSDictionary>();
+                    for (PDPage newPage : clonePagesWithoutParent(cloner, sourceDoc))
+                    {
+                        destinationPages.add(newPage);
+                        newPages.add(newPage.getCOSObject());
+                    }
+                    writer.append(newPages);
+                    // only the object numbers of the written pages are needed for the page tree
+                    for (COSDictionary newPage : newPages)
+                    {
+                        newPage.clear();
+                    }
+                }
+                finally
+                {
+                    IOUtils.closeQuietly(clones);
+                    IOUtils.closeQuietly(sourceDoc);
+                }
+            }
+            writer.finishAppending();
+        }
+        finally
+        {
+            IOUtils.closeQuietly(writer);
+            IOUtils.closeQuietly(destination);
+        }
+    }
+
+    /**
+     * Clones the pages like the OPTIMIZE_RESOURCES_MODE, but without cloning the page tree of the
+     * source document through the /Parent entries, which would clone all pages at once. The
+     * /Parent entries of the source pages are removed for this, so that references between the
+     * pages, e.g. from annotations, are mapped to the cloned pages.
+     */
+    private List<PDPage> clonePagesWithoutParent(PDFCloneUtility cloner, PDDocument sourceDoc)
+        throws IOException
+    {
+        // the inherited attributes are needed before the parents are removed
+        List<PDPage> pages = new ArrayList<PDPage>();
+        List<PDPage> newPages = new ArrayList<PDPage>();
+        for (PDPage page : sourceDoc.getPages())
+        {
+            PDPage newPage = new PDPage(new COSDictionary());
+            newPage.setCropBox(page.getCropBox());
+            newPage.setMediaBox(page.getMediaBox());
+            newPage.setRotation(page.getRotation());
+            PDResources resources = page.getResources();
+            newPage.getCOSObject().setItem(COSName.RESOURCES,
+                resources != null ? resources.getCOSObject() : new COSDictionary());
+            pages.add(page);
+            newPages.add(newPage);
+        }
+        for (PDPage page : pages)
+        {
+            page.getCOSObject().removeItem(COSName.PARENT);
+        }
+        for (int i = 0; i < pages.size(); i++)
+        {
+            COSDictionary inherited = newPages.get(i).getCOSObject();
+            COSDictionary newPage = (COSDictionary) cloner.cloneForNewDocument(pages.get(i));
+            // this is smart enough to just create references for resources that are used on multiple pages
+            for (Map.Entry<COSName, COSBase> entry : inherited.entrySet())
+            {
+                newPage.setItem(entry.getKey(), cloner.cloneForNewDocument(entry.getValue()));
+            }
+            newPages.set(i, new PDPage(newPage));
+        }
+        return newPages;
+    }
+
     /**
      * Merge the list of source documents, saving the result in the destination
      * file.
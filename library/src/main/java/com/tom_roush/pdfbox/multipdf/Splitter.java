@@ -16,9 +16,17 @@
  */
 package com.tom_roush.pdfbox.multipdf;
 
+import android.os.Build;
+import android.util.Log;
+
 import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
 
 import com.tom_roush.pdfbox.io.MemoryUsageSetting;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
@@ -50,6 +58,43 @@ public class Splitter
 
     private MemoryUsageSetting memoryUsageSetting = null;
 
+    // hands complete parts to the executor, null if the parts are returned as a list
+    private PartWriter partWriter;
+
+    /**
+     * Receives the parts of a split document, see
+     * {@link #split(PDDocument, Executor, int, PartConsumer)}.
+     */
+    public interface PartConsumer
+    {
+        /**
+         * Processes a complete part, e.g. saves it. This is called on a thread of the executor,
+         * the part is closed afterwards.
+         *
+         * @param part the part
+         * @param index the 0-based index of the part
+         * @throws IOException if the part can't be processed
+         */
+        void accept(PDDocument part, int index) throws IOException;
+    }
+
+    /**
+     * Creates the streams the parts of a split document are saved to, see
+     * {@link #split(PDDocument, Executor, int, OutputStreamFactory)}.
+     */
+    public interface OutputStreamFactory
+    {
+        /**
+         * Creates the stream a part is saved to. This is called on a thread of the executor, the
+         * stream is closed when the part has been saved.
+         *
+         * @param index the 0-based index of the part
+         * @return the stream to save the part to
+         * @throws IOException if the stream can't be created
+         */
+        OutputStream createOutputStream(int index) throws IOException;
+    }
+
     /**
      * @return the current memory setting.
      */
@@ -85,6 +130,141 @@ public class Splitter
         return destinationDocuments;
     }
 
+    /**
+     * This will take a document and split it into several other documents, which are saved to
+     * the streams of the given factory by the given executor. The pages are imported on the
+     * calling thread, while the complete parts are saved and closed in the background. At most
+     * <code>maxParts</code> parts are held in memory at a time, including the one being filled,
+     * so the number of pages doesn't matter. This method returns when all parts have been saved.
+     *
+     * The parts share objects and stream data with the source document, which must therefore
+     * neither be modified nor closed while this method runs. The objects of a source opened in
+     * fast open mode may be read by the threads saving the parts, the parser reads one object
+     * at a time.
+     *
+     * @param document The document to split.
+     * @param executor The executor saving the parts.
+     * @param maxParts The maximum number of parts in memory, at least 1.
+     * @param factory The factory creating the streams the parts are saved to.
+     *
+     * @throws IOException If there is an IOError, or if a part couldn't be saved.
+     */
+    public void split(PDDocument document, Executor executor, int maxParts,
+        final OutputStreamFactory factory) throws IOException
+    {
+        split(document, executor, maxParts, new PartConsumer()
+        {
+            @Override
+            public void accept(PDDocument part, int index) throws IOException
+            {
+                part.save(factory.createOutputStream(index));
+            }
+        });
+    }
+
+    /**
+     * This will take a document and split it into several other documents, which are passed to
+     * the given consumer by the given executor and closed afterwards. The pages are imported on
+     * the calling thread, while the complete parts are processed in the background. At most
+     * <code>maxParts</code> parts are held in memory at a time, including the one being filled.
+     * This method returns when all parts have been processed.
+     *
+     * The parts share objects and stream data with the source document, which must therefore
+     * neither be modified nor closed while this method runs. The objects of a source opened in
+     * fast open mode may be read by the threads saving the parts, the parser reads one object
+     * at a time.
+     *
+     * @param document The document to split.
+     * @param executor The executor processing the parts.
+     * @param maxParts The maximum number of parts in memory, at least 1.
+     * @param consumer The consumer processing the parts.
+     *
+     * @throws IOException If there is an IOError, or if the consumer failed for a part.
+     */
+    public void split(PDDocument document, Executor executor, int maxParts, PartConsumer consumer)
+        throws IOException
+    {
+        if (maxParts < 1)
+        {
+            throw new IllegalArgumentException("maxParts is smaller than one");
+        }
+        destinationDocuments = null;
+        sourceDocument = document;
+        partWriter = new PartWriter(executor, maxParts, consumer);
+        try
+        {
+            processPages();
+            if (currentDestinationDocument != null)
+            {
+                PDDocument lastPart = currentDestinationDocument;
+                currentDestinationDocument = null;
+                partWriter.submit(lastPart);
+            }
+        }
+        catch (Throwable e)
+        {
+            finishParts(e);
+            throw e;
+        }
+        finishParts();
+    }
+
+    /**
+     * Discards the part being filled, if any, and waits until the other parts have been
+     * processed.
+     *
+     * @throws IOException if a part failed
+     */
+    private void finishParts() throws IOException
+    {
+        if (currentDestinationDocument != null)
+        {
+            // the part being filled when something went wrong
+            partWriter.discard(currentDestinationDocument);
+            currentDestinationDocument = null;
+        }
+        PartWriter writer = partWriter;
+        partWriter = null;
+        writer.finish();
+    }
+
+    /**
+     * Waits for the parts after the splitting failed, so that a failed part doesn't replace the
+     * given failure.
+     */
+    private void finishParts(Throwable failure)
+    {
+        try
+        {
+            finishParts();
+        }
+        catch (IOException e)
+        {
+            addSuppressed(failure, e);
+        }
+        catch (RuntimeException e)
+        {
+            addSuppressed(failure, e);
+        }
+    }
+
+    private static void addSuppressed(Throwable failure, Throwable e)
+    {
+        if (e == failure)
+        {
+            // the failure of a part is also thrown when the next part is started
+            return;
+        }
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.KITKAT)
+        {
+            failure.addSuppressed(e);
+        }
+        else
+        {
+            Log.e("PdfBox-Android", "Error while splitting after another error", e);
+        }
+    }
+
     /**
      * This will tell the splitting algorithm where to split the pages.  The default
      * is 1, so every page will become a new document.  If it was two then each document would
@@ -172,8 +352,34 @@ public class Splitter
     {
         if (splitAtPage(currentPageNumber) || currentDestinationDocument == null)
         {
-            currentDestinationDocument = createNewDocument();
-            destinationDocuments.add(currentDestinationDocument);
+            if (partWriter != null)
+            {
+                if (currentDestinationDocument != null)
+                {
+                    PDDocument completePart = currentDestinationDocument;
+                    currentDestinationDocument = null;
+                    partWriter.submit(completePart);
+                }
+                partWriter.acquire();
+                boolean created = false;
+                try
+                {
+                    currentDestinationDocument = createNewDocument();
+                    created = true;
+                }
+                finally
+                {
+                    if (!created)
+                    {
+                        partWriter.release();
+                    }
+                }
+            }
+            else
+            {
+                currentDestinationDocument = createNewDocument();
+                destinationDocuments.add(currentDestinationDocument);
+            }
         }
     }
 
@@ -277,4 +483,160 @@ public class Splitter
     {
         return currentDestinationDocument;
     }
+
+    /**
+     * Processes the complete parts on the executor, and limits the number of parts in memory.
+     */
+    private static final class PartWriter
+    {
+        private final Executor executor;
+        private final int maxParts;
+        private final PartConsumer consumer;
+        // one permit per part that may be in memory
+        private final Semaphore permits;
+        private int partCount = 0;
+        private IOException failure;
+
+        PartWriter(Executor executor, int maxParts, PartConsumer consumer)
+        {
+            this.executor = executor;
+            this.maxParts = maxParts;
+            this.consumer = consumer;
+            this.permits = new Semaphore(maxParts);
+        }
+
+        /**
+         * Waits until another part may be created.
+         */
+        void acquire() throws IOException
+        {
+            try
+            {
+                permits.acquire();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for a part to be saved");
+            }
+            try
+            {
+                // no new parts once a part failed
+                checkFailure();
+            }
+            catch (IOException e)
+            {
+                permits.release();
+                throw e;
+            }
+        }
+
+        /**
+         * Gives back the permit of a part that couldn't be created.
+         */
+        void release()
+        {
+            permits.release();
+        }
+
+        /**
+         * Closes a part that won't be processed.
+         */
+        void discard(PDDocument part)
+        {
+            close(part, partCount);
+            permits.release();
+        }
+
+        /**
+         * Hands a complete part to the executor, which closes it when it has been processed.
+         */
+        void submit(final PDDocument part) throws IOException
+        {
+            final int index = partCount++;
+            try
+            {
+                executor.execute(new Runnable()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            consumer.accept(part, index);
+                        }
+                        catch (IOException e)
+                        {
+                            setFailure(e);
+                        }
+                        catch (RuntimeException e)
+                        {
+                            setFailure(new IOException(e));
+                        }
+                        finally
+                        {
+                            close(part, index);
+                            permits.release();
+                        }
+                    }
+                });
+            }
+            catch (RejectedExecutionException e)
+            {
+                close(part, index);
+                permits.release();
+                throw new IOException("Part " + index + " couldn't be handed to the executor", e);
+            }
+        }
+
+        /**
+         * Waits until all parts have been processed, and throws the first failure.
+         */
+        void finish() throws IOException
+        {
+            try
+            {
+                permits.acquire(maxParts);
+                permits.release(maxParts);
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException("Interrupted while waiting for the parts to be saved");
+            }
+            checkFailure();
+        }
+
+        private void close(PDDocument part, int index)
+        {
+            try
+            {
+                part.close();
+            }
+            catch (IOException e)
+            {
+                Log.e("PdfBox-Android", "Error closing part " + index, e);
+            }
+        }
+
+        private synchronized void setFailure(IOException e)
+        {
+            if (failure == null)
+            {
+                failure = e;
+            }
+            else
+            {
+                Log.e("PdfBox-Android", "Another part failed", e);
+            }
+        }
+
+        private synchronized void checkFailure() throws IOException
+        {
+            if (failure != null)
+            {
+                throw failure;
+            }
+        }
+    }
 }
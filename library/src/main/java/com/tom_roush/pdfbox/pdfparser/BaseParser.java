@@ -29,6 +29,7 @@ import com.tom_roush.pdfbox.cos.COSBase;
 import com.tom_roush.pdfbox.cos.COSBoolean;
 import com.tom_roush.pdfbox.cos.COSDictionary;
 import com.tom_roush.pdfbox.cos.COSDocument;
+import com.tom_roush.pdfbox.cos.COSFloat;
 import com.tom_roush.pdfbox.cos.COSInteger;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSNull;
@@ -924,6 +925,14 @@ public abstract class BaseParser
                 if( Character.isDigit(c) || c == '-' || c == '+' || c == '.')
                 {
                     StringBuilder buf = new StringBuilder();
+                    // plain decimal numbers are accumulated right away, so that they don't need
+                    // to be parsed from a string
+                    boolean plainDecimal = true;
+                    boolean negative = false;
+                    boolean dotRead = false;
+                    long value = 0;
+                    int digits = 0;
+                    int fractionDigits = 0;
                     int ic = seqSource.read();
                     c = (char)ic;
                     while( Character.isDigit( c )||
@@ -933,6 +942,27 @@ public abstract class BaseParser
                         c == 'E' ||
                         c == 'e' )
                     {
+                        if (c >= '0' && c <= '9')
+                        {
+                            value = value * 10 + c - '0';
+                            digits++;
+                            if (dotRead)
+                            {
+                                fractionDigits++;
+                            }
+                        }
+                        else if (c == '.' && !dotRead)
+                        {
+                            dotRead = true;
+                        }
+                        else if ((c == '-' || c == '+') && buf.length() == 0)
+                        {
+                            negative = c == '-';
+                        }
+                        else
+                        {
+                            plainDecimal = false;
+                        }
                         buf.append( c );
                         ic = seqSource.read();
                         c = (char)ic;
@@ -941,7 +971,16 @@ public abstract class BaseParser
                     {
                         seqSource.unread(ic);
                     }
-                    retval = COSNumber.get( buf.toString() );
+                    if (plainDecimal && digits > 0 && digits <= 18)
+                    {
+                        long signedValue = negative ? -value : value;
+                        retval = dotRead ? new COSFloat(signedValue, fractionDigits)
+                            : COSInteger.get(signedValue);
+                    }
+                    else
+                    {
+                        retval = COSNumber.get( buf.toString() );
+                    }
                 }
                 else
                 {
@@ -18,6 +18,7 @@ package com.tom_roush.pdfbox.pdfparser;
 
 import android.util.Log;
 
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
@@ -28,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
@@ -47,7 +49,9 @@ import com.tom_roush.pdfbox.cos.COSNull;
 import com.tom_roush.pdfbox.cos.COSNumber;
 import com.tom_roush.pdfbox.cos.COSObject;
 import com.tom_roush.pdfbox.cos.COSObjectKey;
+import com.tom_roush.pdfbox.cos.COSObjectKeyLongMap;
 import com.tom_roush.pdfbox.cos.COSStream;
+import com.tom_roush.pdfbox.cos.ICOSParser;
 import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.RandomAccessRead;
 import com.tom_roush.pdfbox.pdfparser.XrefTrailerResolver.XRefType;
@@ -70,7 +74,7 @@ import static com.tom_roush.pdfbox.util.Charsets.ISO_8859_1;
  * This class is a much enhanced version of <code>QuickParser</code> presented in <a
  * href="https://issues.apache.org/jira/browse/PDFBOX-1104">PDFBOX-1104</a> by Jeremy Villalobos.
  */
-public class COSParser extends BaseParser
+public class COSParser extends BaseParser implements ICOSParser
 {
     private static final String PDF_HEADER = "%PDF-";
     private static final String FDF_HEADER = "%FDF-";
@@ -101,7 +105,9 @@ public class COSParser extends BaseParser
     private String keyAlias = null;
 
     /**
-     * Only parse the PDF file minimally allowing access to basic information.
+     * Only parse the PDF file minimally allowing access to basic information: the newest xref
+     * section and the objects which are accessed are parsed on demand, see
+     * {@link #setFastOpen(boolean)}.
      */
     public static final String SYSPROP_PARSEMINIMAL =
         "com.tom_roush.pdfbox.pdfparser.nonSequentialPDFParser.parseMinimal";
@@ -113,6 +119,12 @@ public class COSParser extends BaseParser
     public static final String SYSPROP_EOFLOOKUPRANGE =
         "com.tom_roush.pdfbox.pdfparser.nonSequentialPDFParser.eofLookupRange";
 
+    /**
+     * Don't copy the data of streams when parsing, but read it from the source on demand.
+     */
+    public static final String SYSPROP_LAZYSTREAMLOADING =
+        "com.tom_roush.pdfbox.pdfparser.lazyStreamLoading";
+
     /**
      * How many trailing bytes to read for EOF marker.
      */
@@ -150,7 +162,29 @@ public class COSParser extends BaseParser
 
     protected boolean initialParseDone = false;
 
+    /**
+     * are stream bodies read from the source on demand instead of being copied ?
+     */
+    private boolean lazyStreamLoading = false;
+
     private boolean trailerWasRebuild = false;
+
+    /**
+     * Only the objects which are accessed are parsed, see {@link #setFastOpen(boolean)}.
+     */
+    private boolean fastOpen = false;
+
+    /**
+     * The offset of the next older xref section which hasn't been parsed so far in fast open
+     * mode, or -1.
+     */
+    private long pendingXrefOffset = -1;
+    private Set<Long> xrefSectionOffsets;
+
+    /**
+     * The file holding the resolved xref table and trailer, see {@link #setXrefIndexFile(File)}.
+     */
+    private File xrefIndexFile;
     /**
      * Contains all found objects of a brute force search.
      */
@@ -243,6 +277,20 @@ public class COSParser extends BaseParser
     {
         COSDictionary trailer = null;
         boolean rebuildTrailer = false;
+        if (fastOpen)
+        {
+            // the objects of the pool read themselves when they are accessed
+            document.setParser(this);
+        }
+        if (xrefIndexFile != null)
+        {
+            trailer = readXrefIndex();
+            if (trailer != null)
+            {
+                prepareDecryption();
+                return trailer;
+            }
+        }
         try
         {
             // parse startxref
@@ -275,6 +323,8 @@ public class COSParser extends BaseParser
         }
         if (rebuildTrailer)
         {
+            // the rebuilt trailer replaces the xref sections which weren't parsed so far
+            pendingXrefOffset = -1;
             trailer = rebuildTrailer();
         }
         else
@@ -286,9 +336,91 @@ public class COSParser extends BaseParser
                 bfSearchForObjStreams();
             }
         }
+        if (xrefIndexFile != null && trailer != null)
+        {
+            writeXrefIndex(trailer);
+        }
         return trailer;
     }
 
+    /**
+     * Reads the xref table and the trailer from the xref index file, if it belongs to the source.
+     *
+     * @return the trailer, or null if the index can't be used
+     */
+    private COSDictionary readXrefIndex()
+    {
+        if (!xrefIndexFile.isFile())
+        {
+            return null;
+        }
+        XrefIndex index;
+        try
+        {
+            index = XrefIndex.read(xrefIndexFile, source.length(),
+                XrefIndex.digest(source, readTrailBytes), document);
+        }
+        catch (IOException e)
+        {
+            Log.w("PdfBox-Android", "Can't read the xref index " + xrefIndexFile, e);
+            return null;
+        }
+        catch (RuntimeException e)
+        {
+            // a damaged index may have invalid keys or offsets
+            Log.w("PdfBox-Android", "Can't read the xref index " + xrefIndexFile, e);
+            return null;
+        }
+        if (index == null)
+        {
+            Log.d("PdfBox-Android", "The xref index " + xrefIndexFile + " is stale");
+            return null;
+        }
+        xrefTrailerResolver.nextXrefObj(index.startXref,
+            index.xrefStream ? XRefType.STREAM : XRefType.TABLE);
+        for (Entry<COSObjectKey, Long> entry : index.xrefTable.entrySet())
+        {
+            xrefTrailerResolver.setXRef(entry.getKey(), entry.getValue());
+        }
+        xrefTrailerResolver.setTrailer(index.trailer);
+        document.addXRefTable(xrefTrailerResolver.addPreviousXrefObj(index.startXref));
+        COSDictionary trailer = xrefTrailerResolver.getTrailer();
+        document.setStartXref(index.startXref);
+        document.setTrailer(trailer);
+        document.setIsXRefStream(index.xrefStream);
+        document.setHighestXRefObjectNumber(index.highestXRefObjectNumber);
+        trailerWasRebuild = index.trailerRebuilt;
+        return trailer;
+    }
+
+    /**
+     * Writes the xref table and the trailer to the xref index file. Failures are logged only,
+     * the index is an optimization.
+     */
+    private void writeXrefIndex(COSDictionary trailer)
+    {
+        try
+        {
+            // the index holds all xref sections
+            loadXrefTable();
+            Map<COSObjectKey, Long> xrefTable = new COSObjectKeyLongMap();
+            if (xrefTrailerResolver.getXrefTable() != null)
+            {
+                // this includes the objects found by a brute force search
+                xrefTable.putAll(xrefTrailerResolver.getXrefTable());
+            }
+            xrefTable.putAll(document.getLoadedXrefTable());
+            XrefIndex index = new XrefIndex(xrefTable, trailer, document.getStartXref(),
+                document.isXRefStream(), document.getHighestXRefObjectNumber(),
+                trailerWasRebuild);
+            index.write(xrefIndexFile, source.length(), XrefIndex.digest(source, readTrailBytes));
+        }
+        catch (IOException e)
+        {
+            Log.w("PdfBox-Android", "Can't write the xref index " + xrefIndexFile, e);
+        }
+    }
+
     /**
      * Parses cross reference tables.
      *
@@ -310,112 +442,168 @@ public class COSParser extends BaseParser
         long prev = startXrefOffset;
         // ---- parse whole chain of xref tables/object streams using PREV reference
         Set<Long> prevSet = new HashSet<Long>();
+        if (fastOpen)
+        {
+            // ---- parse the newest xref table/object stream only, the others are parsed on demand
+            xrefSectionOffsets = prevSet;
+            prevSet.add(startXrefOffset);
+            pendingXrefOffset = startXrefOffset;
+            parseNextXrefSection();
+            COSDictionary trailer = xrefTrailerResolver.getTrailer();
+            while (trailer.getItem(COSName.ROOT) == null && parseNextXrefSection())
+            {
+                // the root object is defined in an older trailer
+            }
+            document.setTrailer(trailer);
+            document.setIsXRefStream(XRefType.STREAM == xrefTrailerResolver.getXrefType());
+            return trailer;
+        }
         while (prev > 0)
         {
-            // seek to xref table
-            source.seek(prev);
+            prev = parseXrefSection(prev);
+            if (prevSet.contains(prev))
+            {
+                throw new IOException("/Prev loop at offset " + prev);
+            }
+            prevSet.add(prev);
+        }
+        // ---- build valid xrefs out of the xref chain
+        xrefTrailerResolver.setStartxref(startXrefOffset);
+        COSDictionary trailer = xrefTrailerResolver.getTrailer();
+        document.setTrailer(trailer);
+        document.setIsXRefStream(XRefType.STREAM == xrefTrailerResolver.getXrefType());
+        // check the offsets of all referenced objects
+        checkXrefOffsets();
+        // copy xref table
+        document.addXRefTable(xrefTrailerResolver.getXrefTable());
+        return trailer;
+    }
 
-            // skip white spaces
-            skipSpaces();
-            // -- parse xref
-            if (source.peek() == X)
+    /**
+     * Parses one xref table including its trailer and /XRefStm or one xref object stream.
+     *
+     * @param prev the offset of the xref table or xref object stream
+     * @return the checked value of the /Prev entry of its trailer, or <code>-1</code>
+     * @throws IOException if something went wrong
+     */
+    private long parseXrefSection(long prev) throws IOException
+    {
+        long fixedOffset;
+        // seek to xref table
+        source.seek(prev);
+
+        // skip white spaces
+        skipSpaces();
+        // -- parse xref
+        if (source.peek() == X)
+        {
+            // xref table and trailer
+            // use existing parser to parse xref table
+            if (!parseXrefTable(prev) || !parseTrailer())
+            {
+                throw new IOException("Expected trailer object at offset "
+                    + source.getPosition());
+            }
+            COSDictionary trailer = xrefTrailerResolver.getCurrentTrailer();
+            // check for a XRef stream, it may contain some object ids of compressed objects 
+            if(trailer.containsKey(COSName.XREF_STM))
             {
-                // xref table and trailer
-                // use existing parser to parse xref table
-                if (!parseXrefTable(prev) || !parseTrailer())
+                int streamOffset = trailer.getInt(COSName.XREF_STM);
+                // check the xref stream reference
+                fixedOffset = checkXRefOffset(streamOffset);
+                if (fixedOffset > -1 && fixedOffset != streamOffset)
                 {
-                    throw new IOException("Expected trailer object at offset "
-                        + source.getPosition());
+                    Log.w("PdfBox-Android", "/XRefStm offset " + streamOffset + " is incorrect, corrected to " + fixedOffset);
+                    streamOffset = (int)fixedOffset;
+                    trailer.setInt(COSName.XREF_STM, streamOffset);
                 }
-                COSDictionary trailer = xrefTrailerResolver.getCurrentTrailer();
-                // check for a XRef stream, it may contain some object ids of compressed objects 
-                if(trailer.containsKey(COSName.XREF_STM))
+                if (streamOffset > 0)
                 {
-                    int streamOffset = trailer.getInt(COSName.XREF_STM);
-                    // check the xref stream reference
-                    fixedOffset = checkXRefOffset(streamOffset);
-                    if (fixedOffset > -1 && fixedOffset != streamOffset)
-                    {
-                        Log.w("PdfBox-Android", "/XRefStm offset " + streamOffset + " is incorrect, corrected to " + fixedOffset);
-                        streamOffset = (int)fixedOffset;
-                        trailer.setInt(COSName.XREF_STM, streamOffset);
-                    }
-                    if (streamOffset > 0)
+                    source.seek(streamOffset);
+                    skipSpaces();
+                    try
                     {
-                        source.seek(streamOffset);
-                        skipSpaces();
-                        try
-                        {
-                            parseXrefObjStream(prev, false);
-                        }
-                        catch (IOException ex)
-                        {
-                            if (isLenient)
-                            {
-                                Log.e("PdfBox-Android", "Failed to parse /XRefStm at offset " + streamOffset, ex);
-                            }
-                            else
-                            {
-                                throw ex;
-                            }
-                        }
+                        parseXrefObjStream(prev, false);
                     }
-                    else
+                    catch (IOException ex)
                     {
-                        if(isLenient)
+                        if (isLenient)
                         {
-                            Log.e("PdfBox-Android", "Skipped XRef stream due to a corrupt offset:"+streamOffset);
+                            Log.e("PdfBox-Android", "Failed to parse /XRefStm at offset " + streamOffset, ex);
                         }
                         else
                         {
-                            throw new IOException("Skipped XRef stream due to a corrupt offset:"+streamOffset);
+                            throw ex;
                         }
                     }
                 }
-                prev = trailer.getLong(COSName.PREV);
-                if (prev > 0)
+                else
                 {
-                    // check the xref table reference
-                    fixedOffset = checkXRefOffset(prev);
-                    if (fixedOffset > -1 && fixedOffset != prev)
+                    if(isLenient)
+                    {
+                        Log.e("PdfBox-Android", "Skipped XRef stream due to a corrupt offset:"+streamOffset);
+                    }
+                    else
                     {
-                        prev = fixedOffset;
-                        trailer.setLong(COSName.PREV, prev);
+                        throw new IOException("Skipped XRef stream due to a corrupt offset:"+streamOffset);
                     }
                 }
             }
-            else
+            prev = trailer.getLong(COSName.PREV);
+            if (prev > 0)
             {
-                // parse xref stream
-                prev = parseXrefObjStream(prev, true);
-                if (prev > 0)
+                // check the xref table reference
+                fixedOffset = checkXRefOffset(prev);
+                if (fixedOffset > -1 && fixedOffset != prev)
                 {
-                    // check the xref table reference
-                    fixedOffset = checkXRefOffset(prev);
-                    if (fixedOffset > -1 && fixedOffset != prev)
-                    {
-                        prev = fixedOffset;
-                        COSDictionary trailer = xrefTrailerResolver.getCurrentTrailer();
-                        trailer.setLong(COSName.PREV, prev);
-                    }
+                    prev = fixedOffset;
+                    trailer.setLong(COSName.PREV, prev);
                 }
             }
-            if (prevSet.contains(prev))
+        }
+        else
+        {
+            // parse xref stream
+            prev = parseXrefObjStream(prev, true);
+            if (prev > 0)
             {
-                throw new IOException("/Prev loop at offset " + prev);
+                // check the xref table reference
+                fixedOffset = checkXRefOffset(prev);
+                if (fixedOffset > -1 && fixedOffset != prev)
+                {
+                    prev = fixedOffset;
+                    COSDictionary trailer = xrefTrailerResolver.getCurrentTrailer();
+                    trailer.setLong(COSName.PREV, prev);
+                }
             }
-            prevSet.add(prev);
         }
-        // ---- build valid xrefs out of the xref chain
-        xrefTrailerResolver.setStartxref(startXrefOffset);
-        COSDictionary trailer = xrefTrailerResolver.getTrailer();
-        document.setTrailer(trailer);
-        document.setIsXRefStream(XRefType.STREAM == xrefTrailerResolver.getXrefType());
-        // check the offsets of all referenced objects
-        checkXrefOffsets();
-        // copy xref table
-        document.addXRefTable(xrefTrailerResolver.getXrefTable());
-        return trailer;
+        return prev;
+    }
+
+    /**
+     * Parses the next older xref table or xref object stream which hasn't been parsed so far and
+     * adds the entries which aren't overridden by a newer one to the xref table of the document.
+     *
+     * @return false if all xref tables and xref object streams have been parsed
+     * @throws IOException if something went wrong
+     */
+    private boolean parseNextXrefSection() throws IOException
+    {
+        long offset = pendingXrefOffset;
+        if (offset <= 0)
+        {
+            return false;
+        }
+        // an xref section is parsed once, even if it fails
+        pendingXrefOffset = -1;
+        long prev = parseXrefSection(offset);
+        document.addXRefTable(xrefTrailerResolver.addPreviousXrefObj(offset));
+        if (prev > 0 && !xrefSectionOffsets.add(prev))
+        {
+            throw new IOException("/Prev loop at offset " + prev);
+        }
+        pendingXrefOffset = prev;
+        return true;
     }
 
     /**
@@ -574,6 +762,101 @@ public class COSParser extends BaseParser
         this.isLenient = lenient;
     }
 
+    /**
+     * Return true if the data of parsed streams is read from the source on demand.
+     *
+     * @return true if stream loading is lazy
+     */
+    public boolean isLazyStreamLoading()
+    {
+        return lazyStreamLoading;
+    }
+
+    /**
+     * Change the lazy stream loading flag. If set, the data of a stream with a valid length isn't
+     * copied to the scratch file when parsed, the stream reads it from the source when needed.
+     * The source must then stay open and unchanged as long as the document is in use, i.e. the
+     * document must not be saved to the file it was loaded from.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param lazyStreamLoading read stream data from the source on demand.
+     */
+    public void setLazyStreamLoading(boolean lazyStreamLoading)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change stream loading after parsing");
+        }
+        this.lazyStreamLoading = lazyStreamLoading;
+    }
+
+    /**
+     * Returns the file holding the resolved xref table and trailer of the document.
+     *
+     * @return the xref index file or null
+     */
+    public File getXrefIndexFile()
+    {
+        return xrefIndexFile;
+    }
+
+    /**
+     * Sets a file holding the resolved xref table and trailer of the document, for documents
+     * which are opened repeatedly. If the file belongs to the source, i.e. it was written for a
+     * source with the same length and the same bytes at the end, which hold the trailer and the
+     * startxref offset, the xref sections aren't parsed, checked or repaired. Otherwise they are
+     * and the file is written with the result.
+     *
+     * The index doesn't detect changes which keep the length and the end of the source, it must
+     * be removed if the source may be changed that way.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param xrefIndexFile the xref index file, or null
+     */
+    public void setXrefIndexFile(File xrefIndexFile)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change the xref index after parsing");
+        }
+        this.xrefIndexFile = xrefIndexFile;
+    }
+
+    /**
+     * Returns true if only the objects which are accessed are parsed.
+     *
+     * @return true if fast open is enabled
+     */
+    public boolean isFastOpen()
+    {
+        return fastOpen;
+    }
+
+    /**
+     * Change the fast open flag. If set, opening a document parses the newest xref section and
+     * the catalog only. Older xref sections are parsed when an object isn't found in the newer
+     * ones, and all other objects are parsed when they are accessed for the first time. The
+     * offsets of the xref sections aren't checked up front, the brute force search to repair
+     * them is done only when an object can't be found at its offset.
+     *
+     * The source must stay open as long as the document is in use, as with lazy stream
+     * loading. Saving parses all objects of the document.
+     *
+     * This method can only be called before the parsing of the file.
+     *
+     * @param fastOpen parse objects on demand.
+     */
+    public void setFastOpen(boolean fastOpen)
+    {
+        if (initialParseDone)
+        {
+            throw new IllegalArgumentException("Cannot change fast open after parsing");
+        }
+        this.fastOpen = fastOpen;
+    }
+
     /**
      * Creates a unique object id using object number and object generation
      * number. (requires object number &lt; 2^31))
@@ -669,14 +952,14 @@ public class COSParser extends BaseParser
 
                     if (!parsedObjects.contains(objId))
                     {
-                        Long fileOffset = document.getXrefTable().get(objKey);
+                        Long fileOffset = document.getLoadedXrefTable().get(objKey);
                         if (fileOffset == null && isLenient && bfSearchCOSObjectKeyOffsets != null)
                         {
                             fileOffset = bfSearchCOSObjectKeyOffsets.get(objKey);
                             if (fileOffset != null)
                             {
                                 Log.d("PdfBox-Android", "Set missing " + fileOffset + " for object " + objKey);
-                                document.getXrefTable().put(objKey, fileOffset);
+                                document.getLoadedXrefTable().put(objKey, fileOffset);
                             }
                         }
 
@@ -694,7 +977,7 @@ public class COSParser extends BaseParser
                                 // object within object stream;
                                 // get offset of object stream
                                 COSObjectKey key = new COSObjectKey((int) -fileOffset, 0);
-                                fileOffset = document.getXrefTable().get(key);
+                                fileOffset = document.getLoadedXrefTable().get(key);
                                 if (fileOffset == null || fileOffset <= 0)
                                 {
                                     if (isLenient && bfSearchCOSObjectKeyOffsets != null)
@@ -704,7 +987,7 @@ public class COSParser extends BaseParser
                                         {
                                             Log.d("PdfBox-Android", "Set missing " + fileOffset + " for object "
                                                 + key);
-                                            document.getXrefTable().put(key, fileOffset);
+                                            document.getLoadedXrefTable().put(key, fileOffset);
                                         }
                                     }
                                     else
@@ -814,11 +1097,18 @@ public class COSParser extends BaseParser
         final COSObjectKey objKey = new COSObjectKey(objNr, objGenNr);
         final COSObject pdfObject = document.getObjectFromPool(objKey);
 
-        if (pdfObject.getObject() == null)
+        if (pdfObject.isObjectNull())
         {
             // not previously parsed
             // ---- read offset or object stream object number from xref table
-            Long offsetOrObjstmObNr = document.getXrefTable().get(objKey);
+            Long offsetOrObjstmObNr = lookupXrefOffset(objKey);
+
+            // the offsets aren't checked when opening a document in fast open mode
+            if (fastOpen && isLenient && offsetOrObjstmObNr != null && offsetOrObjstmObNr > 0
+                && !checkObjectKey(objKey, offsetOrObjstmObNr))
+            {
+                offsetOrObjstmObNr = bfSearchForObject(objKey, offsetOrObjstmObNr);
+            }
 
             // maybe something is wrong with the xref table -> perform brute force search for all objects
             if (offsetOrObjstmObNr == null && isLenient && bfSearchCOSObjectKeyOffsets != null)
@@ -827,7 +1117,7 @@ public class COSParser extends BaseParser
                 if (offsetOrObjstmObNr != null)
                 {
                     Log.d("PdfBox-Android", "Set missing offset " + offsetOrObjstmObNr + " for object " + objKey);
-                    document.getXrefTable().put(objKey, offsetOrObjstmObNr);
+                    document.getLoadedXrefTable().put(objKey, offsetOrObjstmObNr);
                 }
             }
 
@@ -846,7 +1136,7 @@ public class COSParser extends BaseParser
                 if (bfSearchCOSObjectKeyOffsets != null && !bfSearchCOSObjectKeyOffsets.isEmpty())
                 {
                     Log.d("PdfBox-Android", "Add all new read objects from brute force search to the xref table");
-                    Map<COSObjectKey, Long> xrefOffset = document.getXrefTable();
+                    Map<COSObjectKey, Long> xrefOffset = document.getLoadedXrefTable();
                     final Set<Map.Entry<COSObjectKey, Long>> entries = bfSearchCOSObjectKeyOffsets.entrySet();
                     for (Entry<COSObjectKey, Long> entry : entries)
                     {
@@ -878,7 +1168,91 @@ public class COSParser extends BaseParser
                 parseObjectStream((int) -offsetOrObjstmObNr);
             }
         }
-        return pdfObject.getObject();
+        return pdfObject.isObjectNull() ? null : pdfObject.getObject();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized COSBase dereferenceCOSObject(COSObject obj) throws IOException
+    {
+        // the objects lock the parser before the source, which is locked by the views of the
+        // streams as well
+        synchronized (source)
+        {
+            // an object may be accessed while another one is parsed
+            long currentPosition = source.getPosition();
+            try
+            {
+                return parseObjectDynamically(obj, false);
+            }
+            finally
+            {
+                source.seek(currentPosition);
+            }
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized void loadXrefTable() throws IOException
+    {
+        synchronized (source)
+        {
+            long currentPosition = source.getPosition();
+            try
+            {
+                while (parseNextXrefSection())
+                {
+                    // parse all remaining xref sections
+                }
+            }
+            finally
+            {
+                source.seek(currentPosition);
+            }
+        }
+    }
+
+    /**
+     * Returns the offset or the negated number of the object stream of the given object, and
+     * parses older xref sections in fast open mode until it is found.
+     */
+    private Long lookupXrefOffset(COSObjectKey objKey) throws IOException
+    {
+        Map<COSObjectKey, Long> xrefTable = document.getLoadedXrefTable();
+        Long offsetOrObjstmObNr = xrefTable.get(objKey);
+        while (offsetOrObjstmObNr == null && parseNextXrefSection())
+        {
+            offsetOrObjstmObNr = xrefTable.get(objKey);
+        }
+        return offsetOrObjstmObNr;
+    }
+
+    /**
+     * Looks for an object which isn't at the offset of the xref table in fast open mode, where
+     * the offsets weren't checked when the document was opened.
+     *
+     * @return the offset found by the brute force search, or null
+     */
+    private Long bfSearchForObject(COSObjectKey objKey, long offset) throws IOException
+    {
+        bfSearchForObjects();
+        Long fixedOffset = bfSearchCOSObjectKeyOffsets.get(objKey);
+        if (fixedOffset != null)
+        {
+            Log.d("PdfBox-Android", "Replaced offset " + offset + " of object " + objKey + " with "
+                + fixedOffset);
+            document.getLoadedXrefTable().put(objKey, fixedOffset);
+        }
+        else
+        {
+            Log.w("PdfBox-Android", "Object " + objKey + " can't be found at offset " + offset);
+        }
+        return fixedOffset;
     }
 
     private void parseFileObject(Long offsetOrObjstmObNr, final COSObjectKey objKey, final COSObject pdfObject) throws IOException
@@ -1037,7 +1411,7 @@ public class COSParser extends BaseParser
         else if (lengthBaseObj instanceof COSObject)
         {
             COSObject lengthObj = (COSObject) lengthBaseObj;
-            COSBase length = lengthObj.getObject();
+            COSBase length = lengthObj.isObjectNull() ? null : lengthObj.getObject();
             if (length == null)
             {
                 // not read so far, keep current stream position
@@ -1092,7 +1466,7 @@ public class COSParser extends BaseParser
      */
     protected COSStream parseCOSStream(COSDictionary dic) throws IOException
     {
-        COSStream stream = document.createCOSStream(dic);
+        COSStream stream;
 
         // read 'stream'; this was already tested in parseObjectsDynamically()
         readString();
@@ -1116,9 +1490,21 @@ public class COSParser extends BaseParser
             }
         }
 
-        // get output stream to copy data to
-        if (streamLengthObj != null && validateStreamLength(streamLengthObj.longValue()))
+        boolean streamLengthIsValid = streamLengthObj != null
+            && validateStreamLength(streamLengthObj.longValue());
+        if (streamLengthIsValid && lazyStreamLoading)
+        {
+            // don't copy the data, the stream reads it from the source on demand
+            long streamStart = source.getPosition();
+            long streamLength = streamLengthObj.longValue();
+            stream = document.createCOSStream(dic, source, streamStart, streamLength);
+            stream.setItem(COSName.LENGTH, streamLengthObj);
+            source.seek(streamStart + streamLength);
+        }
+        else if (streamLengthIsValid)
         {
+            // get output stream to copy data to
+            stream = document.createCOSStream(dic);
             OutputStream out = stream.createRawOutputStream();
             try
             {
@@ -1133,6 +1519,7 @@ public class COSParser extends BaseParser
         }
         else
         {
+            stream = document.createCOSStream(dic);
             OutputStream out = stream.createRawOutputStream();
             try
             {
@@ -1442,9 +1829,14 @@ public class COSParser extends BaseParser
         {
             return true;
         }
-        for (Entry<COSObjectKey, Long> objectEntry : xrefOffset.entrySet())
+        // the keys of the xref table are created on demand, fixed generations are put back
+        Map<COSObjectKey, Long> fixedKeys = new HashMap<COSObjectKey, Long>();
+        boolean valid = true;
+        for (Iterator<Entry<COSObjectKey, Long>> it = xrefOffset.entrySet().iterator(); it.hasNext();)
         {
+            Entry<COSObjectKey, Long> objectEntry = it.next();
             COSObjectKey objectKey = objectEntry.getKey();
+            int generation = objectKey.getGeneration();
             Long objectOffset = objectEntry.getValue();
             // a negative offset number represents an object number itself
             // see type 2 entry in xref stream
@@ -1453,10 +1845,17 @@ public class COSParser extends BaseParser
             {
                 Log.d("PdfBox-Android", "Stop checking xref offsets as at least one (" + objectKey
                     + ") couldn't be dereferenced");
-                return false;
+                valid = false;
+                break;
+            }
+            if (objectKey.getGeneration() != generation)
+            {
+                it.remove();
+                fixedKeys.put(objectKey, objectOffset);
             }
         }
-        return true;
+        xrefOffset.putAll(fixedKeys);
+        return valid;
     }
 
     /**
@@ -1540,7 +1939,7 @@ public class COSParser extends BaseParser
         if (bfSearchCOSObjectKeyOffsets == null)
         {
             bfSearchForLastEOFMarker();
-            bfSearchCOSObjectKeyOffsets = new HashMap<COSObjectKey, Long>();
+            bfSearchCOSObjectKeyOffsets = new COSObjectKeyLongMap();
             long originOffset = source.getPosition();
             long currentOffset = MINIMUM_SEARCH_OFFSET;
             long lastObjectId = Long.MIN_VALUE;
@@ -2269,7 +2668,7 @@ public class COSParser extends BaseParser
         if (offset < 0)
         {
             COSObject compressedObject = document.getObjectFromPool(key);
-            if (compressedObject.getObject() == null)
+            if (compressedObject.isObjectNull())
             {
                 parseObjectStream((int) -offset);
             }
@@ -2944,7 +3343,7 @@ public class COSParser extends BaseParser
             if (value instanceof COSObject)
             {
                 COSObject object = (COSObject) value;
-                if (object.getObject() == null)
+                if (object.isObjectNull())
                 {
                     parseDictionaryRecursive(object);
                 }
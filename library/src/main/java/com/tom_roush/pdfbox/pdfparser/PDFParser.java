@@ -138,6 +138,8 @@ public class PDFParser extends COSParser
                     + " does not contain an integer value, but: '" + eofLookupRangeStr + "'");
             }
         }
+        setLazyStreamLoading(Boolean.getBoolean(SYSPROP_LAZYSTREAMLOADING));
+        setFastOpen(Boolean.getBoolean(SYSPROP_PARSEMINIMAL));
         document = new COSDocument(scratchFile);
     }
 
@@ -160,6 +162,7 @@ public class PDFParser extends COSParser
      * The initial parse will first parse only the trailer, the xrefstart and all xref tables to have a pointer (offset)
      * to all the pdf's objects. It can handle linearized pdfs, which will have an xref at the end pointing to an xref
      * at the beginning of the file. Last the root object is parsed.
+     * In fast open mode only the newest xref table and the root object are parsed.
      *
      * @throws InvalidPasswordException If the password is incorrect.
      * @throws IOException If something went wrong.
@@ -179,16 +182,20 @@ public class PDFParser extends COSParser
         {
             root.setItem(COSName.TYPE, COSName.CATALOG);
         }
-        // parse all objects, starting at the root dictionary
-        parseDictObjects(root, (COSName[]) null);
-        // parse all objects of the info dictionary
-        COSBase infoBase = trailer.getDictionaryObject(COSName.INFO);
-        if (infoBase instanceof COSDictionary)
+        // in fast open mode the objects are parsed when they are accessed
+        if (!isFastOpen())
         {
-            parseDictObjects((COSDictionary) infoBase, (COSName[]) null);
+            // parse all objects, starting at the root dictionary
+            parseDictObjects(root, (COSName[]) null);
+            // parse all objects of the info dictionary
+            COSBase infoBase = trailer.getDictionaryObject(COSName.INFO);
+            if (infoBase instanceof COSDictionary)
+            {
+                parseDictObjects((COSDictionary) infoBase, (COSName[]) null);
+            }
+            // check pages dictionaries
+            checkPages(root);
         }
-        // check pages dictionaries
-        checkPages(root);
         if (!(root.getDictionaryObject(COSName.PAGES) instanceof COSDictionary))
         {
             throw new IOException("Page tree root must be a dictionary");
@@ -22,6 +22,7 @@ import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import com.tom_roush.pdfbox.contentstream.PDContentStream;
@@ -29,12 +30,15 @@ import com.tom_roush.pdfbox.contentstream.operator.Operator;
 import com.tom_roush.pdfbox.cos.COSBase;
 import com.tom_roush.pdfbox.cos.COSBoolean;
 import com.tom_roush.pdfbox.cos.COSDictionary;
+import com.tom_roush.pdfbox.cos.COSFloat;
+import com.tom_roush.pdfbox.cos.COSInteger;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSNull;
 import com.tom_roush.pdfbox.cos.COSNumber;
 import com.tom_roush.pdfbox.cos.COSObject;
 import com.tom_roush.pdfbox.cos.COSStream;
 import com.tom_roush.pdfbox.pdmodel.common.PDStream;
+import com.tom_roush.pdfbox.util.Charsets;
 
 /**
  * This will parse a PDF byte stream and extract operands and such.
@@ -48,6 +52,16 @@ public class PDFStreamParser extends BaseParser
     private static final int MAX_BIN_CHAR_TEST_LENGTH = 10;
     private final byte[] binCharTestArr = new byte[MAX_BIN_CHAR_TEST_LENGTH];
 
+    // operators of up to 3 characters, shared by all parsers, to avoid creating a String to
+    // look up an operator. Cached operators are singletons, so racy updates are harmless.
+    private static final int OPERATOR_TABLE_SIZE = 256;
+    private static final int MAX_OPERATOR_PROBES = 8;
+    private static final Operator[] OPERATOR_TABLE = new Operator[OPERATOR_TABLE_SIZE];
+
+    // buffers reused for every token
+    private final StringBuilder numberBuffer = new StringBuilder(16);
+    private byte[] operatorBuffer = new byte[8];
+
     /**
      * Constructor.
      *
@@ -240,7 +254,8 @@ public class PDFStreamParser extends BaseParser
             {
                 /* We will be filling buf with the rest of the number.  Only
                  * allow 1 "." and "-" and "+" at start of number. */
-                StringBuilder buf = new StringBuilder();
+                StringBuilder buf = numberBuffer;
+                buf.setLength(0);
                 buf.append( c );
                 seqSource.read();
 
@@ -250,6 +265,17 @@ public class PDFStreamParser extends BaseParser
                     seqSource.read();
                 }
 
+                // the digits are accumulated right away, so that the number doesn't need to be
+                // parsed from a string
+                boolean negative = c == '-';
+                long value = 0;
+                int digits = 0;
+                int fractionDigits = 0;
+                if (c >= '0' && c <= '9')
+                {
+                    value = c - '0';
+                    digits++;
+                }
                 boolean dotNotRead = c != '.';
                 while( Character.isDigit(c = (char) seqSource.peek()) || dotNotRead && c == '.' || c == '-')
                 {
@@ -257,6 +283,15 @@ public class PDFStreamParser extends BaseParser
                     {
                         // PDFBOX-4064: ignore "-" in the middle of a number
                         buf.append(c);
+                        if (c >= '0' && c <= '9')
+                        {
+                            value = value * 10 + c - '0';
+                            digits++;
+                            if (!dotNotRead)
+                            {
+                                fractionDigits++;
+                            }
+                        }
                     }
                     seqSource.read();
 
@@ -265,7 +300,15 @@ public class PDFStreamParser extends BaseParser
                         dotNotRead = false;
                     }
                 }
-                retval = COSNumber.get( buf.toString() );
+                if (digits > 0 && digits <= 18)
+                {
+                    retval = dotNotRead ? COSInteger.get(negative ? -value : value)
+                        : new COSFloat(negative ? -value : value, fractionDigits);
+                }
+                else
+                {
+                    retval = COSNumber.get( buf.toString() );
+                }
                 break;
             }
             case 'B':
@@ -346,16 +389,7 @@ public class PDFStreamParser extends BaseParser
             default:
             {
                 //we must be an operator
-                String operator = readOperator();
-                if( operator.trim().length() == 0 )
-                {
-                    //we have a corrupt stream, stop reading here
-                    retval = null;
-                }
-                else
-                {
-                    retval = Operator.getOperator(operator);
-                }
+                retval = parseOperator();
             }
         }
         return retval;
@@ -474,6 +508,107 @@ public class PDFStreamParser extends BaseParser
     }
 
 
+    /**
+     * Reads an operator like {@link #readOperator()} does, but into a reused buffer, and looks
+     * it up without creating a String if possible.
+     *
+     * @return the operator, or null if there is none, i.e. the stream is corrupt.
+     * @throws IOException If there is an error reading from the stream.
+     */
+    private Operator parseOperator() throws IOException
+    {
+        skipSpaces();
+
+        int length = 0;
+        boolean blank = true;
+        int nextChar = seqSource.peek();
+        while(
+            nextChar != -1 && // EOF
+                !isWhitespace(nextChar) &&
+                !isClosing(nextChar) &&
+                nextChar != '[' &&
+                nextChar != '<' &&
+                nextChar != '(' &&
+                nextChar != '/' &&
+                (nextChar < '0' ||
+                    nextChar > '9' ) )
+        {
+            int currentChar = seqSource.read();
+            nextChar = seqSource.peek();
+            appendOperatorByte(length++, currentChar);
+            // characters trimmed by String.trim() don't count
+            blank &= currentChar <= ' ';
+            // Type3 Glyph description has operators with a number in the name
+            if (currentChar == 'd' && (nextChar == '0' || nextChar == '1') )
+            {
+                appendOperatorByte(length++, seqSource.read());
+                nextChar = seqSource.peek();
+            }
+        }
+        if (blank)
+        {
+            //we have a corrupt stream, stop reading here
+            return null;
+        }
+        return getOperator(operatorBuffer, length);
+    }
+
+    private void appendOperatorByte(int index, int b)
+    {
+        if (index == operatorBuffer.length)
+        {
+            operatorBuffer = Arrays.copyOf(operatorBuffer, index * 2);
+        }
+        operatorBuffer[index] = (byte) b;
+    }
+
+    private static Operator getOperator(byte[] bytes, int length)
+    {
+        if (length <= 3)
+        {
+            int hash = 0;
+            for (int i = 0; i < length; i++)
+            {
+                hash = hash * 31 + (bytes[i] & 0xff);
+            }
+            int slot = (hash ^ (hash >>> 7)) & (OPERATOR_TABLE_SIZE - 1);
+            for (int probe = 0; probe < MAX_OPERATOR_PROBES; probe++)
+            {
+                Operator operator = OPERATOR_TABLE[slot];
+                if (operator == null)
+                {
+                    operator = Operator.getOperator(new String(bytes, 0, length,
+                        Charsets.ISO_8859_1));
+                    OPERATOR_TABLE[slot] = operator;
+                    return operator;
+                }
+                if (hasName(operator, bytes, length))
+                {
+                    return operator;
+                }
+                slot = (slot + 1) & (OPERATOR_TABLE_SIZE - 1);
+            }
+        }
+        return Operator.getOperator(new String(bytes, 0, length, Charsets.ISO_8859_1));
+    }
+
+    private static boolean hasName(Operator operator, byte[] bytes, int length)
+    {
+        String name = operator.getName();
+        if (name.length() != length)
+        {
+            return false;
+        }
+        for (int i = 0; i < length; i++)
+        {
+            if (name.charAt(i) != (bytes[i] & 0xff))
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     private boolean isSpaceOrReturn( int c )
     {
         return c == 10 || c == 13 || c == 32;
@@ -182,6 +182,22 @@ public class PDFXRefStream implements PDFXRef
         }
     }
 
+    /**
+     * Add an entry for an object stored in an object stream to the XRef stream.
+     *
+     * @param objectNumber the number of the object
+     * @param objectStreamNumber the number of the object stream containing the object
+     * @param index the index of the object within the object stream
+     */
+    public void addObjectStreamEntry(long objectNumber, long objectStreamNumber, int index)
+    {
+        objectNumbers.add(objectNumber);
+        ObjectStreamReference value = new ObjectStreamReference();
+        value.objectNumberOfObjectStream = objectStreamNumber;
+        value.offset = index;
+        streamData.put(objectNumber, value);
+    }
+
     /**
      * determines the minimal length required for all the lengths.
      *
@@ -210,8 +226,8 @@ public class PDFXRefStream implements PDFXRef
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
                 wMax[0] = Math.max(wMax[0], ENTRY_OBJSTREAM); // the type field for a objstm reference
-                wMax[1] = Math.max(wMax[1], objStream.offset);
-                wMax[2] = Math.max(wMax[2], objStream.objectNumberOfObjectStream);
+                wMax[1] = Math.max(wMax[1], objStream.objectNumberOfObjectStream);
+                wMax[2] = Math.max(wMax[2], objStream.offset);
             }
             // TODO add here if new standard versions define new types
             else
@@ -317,9 +333,10 @@ public class PDFXRefStream implements PDFXRef
             else if (entry instanceof ObjectStreamReference)
             {
                 ObjectStreamReference objStream = (ObjectStreamReference)entry;
+                // the number of the object stream and the index of the object within it
                 writeNumber(os, ENTRY_OBJSTREAM, w[0]);
-                writeNumber(os, objStream.offset, w[1]);
-                writeNumber(os, objStream.objectNumberOfObjectStream, w[2]);
+                writeNumber(os, objStream.objectNumberOfObjectStream, w[1]);
+                writeNumber(os, objStream.offset, w[2]);
             }
             // TODO add here if new standard versions define new types
             else
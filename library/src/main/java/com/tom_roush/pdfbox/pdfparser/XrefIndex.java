@@ -0,0 +1,370 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdfparser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Map;
+
+import com.tom_roush.pdfbox.cos.COSArray;
+import com.tom_roush.pdfbox.cos.COSBase;
+import com.tom_roush.pdfbox.cos.COSBoolean;
+import com.tom_roush.pdfbox.cos.COSDictionary;
+import com.tom_roush.pdfbox.cos.COSDocument;
+import com.tom_roush.pdfbox.cos.COSFloat;
+import com.tom_roush.pdfbox.cos.COSInteger;
+import com.tom_roush.pdfbox.cos.COSName;
+import com.tom_roush.pdfbox.cos.COSNull;
+import com.tom_roush.pdfbox.cos.COSObject;
+import com.tom_roush.pdfbox.cos.COSObjectKey;
+import com.tom_roush.pdfbox.cos.COSObjectKeyLongMap;
+import com.tom_roush.pdfbox.cos.COSString;
+import com.tom_roush.pdfbox.io.RandomAccessRead;
+
+/**
+ * The resolved xref table and trailer of a PDF, which can be saved next to the file, so that a
+ * document which is opened repeatedly doesn't need to parse, check and repair its xref sections
+ * again.
+ *
+ * An index belongs to the PDF with the length and the digest of the last bytes, which hold the
+ * trailer and the startxref offset, it was saved with. It is ignored if these don't match.
+ */
+final class XrefIndex
+{
+    private static final int MAGIC = 0x50425849;
+    private static final int VERSION = 1;
+
+    // types of the values of the trailer
+    private static final int NULL = 0;
+    private static final int BOOLEAN = 1;
+    private static final int INTEGER = 2;
+    private static final int FLOAT = 3;
+    private static final int NAME = 4;
+    private static final int STRING = 5;
+    private static final int ARRAY = 6;
+    private static final int DICTIONARY = 7;
+    private static final int OBJECT = 8;
+
+    final Map<COSObjectKey, Long> xrefTable;
+    final COSDictionary trailer;
+    final long startXref;
+    final boolean xrefStream;
+    final long highestXRefObjectNumber;
+    final boolean trailerRebuilt;
+
+    XrefIndex(Map<COSObjectKey, Long> xrefTable, COSDictionary trailer, long startXref,
+        boolean xrefStream, long highestXRefObjectNumber, boolean trailerRebuilt)
+    {
+        this.xrefTable = xrefTable;
+        this.trailer = trailer;
+        this.startXref = startXref;
+        this.xrefStream = xrefStream;
+        this.highestXRefObjectNumber = highestXRefObjectNumber;
+        this.trailerRebuilt = trailerRebuilt;
+    }
+
+    /**
+     * Computes the digest of the last bytes of the given source, the position of the source
+     * is kept.
+     *
+     * @param source the PDF
+     * @param byteCount the count of bytes at the end of the source to be digested
+     * @return the digest
+     * @throws IOException if the source can't be read
+     */
+    static byte[] digest(RandomAccessRead source, int byteCount) throws IOException
+    {
+        MessageDigest md;
+        try
+        {
+            md = MessageDigest.getInstance("SHA-1");
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            throw new IOException(e);
+        }
+        long length = source.length();
+        byte[] tail = new byte[(int) Math.min(length, byteCount)];
+        long position = source.getPosition();
+        try
+        {
+            source.seek(length - tail.length);
+            int offset = 0;
+            while (offset < tail.length)
+            {
+                int n = source.read(tail, offset, tail.length - offset);
+                if (n < 0)
+                {
+                    throw new IOException("Unexpected end of the source");
+                }
+                offset += n;
+            }
+        }
+        finally
+        {
+            source.seek(position);
+        }
+        return md.digest(tail);
+    }
+
+    /**
+     * Reads an index.
+     *
+     * @param file the index file
+     * @param length the length of the PDF
+     * @param digest the digest of the last bytes of the PDF
+     * @param document the document, which holds the objects referenced by the trailer
+     * @return the index, or null if it belongs to a different PDF
+     * @throws IOException if the index can't be read or is damaged
+     */
+    static XrefIndex read(File file, long length, byte[] digest, COSDocument document)
+        throws IOException
+    {
+        // counts which don't fit into the file are from a damaged index
+        long maxCount = file.length();
+        DataInputStream in = new DataInputStream(
+            new BufferedInputStream(new FileInputStream(file)));
+        try
+        {
+            if (in.readInt() != MAGIC || in.readInt() != VERSION || in.readLong() != length)
+            {
+                return null;
+            }
+            byte[] indexDigest = new byte[in.readUnsignedByte()];
+            in.readFully(indexDigest);
+            if (!Arrays.equals(digest, indexDigest))
+            {
+                return null;
+            }
+            long startXref = in.readLong();
+            boolean xrefStream = in.readBoolean();
+            long highestXRefObjectNumber = in.readLong();
+            boolean trailerRebuilt = in.readBoolean();
+            int size = readCount(in, maxCount / 20);
+            Map<COSObjectKey, Long> xrefTable = new COSObjectKeyLongMap();
+            for (int i = 0; i < size; i++)
+            {
+                COSObjectKey key = new COSObjectKey(in.readLong(), in.readInt());
+                xrefTable.put(key, in.readLong());
+            }
+            COSBase trailer = readValue(in, document, maxCount);
+            if (!(trailer instanceof COSDictionary))
+            {
+                throw new IOException("Expected a trailer dictionary in " + file);
+            }
+            return new XrefIndex(xrefTable, (COSDictionary) trailer, startXref, xrefStream,
+                highestXRefObjectNumber, trailerRebuilt);
+        }
+        finally
+        {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes this index. It is written to a temporary file first, which then replaces the index
+     * file, so that a concurrent reader or a crash never leaves a partially written index.
+     *
+     * @param file the index file
+     * @param length the length of the PDF
+     * @param digest the digest of the last bytes of the PDF
+     * @throws IOException if the index can't be written
+     */
+    void write(File file, long length, byte[] digest) throws IOException
+    {
+        File tempFile = File.createTempFile(file.getName(), ".tmp",
+            file.getAbsoluteFile().getParentFile());
+        try
+        {
+            writeTo(tempFile, length, digest);
+            // renaming fails on some platforms if the file exists
+            if (!tempFile.renameTo(file) && !(file.delete() && tempFile.renameTo(file)))
+            {
+                throw new IOException("Could not rename " + tempFile + " to " + file);
+            }
+        }
+        finally
+        {
+            if (tempFile.exists() && !tempFile.delete())
+            {
+                tempFile.deleteOnExit();
+            }
+        }
+    }
+
+    private void writeTo(File file, long length, byte[] digest) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(
+            new BufferedOutputStream(new FileOutputStream(file)));
+        try
+        {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeLong(length);
+            out.writeByte(digest.length);
+            out.write(digest);
+            out.writeLong(startXref);
+            out.writeBoolean(xrefStream);
+            out.writeLong(highestXRefObjectNumber);
+            out.writeBoolean(trailerRebuilt);
+            out.writeInt(xrefTable.size());
+            for (Map.Entry<COSObjectKey, Long> entry : xrefTable.entrySet())
+            {
+                out.writeLong(entry.getKey().getNumber());
+                out.writeInt(entry.getKey().getGeneration());
+                out.writeLong(entry.getValue());
+            }
+            writeValue(out, trailer);
+        }
+        finally
+        {
+            out.close();
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, COSBase value) throws IOException
+    {
+        if (value == null || value instanceof COSNull)
+        {
+            out.writeByte(NULL);
+        }
+        else if (value instanceof COSBoolean)
+        {
+            out.writeByte(BOOLEAN);
+            out.writeBoolean(((COSBoolean) value).getValue());
+        }
+        else if (value instanceof COSInteger)
+        {
+            out.writeByte(INTEGER);
+            out.writeLong(((COSInteger) value).longValue());
+        }
+        else if (value instanceof COSFloat)
+        {
+            out.writeByte(FLOAT);
+            out.writeFloat(((COSFloat) value).floatValue());
+        }
+        else if (value instanceof COSName)
+        {
+            out.writeByte(NAME);
+            out.writeUTF(((COSName) value).getName());
+        }
+        else if (value instanceof COSString)
+        {
+            byte[] bytes = ((COSString) value).getBytes();
+            out.writeByte(STRING);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        else if (value instanceof COSArray)
+        {
+            COSArray array = (COSArray) value;
+            out.writeByte(ARRAY);
+            out.writeInt(array.size());
+            for (int i = 0; i < array.size(); i++)
+            {
+                writeValue(out, array.get(i));
+            }
+        }
+        else if (value instanceof COSObject)
+        {
+            COSObject object = (COSObject) value;
+            out.writeByte(OBJECT);
+            out.writeLong(object.getObjectNumber());
+            out.writeInt(object.getGenerationNumber());
+        }
+        else if (value instanceof COSDictionary)
+        {
+            // the trailer of an xref stream is the dictionary of the stream
+            COSDictionary dictionary = (COSDictionary) value;
+            out.writeByte(DICTIONARY);
+            out.writeInt(dictionary.size());
+            for (Map.Entry<COSName, COSBase> entry : dictionary.entrySet())
+            {
+                out.writeUTF(entry.getKey().getName());
+                writeValue(out, entry.getValue());
+            }
+        }
+        else
+        {
+            throw new IOException("Unsupported trailer value " + value);
+        }
+    }
+
+    private static int readCount(DataInputStream in, long maxCount) throws IOException
+    {
+        int count = in.readInt();
+        if (count < 0 || count > maxCount)
+        {
+            throw new IOException("Invalid count " + count + " in the xref index");
+        }
+        return count;
+    }
+
+    private static COSBase readValue(DataInputStream in, COSDocument document, long maxCount)
+        throws IOException
+    {
+        int type = in.readUnsignedByte();
+        switch (type)
+        {
+            case NULL:
+                return COSNull.NULL;
+            case BOOLEAN:
+                return COSBoolean.getBoolean(in.readBoolean());
+            case INTEGER:
+                return COSInteger.get(in.readLong());
+            case FLOAT:
+                return new COSFloat(in.readFloat());
+            case NAME:
+                return COSName.getPDFName(in.readUTF());
+            case STRING:
+                byte[] bytes = new byte[readCount(in, maxCount)];
+                in.readFully(bytes);
+                return new COSString(bytes);
+            case ARRAY:
+                int size = readCount(in, maxCount);
+                COSArray array = new COSArray();
+                for (int i = 0; i < size; i++)
+                {
+                    array.add(readValue(in, document, maxCount));
+                }
+                return array;
+            case DICTIONARY:
+                int count = readCount(in, maxCount);
+                COSDictionary dictionary = new COSDictionary();
+                for (int i = 0; i < count; i++)
+                {
+                    COSName key = COSName.getPDFName(in.readUTF());
+                    dictionary.setItem(key, readValue(in, document, maxCount));
+                }
+                return dictionary;
+            case OBJECT:
+                COSObjectKey key = new COSObjectKey(in.readLong(), in.readInt());
+                return document.getObjectFromPool(key);
+            default:
+                throw new IOException("Unknown type " + type + " of a trailer value");
+        }
+    }
+}
@@ -29,9 +29,11 @@ import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
 
+import com.tom_roush.pdfbox.cos.COSBase;
 import com.tom_roush.pdfbox.cos.COSDictionary;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSObjectKey;
+import com.tom_roush.pdfbox.cos.COSObjectKeyLongMap;
 
 /**
  * This class will collect all XRef/trailer objects and creates correct
@@ -65,7 +67,7 @@ public class XrefTrailerResolver
 
         private XRefType xrefType;
 
-        private final Map<COSObjectKey, Long> xrefTable = new HashMap<COSObjectKey, Long>();
+        private final Map<COSObjectKey, Long> xrefTable = new COSObjectKeyLongMap();
 
         /**
          *  Default constructor.
@@ -295,6 +297,56 @@ public class XrefTrailerResolver
 
     }
 
+    /**
+     * Adds the XRef object at the given byte position to the resolved xref table and trailer,
+     * as the next older one in the chain of active XRef/trailer. Entries of the newer XRef
+     * objects added before are not overwritten.
+     *
+     * This resolves the chain one XRef object at a time, starting with the startxref position,
+     * instead of calling {@link #setStartxref(long)} after all objects are read.
+     *
+     * @param bytePos the byte position of the XRef object
+     * @return the entries which were added to the resolved xref table
+     */
+    public Map<COSObjectKey, Long> addPreviousXrefObj( long bytePos )
+    {
+        XrefTrailerObj curObj = bytePosToXrefMap.get( bytePos );
+        if ( resolvedXrefTrailer == null )
+        {
+            resolvedXrefTrailer = new XrefTrailerObj();
+            resolvedXrefTrailer.trailer = new COSDictionary();
+            if ( curObj != null )
+            {
+                resolvedXrefTrailer.xrefType = curObj.xrefType;
+            }
+        }
+        Map<COSObjectKey, Long> added = new COSObjectKeyLongMap();
+        if ( curObj == null )
+        {
+            Log.w("PdfBox-Android", "Did not found XRef object at position " + bytePos );
+            return added;
+        }
+        if ( curObj.trailer != null )
+        {
+            for ( Entry<COSName, COSBase> entry : curObj.trailer.entrySet() )
+            {
+                if ( !resolvedXrefTrailer.trailer.containsKey( entry.getKey() ) )
+                {
+                    resolvedXrefTrailer.trailer.setItem( entry.getKey(), entry.getValue() );
+                }
+            }
+        }
+        for ( Entry<COSObjectKey, Long> entry : curObj.xrefTable.entrySet() )
+        {
+            if ( !resolvedXrefTrailer.xrefTable.containsKey( entry.getKey() ) )
+            {
+                resolvedXrefTrailer.xrefTable.put( entry.getKey(), entry.getValue() );
+                added.put( entry.getKey(), entry.getValue() );
+            }
+        }
+        return added;
+    }
+
     /**
      * Gets the resolved trailer. Might return <code>null</code> in case
      * {@link #setStartxref(long)} was not called before.
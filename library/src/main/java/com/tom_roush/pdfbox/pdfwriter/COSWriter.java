@@ -18,10 +18,12 @@ package com.tom_roush.pdfbox.pdfwriter;
 
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InterruptedIOException;
 import java.io.OutputStream;
 import java.io.SequenceInputStream;
 import java.security.MessageDigest;
@@ -29,17 +31,26 @@ import java.security.NoSuchAlgorithmException;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
 import java.text.NumberFormat;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Deque;
 import java.util.HashSet;
 import java.util.Hashtable;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
 
 import com.tom_roush.pdfbox.cos.COSArray;
 import com.tom_roush.pdfbox.cos.COSBase;
@@ -57,6 +68,7 @@ import com.tom_roush.pdfbox.cos.COSStream;
 import com.tom_roush.pdfbox.cos.COSString;
 import com.tom_roush.pdfbox.cos.COSUpdateInfo;
 import com.tom_roush.pdfbox.cos.ICOSVisitor;
+import com.tom_roush.pdfbox.filter.Filter;
 import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.RandomAccessInputStream;
 import com.tom_roush.pdfbox.io.RandomAccessRead;
@@ -157,6 +169,10 @@ public class COSWriter implements ICOSVisitor, Closeable
      */
     public static final byte[] ENDSTREAM = "endstream".getBytes(Charsets.US_ASCII);
 
+    private static final long DEFAULT_MAX_PENDING_ENCODING_BYTES = 32 * 1024 * 1024;
+
+    private static final int DEFAULT_OBJECT_STREAM_SIZE = 100;
+
     private final NumberFormat formatXrefOffset = new DecimalFormat("0000000000",
         DecimalFormatSymbols.getInstance(Locale.US));
 
@@ -217,6 +233,37 @@ public class COSWriter implements ICOSVisitor, Closeable
     private byte[] incrementPart;
     private COSArray byteRangeArray;
 
+    private boolean compressStreams = false;
+    private Executor encodingExecutor;
+    private long maxPendingEncodingBytes = DEFAULT_MAX_PENDING_ENCODING_BYTES;
+    // streams to be compressed in the background, in the order in which they will be written
+    private final Deque<COSStream> streamsToEncode = new ArrayDeque<COSStream>();
+    // compressed stream data, null if compressing doesn't make the stream smaller
+    private final Map<COSStream, Future<byte[]>> encodedStreams =
+        new IdentityHashMap<COSStream, Future<byte[]>>();
+    private long pendingEncodingBytes = 0;
+
+    private int compressionLevel = Filter.getCompressionLevel();
+    private boolean useObjectStreams = false;
+    private int objectStreamSize = DEFAULT_OBJECT_STREAM_SIZE;
+    // whether objects are packed into object streams while writing the current document
+    private boolean packObjects = false;
+    // true while an object is written into the current object stream
+    private boolean packing = false;
+    private COSBase encryptDictionary;
+    private ByteArrayOutputStream objectStreamData;
+    private COSStandardOutputStream objectStreamOutput;
+    private final List<COSObjectKey> objectStreamKeys = new ArrayList<COSObjectKey>();
+    private final List<Long> objectStreamOffsets = new ArrayList<Long>();
+    // object number, object stream number and index of all packed objects
+    private final List<long[]> packedObjects = new ArrayList<long[]>();
+
+    // objects written by finishAppending(), null if objects aren't appended
+    private Set<COSBase> deferredObjects;
+    // keys of the objects appended before, whose other bookkeeping has been released
+    private final Map<COSBase, COSObjectKey> retainedKeys =
+        new IdentityHashMap<COSBase, COSObjectKey>();
+
     /**
      * COSWriter constructor.
      *
@@ -297,6 +344,97 @@ public class COSWriter implements ICOSVisitor, Closeable
         getXRefEntries().add(entry);
     }
 
+    /**
+     * Sets whether objects other than streams are packed into compressed object streams, using a
+     * cross-reference stream instead of a cross-reference table. This makes the output
+     * considerably smaller and requires PDF 1.5, the version in the header is raised if
+     * necessary. It isn't used for incremental updates, and it isn't supported when appending.
+     *
+     * @param useObjectStreams true to write object streams
+     * @throws IllegalStateException if object streams are enabled after
+     * {@link #startAppending(PDDocument)}
+     */
+    public void setUseObjectStreams(boolean useObjectStreams)
+    {
+        if (useObjectStreams && deferredObjects != null)
+        {
+            throw new IllegalStateException("Object streams can't be used when appending");
+        }
+        this.useObjectStreams = useObjectStreams;
+    }
+
+    /**
+     * Sets the maximum number of objects packed into a single object stream. The default is 100.
+     *
+     * @param objectStreamSize the number of objects per object stream
+     * @see #setUseObjectStreams(boolean)
+     */
+    public void setObjectStreamSize(int objectStreamSize)
+    {
+        if (objectStreamSize < 1)
+        {
+            throw new IllegalArgumentException("objectStreamSize must be positive: "
+                + objectStreamSize);
+        }
+        this.objectStreamSize = objectStreamSize;
+    }
+
+    /**
+     * Sets the Flate compression level of the object streams and the streams compressed by the
+     * writer. The default is taken from the system property
+     * {@link Filter#SYSPROP_DEFLATELEVEL}.
+     *
+     * @param compressionLevel the compression level from 0 to 9, or -1 for the default level
+     * @see #setUseObjectStreams(boolean)
+     * @see #setCompressStreams(boolean)
+     */
+    public void setCompressionLevel(int compressionLevel)
+    {
+        if (compressionLevel < Deflater.DEFAULT_COMPRESSION
+            || compressionLevel > Deflater.BEST_COMPRESSION)
+        {
+            throw new IllegalArgumentException("invalid compression level: " + compressionLevel);
+        }
+        this.compressionLevel = compressionLevel;
+    }
+
+    /**
+     * Sets whether streams without a filter are compressed with the Flate filter when they are
+     * written. The streams of the document itself aren't modified. Metadata streams are always
+     * written uncompressed.
+     *
+     * @param compressStreams true to compress unfiltered streams
+     */
+    public void setCompressStreams(boolean compressStreams)
+    {
+        this.compressStreams = compressStreams;
+    }
+
+    /**
+     * Sets the executor used to compress streams while the objects preceding them are written.
+     * The output is the same as when the streams are compressed one after another on the
+     * writing thread, which is what happens if there is no executor.
+     *
+     * @param encodingExecutor the executor compressing the streams, or null
+     * @see #setCompressStreams(boolean)
+     */
+    public void setEncodingExecutor(Executor encodingExecutor)
+    {
+        this.encodingExecutor = encodingExecutor;
+    }
+
+    /**
+     * Sets the maximum size of the stream data being compressed in advance, as long as the
+     * writer waits for a stream to be compressed, no further streams are handed to the executor
+     * if this limit is reached. The default is 32 MB.
+     *
+     * @param maxPendingEncodingBytes the maximum size of the uncompressed data in bytes
+     */
+    public void setMaxPendingEncodingBytes(long maxPendingEncodingBytes)
+    {
+        this.maxPendingEncodingBytes = maxPendingEncodingBytes;
+    }
+
     /**
      * This will close the stream.
      *
@@ -427,33 +565,170 @@ public class COSWriter implements ICOSVisitor, Closeable
         COSDictionary root = (COSDictionary)trailer.getDictionaryObject( COSName.ROOT );
         COSDictionary info = (COSDictionary)trailer.getDictionaryObject( COSName.INFO );
         COSDictionary encrypt = (COSDictionary)trailer.getDictionaryObject( COSName.ENCRYPT );
-        if( root != null )
-        {
-            addObjectToWrite( root );
-        }
-        if( info != null )
+        encryptDictionary = encrypt;
+        try
         {
-            addObjectToWrite( info );
-        }
+            if( root != null )
+            {
+                addObjectToWrite( root );
+            }
+            if( info != null )
+            {
+                addObjectToWrite( info );
+            }
 
-        doWriteObjects();
-        willEncrypt = false;
-        if( encrypt != null )
+            doWriteObjects();
+            willEncrypt = false;
+            if( encrypt != null )
+            {
+                addObjectToWrite( encrypt );
+            }
+
+            doWriteObjects();
+        }
+        finally
         {
-            addObjectToWrite( encrypt );
+            cancelStreamEncoding();
         }
-
-        doWriteObjects();
     }
 
     private void doWriteObjects() throws IOException
     {
         while( objectsToWrite.size() > 0 )
         {
+            scheduleStreamEncoding();
             COSBase nextObject = objectsToWrite.removeFirst();
             objectsToWriteSet.remove(nextObject);
             doWriteObject( nextObject );
         }
+        doWriteObjectStream();
+    }
+
+    /**
+     * Hands the streams waiting in the queue of objects to write to the encoding executor, in the
+     * order in which they will be written, until the limit of pending data is reached.
+     */
+    private void scheduleStreamEncoding()
+    {
+        while (!streamsToEncode.isEmpty())
+        {
+            final COSStream stream = streamsToEncode.peekFirst();
+            if (!isToBeCompressed(stream))
+            {
+                streamsToEncode.removeFirst();
+                continue;
+            }
+            long length = stream.getLength();
+            if (!encodedStreams.isEmpty() && pendingEncodingBytes + length > maxPendingEncodingBytes)
+            {
+                break;
+            }
+            streamsToEncode.removeFirst();
+            FutureTask<byte[]> task = new FutureTask<byte[]>(new Callable<byte[]>()
+            {
+                @Override
+                public byte[] call() throws IOException
+                {
+                    return encodeStream(stream);
+                }
+            });
+            encodedStreams.put(stream, task);
+            pendingEncodingBytes += length;
+            encodingExecutor.execute(task);
+        }
+    }
+
+    private void cancelStreamEncoding()
+    {
+        for (Future<byte[]> future : encodedStreams.values())
+        {
+            future.cancel(true);
+        }
+        encodedStreams.clear();
+        streamsToEncode.clear();
+        pendingEncodingBytes = 0;
+    }
+
+    private boolean isToBeCompressed(COSStream stream)
+    {
+        return compressStreams && stream.getFilters() == null
+            && !COSName.METADATA.equals(stream.getCOSName(COSName.TYPE));
+    }
+
+    /**
+     * Returns the data of the given stream compressed with the Flate filter, or null if that
+     * doesn't make it any smaller.
+     */
+    private byte[] encodeStream(COSStream stream) throws IOException
+    {
+        InputStream input = stream.createRawInputStream();
+        byte[] data;
+        try
+        {
+            data = IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream(data.length / 2 + 16);
+        deflate(new ByteArrayInputStream(data), encoded);
+        return encoded.size() < data.length ? encoded.toByteArray() : null;
+    }
+
+    private void deflate(InputStream input, OutputStream output) throws IOException
+    {
+        Deflater deflater = new Deflater(compressionLevel);
+        try
+        {
+            DeflaterOutputStream deflaterOutput = new DeflaterOutputStream(output, deflater);
+            IOUtils.copy(input, deflaterOutput);
+            deflaterOutput.finish();
+        }
+        finally
+        {
+            deflater.end();
+        }
+    }
+
+    /**
+     * Returns the compressed data of the given stream, waiting for the encoding executor if
+     * necessary.
+     */
+    private byte[] getEncodedStream(COSStream stream) throws IOException
+    {
+        Future<byte[]> future = encodedStreams.remove(stream);
+        if (future == null)
+        {
+            return encodeStream(stream);
+        }
+        pendingEncodingBytes -= stream.getLength();
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while compressing a stream");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
     }
 
     private void addObjectToWrite( COSBase object )
@@ -463,6 +738,12 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             actual = ((COSObject)actual).getObject();
         }
+        if (deferredObjects != null
+            && (deferredObjects.contains(actual) || retainedKeys.containsKey(actual)))
+        {
+            // written at the end, or appended before
+            return;
+        }
 
         if( !writtenObjects.contains( object ) &&
             !objectsToWriteSet.contains( object ) &&
@@ -490,6 +771,10 @@ public class COSWriter implements ICOSVisitor, Closeable
             {
                 actualsAdded.add( actual );
             }
+            if (encodingExecutor != null && actual instanceof COSStream)
+            {
+                streamsToEncode.add((COSStream) actual);
+            }
         }
     }
 
@@ -505,8 +790,15 @@ public class COSWriter implements ICOSVisitor, Closeable
         writtenObjects.add( obj );
         // find the physical reference
         currentObjectKey = getObjectKey( obj );
+        if (packObjects && isPackable(obj, currentObjectKey))
+        {
+            packObject(obj);
+            return;
+        }
         // add a x ref entry
-        addXRefEntry( new COSWriterXRefEntry(getStandardOutput().getPos(), obj, currentObjectKey));
+        // appended objects may be released, so their entries don't keep them
+        addXRefEntry(new COSWriterXRefEntry(getStandardOutput().getPos(),
+            deferredObjects == null ? obj : null, currentObjectKey));
         // write the object
         getStandardOutput().write(String.valueOf(currentObjectKey.getNumber()).getBytes(Charsets.ISO_8859_1));
         getStandardOutput().write(SPACE);
@@ -520,6 +812,102 @@ public class COSWriter implements ICOSVisitor, Closeable
         getStandardOutput().writeEOL();
     }
 
+    /**
+     * Returns whether the given object may be stored in an object stream.
+     */
+    private boolean isPackable(COSBase obj, COSObjectKey key)
+    {
+        COSBase actual = obj instanceof COSObject ? ((COSObject) obj).getObject() : obj;
+        return actual != null && !(actual instanceof COSStream) && key.getGeneration() == 0
+            && actual != encryptDictionary;
+    }
+
+    /**
+     * Writes the given object into the current object stream, the object stream is written when
+     * it is full.
+     */
+    private void packObject(COSBase obj) throws IOException
+    {
+        if (objectStreamOutput == null)
+        {
+            objectStreamData = new ByteArrayOutputStream();
+            objectStreamOutput = new COSStandardOutputStream(objectStreamData);
+        }
+        objectStreamKeys.add(currentObjectKey);
+        objectStreamOffsets.add(objectStreamOutput.getPos());
+        COSStandardOutputStream standardOutput = getStandardOutput();
+        // strings aren't encrypted, the whole object stream is
+        setStandardOutput(objectStreamOutput);
+        packing = true;
+        try
+        {
+            obj.accept(this);
+            getStandardOutput().writeEOL();
+        }
+        finally
+        {
+            packing = false;
+            setStandardOutput(standardOutput);
+        }
+        if (objectStreamKeys.size() >= objectStreamSize)
+        {
+            doWriteObjectStream();
+        }
+    }
+
+    /**
+     * Writes the objects packed so far as an object stream.
+     */
+    private void doWriteObjectStream() throws IOException
+    {
+        if (objectStreamKeys.isEmpty())
+        {
+            return;
+        }
+        StringBuilder header = new StringBuilder();
+        for (int i = 0; i < objectStreamKeys.size(); i++)
+        {
+            header.append(objectStreamKeys.get(i).getNumber()).append(' ');
+            header.append(objectStreamOffsets.get(i)).append(' ');
+        }
+        header.append('\n');
+        byte[] headerBytes = header.toString().getBytes(Charsets.ISO_8859_1);
+
+        COSStream objectStream = new COSStream();
+        try
+        {
+            objectStream.setItem(COSName.TYPE, COSName.OBJ_STM);
+            objectStream.setInt(COSName.N, objectStreamKeys.size());
+            objectStream.setInt(COSName.FIRST, headerBytes.length);
+            objectStream.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+            OutputStream output = objectStream.createRawOutputStream();
+            try
+            {
+                deflate(new SequenceInputStream(new ByteArrayInputStream(headerBytes),
+                    new ByteArrayInputStream(objectStreamData.toByteArray())), output);
+            }
+            finally
+            {
+                output.close();
+            }
+            long objectStreamNumber = getObjectKey(objectStream).getNumber();
+            for (int i = 0; i < objectStreamKeys.size(); i++)
+            {
+                packedObjects.add(new long[] {
+                    objectStreamKeys.get(i).getNumber(), objectStreamNumber, i });
+            }
+            objectStreamKeys.clear();
+            objectStreamOffsets.clear();
+            objectStreamOutput = null;
+            objectStreamData = null;
+            doWriteObject(objectStream);
+        }
+        finally
+        {
+            objectStream.close();
+        }
+    }
+
     /**
      * This will write the header to the PDF document.
      *
@@ -536,7 +924,13 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
         else
         {
-            headerString = "%PDF-"+ Float.toString(pdDocument.getDocument().getVersion());
+            float version = pdDocument.getDocument().getVersion();
+            if (packObjects && version < 1.5f)
+            {
+                // object streams and cross-reference streams were introduced with PDF 1.5
+                version = 1.5f;
+            }
+            headerString = "%PDF-"+ Float.toString(version);
         }
         getStandardOutput().write( headerString.getBytes(Charsets.ISO_8859_1) );
 
@@ -581,7 +975,8 @@ public class COSWriter implements ICOSVisitor, Closeable
 
     private void doWriteXRefInc(COSDocument doc, long hybridPrev) throws IOException
     {
-        if (doc.isXRefStream() || hybridPrev != -1)
+        boolean xrefStream = doc.isXRefStream() || packObjects;
+        if (xrefStream || hybridPrev != -1)
         {
             // the file uses XrefStreams, so we need to update
             // it with an xref stream. We create a new one and fill it
@@ -596,6 +991,11 @@ public class COSWriter implements ICOSVisitor, Closeable
             {
                 pdfxRefStream.addEntry(cosWriterXRefEntry);
             }
+            for (long[] packedObject : packedObjects)
+            {
+                pdfxRefStream.addObjectStreamEntry(packedObject[0], packedObject[1],
+                    (int) packedObject[2]);
+            }
 
             COSDictionary trailer = doc.getTrailer();
             if (incrementalUpdate)
@@ -617,7 +1017,7 @@ public class COSWriter implements ICOSVisitor, Closeable
             doWriteObject(stream2);
         }
 
-        if (!doc.isXRefStream() || hybridPrev != -1)
+        if (!xrefStream || hybridPrev != -1)
         {
             COSDictionary trailer = doc.getTrailer();
             trailer.setLong(COSName.PREV, doc.getStartXref());
@@ -890,6 +1290,10 @@ public class COSWriter implements ICOSVisitor, Closeable
         {
             key = objectKeys.get(obj);
         }
+        if (key == null && actual != null && !retainedKeys.isEmpty())
+        {
+            key = retainedKeys.get(actual);
+        }
         if (key == null)
         {
             setNumber(getNumber()+1);
@@ -1084,6 +1488,7 @@ public class COSWriter implements ICOSVisitor, Closeable
     @Override
     public Object visitFromDocument(COSDocument doc) throws IOException
     {
+        packObjects = useObjectStreams && !incrementalUpdate && fdfDocument == null;
         if(!incrementalUpdate)
         {
             doWriteHeader(doc);
@@ -1108,7 +1513,12 @@ public class COSWriter implements ICOSVisitor, Closeable
             hybridPrev = trailer.getLong(COSName.XREF_STM);
         }
 
-        if(incrementalUpdate || doc.isXRefStream())
+        if (packObjects)
+        {
+            // a fresh file with a cross-reference stream only
+            doWriteXRefInc(doc, -1);
+        }
+        else if(incrementalUpdate || doc.isXRefStream())
         {
             doWriteXRefInc(doc, hybridPrev);
         }
@@ -1118,13 +1528,7 @@ public class COSWriter implements ICOSVisitor, Closeable
             doWriteTrailer(doc);
         }
 
-        // write endof
-        getStandardOutput().write(STARTXREF);
-        getStandardOutput().writeEOL();
-        getStandardOutput().write(String.valueOf(getStartxref()).getBytes(Charsets.ISO_8859_1));
-        getStandardOutput().writeEOL();
-        getStandardOutput().write(EOF);
-        getStandardOutput().writeEOL();
+        doWriteStartXRef();
 
         if (incrementalUpdate)
         {
@@ -1141,6 +1545,17 @@ public class COSWriter implements ICOSVisitor, Closeable
         return null;
     }
 
+    // writes the position of the cross-reference section and the end of file marker
+    private void doWriteStartXRef() throws IOException
+    {
+        getStandardOutput().write(STARTXREF);
+        getStandardOutput().writeEOL();
+        getStandardOutput().write(String.valueOf(getStartxref()).getBytes(Charsets.ISO_8859_1));
+        getStandardOutput().writeEOL();
+        getStandardOutput().write(EOF);
+        getStandardOutput().writeEOL();
+    }
+
     @Override
     public Object visitFromFloat(COSFloat obj) throws IOException
     {
@@ -1188,12 +1603,54 @@ public class COSWriter implements ICOSVisitor, Closeable
 
     @Override
     public Object visitFromStream(COSStream obj) throws IOException
+    {
+        if (isToBeCompressed(obj))
+        {
+            byte[] encoded = getEncodedStream(obj);
+            if (encoded != null)
+            {
+                // write a compressed copy, leaving the stream of the document untouched
+                COSStream compressed = new COSStream();
+                try
+                {
+                    for (Map.Entry<COSName, COSBase> entry : obj.entrySet())
+                    {
+                        compressed.setItem(entry.getKey(), entry.getValue());
+                    }
+                    compressed.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+                    OutputStream output = compressed.createRawOutputStream();
+                    try
+                    {
+                        output.write(encoded);
+                    }
+                    finally
+                    {
+                        output.close();
+                    }
+                    return writeStream(compressed);
+                }
+                finally
+                {
+                    compressed.close();
+                }
+            }
+        }
+        return writeStream(obj);
+    }
+
+    private Object writeStream(COSStream obj) throws IOException
     {
         if (willEncrypt)
         {
             pdDocument.getEncryption().getSecurityHandler()
                 .encryptStream(obj, currentObjectKey.getNumber(), currentObjectKey.getGeneration());
         }
+        else
+        {
+            // streams of encrypted documents are decrypted on demand, /Length must match the
+            // decrypted data
+            obj.decrypt();
+        }
 
         InputStream input = null;
         try
@@ -1223,7 +1680,7 @@ public class COSWriter implements ICOSVisitor, Closeable
     @Override
     public Object visitFromString(COSString obj) throws IOException
     {
-        if (willEncrypt)
+        if (willEncrypt && !packing)
         {
             pdDocument.getEncryption().getSecurityHandler().encryptString(
                 obj,
@@ -1319,7 +1776,16 @@ public class COSWriter implements ICOSVisitor, Closeable
         }
 
         COSDocument cosDoc = pdDocument.getDocument();
-        COSDictionary trailer = cosDoc.getTrailer();
+        setDocumentId(cosDoc.getTrailer(), idTime);
+        cosDoc.accept(this);
+    }
+
+    /**
+     * Adds a document ID to the trailer if there is none, or updates its second part for an
+     * incremental update.
+     */
+    private void setDocumentId(COSDictionary trailer, long idTime)
+    {
         COSArray idArray = null;
         boolean missingID = true;
         COSBase base = trailer.getDictionaryObject(COSName.ID);
@@ -1370,7 +1836,146 @@ public class COSWriter implements ICOSVisitor, Closeable
             idArray.add( secondID );
             trailer.setItem( COSName.ID, idArray );
         }
-        cosDoc.accept(this);
+    }
+
+    /**
+     * Starts writing the given document piecewise, so that objects can be written and released
+     * before the document is complete. The catalog, the root of the page tree and the document
+     * information are written by {@link #finishAppending()}, all other objects are written by
+     * {@link #append(List)} as soon as they are ready. Objects reachable from the catalog which
+     * haven't been appended are written at the end as well.
+     *
+     * Neither encryption, object streams nor incremental updates are supported in this mode.
+     *
+     * @param doc the document to write, the pages are added to its page tree while appending
+     * @throws IOException if the header can't be written
+     * @throws IllegalStateException if something has been written already, if the document is
+     * to be encrypted, or if object streams are enabled
+     */
+    public void startAppending(PDDocument doc) throws IOException
+    {
+        if (deferredObjects != null || incrementalUpdate || getStandardOutput().getPos() > 0)
+        {
+            throw new IllegalStateException("Appending must start with an empty output");
+        }
+        if (useObjectStreams)
+        {
+            throw new IllegalStateException("Object streams can't be used when appending");
+        }
+        if (doc.getEncryption() != null && !doc.isAllSecurityToBeRemoved())
+        {
+            throw new IllegalStateException("Encrypted documents can't be appended");
+        }
+        pdDocument = doc;
+        willEncrypt = false;
+        COSDocument cosDoc = doc.getDocument();
+        COSDictionary trailer = cosDoc.getTrailer();
+        trailer.removeItem(COSName.ENCRYPT);
+        deferredObjects = Collections.newSetFromMap(new IdentityHashMap<COSBase, Boolean>());
+        COSBase root = trailer.getDictionaryObject(COSName.ROOT);
+        if (root instanceof COSDictionary)
+        {
+            deferredObjects.add(root);
+            COSBase pages = ((COSDictionary) root).getDictionaryObject(COSName.PAGES);
+            if (pages != null)
+            {
+                deferredObjects.add(pages);
+            }
+        }
+        COSBase info = trailer.getDictionaryObject(COSName.INFO);
+        if (info != null)
+        {
+            deferredObjects.add(info);
+        }
+        doWriteHeader(cosDoc);
+    }
+
+    /**
+     * Writes the given objects and all objects reachable from them, except the catalog, the root
+     * of the page tree and the document information. Afterwards only the object numbers of the
+     * given objects are kept, so that they can be referenced later, typically from the page tree.
+     * All other written objects are forgotten and will be written again if they are passed to a
+     * later call. Objects shared with later calls must therefore be passed together.
+     *
+     * @param objects the objects to write, e.g. the pages of one source document
+     * @throws IOException if the objects can't be written
+     * @throws IllegalStateException if {@link #startAppending(PDDocument)} hasn't been called or
+     * the document has been finished
+     */
+    public void append(List<? extends COSBase> objects) throws IOException
+    {
+        checkAppending();
+        try
+        {
+            for (COSBase object : objects)
+            {
+                addObjectToWrite(object);
+            }
+            doWriteObjects();
+        }
+        finally
+        {
+            cancelStreamEncoding();
+        }
+        for (COSBase object : objects)
+        {
+            COSBase actual = object instanceof COSObject ? ((COSObject) object).getObject() : object;
+            if (actual != null && !deferredObjects.contains(actual))
+            {
+                retainedKeys.put(actual, getObjectKey(object));
+            }
+        }
+        // the deferred objects may have been referenced, they must keep their numbers
+        for (COSBase deferred : deferredObjects)
+        {
+            COSObjectKey key = objectKeys.get(deferred);
+            if (key != null)
+            {
+                retainedKeys.put(deferred, key);
+            }
+        }
+        objectKeys.clear();
+        writtenObjects.clear();
+        actualsAdded.clear();
+    }
+
+    /**
+     * Writes the catalog, the page tree root, the document information and all objects reachable
+     * from them that haven't been appended, followed by the cross-reference table and the
+     * trailer. The output is complete afterwards, but not closed.
+     *
+     * @throws IOException if the document can't be written
+     * @throws IllegalStateException if {@link #startAppending(PDDocument)} hasn't been called or
+     * the document has been finished
+     */
+    public void finishAppending() throws IOException
+    {
+        checkAppending();
+        for (COSBase deferred : deferredObjects)
+        {
+            COSObjectKey key = retainedKeys.remove(deferred);
+            if (key != null)
+            {
+                objectKeys.put(deferred, key);
+            }
+        }
+        deferredObjects.clear();
+        COSDocument cosDoc = pdDocument.getDocument();
+        setDocumentId(cosDoc.getTrailer(), pdDocument.getDocumentId() == null
+            ? System.currentTimeMillis() : pdDocument.getDocumentId());
+        doWriteBody(cosDoc);
+        doWriteXRefTable();
+        doWriteTrailer(cosDoc);
+        doWriteStartXRef();
+    }
+
+    private void checkAppending()
+    {
+        // the position of the cross-reference table is known once the document is finished
+        if (deferredObjects == null || getStartxref() != 0)
+        {
+            throw new IllegalStateException("Not appending to a document");
+        }
     }
 
     /**
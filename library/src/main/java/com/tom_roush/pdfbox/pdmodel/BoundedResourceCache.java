@@ -0,0 +1,430 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel;
+
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import com.tom_roush.pdfbox.cos.COSObject;
+import com.tom_roush.pdfbox.pdmodel.common.PDStream;
+import com.tom_roush.pdfbox.pdmodel.documentinterchange.markedcontent.PDPropertyList;
+import com.tom_roush.pdfbox.pdmodel.font.PDFont;
+import com.tom_roush.pdfbox.pdmodel.font.PDFontDescriptor;
+import com.tom_roush.pdfbox.pdmodel.graphics.PDXObject;
+import com.tom_roush.pdfbox.pdmodel.graphics.color.PDColorSpace;
+import com.tom_roush.pdfbox.pdmodel.graphics.image.PDImageXObject;
+import com.tom_roush.pdfbox.pdmodel.graphics.pattern.PDAbstractPattern;
+import com.tom_roush.pdfbox.pdmodel.graphics.shading.PDShading;
+import com.tom_roush.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+/**
+ * A thread-safe resource cache with a separate budget for each type of resource. Unlike
+ * {@link DefaultResourceCache}, resources are kept with strong references and the least
+ * recently used ones are evicted as soon as the number of entries or their estimated size
+ * exceeds the budget of their type, so the cache doesn't get dropped at once under memory
+ * pressure and it may be shared by threads rendering different pages of the same document.
+ *
+ * Hit, miss and eviction counters are kept for each type to help with tuning the budgets.
+ */
+public class BoundedResourceCache implements ResourceCache
+{
+    /**
+     * The types of resources held by the cache, each of them has its own budget.
+     */
+    public enum ResourceType
+    {
+        FONT, COLOR_SPACE, XOBJECT, EXT_G_STATE, SHADING, PATTERN, PROPERTIES
+    }
+
+    /** estimated size of resources for which there is no better estimate */
+    private static final long DEFAULT_RESOURCE_SIZE = 1024;
+
+    private static final int DEFAULT_MAX_ENTRIES = 256;
+    private static final long DEFAULT_MAX_FONT_BYTES = 16 * 1024 * 1024;
+    private static final long DEFAULT_MAX_XOBJECT_BYTES = 32 * 1024 * 1024;
+
+    private final Map<ResourceType, Segment> segments =
+        new EnumMap<ResourceType, Segment>(ResourceType.class);
+
+    /**
+     * Creates a cache with the default budgets: up to 256 entries of each type, up to 16 MB of
+     * fonts and up to 32 MB of XObjects.
+     */
+    public BoundedResourceCache()
+    {
+        for (ResourceType type : ResourceType.values())
+        {
+            long maxBytes = -1;
+            if (type == ResourceType.FONT)
+            {
+                maxBytes = DEFAULT_MAX_FONT_BYTES;
+            }
+            else if (type == ResourceType.XOBJECT)
+            {
+                maxBytes = DEFAULT_MAX_XOBJECT_BYTES;
+            }
+            segments.put(type, new Segment(DEFAULT_MAX_ENTRIES, maxBytes));
+        }
+    }
+
+    /**
+     * Sets the budget for the given type of resource. Entries exceeding the new budget are
+     * evicted immediately.
+     *
+     * @param type the type of resource
+     * @param maxEntries maximum number of entries, <code>-1</code> means 'unrestricted'
+     * @param maxBytes maximum estimated size of all entries in bytes, <code>-1</code> means
+     * 'unrestricted'
+     */
+    public void setBudget(ResourceType type, int maxEntries, long maxBytes)
+    {
+        segments.get(type).setBudget(maxEntries, maxBytes);
+    }
+
+    /**
+     * Returns the number of lookups of the given type which found a cached resource.
+     *
+     * @param type the type of resource
+     * @return the number of hits
+     */
+    public long getHitCount(ResourceType type)
+    {
+        return segments.get(type).getHitCount();
+    }
+
+    /**
+     * Returns the number of lookups of the given type which didn't find a cached resource.
+     *
+     * @param type the type of resource
+     * @return the number of misses
+     */
+    public long getMissCount(ResourceType type)
+    {
+        return segments.get(type).getMissCount();
+    }
+
+    /**
+     * Returns the number of resources of the given type which were evicted to stay within the
+     * budget.
+     *
+     * @param type the type of resource
+     * @return the number of evictions
+     */
+    public long getEvictionCount(ResourceType type)
+    {
+        return segments.get(type).getEvictionCount();
+    }
+
+    /**
+     * Returns the number of cached resources of the given type.
+     *
+     * @param type the type of resource
+     * @return the number of entries
+     */
+    public int getEntryCount(ResourceType type)
+    {
+        return segments.get(type).getEntryCount();
+    }
+
+    /**
+     * Returns the estimated size of all cached resources of the given type.
+     *
+     * @param type the type of resource
+     * @return the estimated size in bytes
+     */
+    public long getSize(ResourceType type)
+    {
+        return segments.get(type).getSize();
+    }
+
+    /**
+     * Removes all resources from the cache. The counters are kept.
+     */
+    public void clear()
+    {
+        for (Segment segment : segments.values())
+        {
+            segment.clear();
+        }
+    }
+
+    /**
+     * Estimates the memory used by the given resource. Images are weighed by the size of their
+     * decoded pixels, forms by the size of their content stream and fonts by the size of the
+     * embedded font program. Subclasses may override this to provide better estimates.
+     *
+     * @param resource the resource to be cached
+     * @return the estimated size in bytes
+     */
+    protected long estimateSize(Object resource)
+    {
+        if (resource instanceof PDImageXObject)
+        {
+            PDImageXObject image = (PDImageXObject) resource;
+            // decoded images are ARGB_8888 bitmaps
+            return Math.max((long) image.getWidth() * image.getHeight() * 4,
+                DEFAULT_RESOURCE_SIZE);
+        }
+        if (resource instanceof PDXObject)
+        {
+            return Math.max(((PDXObject) resource).getCOSObject().getLength(),
+                DEFAULT_RESOURCE_SIZE);
+        }
+        if (resource instanceof PDFont)
+        {
+            PDFontDescriptor fontDescriptor = ((PDFont) resource).getFontDescriptor();
+            if (fontDescriptor != null)
+            {
+                PDStream fontFile = fontDescriptor.getFontFile();
+                if (fontFile == null)
+                {
+                    fontFile = fontDescriptor.getFontFile2();
+                }
+                if (fontFile == null)
+                {
+                    fontFile = fontDescriptor.getFontFile3();
+                }
+                if (fontFile != null)
+                {
+                    return Math.max(fontFile.getCOSObject().getLength(), DEFAULT_RESOURCE_SIZE);
+                }
+            }
+        }
+        return DEFAULT_RESOURCE_SIZE;
+    }
+
+    @Override
+    public PDFont getFont(COSObject indirect)
+    {
+        return (PDFont) segments.get(ResourceType.FONT).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDFont font)
+    {
+        put(ResourceType.FONT, indirect, font);
+    }
+
+    @Override
+    public PDColorSpace getColorSpace(COSObject indirect)
+    {
+        return (PDColorSpace) segments.get(ResourceType.COLOR_SPACE).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDColorSpace colorSpace)
+    {
+        put(ResourceType.COLOR_SPACE, indirect, colorSpace);
+    }
+
+    @Override
+    public PDExtendedGraphicsState getExtGState(COSObject indirect)
+    {
+        return (PDExtendedGraphicsState) segments.get(ResourceType.EXT_G_STATE).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDExtendedGraphicsState extGState)
+    {
+        put(ResourceType.EXT_G_STATE, indirect, extGState);
+    }
+
+    @Override
+    public PDShading getShading(COSObject indirect)
+    {
+        return (PDShading) segments.get(ResourceType.SHADING).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDShading shading)
+    {
+        put(ResourceType.SHADING, indirect, shading);
+    }
+
+    @Override
+    public PDAbstractPattern getPattern(COSObject indirect)
+    {
+        return (PDAbstractPattern) segments.get(ResourceType.PATTERN).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDAbstractPattern pattern)
+    {
+        put(ResourceType.PATTERN, indirect, pattern);
+    }
+
+    @Override
+    public PDPropertyList getProperties(COSObject indirect)
+    {
+        return (PDPropertyList) segments.get(ResourceType.PROPERTIES).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDPropertyList propertyList)
+    {
+        put(ResourceType.PROPERTIES, indirect, propertyList);
+    }
+
+    @Override
+    public PDXObject getXObject(COSObject indirect)
+    {
+        return (PDXObject) segments.get(ResourceType.XOBJECT).get(indirect);
+    }
+
+    @Override
+    public void put(COSObject indirect, PDXObject xobject)
+    {
+        put(ResourceType.XOBJECT, indirect, xobject);
+    }
+
+    private void put(ResourceType type, COSObject indirect, Object resource)
+    {
+        Segment segment = segments.get(type);
+        if (resource == null)
+        {
+            segment.remove(indirect);
+        }
+        else
+        {
+            segment.put(indirect, resource, estimateSize(resource));
+        }
+    }
+
+    /**
+     * A cached resource together with its estimated size.
+     */
+    private static final class Entry
+    {
+        private final Object resource;
+        private final long size;
+
+        private Entry(Object resource, long size)
+        {
+            this.resource = resource;
+            this.size = size;
+        }
+    }
+
+    /**
+     * The LRU cache of a single resource type.
+     */
+    private static final class Segment
+    {
+        // access order, the eldest entry is the least recently used one
+        private final LinkedHashMap<COSObject, Entry> entries =
+            new LinkedHashMap<COSObject, Entry>(16, 0.75f, true);
+        private int maxEntries;
+        private long maxBytes;
+        private long size = 0;
+        private long hitCount = 0;
+        private long missCount = 0;
+        private long evictionCount = 0;
+
+        private Segment(int maxEntries, long maxBytes)
+        {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+        }
+
+        synchronized void setBudget(int maxEntries, long maxBytes)
+        {
+            this.maxEntries = maxEntries;
+            this.maxBytes = maxBytes;
+            evict();
+        }
+
+        synchronized Object get(COSObject indirect)
+        {
+            Entry entry = entries.get(indirect);
+            if (entry == null)
+            {
+                missCount++;
+                return null;
+            }
+            hitCount++;
+            return entry.resource;
+        }
+
+        synchronized void put(COSObject indirect, Object resource, long resourceSize)
+        {
+            remove(indirect);
+            if (maxEntries == 0 || (maxBytes >= 0 && resourceSize > maxBytes))
+            {
+                // would evict everything else and itself
+                evictionCount++;
+                return;
+            }
+            entries.put(indirect, new Entry(resource, resourceSize));
+            size += resourceSize;
+            evict();
+        }
+
+        synchronized void remove(COSObject indirect)
+        {
+            Entry entry = entries.remove(indirect);
+            if (entry != null)
+            {
+                size -= entry.size;
+            }
+        }
+
+        synchronized void clear()
+        {
+            entries.clear();
+            size = 0;
+        }
+
+        synchronized long getHitCount()
+        {
+            return hitCount;
+        }
+
+        synchronized long getMissCount()
+        {
+            return missCount;
+        }
+
+        synchronized long getEvictionCount()
+        {
+            return evictionCount;
+        }
+
+        synchronized int getEntryCount()
+        {
+            return entries.size();
+        }
+
+        synchronized long getSize()
+        {
+            return size;
+        }
+
+        private void evict()
+        {
+            Iterator<Entry> iterator = entries.values().iterator();
+            while (iterator.hasNext() && ((maxEntries >= 0 && entries.size() > maxEntries) ||
+                (maxBytes >= 0 && size > maxBytes)))
+            {
+                size -= iterator.next().size;
+                iterator.remove();
+                evictionCount++;
+            }
+        }
+    }
+}
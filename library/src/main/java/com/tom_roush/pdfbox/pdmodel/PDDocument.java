@@ -30,6 +30,7 @@ import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import com.tom_roush.fontbox.ttf.TrueTypeFont;
@@ -41,11 +42,13 @@ import com.tom_roush.pdfbox.cos.COSInteger;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSNumber;
 import com.tom_roush.pdfbox.cos.COSObject;
+import com.tom_roush.pdfbox.cos.COSStream;
 import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.MemoryUsageSetting;
 import com.tom_roush.pdfbox.io.RandomAccessBuffer;
 import com.tom_roush.pdfbox.io.RandomAccessBufferedFileInputStream;
 import com.tom_roush.pdfbox.io.RandomAccessRead;
+import com.tom_roush.pdfbox.io.RandomAccessReadMemoryMappedFile;
 import com.tom_roush.pdfbox.io.ScratchFile;
 import com.tom_roush.pdfbox.pdfparser.PDFParser;
 import com.tom_roush.pdfbox.pdfwriter.COSWriter;
@@ -708,8 +711,23 @@ public class PDDocument implements Closeable
     public PDPage importPage(PDPage page) throws IOException
     {
         PDPage importedPage = new PDPage(new COSDictionary(page.getCOSObject()), resourceCache);
-        PDStream dest = new PDStream(this, page.getContents(), COSName.FLATE_DECODE);
-        importedPage.setContents(dest);
+        COSBase contents = page.getCOSObject().getDictionaryObject(COSName.CONTENTS);
+        if (contents instanceof COSStream)
+        {
+            // a single content stream is taken over as it is, without decoding and encoding it
+            COSStream dest = document.createCOSStream();
+            dest.shareRawData((COSStream) contents);
+            for (Map.Entry<COSName, COSBase> entry : ((COSStream) contents).entrySet())
+            {
+                dest.setItem(entry.getKey(), entry.getValue());
+            }
+            importedPage.setContents(new PDStream(dest));
+        }
+        else
+        {
+            PDStream dest = new PDStream(this, page.getContents(), COSName.FLATE_DECODE);
+            importedPage.setContents(dest);
+        }
         addPage(importedPage);
         importedPage.setCropBox(page.getCropBox());
         importedPage.setMediaBox(page.getMediaBox());
@@ -1035,7 +1053,8 @@ public class PDDocument implements Closeable
      * @param password password to be used for decryption
      * @param keyStore key store to be used for decryption when using public key security 
      * @param alias alias to be used for decryption when using public key security
-     * @param memUsageSetting defines how memory is used for buffering PDF streams 
+     * @param memUsageSetting defines how memory is used for buffering PDF streams; the file is
+     * memory mapped if {@link MemoryUsageSetting#useMemoryMappedInput()} is set
      *
      * @return loaded document
      *
@@ -1044,7 +1063,9 @@ public class PDDocument implements Closeable
     public static PDDocument load(File file, String password, InputStream keyStore, String alias,
         MemoryUsageSetting memUsageSetting) throws IOException
     {
-        RandomAccessBufferedFileInputStream raFile = new RandomAccessBufferedFileInputStream(file);
+        RandomAccessRead raFile = memUsageSetting.useMemoryMappedInput() ?
+            new RandomAccessReadMemoryMappedFile(file) :
+            new RandomAccessBufferedFileInputStream(file);
         try
         {
             ScratchFile scratchFile = new ScratchFile(memUsageSetting);
@@ -1307,6 +1328,25 @@ public class PDDocument implements Closeable
             throw new IOException("Cannot save a document which has been closed");
         }
 
+        save(new COSWriter(output));
+    }
+
+    /**
+     * This will save the document with the given writer, e.g. one writing object streams or
+     * compressing the streams in the background.
+     *
+     * @param writer The writer to use. It will be closed when done.
+     *
+     * @throws IOException if the output could not be written
+     */
+    public void save(COSWriter writer) throws IOException
+    {
+        if (document.isClosed())
+        {
+            writer.close();
+            throw new IOException("Cannot save a document which has been closed");
+        }
+
         // subset designated fonts
         for (PDFont font : fontsToSubset)
         {
@@ -1315,7 +1355,6 @@ public class PDDocument implements Closeable
         fontsToSubset.clear();
 
         // save PDF
-        COSWriter writer = new COSWriter(output);
         try
         {
             writer.write(this);
@@ -1674,7 +1713,9 @@ public class PDDocument implements Closeable
     }
 
     /**
-     * Sets the resource cache associated with this document.
+     * Sets the resource cache associated with this document. Use a {@link BoundedResourceCache}
+     * if the pages of the document are rendered by several threads or if the memory used by
+     * cached resources needs to be limited.
      *
      * @param resourceCache A resource cache, or null.
      */
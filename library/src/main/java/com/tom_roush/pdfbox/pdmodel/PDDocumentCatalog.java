@@ -56,6 +56,8 @@ public class PDDocumentCatalog implements COSObjectable
     private final COSDictionary root;
     private final PDDocument document;
     private PDAcroForm cachedAcroForm;
+    private PDPageTree cachedPages;
+    private COSDictionary cachedPagesRoot;
 
     /**
      * Constructor. Internal PDFBox use only! If you need to get the document catalog, call
@@ -128,8 +130,14 @@ public class PDDocumentCatalog implements COSObjectable
      */
     public PDPageTree getPages()
     {
-        // todo: cache me?
-        return new PDPageTree((COSDictionary)root.getDictionaryObject(COSName.PAGES), document);
+        // cached, so that the page index of the tree is kept
+        COSDictionary pages = (COSDictionary)root.getDictionaryObject(COSName.PAGES);
+        if (cachedPages == null || cachedPagesRoot != pages)
+        {
+            cachedPages = new PDPageTree(pages, document);
+            cachedPagesRoot = pages;
+        }
+        return cachedPages;
     }
 
     /**
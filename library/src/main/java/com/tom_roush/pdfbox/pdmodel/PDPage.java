@@ -94,8 +94,9 @@ public class PDPage implements COSObjectable, PDContentStream
      * Creates a new instance of PDPage for reading.
      *
      * @param pageDictionary A page dictionary in a PDF document.
+     * @param resourceCache The cache for the resources of the page, or null.
      */
-    PDPage(COSDictionary pageDictionary, ResourceCache resourceCache)
+    public PDPage(COSDictionary pageDictionary, ResourceCache resourceCache)
     {
         page = pageDictionary;
         this.resourceCache = resourceCache;
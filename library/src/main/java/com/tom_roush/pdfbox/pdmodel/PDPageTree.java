@@ -18,8 +18,10 @@ package com.tom_roush.pdfbox.pdmodel;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
 import java.util.Queue;
 
 import com.tom_roush.pdfbox.cos.COSArray;
@@ -39,6 +41,12 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
     private final COSDictionary root;
     private final PDDocument document; // optional
 
+    // all pages in order and their indices, built on demand, null if not built or invalidated
+    private List<COSDictionary> pageIndex;
+    private Map<COSDictionary, Integer> pageNumbers;
+    // the /Count of the root when the index was last valid, to detect changes made elsewhere
+    private int indexedCount;
+
     /**
      * Constructor for embedding.
      */
@@ -207,7 +215,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public PDPage get(int index)
     {
-        COSDictionary dict = get(index + 1, root, 0);
+        COSDictionary dict = getPageDictionary(index);
 
         sanitizeType(dict);
 
@@ -215,86 +223,81 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         return new PDPage(dict, resourceCache);
     }
 
-    private static void sanitizeType(COSDictionary dictionary)
+    private COSDictionary getPageDictionary(int index)
     {
-        COSName type = dictionary.getCOSName(COSName.TYPE);
-        if (type == null)
+        if (index < 0 || index >= getCount())
         {
-            dictionary.setItem(COSName.TYPE, COSName.PAGE);
-            return;
+            throw new IndexOutOfBoundsException("Index out of bounds: " + (index + 1));
         }
-        if (!COSName.PAGE.equals(type))
+        List<COSDictionary> pages = getPageIndex();
+        if (index >= pages.size())
         {
-            throw new IllegalStateException("Expected 'Page' but found " + type);
+            throw new IllegalStateException("Index not found: " + (index + 1));
         }
+        return pages.get(index);
     }
 
     /**
-     * Returns the given COS page using a depth-first search.
-     *
-     * @param pageNum 1-based page number
-     * @param node page tree node to search
-     * @param encountered number of pages encountered so far
-     * @return COS dictionary of the Page object
+     * Returns all pages in order, using the cached index if it is still valid. The index is kept
+     * up to date by the methods of this class which change the tree, changes made to the COS
+     * objects directly are only detected if they change the /Count of the root.
      */
-    private COSDictionary get(int pageNum, COSDictionary node, int encountered)
+    private List<COSDictionary> getPageIndex()
     {
-        if (pageNum < 0)
+        if (pageIndex == null || indexedCount != getCount())
         {
-            throw new IndexOutOfBoundsException("Index out of bounds: " + pageNum);
+            List<COSDictionary> pages = new ArrayList<COSDictionary>(Math.max(getCount(), 0));
+            Map<COSDictionary, Integer> numbers = new IdentityHashMap<COSDictionary, Integer>();
+            Map<COSDictionary, Boolean> visited = new IdentityHashMap<COSDictionary, Boolean>();
+            collectPages(root, pages, numbers, visited);
+            pageIndex = pages;
+            pageNumbers = numbers;
+            indexedCount = getCount();
         }
+        return pageIndex;
+    }
 
-        if (isPageTreeNode(node))
+    private void collectPages(COSDictionary node, List<COSDictionary> pages,
+        Map<COSDictionary, Integer> numbers, Map<COSDictionary, Boolean> visited)
+    {
+        for (COSDictionary kid : getKids(node))
         {
-            int count = node.getInt(COSName.COUNT, 0);
-            if (pageNum <= encountered + count)
+            if (isPageTreeNode(kid))
             {
-                // it's a kid of this node
-                for (COSDictionary kid : getKids(node))
+                // malformed trees may contain cycles
+                if (visited.put(kid, Boolean.TRUE) == null)
                 {
-                    // which kid?
-                    if (isPageTreeNode(kid))
-                    {
-                        int kidCount = kid.getInt(COSName.COUNT, 0);
-                        if (pageNum <= encountered + kidCount)
-                        {
-                            // it's this kid
-                            return get(pageNum, kid, encountered);
-                        }
-                        else
-                        {
-                            encountered += kidCount;
-                        }
-                    }
-                    else
-                    {
-                        // single page
-                        encountered++;
-                        if (pageNum == encountered)
-                        {
-                            // it's this page
-                            return get(pageNum, kid, encountered);
-                        }
-                    }
+                    collectPages(kid, pages, numbers, visited);
                 }
-
-                throw new IllegalStateException("Index not found: " + pageNum);
             }
-            else
+            else if (kid != null)
             {
-                throw new IndexOutOfBoundsException("Index out of bounds: " + pageNum);
+                if (!numbers.containsKey(kid))
+                {
+                    numbers.put(kid, pages.size());
+                }
+                pages.add(kid);
             }
         }
-        else
+    }
+
+    private void invalidatePageIndex()
+    {
+        pageIndex = null;
+        pageNumbers = null;
+    }
+
+    private static void sanitizeType(COSDictionary dictionary)
+    {
+        COSName type = dictionary.getCOSName(COSName.TYPE);
+        if (type == null)
         {
-            if (encountered == pageNum)
-            {
-                return node;
-            }
-            else
-            {
-                throw new IllegalStateException("Index not found: " + pageNum);
-            }
+            dictionary.setItem(COSName.TYPE, COSName.PAGE);
+            return;
+        }
+        if (!COSName.PAGE.equals(type))
+        {
+            throw new IllegalStateException("Expected 'Page' but found " + type);
         }
     }
 
@@ -317,50 +320,9 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public int indexOf(PDPage page)
     {
-        SearchContext context = new SearchContext(page);
-        if (findPage(context, root))
-        {
-            return context.index;
-        }
-        return -1;
-    }
-
-    private boolean findPage(SearchContext context, COSDictionary node)
-    {
-        for (COSDictionary kid : getKids(node))
-        {
-            if (context.found)
-            {
-                break;
-            }
-            if (isPageTreeNode(kid))
-            {
-                findPage(context, kid);
-            }
-            else
-            {
-                context.visitPage(kid);
-            }
-        }
-        return context.found;
-    }
-
-    private static final class SearchContext
-    {
-        private final COSDictionary searched;
-        private int index = -1;
-        private boolean found;
-
-        private SearchContext(PDPage page)
-        {
-            this.searched = page.getCOSObject();
-        }
-
-        private void visitPage(COSDictionary current)
-        {
-            index++;
-            found = searched.equals(current);
-        }
+        getPageIndex();
+        Integer index = pageNumbers.get(page.getCOSObject());
+        return index != null ? index : -1;
     }
 
     /**
@@ -385,7 +347,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
      */
     public void remove(int index)
     {
-        COSDictionary node = get(index + 1, root, 0);
+        COSDictionary node = getPageDictionary(index);
         remove(node);
     }
 
@@ -409,6 +371,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         COSArray kids = (COSArray)parent.getDictionaryObject(COSName.KIDS);
         if (kids.removeObject(node))
         {
+            invalidatePageIndex();
             // update ancestor counts
             do
             {
@@ -439,6 +402,9 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
         COSArray kids = (COSArray)root.getDictionaryObject(COSName.KIDS);
         kids.add(node);
 
+        // the new page is the last one, a valid index stays valid by appending it
+        boolean indexValid = pageIndex != null && indexedCount == getCount();
+
         // update ancestor counts
         do
         {
@@ -449,6 +415,21 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
             }
         }
         while (node != null);
+
+        if (indexValid)
+        {
+            COSDictionary pageDict = page.getCOSObject();
+            if (!pageNumbers.containsKey(pageDict))
+            {
+                pageNumbers.put(pageDict, pageIndex.size());
+            }
+            pageIndex.add(pageDict);
+            indexedCount = getCount();
+        }
+        else
+        {
+            invalidatePageIndex();
+        }
     }
 
     /**
@@ -517,6 +498,7 @@ public class PDPageTree implements COSObjectable, Iterable<PDPage>
 
     private void increaseParents(COSDictionary parentDict)
     {
+        invalidatePageIndex();
         do
         {
             int cnt = parentDict.getInt(COSName.COUNT);
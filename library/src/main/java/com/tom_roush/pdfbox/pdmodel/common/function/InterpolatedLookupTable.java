@@ -0,0 +1,224 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.common.function;
+
+import java.io.IOException;
+
+/**
+ * A function with 1 to 3 inputs sampled on a regular grid over its domain. The outputs are
+ * interpolated linearly between the samples.
+ */
+final class InterpolatedLookupTable
+{
+    static final int MAX_INPUTS = 3;
+
+    // the number of samples is limited to 2^16 + 1 for 1 input, 257^2 for 2 and 33^3 for 3
+    private static final int MAX_SAMPLES = 66049;
+    private static final int INITIAL_SIZE = 3;
+
+    /**
+     * Evaluates the function which is sampled.
+     */
+    interface Sampler
+    {
+        void eval(float[] input, float[] output) throws IOException;
+    }
+
+    private final float[] domain;
+    private final int outputCount;
+    // the number of samples of each input
+    private final int size;
+    private final float[] scales = new float[MAX_INPUTS];
+    // the offsets between the samples of each input, 0 for missing inputs
+    private final int[] strides = new int[MAX_INPUTS];
+    // the outputs of the samples, the first input varies fastest
+    private final float[] samples;
+
+    private InterpolatedLookupTable(float[] domain, int outputCount, int size, float[] samples)
+    {
+        this.domain = domain;
+        this.outputCount = outputCount;
+        this.size = size;
+        this.samples = samples;
+        int stride = outputCount;
+        for (int i = 0; i < domain.length / 2; i++)
+        {
+            float width = domain[i * 2 + 1] - domain[i * 2];
+            scales[i] = width > 0 ? (size - 1) / width : 0;
+            strides[i] = stride;
+            stride *= size;
+        }
+    }
+
+    /**
+     * Samples the given function on a grid, which is refined until the outputs interpolated
+     * from the grid differ by at most the given tolerance from those of a grid with twice the
+     * resolution. Discontinuous functions, e.g. with a threshold, usually don't have such a grid.
+     *
+     * @param sampler the function
+     * @param domain the minimum and maximum of each input
+     * @param outputCount the number of outputs
+     * @param tolerance the maximum difference of an output
+     * @return the table, or null if the tolerance needs too many samples
+     * @throws IOException if the function can't be evaluated
+     */
+    static InterpolatedLookupTable build(Sampler sampler, float[] domain, int outputCount,
+        float tolerance) throws IOException
+    {
+        int inputCount = domain.length / 2;
+        InterpolatedLookupTable coarse = sample(sampler, domain, outputCount, INITIAL_SIZE);
+        int size = INITIAL_SIZE * 2 - 1;
+        while (Math.pow(size, inputCount) <= MAX_SAMPLES)
+        {
+            InterpolatedLookupTable fine = sample(sampler, domain, outputCount, size);
+            if (coarse.getMaxError(fine) <= tolerance)
+            {
+                return fine;
+            }
+            coarse = fine;
+            size = size * 2 - 1;
+        }
+        return null;
+    }
+
+    private static InterpolatedLookupTable sample(Sampler sampler, float[] domain,
+        int outputCount, int size) throws IOException
+    {
+        int inputCount = domain.length / 2;
+        int sampleCount = (int) Math.pow(size, inputCount);
+        float[] samples = new float[sampleCount * outputCount];
+        float[] input = new float[inputCount];
+        float[] output = new float[outputCount];
+        for (int n = 0; n < sampleCount; n++)
+        {
+            int index = n;
+            for (int i = 0; i < inputCount; i++)
+            {
+                float min = domain[i * 2];
+                float max = domain[i * 2 + 1];
+                int position = index % size;
+                index /= size;
+                // the last sample is exactly at the maximum
+                input[i] = position == size - 1 ? max : min + (max - min) * position / (size - 1);
+            }
+            sampler.eval(input, output);
+            System.arraycopy(output, 0, samples, n * outputCount, outputCount);
+        }
+        return new InterpolatedLookupTable(domain, outputCount, size, samples);
+    }
+
+    /**
+     * Returns the maximum difference between the outputs interpolated from this table and the
+     * samples of the given finer table.
+     */
+    private float getMaxError(InterpolatedLookupTable fine)
+    {
+        int inputCount = domain.length / 2;
+        float[] input = new float[inputCount];
+        float[] output = new float[outputCount];
+        float maxError = 0;
+        int sampleCount = fine.samples.length / outputCount;
+        for (int n = 0; n < sampleCount; n++)
+        {
+            int index = n;
+            for (int i = 0; i < inputCount; i++)
+            {
+                float min = domain[i * 2];
+                float max = domain[i * 2 + 1];
+                int position = index % fine.size;
+                index /= fine.size;
+                input[i] = position == fine.size - 1 ? max :
+                    min + (max - min) * position / (fine.size - 1);
+            }
+            eval(input, output);
+            for (int j = 0; j < outputCount; j++)
+            {
+                float error = Math.abs(output[j] - fine.samples[n * outputCount + j]);
+                if (!(error <= maxError))
+                {
+                    // NaN never matches
+                    maxError = Float.isNaN(error) ? Float.POSITIVE_INFINITY : error;
+                }
+            }
+        }
+        return maxError;
+    }
+
+    /**
+     * Interpolates the outputs for the given inputs, which are clipped to the domain.
+     *
+     * @param input the inputs
+     * @param output receives the outputs
+     */
+    void eval(float[] input, float[] output)
+    {
+        float x0 = getPosition(input, 0);
+        float x1 = getPosition(input, 1);
+        float x2 = getPosition(input, 2);
+        int i0 = getCell(x0);
+        int i1 = getCell(x1);
+        int i2 = getCell(x2);
+        float f0 = x0 - i0;
+        float f1 = x1 - i1;
+        float f2 = x2 - i2;
+        int s0 = strides[0];
+        int s1 = strides[1];
+        int s2 = strides[2];
+        int base = i0 * s0 + i1 * s1 + i2 * s2;
+        for (int j = 0; j < outputCount; j++)
+        {
+            int b = base + j;
+            float c00 = lerp(samples[b], samples[b + s0], f0);
+            float c10 = lerp(samples[b + s1], samples[b + s1 + s0], f0);
+            float c01 = lerp(samples[b + s2], samples[b + s2 + s0], f0);
+            float c11 = lerp(samples[b + s2 + s1], samples[b + s2 + s1 + s0], f0);
+            output[j] = lerp(lerp(c00, c10, f1), lerp(c01, c11, f1), f2);
+        }
+    }
+
+    /**
+     * Returns the position of the given input on the grid, 0 for a missing input.
+     */
+    private float getPosition(float[] input, int i)
+    {
+        if (i >= input.length || i * 2 >= domain.length)
+        {
+            return 0;
+        }
+        float position = (input[i] - domain[i * 2]) * scales[i];
+        if (!(position > 0))
+        {
+            return 0;
+        }
+        return position < size - 1 ? position : size - 1;
+    }
+
+    /**
+     * Returns the index of the cell with the given position, the last cell includes the last
+     * sample.
+     */
+    private int getCell(float position)
+    {
+        int cell = (int) position;
+        return cell < size - 1 ? cell : size - 2;
+    }
+
+    private static float lerp(float a, float b, float f)
+    {
+        return a + (b - a) * f;
+    }
+}
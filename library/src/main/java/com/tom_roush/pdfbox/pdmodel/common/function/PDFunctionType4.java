@@ -20,6 +20,7 @@ import java.io.IOException;
 
 import com.tom_roush.pdfbox.cos.COSBase;
 import com.tom_roush.pdfbox.pdmodel.common.PDRange;
+import com.tom_roush.pdfbox.pdmodel.common.function.type4.CompiledInstructionSequence;
 import com.tom_roush.pdfbox.pdmodel.common.function.type4.ExecutionContext;
 import com.tom_roush.pdfbox.pdmodel.common.function.type4.InstructionSequence;
 import com.tom_roush.pdfbox.pdmodel.common.function.type4.InstructionSequenceBuilder;
@@ -29,13 +30,28 @@ import com.tom_roush.pdfbox.pdmodel.common.function.type4.Operators;
  * This class represents a Type 4 (PostScript calculator) function in a PDF document.
  * <p>
  * See section 3.9.4 of the PDF 1.4 Reference.
+ * <p>
+ * The function is compiled once, see {@link CompiledInstructionSequence}. Optionally, a function
+ * with 1 to 3 inputs is sampled into a lookup table, whose outputs are interpolated within a
+ * given tolerance, see {@link #setLookupTableTolerance(float)}.
  */
 public class PDFunctionType4 extends PDFunction
 {
 
     private static final Operators OPERATORS = new Operators();
 
+    private static volatile float defaultLookupTableTolerance;
+
     private final InstructionSequence instructions;
+    // null if the instructions have to be interpreted
+    private final CompiledInstructionSequence compiledInstructions;
+
+    private volatile float[] domainBounds;
+    private volatile float[] rangeBounds;
+
+    private volatile float lookupTableTolerance = defaultLookupTableTolerance;
+    private volatile InterpolatedLookupTable lookupTable;
+    private volatile boolean lookupTableBuilt;
 
     /**
      * Constructor.
@@ -49,6 +65,38 @@ public class PDFunctionType4 extends PDFunction
         byte[] bytes = getPDStream().toByteArray();
         String string = new String(bytes, "ISO-8859-1");
         this.instructions = InstructionSequenceBuilder.parse(string);
+        this.compiledInstructions = CompiledInstructionSequence.compile(instructions);
+    }
+
+    /**
+     * Sets the tolerance used for the functions created afterwards, see
+     * {@link #setLookupTableTolerance(float)}. The default is 0, i.e. the functions are
+     * evaluated exactly.
+     *
+     * @param tolerance the maximum difference of an output value, or 0
+     */
+    public static void setDefaultLookupTableTolerance(float tolerance)
+    {
+        defaultLookupTableTolerance = tolerance;
+    }
+
+    /**
+     * Sets the maximum difference between the output values interpolated from a lookup table and
+     * the exact ones. If it's greater than 0 and the function has 1 to 3 inputs, the function is
+     * sampled into a lookup table on its first evaluation. The function is still evaluated exactly
+     * if it isn't smooth enough for the tolerance, e.g. if it has a threshold.
+     *
+     * @param tolerance the maximum difference of an output value, or 0 to evaluate the function
+     * exactly
+     */
+    public synchronized void setLookupTableTolerance(float tolerance)
+    {
+        if (tolerance != lookupTableTolerance)
+        {
+            lookupTableTolerance = tolerance;
+            lookupTable = null;
+            lookupTableBuilt = false;
+        }
     }
 
     /**
@@ -63,6 +111,78 @@ public class PDFunctionType4 extends PDFunction
     * {@inheritDoc}
     */
     public float[] eval(float[] input) throws IOException
+    {
+        float[] outputValues = new float[getNumberOfOutputParameters()];
+        if (lookupTableTolerance > 0 && input.length == getNumberOfInputParameters())
+        {
+            if (!lookupTableBuilt)
+            {
+                buildLookupTable();
+            }
+            InterpolatedLookupTable table = lookupTable;
+            if (table != null)
+            {
+                table.eval(input, outputValues);
+                return outputValues;
+            }
+        }
+        evalExact(input, outputValues);
+        return outputValues;
+    }
+
+    private synchronized void buildLookupTable() throws IOException
+    {
+        if (!lookupTableBuilt)
+        {
+            if (getNumberOfInputParameters() <= InterpolatedLookupTable.MAX_INPUTS)
+            {
+                try
+                {
+                    lookupTable = InterpolatedLookupTable.build(
+                        new InterpolatedLookupTable.Sampler()
+                        {
+                            @Override
+                            public void eval(float[] input, float[] output)
+                            {
+                                evalExact(input, output);
+                            }
+                        }, getDomainBounds(), getNumberOfOutputParameters(), lookupTableTolerance);
+                }
+                catch (RuntimeException e)
+                {
+                    // the function fails for some inputs, which is left to the exact evaluation
+                    lookupTable = null;
+                }
+            }
+            lookupTableBuilt = true;
+        }
+    }
+
+    private void evalExact(float[] input, float[] outputValues)
+    {
+        if (compiledInstructions == null)
+        {
+            interpret(input, outputValues);
+            return;
+        }
+
+        int numberOfActualOutputValues =
+            compiledInstructions.execute(input, getDomainBounds(), outputValues);
+        if (numberOfActualOutputValues < outputValues.length)
+        {
+            throw new IllegalStateException("The type 4 function returned "
+                    + numberOfActualOutputValues
+                    + " values but the Range entry indicates that "
+                    + outputValues.length + " values be returned.");
+        }
+        float[] range = getRangeBounds();
+        for (int i = 0; i < outputValues.length; i++)
+        {
+            outputValues[i] = clipToRange(outputValues[i], range[i * 2], range[i * 2 + 1]);
+        }
+    }
+
+    private void interpret(float[] input, float[] outputValues)
     {
         //Setup the input values
         ExecutionContext context = new ExecutionContext(OPERATORS);
@@ -77,7 +197,7 @@ public class PDFunctionType4 extends PDFunction
         instructions.execute(context);
 
         //Extract the output values
-        int numberOfOutputValues = getNumberOfOutputParameters();
+        int numberOfOutputValues = outputValues.length;
         int numberOfActualOutputValues = context.getStack().size();
         if (numberOfActualOutputValues < numberOfOutputValues)
         {
@@ -86,15 +206,51 @@ public class PDFunctionType4 extends PDFunction
                     + " values but the Range entry indicates that "
                     + numberOfOutputValues + " values be returned.");
         }
-        float[] outputValues = new float[numberOfOutputValues];
         for (int i = numberOfOutputValues - 1; i >= 0; i--)
         {
             PDRange range = getRangeForOutput(i);
             outputValues[i] = context.popReal();
             outputValues[i] = clipToRange(outputValues[i], range.getMin(), range.getMax());
         }
+    }
 
-        //Return the resulting array
-        return outputValues;
+    /**
+     * Returns the minimum and maximum of each input.
+     */
+    private float[] getDomainBounds()
+    {
+        float[] values = domainBounds;
+        if (values == null)
+        {
+            values = new float[getNumberOfInputParameters() * 2];
+            for (int i = 0; i < values.length / 2; i++)
+            {
+                PDRange domain = getDomainForInput(i);
+                values[i * 2] = domain.getMin();
+                values[i * 2 + 1] = domain.getMax();
+            }
+            domainBounds = values;
+        }
+        return values;
+    }
+
+    /**
+     * Returns the minimum and maximum of each output.
+     */
+    private float[] getRangeBounds()
+    {
+        float[] values = rangeBounds;
+        if (values == null)
+        {
+            values = new float[getNumberOfOutputParameters() * 2];
+            for (int i = 0; i < values.length / 2; i++)
+            {
+                PDRange range = getRangeForOutput(i);
+                values[i * 2] = range.getMin();
+                values[i * 2 + 1] = range.getMax();
+            }
+            rangeBounds = values;
+        }
+        return values;
     }
 }
@@ -0,0 +1,795 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.common.function.type4;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EmptyStackException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An instruction sequence compiled into a flat list of operator codes. The procedures of "if"
+ * and "ifelse" become jumps, and the values are kept on a stack of primitives, so that the
+ * execution doesn't allocate objects. The results are the same as those of
+ * {@link InstructionSequence#execute(ExecutionContext)}.
+ */
+public final class CompiledInstructionSequence
+{
+    private static final int PUSH_INT = 0;
+    private static final int PUSH_REAL = 1;
+    private static final int PUSH_BOOL = 2;
+    private static final int JUMP = 3;
+    private static final int JUMP_IF_FALSE = 4;
+    private static final int UNKNOWN = 5;
+
+    private static final int ABS = 10;
+    private static final int ADD = 11;
+    private static final int ATAN = 12;
+    private static final int CEILING = 13;
+    private static final int COS = 14;
+    private static final int CVI = 15;
+    private static final int CVR = 16;
+    private static final int DIV = 17;
+    private static final int EXP = 18;
+    private static final int FLOOR = 19;
+    private static final int IDIV = 20;
+    private static final int LN = 21;
+    private static final int LOG = 22;
+    private static final int MOD = 23;
+    private static final int MUL = 24;
+    private static final int NEG = 25;
+    private static final int ROUND = 26;
+    private static final int SIN = 27;
+    private static final int SQRT = 28;
+    private static final int SUB = 29;
+    private static final int TRUNCATE = 30;
+
+    private static final int AND = 40;
+    private static final int BITSHIFT = 41;
+    private static final int EQ = 42;
+    private static final int FALSE = 43;
+    private static final int GE = 44;
+    private static final int GT = 45;
+    private static final int LE = 46;
+    private static final int LT = 47;
+    private static final int NE = 48;
+    private static final int NOT = 49;
+    private static final int OR = 50;
+    private static final int TRUE = 51;
+    private static final int XOR = 52;
+
+    private static final int COPY = 60;
+    private static final int DUP = 61;
+    private static final int EXCH = 62;
+    private static final int INDEX = 63;
+    private static final int POP = 64;
+    private static final int ROLL = 65;
+
+    private static final Map<String, Integer> OPCODES = new HashMap<String, Integer>();
+
+    static
+    {
+        OPCODES.put("abs", ABS);
+        OPCODES.put("add", ADD);
+        OPCODES.put("atan", ATAN);
+        OPCODES.put("ceiling", CEILING);
+        OPCODES.put("cos", COS);
+        OPCODES.put("cvi", CVI);
+        OPCODES.put("cvr", CVR);
+        OPCODES.put("div", DIV);
+        OPCODES.put("exp", EXP);
+        OPCODES.put("floor", FLOOR);
+        OPCODES.put("idiv", IDIV);
+        OPCODES.put("ln", LN);
+        OPCODES.put("log", LOG);
+        OPCODES.put("mod", MOD);
+        OPCODES.put("mul", MUL);
+        OPCODES.put("neg", NEG);
+        OPCODES.put("round", ROUND);
+        OPCODES.put("sin", SIN);
+        OPCODES.put("sqrt", SQRT);
+        OPCODES.put("sub", SUB);
+        OPCODES.put("truncate", TRUNCATE);
+
+        OPCODES.put("and", AND);
+        OPCODES.put("bitshift", BITSHIFT);
+        OPCODES.put("eq", EQ);
+        OPCODES.put("false", FALSE);
+        OPCODES.put("ge", GE);
+        OPCODES.put("gt", GT);
+        OPCODES.put("le", LE);
+        OPCODES.put("lt", LT);
+        OPCODES.put("ne", NE);
+        OPCODES.put("not", NOT);
+        OPCODES.put("or", OR);
+        OPCODES.put("true", TRUE);
+        OPCODES.put("xor", XOR);
+
+        OPCODES.put("copy", COPY);
+        OPCODES.put("dup", DUP);
+        OPCODES.put("exch", EXCH);
+        OPCODES.put("index", INDEX);
+        OPCODES.put("pop", POP);
+        OPCODES.put("roll", ROLL);
+    }
+
+    // the types of the values on the stack
+    private static final byte INT = 0;
+    private static final byte REAL = 1;
+    private static final byte BOOL = 2;
+
+    private static final ThreadLocal<OperandStack> STACKS = new ThreadLocal<OperandStack>()
+    {
+        @Override
+        protected OperandStack initialValue()
+        {
+            return new OperandStack();
+        }
+    };
+
+    // operator codes, followed by an operand for the values, the jumps and unknown names
+    private final int[] code;
+    private final String[] unknownNames;
+
+    private CompiledInstructionSequence(int[] code, String[] unknownNames)
+    {
+        this.code = code;
+        this.unknownNames = unknownNames;
+    }
+
+    /**
+     * Compiles the given instruction sequence.
+     *
+     * @param sequence the instruction sequence
+     * @return the compiled sequence, or null if a procedure isn't used by "if" or "ifelse"
+     */
+    public static CompiledInstructionSequence compile(InstructionSequence sequence)
+    {
+        Compiler compiler = new Compiler();
+        if (!compiler.compile(sequence.getInstructions()))
+        {
+            return null;
+        }
+        return new CompiledInstructionSequence(Arrays.copyOf(compiler.code, compiler.length),
+            compiler.unknownNames.toArray(new String[compiler.unknownNames.size()]));
+    }
+
+    /**
+     * Executes the sequence with the given input values on the stack, and returns the values
+     * which are on the top of the stack at the end.
+     *
+     * @param input the input values, pushed as real values
+     * @param domain the minimum and maximum of each input value, which it is clipped to
+     * @param output receives the values on the top of the stack, the last one from the top, if
+     * there are enough values on the stack
+     * @return the number of values on the stack at the end
+     */
+    public int execute(float[] input, float[] domain, float[] output)
+    {
+        OperandStack stack = STACKS.get();
+        stack.size = 0;
+        for (int i = 0; i < input.length; i++)
+        {
+            float value = input[i];
+            if (value < domain[i * 2])
+            {
+                value = domain[i * 2];
+            }
+            else if (value > domain[i * 2 + 1])
+            {
+                value = domain[i * 2 + 1];
+            }
+            stack.push(REAL, value);
+        }
+        execute(stack);
+        int size = stack.size;
+        if (size >= output.length)
+        {
+            for (int i = output.length - 1; i >= 0; i--)
+            {
+                output[i] = stack.popReal();
+            }
+        }
+        return size;
+    }
+
+    private void execute(OperandStack stack)
+    {
+        int[] code = this.code;
+        int pc = 0;
+        while (pc < code.length)
+        {
+            switch (code[pc++])
+            {
+                case PUSH_INT:
+                    stack.push(INT, code[pc++]);
+                    break;
+                case PUSH_REAL:
+                    stack.push(REAL, Float.intBitsToFloat(code[pc++]));
+                    break;
+                case PUSH_BOOL:
+                    stack.push(BOOL, code[pc++]);
+                    break;
+                case JUMP:
+                    pc = code[pc];
+                    break;
+                case JUMP_IF_FALSE:
+                    pc = stack.popBoolean() ? pc + 1 : code[pc];
+                    break;
+                case UNKNOWN:
+                    throw new UnsupportedOperationException("Unknown operator or name: " +
+                        unknownNames[code[pc]]);
+
+                case ABS:
+                {
+                    stack.checkNumber(0);
+                    int top = stack.size - 1;
+                    if (stack.types[top] == INT)
+                    {
+                        stack.values[top] = Math.abs((int) stack.values[top]);
+                    }
+                    else
+                    {
+                        stack.values[top] = Math.abs((float) stack.values[top]);
+                    }
+                    break;
+                }
+                case ADD:
+                case SUB:
+                {
+                    boolean integers = stack.areIntegers();
+                    double num2 = stack.popNumber();
+                    double num1 = stack.popNumber();
+                    if (integers)
+                    {
+                        long result = code[pc - 1] == ADD ? (long) num1 + (long) num2 :
+                            (long) num1 - (long) num2;
+                        if (result < Integer.MIN_VALUE || result > Integer.MAX_VALUE)
+                        {
+                            stack.push(REAL, (float) result);
+                        }
+                        else
+                        {
+                            stack.push(INT, result);
+                        }
+                    }
+                    else
+                    {
+                        stack.push(REAL, code[pc - 1] == ADD ? (float) num1 + (float) num2 :
+                            (float) num1 - (float) num2);
+                    }
+                    break;
+                }
+                case ATAN:
+                {
+                    float den = stack.popReal();
+                    float num = stack.popReal();
+                    float atan = (float) Math.atan2(num, den);
+                    atan = (float) Math.toDegrees(atan) % 360;
+                    if (atan < 0)
+                    {
+                        atan = atan + 360;
+                    }
+                    stack.push(REAL, atan);
+                    break;
+                }
+                case CEILING:
+                case FLOOR:
+                case ROUND:
+                case TRUNCATE:
+                {
+                    stack.checkNumber(0);
+                    int top = stack.size - 1;
+                    if (stack.types[top] == REAL)
+                    {
+                        double value = stack.values[top];
+                        switch (code[pc - 1])
+                        {
+                            case CEILING: value = (float) Math.ceil(value); break;
+                            case FLOOR: value = (float) Math.floor(value); break;
+                            case ROUND: value = (float) Math.round(value); break;
+                            default: value = (float) (int) (float) value; break;
+                        }
+                        stack.values[top] = value;
+                    }
+                    break;
+                }
+                case COS:
+                    stack.push(REAL, (float) Math.cos(Math.toRadians(stack.popReal())));
+                    break;
+                case SIN:
+                    stack.push(REAL, (float) Math.sin(Math.toRadians(stack.popReal())));
+                    break;
+                case CVI:
+                    stack.push(INT, (int) stack.popNumber());
+                    break;
+                case CVR:
+                    stack.push(REAL, stack.popReal());
+                    break;
+                case DIV:
+                {
+                    float num2 = stack.popReal();
+                    float num1 = stack.popReal();
+                    stack.push(REAL, num1 / num2);
+                    break;
+                }
+                case EXP:
+                {
+                    double exp = stack.popNumber();
+                    double base = stack.popNumber();
+                    stack.push(REAL, (float) Math.pow(base, exp));
+                    break;
+                }
+                case IDIV:
+                {
+                    int num2 = stack.popInt();
+                    int num1 = stack.popInt();
+                    stack.push(INT, num1 / num2);
+                    break;
+                }
+                case LN:
+                    stack.push(REAL, (float) Math.log(stack.popNumber()));
+                    break;
+                case LOG:
+                    stack.push(REAL, (float) Math.log10(stack.popNumber()));
+                    break;
+                case MOD:
+                {
+                    int int2 = stack.popInt();
+                    int int1 = stack.popInt();
+                    stack.push(INT, int1 % int2);
+                    break;
+                }
+                case MUL:
+                {
+                    boolean integers = stack.areIntegers();
+                    double num2 = stack.popNumber();
+                    double num1 = stack.popNumber();
+                    if (integers)
+                    {
+                        long result = (long) num1 * (long) num2;
+                        if (result >= Integer.MIN_VALUE && result <= Integer.MAX_VALUE)
+                        {
+                            stack.push(INT, result);
+                        }
+                        else
+                        {
+                            stack.push(REAL, (float) result);
+                        }
+                    }
+                    else
+                    {
+                        stack.push(REAL, (float) (num1 * num2));
+                    }
+                    break;
+                }
+                case NEG:
+                {
+                    stack.checkNumber(0);
+                    int top = stack.size - 1;
+                    if (stack.types[top] == REAL)
+                    {
+                        stack.values[top] = -stack.values[top];
+                    }
+                    else if (stack.values[top] == Integer.MIN_VALUE)
+                    {
+                        stack.types[top] = REAL;
+                        stack.values[top] = -(float) Integer.MIN_VALUE;
+                    }
+                    else
+                    {
+                        // no -0 for ints
+                        stack.values[top] = -(int) stack.values[top];
+                    }
+                    break;
+                }
+                case SQRT:
+                {
+                    float num = stack.popReal();
+                    if (num < 0)
+                    {
+                        throw new IllegalArgumentException("argument must be nonnegative");
+                    }
+                    stack.push(REAL, (float) Math.sqrt(num));
+                    break;
+                }
+
+                case AND:
+                case OR:
+                case XOR:
+                {
+                    stack.checkSize(2);
+                    byte type2 = stack.types[stack.size - 1];
+                    byte type1 = stack.types[stack.size - 2];
+                    if (type1 != type2 || type1 == REAL)
+                    {
+                        throw new ClassCastException("Operands must be bool/bool or int/int");
+                    }
+                    int op2 = (int) stack.pop();
+                    int op1 = (int) stack.pop();
+                    int result;
+                    switch (code[pc - 1])
+                    {
+                        case AND: result = op1 & op2; break;
+                        case OR: result = op1 | op2; break;
+                        default: result = op1 ^ op2; break;
+                    }
+                    stack.push(type1, result);
+                    break;
+                }
+                case BITSHIFT:
+                {
+                    int shift = stack.popInt();
+                    int int1 = stack.popInt();
+                    stack.push(INT, shift < 0 ? int1 >> Math.abs(shift) : int1 << shift);
+                    break;
+                }
+                case EQ:
+                case NE:
+                {
+                    stack.checkSize(2);
+                    byte type2 = stack.types[stack.size - 1];
+                    byte type1 = stack.types[stack.size - 2];
+                    float op2 = (float) stack.pop();
+                    float op1 = (float) stack.pop();
+                    // numbers are compared as reals, a number never equals a bool
+                    boolean equal = (type1 == BOOL) == (type2 == BOOL) && op1 == op2;
+                    stack.push(BOOL, equal == (code[pc - 1] == EQ) ? 1 : 0);
+                    break;
+                }
+                case GE:
+                case GT:
+                case LE:
+                case LT:
+                {
+                    float num2 = stack.popReal();
+                    float num1 = stack.popReal();
+                    boolean result;
+                    switch (code[pc - 1])
+                    {
+                        case GE: result = num1 >= num2; break;
+                        case GT: result = num1 > num2; break;
+                        case LE: result = num1 <= num2; break;
+                        default: result = num1 < num2; break;
+                    }
+                    stack.push(BOOL, result ? 1 : 0);
+                    break;
+                }
+                case FALSE:
+                    stack.push(BOOL, 0);
+                    break;
+                case TRUE:
+                    stack.push(BOOL, 1);
+                    break;
+                case NOT:
+                {
+                    stack.checkSize(1);
+                    int top = stack.size - 1;
+                    if (stack.types[top] == BOOL)
+                    {
+                        stack.values[top] = stack.values[top] == 0 ? 1 : 0;
+                    }
+                    else if (stack.types[top] == INT)
+                    {
+                        stack.values[top] = -(int) stack.values[top];
+                    }
+                    else
+                    {
+                        throw new ClassCastException("Operand must be bool or int");
+                    }
+                    break;
+                }
+
+                case COPY:
+                {
+                    int n = (int) stack.popNumber();
+                    if (n > 0)
+                    {
+                        stack.checkSize(n);
+                        int start = stack.size - n;
+                        for (int i = 0; i < n; i++)
+                        {
+                            stack.push(stack.types[start + i], stack.values[start + i]);
+                        }
+                    }
+                    break;
+                }
+                case DUP:
+                    stack.checkSize(1);
+                    stack.push(stack.types[stack.size - 1], stack.values[stack.size - 1]);
+                    break;
+                case EXCH:
+                    stack.checkSize(2);
+                    stack.reverse(stack.size - 2, stack.size - 1);
+                    break;
+                case INDEX:
+                {
+                    int n = (int) stack.popNumber();
+                    if (n < 0)
+                    {
+                        throw new IllegalArgumentException("rangecheck: " + n);
+                    }
+                    stack.checkSize(n + 1);
+                    int index = stack.size - n - 1;
+                    stack.push(stack.types[index], stack.values[index]);
+                    break;
+                }
+                case POP:
+                    stack.pop();
+                    break;
+                case ROLL:
+                {
+                    int j = (int) stack.popNumber();
+                    int n = (int) stack.popNumber();
+                    if (j == 0)
+                    {
+                        break;
+                    }
+                    if (n < 0)
+                    {
+                        throw new IllegalArgumentException("rangecheck: " + n);
+                    }
+                    // like the "roll" operator, rolls by more than n positions leave the stack
+                    // as it is
+                    int shift = j > 0 ? j : n + j;
+                    if (shift > 0 && shift < n)
+                    {
+                        stack.checkSize(n);
+                        int end = stack.size - 1;
+                        int start = stack.size - n;
+                        stack.reverse(start, end);
+                        stack.reverse(start, start + shift - 1);
+                        stack.reverse(start + shift, end);
+                    }
+                    else if (Math.abs((long) j) > stack.size)
+                    {
+                        throw new EmptyStackException();
+                    }
+                    break;
+                }
+                default:
+                    throw new IllegalStateException("Unknown operator code " + code[pc - 1]);
+            }
+        }
+    }
+
+    /**
+     * Translates the instructions into operator codes.
+     */
+    private static final class Compiler
+    {
+        private int[] code = new int[64];
+        private int length;
+        private final List<String> unknownNames = new ArrayList<String>();
+
+        /**
+         * Compiles the given instructions, returns false if a procedure isn't used by "if" or
+         * "ifelse" or isn't the last instruction.
+         */
+        private boolean compile(List<Object> instructions)
+        {
+            for (int i = 0; i < instructions.size(); i++)
+            {
+                Object instruction = instructions.get(i);
+                Object next = i + 1 < instructions.size() ? instructions.get(i + 1) : null;
+                if (instruction instanceof InstructionSequence)
+                {
+                    List<Object> proc = ((InstructionSequence) instruction).getInstructions();
+                    if ("if".equals(next))
+                    {
+                        int jump = emit(JUMP_IF_FALSE, 0);
+                        if (!compile(proc))
+                        {
+                            return false;
+                        }
+                        code[jump] = length;
+                        i++;
+                    }
+                    else if (next instanceof InstructionSequence && i + 2 < instructions.size()
+                        && "ifelse".equals(instructions.get(i + 2)))
+                    {
+                        int jumpToElse = emit(JUMP_IF_FALSE, 0);
+                        if (!compile(proc))
+                        {
+                            return false;
+                        }
+                        int jumpToEnd = emit(JUMP, 0);
+                        code[jumpToElse] = length;
+                        if (!compile(((InstructionSequence) next).getInstructions()))
+                        {
+                            return false;
+                        }
+                        code[jumpToEnd] = length;
+                        i += 2;
+                    }
+                    else if (next == null)
+                    {
+                        // a procedure left on the top of the stack is executed
+                        if (!compile(proc))
+                        {
+                            return false;
+                        }
+                    }
+                    else
+                    {
+                        return false;
+                    }
+                }
+                else if (instruction instanceof String)
+                {
+                    Integer opcode = OPCODES.get(instruction);
+                    if (opcode != null)
+                    {
+                        emit(opcode);
+                    }
+                    else if ("if".equals(instruction) || "ifelse".equals(instruction))
+                    {
+                        return false;
+                    }
+                    else
+                    {
+                        // fails like the interpreter, if it's executed
+                        emit(UNKNOWN, unknownNames.size());
+                        unknownNames.add((String) instruction);
+                    }
+                }
+                else if (instruction instanceof Integer)
+                {
+                    emit(PUSH_INT, (Integer) instruction);
+                }
+                else if (instruction instanceof Float)
+                {
+                    emit(PUSH_REAL, Float.floatToIntBits((Float) instruction));
+                }
+                else if (instruction instanceof Boolean)
+                {
+                    emit(PUSH_BOOL, (Boolean) instruction ? 1 : 0);
+                }
+                else
+                {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void emit(int opcode)
+        {
+            if (length == code.length)
+            {
+                code = Arrays.copyOf(code, length * 2);
+            }
+            code[length++] = opcode;
+        }
+
+        /**
+         * Emits an operator code with an operand, returns the position of the operand.
+         */
+        private int emit(int opcode, int operand)
+        {
+            emit(opcode);
+            emit(operand);
+            return length - 1;
+        }
+    }
+
+    /**
+     * The stack of the values, with their types. Ints, reals and bools are exactly represented
+     * by doubles, bools as 0 or 1.
+     */
+    private static final class OperandStack
+    {
+        private double[] values = new double[32];
+        private byte[] types = new byte[32];
+        private int size;
+
+        private void push(byte type, double value)
+        {
+            if (size == values.length)
+            {
+                values = Arrays.copyOf(values, size * 2);
+                types = Arrays.copyOf(types, size * 2);
+            }
+            types[size] = type;
+            values[size] = value;
+            size++;
+        }
+
+        private double pop()
+        {
+            checkSize(1);
+            return values[--size];
+        }
+
+        private double popNumber()
+        {
+            checkNumber(0);
+            return values[--size];
+        }
+
+        private float popReal()
+        {
+            return (float) popNumber();
+        }
+
+        private int popInt()
+        {
+            checkSize(1);
+            if (types[size - 1] != INT)
+            {
+                throw new ClassCastException("Operand must be int");
+            }
+            return (int) values[--size];
+        }
+
+        private boolean popBoolean()
+        {
+            checkSize(1);
+            if (types[size - 1] != BOOL)
+            {
+                throw new ClassCastException("Operand must be bool");
+            }
+            return values[--size] != 0;
+        }
+
+        /**
+         * Returns true if the two values on the top of the stack are ints.
+         */
+        private boolean areIntegers()
+        {
+            checkSize(2);
+            return types[size - 1] == INT && types[size - 2] == INT;
+        }
+
+        /**
+         * Checks that the value at the given depth from the top is a number.
+         */
+        private void checkNumber(int depth)
+        {
+            checkSize(depth + 1);
+            if (types[size - depth - 1] == BOOL)
+            {
+                throw new ClassCastException("Operand must be a number");
+            }
+        }
+
+        private void checkSize(int count)
+        {
+            if (size < count)
+            {
+                throw new EmptyStackException();
+            }
+        }
+
+        private void reverse(int start, int end)
+        {
+            while (start < end)
+            {
+                double value = values[start];
+                values[start] = values[end];
+                values[end] = value;
+                byte type = types[start];
+                types[start] = types[end];
+                types[end] = type;
+                start++;
+                end--;
+            }
+        }
+    }
+}
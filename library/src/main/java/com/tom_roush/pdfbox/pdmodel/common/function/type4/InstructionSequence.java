@@ -72,6 +72,14 @@ public class InstructionSequence
         this.instructions.add(child);
     }
 
+    /**
+     * Returns the values, names and procs of this sequence.
+     */
+    List<Object> getInstructions()
+    {
+        return this.instructions;
+    }
+
     /**
      * Executes the instruction sequence.
      * @param context the execution context
@@ -0,0 +1,234 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.encryption;
+
+import android.util.Log;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.security.GeneralSecurityException;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * Decrypts the data of a stream with RC4 or AES while it is read, so that the data is neither
+ * decrypted before it is needed nor held in memory as a whole.
+ *
+ * AES data starts with the 16 byte initialization vector, which is read on the first read.
+ * Invalid padding at the end of AES data is logged and the last block is dropped, as it is done
+ * for AES-256 by {@link SecurityHandler}.
+ */
+final class DecryptingInputStream extends InputStream
+{
+    private static final int AES_BLOCK_SIZE = 16;
+
+    private final InputStream in;
+    private final RC4Cipher rc4;
+    private final byte[] aesKey;
+    private Cipher aes;
+
+    private final byte[] input = new byte[4096];
+    private byte[] output;
+    private int position;
+    private int limit;
+    private boolean eof;
+
+    /**
+     * Creates a stream decrypting RC4 encrypted data.
+     *
+     * @param in the encrypted data
+     * @param key the final RC4 key of the object
+     * @return the decrypted data
+     */
+    static DecryptingInputStream createRC4(InputStream in, byte[] key)
+    {
+        RC4Cipher rc4 = new RC4Cipher();
+        rc4.setKey(key);
+        return new DecryptingInputStream(in, rc4, null);
+    }
+
+    /**
+     * Creates a stream decrypting AES encrypted data in CBC mode, starting with the
+     * initialization vector.
+     *
+     * @param in the encrypted data
+     * @param key the final AES key of the object
+     * @return the decrypted data
+     */
+    static DecryptingInputStream createAES(InputStream in, byte[] key)
+    {
+        return new DecryptingInputStream(in, null, key);
+    }
+
+    private DecryptingInputStream(InputStream in, RC4Cipher rc4, byte[] aesKey)
+    {
+        this.in = in;
+        this.rc4 = rc4;
+        this.aesKey = aesKey;
+    }
+
+    @Override
+    public int read() throws IOException
+    {
+        if (!fill())
+        {
+            return -1;
+        }
+        return output[position++] & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException
+    {
+        if (len == 0)
+        {
+            return 0;
+        }
+        if (!fill())
+        {
+            return -1;
+        }
+        int n = Math.min(len, limit - position);
+        System.arraycopy(output, position, b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException
+    {
+        // the cipher has to see all data, so skipping means decrypting
+        long skipped = 0;
+        while (skipped < n && fill())
+        {
+            int count = (int) Math.min(n - skipped, limit - position);
+            position += count;
+            skipped += count;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() throws IOException
+    {
+        // the filters take 0 as the end of the data
+        fill();
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        in.close();
+    }
+
+    /**
+     * Decrypts the next chunk of data, if all decrypted data has been read.
+     *
+     * @return false at the end of the data
+     */
+    private boolean fill() throws IOException
+    {
+        while (position == limit && !eof)
+        {
+            if (rc4 != null)
+            {
+                int n = in.read(input);
+                if (n < 0)
+                {
+                    eof = true;
+                    break;
+                }
+                rc4.crypt(input, 0, n);
+                output = input;
+                limit = n;
+            }
+            else
+            {
+                if (aes == null && !initAES())
+                {
+                    eof = true;
+                    break;
+                }
+                int n = in.read(input);
+                if (n < 0)
+                {
+                    eof = true;
+                    output = finishAES();
+                }
+                else
+                {
+                    output = aes.update(input, 0, n);
+                }
+                limit = output == null ? 0 : output.length;
+            }
+            position = 0;
+        }
+        return position < limit;
+    }
+
+    private boolean initAES() throws IOException
+    {
+        byte[] iv = new byte[AES_BLOCK_SIZE];
+        int ivSize = 0;
+        while (ivSize < iv.length)
+        {
+            int n = in.read(iv, ivSize, iv.length - ivSize);
+            if (n < 0)
+            {
+                break;
+            }
+            ivSize += n;
+        }
+        if (ivSize == 0)
+        {
+            return false;
+        }
+        if (ivSize != iv.length)
+        {
+            throw new IOException(
+                "AES initialization vector not fully read: only "
+                    + ivSize + " bytes read instead of " + iv.length);
+        }
+        try
+        {
+            aes = Cipher.getInstance("AES/CBC/PKCS5Padding");
+            aes.init(Cipher.DECRYPT_MODE, new SecretKeySpec(aesKey, "AES"),
+                new IvParameterSpec(iv));
+        }
+        catch (GeneralSecurityException e)
+        {
+            throw new IOException(e);
+        }
+        return true;
+    }
+
+    private byte[] finishAES()
+    {
+        try
+        {
+            return aes.doFinal();
+        }
+        catch (GeneralSecurityException e)
+        {
+            Log.w("PdfBox-Android", "Failed to decrypt the end of the stream data: " + e.getMessage());
+            return null;
+        }
+    }
+}
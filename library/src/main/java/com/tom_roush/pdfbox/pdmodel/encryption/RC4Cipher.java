@@ -163,4 +163,23 @@ class RC4Cipher
             write( data[i], output );
         }
     }
+
+    /**
+     * This will encrypt or decrypt the data in place.
+     *
+     * @param data The data to encrypt or decrypt.
+     * @param offset The offset into the array to start with.
+     * @param len The number of bytes to process.
+     */
+    public void crypt( byte[] data, int offset, int len )
+    {
+        for( int i = offset; i < offset + len; i++ )
+        {
+            b = (b + 1) % 256;
+            c = (salt[b] + c) % 256;
+            swap( salt, b, c );
+            int saltIndex = (salt[b] + salt[c]) % 256;
+            data[i] = (byte) (data[i] ^ salt[saltIndex]);
+        }
+    }
 }
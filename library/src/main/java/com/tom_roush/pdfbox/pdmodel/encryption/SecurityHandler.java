@@ -31,9 +31,7 @@ import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.security.SecureRandom;
 import java.util.Arrays;
-import java.util.HashSet;
 import java.util.Map;
-import java.util.Set;
 
 import javax.crypto.BadPaddingException;
 import javax.crypto.Cipher;
@@ -46,6 +44,7 @@ import javax.crypto.spec.SecretKeySpec;
 
 import com.tom_roush.pdfbox.cos.COSArray;
 import com.tom_roush.pdfbox.cos.COSBase;
+import com.tom_roush.pdfbox.cos.COSDecryptor;
 import com.tom_roush.pdfbox.cos.COSDictionary;
 import com.tom_roush.pdfbox.cos.COSName;
 import com.tom_roush.pdfbox.cos.COSStream;
@@ -81,8 +80,6 @@ public abstract class SecurityHandler
     /** indicates if the Metadata have to be decrypted of not. */
     private boolean decryptMetadata;
 
-    private final Set<COSBase> objects = new HashSet<COSBase>();
-
     private boolean useAES;
 
     /**
@@ -375,7 +372,8 @@ public abstract class SecurityHandler
     }
 
     /**
-     * This will dispatch to the correct method.
+     * This will dispatch to the correct method. Strings and streams aren't decrypted right away,
+     * they are decrypted when they are accessed for the first time.
      *
      * @param obj The object to decrypt.
      * @param objNum The object number.
@@ -385,31 +383,32 @@ public abstract class SecurityHandler
      */
     public void decrypt(COSBase obj, long objNum, long genNum) throws IOException
     {
-        if (!objects.contains(obj))
-        {
-            objects.add(obj);
+        decrypt(obj, new ObjectDecryptor(objNum, genNum));
+    }
 
-            if (obj instanceof COSString)
-            {
-                decryptString((COSString) obj, objNum, genNum);
-            }
-            else if (obj instanceof COSStream)
-            {
-                decryptStream((COSStream) obj, objNum, genNum);
-            }
-            else if (obj instanceof COSDictionary)
-            {
-                decryptDictionary((COSDictionary) obj, objNum, genNum);
-            }
-            else if (obj instanceof COSArray)
-            {
-                decryptArray((COSArray) obj, objNum, genNum);
-            }
+    private void decrypt(COSBase obj, COSDecryptor decryptor) throws IOException
+    {
+        if (obj instanceof COSString)
+        {
+            ((COSString) obj).setDecryptor(decryptor);
+        }
+        else if (obj instanceof COSStream)
+        {
+            decryptStream((COSStream) obj, decryptor);
+        }
+        else if (obj instanceof COSDictionary)
+        {
+            decryptDictionary((COSDictionary) obj, decryptor);
+        }
+        else if (obj instanceof COSArray)
+        {
+            decryptArray((COSArray) obj, decryptor);
         }
     }
 
     /**
-     * This will decrypt a stream.
+     * This will decrypt a stream. The data of the stream is decrypted while it is read, as the
+     * first stage of decoding it, so that streams which are never read are never decrypted.
      *
      * @param stream The stream to decrypt.
      * @param objNum The object number.
@@ -418,6 +417,11 @@ public abstract class SecurityHandler
      * @throws IOException If there is an error getting the stream data.
      */
     public void decryptStream(COSStream stream, long objNum, long genNum) throws IOException
+    {
+        decryptStream(stream, new ObjectDecryptor(objNum, genNum));
+    }
+
+    private void decryptStream(COSStream stream, COSDecryptor decryptor) throws IOException
     {
         COSBase type = stream.getCOSName(COSName.TYPE);
         if (!decryptMetadata && COSName.METADATA.equals(type))
@@ -443,18 +447,8 @@ public abstract class SecurityHandler
                 return;
             }
         }
-        decryptDictionary(stream, objNum, genNum);
-        byte[] encrypted = IOUtils.toByteArray(stream.createRawInputStream());
-        ByteArrayInputStream encryptedStream = new ByteArrayInputStream(encrypted);
-        OutputStream output = stream.createRawOutputStream();
-        try
-        {
-            encryptData(objNum, genNum, encryptedStream, output, true /* decrypt */);
-        }
-        finally
-        {
-            output.close();
-        }
+        decryptDictionary(stream, decryptor);
+        stream.setDecryptor(decryptor);
     }
 
     /**
@@ -487,12 +481,11 @@ public abstract class SecurityHandler
      * This will decrypt a dictionary.
      *
      * @param dictionary The dictionary to decrypt.
-     * @param objNum The object number.
-     * @param genNum The object generation number.
+     * @param decryptor The decryptor of the object.
      *
      * @throws IOException If there is an error creating a new string.
      */
-    private void decryptDictionary(COSDictionary dictionary, long objNum, long genNum) throws IOException
+    private void decryptDictionary(COSDictionary dictionary, COSDecryptor decryptor) throws IOException
     {
         if (dictionary.getItem(COSName.CF) != null)
         {
@@ -512,36 +505,11 @@ public abstract class SecurityHandler
             // within a dictionary only the following kind of COS objects have to be decrypted
             if (value instanceof COSString || value instanceof COSArray || value instanceof COSDictionary)
             {
-                decrypt(value, objNum, genNum);
+                decrypt(value, decryptor);
             }
         }
     }
 
-    /**
-     * This will decrypt a string.
-     *
-     * @param string the string to decrypt.
-     * @param objNum The object number.
-     * @param genNum The object generation number.
-     *
-     * @throws IOException If an error occurs writing the new string.
-     */
-    private void decryptString(COSString string, long objNum, long genNum) throws IOException
-    {
-        ByteArrayInputStream data = new ByteArrayInputStream(string.getBytes());
-        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
-        try
-        {
-            encryptData(objNum, genNum, data, outputStream, true /* decrypt */);
-            string.setValue(outputStream.toByteArray());
-        }
-        catch (IOException ex)
-        {
-            Log.e("PdfBox-Android", "Failed to decrypt COSString of length " + string.getBytes().length +
-                " in object " + objNum + ": " + ex.getMessage());
-        }
-    }
-
     /**
      * This will encrypt a string.
      *
@@ -563,16 +531,15 @@ public abstract class SecurityHandler
      * This will decrypt an array.
      *
      * @param array The array to decrypt.
-     * @param objNum The object number.
-     * @param genNum The object generation number.
+     * @param decryptor The decryptor of the object.
      *
      * @throws IOException If there is an error accessing the data.
      */
-    private void decryptArray(COSArray array, long objNum, long genNum) throws IOException
+    private void decryptArray(COSArray array, COSDecryptor decryptor) throws IOException
     {
         for (int i = 0; i < array.size(); i++)
         {
-            decrypt(array.get(i), objNum, genNum);
+            decrypt(array.get(i), decryptor);
         }
     }
 
@@ -643,4 +610,87 @@ public abstract class SecurityHandler
      * @return true if a protection policy has been set.
      */
     public abstract boolean hasProtectionPolicy();
+
+    /**
+     * Returns the key used to encrypt the strings and streams of an object.
+     *
+     * @param objectNumber The object number.
+     * @param genNumber The object generation number.
+     * @return the key for RC4 or AES.
+     */
+    private byte[] getObjectKey(long objectNumber, long genNumber)
+    {
+        // Algorithm 1.A for AES-256, Algorithm 1 for RC4 and AES-128
+        return useAES && encryptionKey.length == 32 ?
+            encryptionKey : calcFinalKey(objectNumber, genNumber);
+    }
+
+    /**
+     * Decrypts the strings and streams of one object when they are accessed. Unlike
+     * {@link #encryptData(long, long, InputStream, OutputStream, boolean)}, it doesn't use the
+     * shared RC4 cipher, as the strings and streams of different objects may be read in any order.
+     */
+    private final class ObjectDecryptor implements COSDecryptor
+    {
+        private final long objNum;
+        private final long genNum;
+        private byte[] key;
+
+        ObjectDecryptor(long objNum, long genNum)
+        {
+            this.objNum = objNum;
+            this.genNum = genNum;
+        }
+
+        private synchronized byte[] getKey()
+        {
+            if (key == null)
+            {
+                key = getObjectKey(objNum, genNum);
+            }
+            return key;
+        }
+
+        @Override
+        public byte[] decrypt(byte[] encrypted)
+        {
+            if (!useAES)
+            {
+                byte[] decrypted = encrypted.clone();
+                RC4Cipher cipher = new RC4Cipher();
+                cipher.setKey(getKey());
+                cipher.crypt(decrypted, 0, decrypted.length);
+                return decrypted;
+            }
+            if (encrypted.length == 0)
+            {
+                return encrypted;
+            }
+            try
+            {
+                if (encrypted.length < 16)
+                {
+                    throw new GeneralSecurityException("AES initialization vector not fully read: only "
+                        + encrypted.length + " bytes read instead of 16");
+                }
+                Cipher cipher = Cipher.getInstance("AES/CBC/PKCS5Padding");
+                cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(getKey(), "AES"),
+                    new IvParameterSpec(encrypted, 0, 16));
+                return cipher.doFinal(encrypted, 16, encrypted.length - 16);
+            }
+            catch (GeneralSecurityException ex)
+            {
+                Log.e("PdfBox-Android", "Failed to decrypt COSString of length " + encrypted.length +
+                    " in object " + objNum + ": " + ex.getMessage());
+                return encrypted;
+            }
+        }
+
+        @Override
+        public InputStream decrypt(InputStream encrypted)
+        {
+            return useAES ? DecryptingInputStream.createAES(encrypted, getKey())
+                : DecryptingInputStream.createRC4(encrypted, getKey());
+        }
+    }
 }
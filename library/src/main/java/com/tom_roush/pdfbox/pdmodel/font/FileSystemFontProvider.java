@@ -29,9 +29,19 @@ import java.io.InputStream;
 import java.net.URI;
 import java.security.AccessControlException;
 import java.util.ArrayList;
-import java.util.HashSet;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 
 import com.tom_roush.fontbox.FontBoxFont;
 import com.tom_roush.fontbox.cff.CFFCIDFont;
@@ -56,7 +66,29 @@ import com.tom_roush.pdfbox.util.Charsets;
  */
 final class FileSystemFontProvider extends FontProvider
 {
-    private final List<FSFontInfo> fontInfoList = new ArrayList<FSFontInfo>();
+    // the fonts of FontLoadLevel.MINIMUM, which also substitute the standard 14 fonts
+    private static final String[] MINIMUM_FONTS = {
+        "/system/fonts/DroidSans.ttf",
+        "/system/fonts/DroidSans-Bold.ttf",
+        "/system/fonts/DroidSansMono.ttf"
+//        "/system/fonts/DroidSansFallback.ttf"
+    };
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactory()
+    {
+        @Override
+        public Thread newThread(Runnable runnable)
+        {
+            Thread thread = new Thread(runnable, "PdfBox-Android font indexer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    // the fonts indexed so far, replaced by the complete index when the background indexing ends
+    private volatile List<FSFontInfo> fontInfoList = Collections.emptyList();
+    // the complete index, null if the fonts aren't indexed in the background
+    private final Future<List<FSFontInfo>> fontInfoFuture;
     private final FontCache cache;
 
     private static class FSFontInfo extends FontInfo
@@ -71,12 +103,15 @@ final class FileSystemFontProvider extends FontProvider
         private final int macStyle;
         private final PDPanoseClassification panose;
         private final File file;
+        // the modification time and size of the file when it was indexed, or -1 if unknown
+        private final long lastModified;
+        private final long length;
         private transient FileSystemFontProvider parent;
 
         private FSFontInfo(File file, FontFormat format, String postScriptName,
             CIDSystemInfo cidSystemInfo, int usWeightClass, int sFamilyClass,
             int ulCodePageRange1, int ulCodePageRange2, int macStyle, byte[] panose,
-            FileSystemFontProvider parent)
+            long lastModified, long length, FileSystemFontProvider parent)
         {
             this.file = file;
             this.format = format;
@@ -88,6 +123,8 @@ final class FileSystemFontProvider extends FontProvider
             this.ulCodePageRange2 = ulCodePageRange2;
             this.macStyle = macStyle;
             this.panose = panose != null ? new PDPanoseClassification(panose) : null;
+            this.lastModified = lastModified;
+            this.length = length;
             this.parent = parent;
         }
 
@@ -177,6 +214,14 @@ final class FileSystemFontProvider extends FontProvider
             return panose;
         }
 
+        /**
+         * Returns true if the font file wasn't modified since it was indexed.
+         */
+        private boolean isUnchanged()
+        {
+            return file.lastModified() == lastModified && file.length() == length;
+        }
+
         @Override
         public String toString()
         {
@@ -191,7 +236,8 @@ final class FileSystemFontProvider extends FontProvider
     {
         private FSIgnored(File file, FontFormat format, String postScriptName)
         {
-            super(file, format, postScriptName, null, 0, 0, 0, 0, 0, null, null);
+            super(file, format, postScriptName, null, 0, 0, 0, 0, 0, null,
+                file.lastModified(), file.length(), null);
         }
     }
 
@@ -199,32 +245,102 @@ final class FileSystemFontProvider extends FontProvider
      * Constructor.
      */
     FileSystemFontProvider(FontCache cache)
+    {
+        this(cache, null);
+    }
+
+    /**
+     * Constructor. With FontLoadLevel.FULL or the given files, the fonts are indexed in the
+     * background. Meanwhile the fonts of the disk cache whose files are unchanged are available,
+     * or the Droid fonts if there's no disk cache yet.
+     *
+     * @param cache the cache of the loaded fonts
+     * @param files the font files to index, or null to search the local system for fonts
+     */
+    FileSystemFontProvider(FontCache cache, final List<File> files)
     {
         this.cache = cache;
 
-        // XXX: load in background?
-        if (PDFBoxConfig.getFontLoadLevel() == PDFBoxConfig.FontLoadLevel.NONE)
+        if (files == null && PDFBoxConfig.getFontLoadLevel() != PDFBoxConfig.FontLoadLevel.FULL)
         {
+            fontInfoFuture = null;
+            if (PDFBoxConfig.getFontLoadLevel() == PDFBoxConfig.FontLoadLevel.MINIMUM)
+            {
+                // If MINIMUM, load only Droid fonts
+                // XXX: list may need to be expanded for other character sets
+                List<FSFontInfo> infos = new ArrayList<FSFontInfo>();
+                for (String path : MINIMUM_FONTS)
+                {
+                    try
+                    {
+                        addTrueTypeFont(new File(path), infos);
+                    }
+                    catch (IOException e)
+                    {
+                        Log.e("PdfBox-Android", "Error parsing font " + path, e);
+                    }
+                }
+                fontInfoList = infos;
+            }
             return;
         }
-        if (PDFBoxConfig.getFontLoadLevel() == PDFBoxConfig.FontLoadLevel.MINIMUM)
+
+        // load cached FontInfo objects, the unchanged ones are used until the fonts are indexed
+        Map<String, List<FSFontInfo>> cachedInfos = loadDiskCache();
+        final Map<String, List<FSFontInfo>> indexedInfos =
+            new LinkedHashMap<String, List<FSFontInfo>>();
+        for (Map.Entry<String, List<FSFontInfo>> entry : cachedInfos.entrySet())
         {
-            // If MINIMUM, load only Droid fonts
-            try
+            if (entry.getValue().get(0).isUnchanged())
             {
-                addTrueTypeFont(new File("/system/fonts/DroidSans.ttf"));
-                addTrueTypeFont(new File("/system/fonts/DroidSans-Bold.ttf"));
-                addTrueTypeFont(new File("/system/fonts/DroidSansMono.ttf"));
-//                addTrueTypeFont(new File("/system/fonts/DroidSansFallback.ttf"));
-                // XXX: list may need to be expanded for other character sets
-                return;
+                indexedInfos.put(entry.getKey(), entry.getValue());
             }
-            catch (IOException e)
+        }
+        if (indexedInfos.isEmpty() && files == null)
+        {
+            // index the substitutes of the standard 14 fonts first
+            for (String path : MINIMUM_FONTS)
             {
-                e.printStackTrace();
+                File file = new File(path);
+                if (file.isFile())
+                {
+                    indexedInfos.put(file.getAbsolutePath(), parseFontFile(file));
+                }
             }
         }
+        List<FSFontInfo> available = new ArrayList<FSFontInfo>();
+        for (List<FSFontInfo> infos : indexedInfos.values())
+        {
+            available.addAll(infos);
+        }
+        fontInfoList = available;
+
+        final Set<String> cachedPaths = cachedInfos.keySet();
+        ExecutorService executor = Executors.newSingleThreadExecutor(THREAD_FACTORY);
+        try
+        {
+            fontInfoFuture = executor.submit(new Callable<List<FSFontInfo>>()
+            {
+                @Override
+                public List<FSFontInfo> call() throws InterruptedException
+                {
+                    List<FSFontInfo> infos = indexFonts(files != null ? files : findFontFiles(),
+                        indexedInfos, cachedPaths);
+                    fontInfoList = infos;
+                    return infos;
+                }
+            });
+        }
+        finally
+        {
+            // the thread ends with the indexing
+            executor.shutdown();
+        }
+    }
 
+    private List<File> findFontFiles()
+    {
+        List<File> files = new ArrayList<File>();
         try
         {
             if (PDFBoxConfig.isDebugEnabled())
@@ -233,7 +349,6 @@ final class FileSystemFontProvider extends FontProvider
             }
 
             // scan the local system for font files
-            List<File> files = new ArrayList<File>();
             FontFileFinder fontFileFinder = new FontFileFinder();
             List<URI> fonts = fontFileFinder.find();
             for (URI font : fonts)
@@ -245,54 +360,144 @@ final class FileSystemFontProvider extends FontProvider
             {
                 Log.d("PdfBox-Android", "Found " + files.size() + " fonts on the local system");
             }
-
-            // load cached FontInfo objects
-            List<FSFontInfo> cachedInfos = loadDiskCache(files);
-            if (cachedInfos != null && cachedInfos.size() > 0)
-            {
-                fontInfoList.addAll(cachedInfos);
-            }
-            else
-            {
-                Log.w("PdfBox-Android", "Building on-disk font cache, this may take a while");
-                scanFonts(files);
-                saveDiskCache();
-                Log.w("PdfBox-Android", "Finished building on-disk font cache, found " +
-                    fontInfoList.size() + " fonts");
-            }
         }
         catch (AccessControlException e)
         {
             Log.e("PdfBox-Android", "Error accessing the file system", e);
         }
+        return files;
     }
 
-    private void scanFonts(List<File> files)
+    /**
+     * Indexes the given font files. The fonts of the files which are already indexed are reused,
+     * the other files are parsed in parallel. The disk cache is only written if a file was added,
+     * changed or removed.
+     *
+     * @param files the font files
+     * @param indexedInfos the fonts of the unchanged files, by their absolute path
+     * @param cachedPaths the absolute paths of the files in the disk cache
+     */
+    private List<FSFontInfo> indexFonts(List<File> files,
+        Map<String, List<FSFontInfo>> indexedInfos, Set<String> cachedPaths)
+        throws InterruptedException
     {
+        Set<String> paths = new LinkedHashSet<String>();
+        List<File> pending = new ArrayList<File>();
         for (File file : files)
         {
-            try
+            String path = file.getAbsolutePath();
+            if (paths.add(path) && !indexedInfos.containsKey(path))
+            {
+                pending.add(file);
+            }
+        }
+
+        Map<String, List<FSFontInfo>> parsedInfos = indexedInfos;
+        if (!pending.isEmpty())
+        {
+            Log.w("PdfBox-Android", "Building on-disk font cache for " + pending.size() +
+                " new or changed fonts, this may take a while");
+            parsedInfos = new HashMap<String, List<FSFontInfo>>(indexedInfos);
+            parsedInfos.putAll(parseFontFiles(pending));
+        }
+
+        List<FSFontInfo> infos = new ArrayList<FSFontInfo>();
+        for (String path : paths)
+        {
+            infos.addAll(parsedInfos.get(path));
+        }
+        if (!pending.isEmpty() || !paths.equals(cachedPaths))
+        {
+            saveDiskCache(infos);
+            Log.w("PdfBox-Android", "Finished building on-disk font cache, found " +
+                infos.size() + " fonts");
+        }
+        return infos;
+    }
+
+    /**
+     * Parses the given font files in parallel.
+     *
+     * @return the fonts of each file, by its absolute path
+     */
+    private Map<String, List<FSFontInfo>> parseFontFiles(List<File> files)
+        throws InterruptedException
+    {
+        int threadCount = Math.min(files.size(), Runtime.getRuntime().availableProcessors());
+        ExecutorService executor = Executors.newFixedThreadPool(threadCount, THREAD_FACTORY);
+        try
+        {
+            List<Future<List<FSFontInfo>>> futures = new ArrayList<Future<List<FSFontInfo>>>();
+            for (final File file : files)
             {
-                if (file.getPath().toLowerCase().endsWith(".ttf") ||
-                    file.getPath().toLowerCase().endsWith(".otf"))
+                futures.add(executor.submit(new Callable<List<FSFontInfo>>()
                 {
-                    addTrueTypeFont(file);
-                }
-                else if (file.getPath().toLowerCase().endsWith(".ttc") ||
-                    file.getPath().toLowerCase().endsWith(".otc"))
+                    @Override
+                    public List<FSFontInfo> call()
+                    {
+                        return parseFontFile(file);
+                    }
+                }));
+            }
+
+            Map<String, List<FSFontInfo>> parsedInfos = new HashMap<String, List<FSFontInfo>>();
+            for (int i = 0; i < files.size(); i++)
+            {
+                File file = files.get(i);
+                List<FSFontInfo> infos;
+                try
                 {
-                    addTrueTypeCollection(file);
+                    infos = futures.get(i).get();
                 }
-                else if (file.getPath().toLowerCase().endsWith(".pfb"))
+                catch (ExecutionException e)
                 {
-                    addType1Font(file);
+                    Log.e("PdfBox-Android", "Could not load font file: " + file, e.getCause());
+                    infos = Collections.<FSFontInfo>singletonList(
+                        new FSIgnored(file, FontFormat.TTF, "*skipexception*"));
                 }
+                parsedInfos.put(file.getAbsolutePath(), infos);
             }
-            catch (IOException e)
+            return parsedInfos;
+        }
+        finally
+        {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Parses the given font file. A file without fonts is indexed as ignored, so that it isn't
+     * parsed again.
+     */
+    private List<FSFontInfo> parseFontFile(File file)
+    {
+        List<FSFontInfo> infos = new ArrayList<FSFontInfo>();
+        try
+        {
+            if (file.getPath().toLowerCase().endsWith(".ttf") ||
+                file.getPath().toLowerCase().endsWith(".otf"))
             {
-                Log.e("PdfBox-Android", "Error parsing font " + file.getPath(), e);
+                addTrueTypeFont(file, infos);
             }
+            else if (file.getPath().toLowerCase().endsWith(".ttc") ||
+                file.getPath().toLowerCase().endsWith(".otc"))
+            {
+                addTrueTypeCollection(file, infos);
+            }
+            else if (file.getPath().toLowerCase().endsWith(".pfb"))
+            {
+                addType1Font(file, infos);
+            }
+        }
+        catch (IOException e)
+        {
+            Log.e("PdfBox-Android", "Error parsing font " + file.getPath(), e);
         }
+        if (infos.isEmpty())
+        {
+            infos.add(new FSIgnored(file, FontFormat.TTF, "*skipexception*"));
+        }
+        return infos;
     }
 
     private File getDiskCacheFile()
@@ -312,7 +517,7 @@ final class FileSystemFontProvider extends FontProvider
     /**
      * Saves the font metadata cache to disk.
      */
-    private void saveDiskCache()
+    private void saveDiskCache(List<FSFontInfo> fontInfos)
     {
         BufferedWriter writer = null;
         File file = null;
@@ -328,7 +533,7 @@ final class FileSystemFontProvider extends FontProvider
                 return;
             }
 
-            for (FSFontInfo fontInfo : fontInfoList)
+            for (FSFontInfo fontInfo : fontInfos)
             {
                 writer.write(fontInfo.postScriptName.trim());
                 writer.write("|");
@@ -375,6 +580,10 @@ final class FileSystemFontProvider extends FontProvider
                 }
                 writer.write("|");
                 writer.write(fontInfo.file.getAbsolutePath());
+                writer.write("|");
+                writer.write(Long.toString(fontInfo.lastModified));
+                writer.write("|");
+                writer.write(Long.toString(fontInfo.length));
                 writer.newLine();
             }
         }
@@ -392,16 +601,12 @@ final class FileSystemFontProvider extends FontProvider
 
     /**
      * Loads the font metadata cache from disk.
+     *
+     * @return the cached fonts of each file, by its absolute path
      */
-    private List<FSFontInfo> loadDiskCache(List<File> files)
+    private Map<String, List<FSFontInfo>> loadDiskCache()
     {
-        Set<String> pending = new HashSet<String>();
-        for (File file : files)
-        {
-            pending.add(file.getAbsolutePath());
-        }
-
-        List<FSFontInfo> results = new ArrayList<FSFontInfo>();
+        Map<String, List<FSFontInfo>> results = new LinkedHashMap<String, List<FSFontInfo>>();
 
         // Get the disk cache
         File file = null;
@@ -424,7 +629,7 @@ final class FileSystemFontProvider extends FontProvider
                 String line;
                 while ((line = reader.readLine()) != null)
                 {
-                    String[] parts = line.split("\\|", 10);
+                    String[] parts = line.split("\\|", 12);
                     if (parts.length < 10)
                     {
                         Log.e("PdfBox-Android", "Incorrect line '" + line + "' in font disk cache is skipped");
@@ -441,57 +646,72 @@ final class FileSystemFontProvider extends FontProvider
                     int macStyle = -1;
                     byte[] panose = null;
                     File fontFile;
+                    // the files of caches without these are indexed again
+                    long lastModified = -1;
+                    long length = -1;
 
-                    postScriptName = parts[0];
-                    format = FontFormat.valueOf(parts[1]);
-                    if (parts[2].length() > 0)
+                    try
                     {
-                        String[] ros = parts[2].split("-");
-                        cidSystemInfo = new CIDSystemInfo(ros[0], ros[1], Integer.parseInt(ros[2]));
-                    }
-                    if (parts[3].length() > 0)
-                    {
-                        usWeightClass = (int)Long.parseLong(parts[3], 16);
-                    }
-                    if (parts[4].length() > 0)
-                    {
-                        sFamilyClass = (int)Long.parseLong(parts[4], 16);
-                    }
-                    ulCodePageRange1 = (int)Long.parseLong(parts[5], 16);
-                    ulCodePageRange2 = (int)Long.parseLong(parts[6], 16);
-                    if (parts[7].length() > 0)
-                    {
-                        macStyle = (int)Long.parseLong(parts[7], 16);
-                    }
-                    if (parts[8].length() > 0)
-                    {
-                        panose = new byte[10];
-                        for (int i = 0; i < 10; i ++)
+                        postScriptName = parts[0];
+                        format = FontFormat.valueOf(parts[1]);
+                        if (parts[2].length() > 0)
+                        {
+                            String[] ros = parts[2].split("-");
+                            cidSystemInfo = new CIDSystemInfo(ros[0], ros[1], Integer.parseInt(ros[2]));
+                        }
+                        if (parts[3].length() > 0)
                         {
-                            String str = parts[8].substring(i * 2, i * 2 + 2);
-                            int b = Integer.parseInt(str, 16);
-                            panose[i] = (byte)(b & 0xff);
+                            usWeightClass = (int)Long.parseLong(parts[3], 16);
+                        }
+                        if (parts[4].length() > 0)
+                        {
+                            sFamilyClass = (int)Long.parseLong(parts[4], 16);
+                        }
+                        ulCodePageRange1 = (int)Long.parseLong(parts[5], 16);
+                        ulCodePageRange2 = (int)Long.parseLong(parts[6], 16);
+                        if (parts[7].length() > 0)
+                        {
+                            macStyle = (int)Long.parseLong(parts[7], 16);
+                        }
+                        if (parts[8].length() > 0)
+                        {
+                            panose = new byte[10];
+                            for (int i = 0; i < 10; i ++)
+                            {
+                                String str = parts[8].substring(i * 2, i * 2 + 2);
+                                int b = Integer.parseInt(str, 16);
+                                panose[i] = (byte)(b & 0xff);
+                            }
+                        }
+                        fontFile = new File(parts[9]);
+                        if (parts.length == 12)
+                        {
+                            lastModified = Long.parseLong(parts[10]);
+                            length = Long.parseLong(parts[11]);
                         }
                     }
-                    fontFile = new File(parts[9]);
-                    if (fontFile.exists())
+                    catch (RuntimeException e)
                     {
-                        FSFontInfo info = new FSFontInfo(fontFile, format, postScriptName,
-                            cidSystemInfo, usWeightClass, sFamilyClass, ulCodePageRange1,
-                            ulCodePageRange2, macStyle, panose, this);
-                        results.add(info);
+                        Log.e("PdfBox-Android", "Incorrect line '" + line + "' in font disk cache is skipped");
+                        continue;
                     }
-                    else
+
+                    FSFontInfo info = new FSFontInfo(fontFile, format, postScriptName,
+                        cidSystemInfo, usWeightClass, sFamilyClass, ulCodePageRange1,
+                        ulCodePageRange2, macStyle, panose, lastModified, length, this);
+                    List<FSFontInfo> infos = results.get(fontFile.getAbsolutePath());
+                    if (infos == null)
                     {
-                        Log.d("PdfBox-Android", "Font file " + fontFile.getAbsolutePath() + " not found, skipped");
+                        infos = new ArrayList<FSFontInfo>();
+                        results.put(fontFile.getAbsolutePath(), infos);
                     }
-                    pending.remove(fontFile.getAbsolutePath());
+                    infos.add(info);
                 }
             }
             catch (IOException e)
             {
                 Log.e("PdfBox-Android", "Error loading font cache, will be re-built", e);
-                return null;
+                results.clear();
             }
             finally
             {
@@ -499,20 +719,14 @@ final class FileSystemFontProvider extends FontProvider
             }
         }
 
-        if (pending.size() > 0)
-        {
-            // re-build the entire cache if we encounter un-cached fonts (could be optimised)
-            Log.w("PdfBox-Android", "New fonts found, font cache will be re-built");
-            return null;
-        }
-
         return results;
     }
 
     /**
      * Adds a TTC or OTC to the file cache. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeCollection(final File ttcFile) throws IOException
+    private void addTrueTypeCollection(final File ttcFile, final List<FSFontInfo> fontInfos)
+        throws IOException
     {
         TrueTypeCollection ttc = null;
         try
@@ -523,7 +737,7 @@ final class FileSystemFontProvider extends FontProvider
                 @Override
                 public void process(TrueTypeFont ttf) throws IOException
                 {
-                    addTrueTypeFontImpl(ttf, ttcFile);
+                    addTrueTypeFontImpl(ttf, ttcFile, fontInfos);
                 }
             });
         }
@@ -547,7 +761,7 @@ final class FileSystemFontProvider extends FontProvider
     /**
      * Adds an OTF or TTF font to the file cache. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeFont(File ttfFile) throws IOException
+    private void addTrueTypeFont(File ttfFile, List<FSFontInfo> fontInfos) throws IOException
     {
         try
         {
@@ -555,13 +769,13 @@ final class FileSystemFontProvider extends FontProvider
             {
                 OTFParser parser = new OTFParser(false, true);
                 OpenTypeFont otf = parser.parse(ttfFile);
-                addTrueTypeFontImpl(otf, ttfFile);
+                addTrueTypeFontImpl(otf, ttfFile, fontInfos);
             }
             else
             {
                 TTFParser parser = new TTFParser(false, true);
                 TrueTypeFont ttf = parser.parse(ttfFile);
-                addTrueTypeFontImpl(ttf, ttfFile);
+                addTrueTypeFontImpl(ttf, ttfFile, fontInfos);
             }
         }
         catch (NullPointerException e) // TTF parser is buggy
@@ -577,14 +791,15 @@ final class FileSystemFontProvider extends FontProvider
     /**
      * Adds an OTF or TTF font to the file cache. To reduce memory, the parsed font is not cached.
      */
-    private void addTrueTypeFontImpl(TrueTypeFont ttf, File file) throws IOException
+    private void addTrueTypeFontImpl(TrueTypeFont ttf, File file, List<FSFontInfo> fontInfos)
+        throws IOException
     {
         try
         {
             // read PostScript name, if any
             if (ttf.getName() != null && ttf.getName().contains("|"))
             {
-                fontInfoList.add(new FSIgnored(file, FontFormat.TTF, "*skippipeinname*"));
+                fontInfos.add(new FSIgnored(file, FontFormat.TTF, "*skippipeinname*"));
                 Log.w("PdfBox-Android", "Skipping font with '|' in name " + ttf.getName() + " in file " + file);
             }
             else if (ttf.getName() != null)
@@ -592,7 +807,7 @@ final class FileSystemFontProvider extends FontProvider
                 // ignore bitmap fonts
                 if (ttf.getHeader() == null)
                 {
-                    fontInfoList.add(new FSIgnored(file, FontFormat.TTF, ttf.getName()));
+                    fontInfos.add(new FSIgnored(file, FontFormat.TTF, ttf.getName()));
                     return;
                 }
                 int macStyle = ttf.getHeader().getMacStyle();
@@ -626,9 +841,9 @@ final class FileSystemFontProvider extends FontProvider
                         int supplement = cidFont.getSupplement();
                         ros = new CIDSystemInfo(registry, ordering, supplement);
                     }
-                    fontInfoList.add(new FSFontInfo(file, FontFormat.OTF, ttf.getName(), ros,
+                    fontInfos.add(new FSFontInfo(file, FontFormat.OTF, ttf.getName(), ros,
                         usWeightClass, sFamilyClass, ulCodePageRange1, ulCodePageRange2,
-                        macStyle, panose, this));
+                        macStyle, panose, file.lastModified(), file.length(), this));
                 }
                 else
                 {
@@ -646,9 +861,9 @@ final class FileSystemFontProvider extends FontProvider
                     }
 
                     format = "TTF";
-                    fontInfoList.add(new FSFontInfo(file, FontFormat.TTF, ttf.getName(), ros,
+                    fontInfos.add(new FSFontInfo(file, FontFormat.TTF, ttf.getName(), ros,
                         usWeightClass, sFamilyClass, ulCodePageRange1, ulCodePageRange2,
-                        macStyle, panose, this));
+                        macStyle, panose, file.lastModified(), file.length(), this));
                 }
 
                 if (PDFBoxConfig.isDebugEnabled())
@@ -664,13 +879,13 @@ final class FileSystemFontProvider extends FontProvider
             }
             else
             {
-                fontInfoList.add(new FSIgnored(file, FontFormat.TTF, "*skipnoname*"));
+                fontInfos.add(new FSIgnored(file, FontFormat.TTF, "*skipnoname*"));
                 Log.w("PdfBox-Android", "Missing 'name' entry for PostScript name in font " + file);
             }
         }
         catch (IOException e)
         {
-            fontInfoList.add(new FSIgnored(file, FontFormat.TTF, "*skipexception*"));
+            fontInfos.add(new FSIgnored(file, FontFormat.TTF, "*skipexception*"));
             Log.e("PdfBox-Android", "Could not load font file: " + file, e);
         }
         finally
@@ -682,7 +897,7 @@ final class FileSystemFontProvider extends FontProvider
     /**
      * Adds a Type 1 font to the file cache. To reduce memory, the parsed font is not cached.
      */
-    private void addType1Font(File pfbFile) throws IOException
+    private void addType1Font(File pfbFile, List<FSFontInfo> fontInfos) throws IOException
     {
         InputStream input = new FileInputStream(pfbFile);
         try
@@ -690,12 +905,12 @@ final class FileSystemFontProvider extends FontProvider
             Type1Font type1 = Type1Font.createWithPFB(input);
             if (type1.getName() != null && type1.getName().contains("|"))
             {
-                fontInfoList.add(new FSIgnored(pfbFile, FontFormat.PFB, "*skippipeinname*"));
+                fontInfos.add(new FSIgnored(pfbFile, FontFormat.PFB, "*skippipeinname*"));
                 Log.w("PdfBox-Android", "Skipping font with '|' in name " + type1.getName() + " in file " + pfbFile);
                 return;
             }
-            fontInfoList.add(new FSFontInfo(pfbFile, FontFormat.PFB, type1.getName(),
-                null, -1, -1, 0, 0, -1, null, this));
+            fontInfos.add(new FSFontInfo(pfbFile, FontFormat.PFB, type1.getName(),
+                null, -1, -1, 0, 0, -1, null, pfbFile.lastModified(), pfbFile.length(), this));
 
             if (PDFBoxConfig.isDebugEnabled())
             {
@@ -806,7 +1021,7 @@ final class FileSystemFontProvider extends FontProvider
     public String toDebugString()
     {
         StringBuilder sb = new StringBuilder();
-        for (FSFontInfo info : fontInfoList)
+        for (FSFontInfo info : getIndexedFontInfo())
         {
             sb.append(info.getFormat());
             sb.append(": ");
@@ -818,9 +1033,51 @@ final class FileSystemFontProvider extends FontProvider
         return sb.toString();
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The method waits for the fonts to be indexed.
+     */
     @Override
     public List<? extends FontInfo> getFontInfo()
     {
+        return getIndexedFontInfo();
+    }
+
+    @Override
+    public List<? extends FontInfo> getAvailableFontInfo()
+    {
+        return fontInfoList;
+    }
+
+    @Override
+    public boolean isFontInfoReady()
+    {
+        return fontInfoFuture == null || fontInfoFuture.isDone();
+    }
+
+    /**
+     * Waits for the fonts to be indexed, the fonts indexed so far are returned if the indexing
+     * failed.
+     */
+    private List<FSFontInfo> getIndexedFontInfo()
+    {
+        if (fontInfoFuture != null)
+        {
+            try
+            {
+                return fontInfoFuture.get();
+            }
+            catch (InterruptedException e)
+            {
+                Thread.currentThread().interrupt();
+                Log.w("PdfBox-Android", "Interrupted while waiting for the fonts to be indexed");
+            }
+            catch (ExecutionException e)
+            {
+                Log.e("PdfBox-Android", "Error indexing the fonts", e.getCause());
+            }
+        }
         return fontInfoList;
     }
 }
@@ -46,7 +46,9 @@ final class FontMapperImpl implements FontMapper
 {
     private static final FontCache fontCache = new FontCache(); // todo: static cache isn't ideal
     private FontProvider fontProvider;
-    private Map<String, FontInfo> fontInfoByName;
+    private volatile Map<String, FontInfo> fontInfoByName;
+    // false while the fonts by name are only the fonts available so far
+    private volatile boolean fontInfoComplete;
     private final TrueTypeFont lastResortFont;
 
     /** Map of PostScript name substitutes, in priority order. */
@@ -150,7 +152,9 @@ final class FontMapperImpl implements FontMapper
      */
     public synchronized void setProvider(FontProvider fontProvider)
     {
-        fontInfoByName = createFontInfoByName(fontProvider.getFontInfo());
+        fontInfoComplete = fontProvider.isFontInfoReady();
+        fontInfoByName = createFontInfoByName(fontInfoComplete ?
+            fontProvider.getFontInfo() : fontProvider.getAvailableFontInfo());
         this.fontProvider = fontProvider;
     }
 
@@ -175,6 +179,19 @@ final class FontMapperImpl implements FontMapper
         return fontCache;
     }
 
+    /**
+     * Waits for the font provider to search the fonts on the system, if it hasn't finished yet.
+     */
+    private synchronized void completeFontInfo()
+    {
+        if (!fontInfoComplete)
+        {
+            fontInfoByName = createFontInfoByName(fontProvider.getFontInfo());
+            // the wait may have been interrupted, the fonts indexed so far are used until then
+            fontInfoComplete = fontProvider.isFontInfoReady();
+        }
+    }
+
     private Map<String, FontInfo> createFontInfoByName(List<? extends FontInfo> fontInfoList)
     {
         Map<String, FontInfo> map = new LinkedHashMap<String, FontInfo>();
@@ -428,18 +445,53 @@ final class FontMapperImpl implements FontMapper
             getProvider();
         }
 
+        if (!fontInfoComplete && fontProvider.isFontInfoReady())
+        {
+            completeFontInfo();
+        }
+
+        if (!fontInfoComplete)
+        {
+            // serve the font itself from the fonts available so far, but a substitute only for
+            // the standard 14 fonts, as the font itself may not have been indexed yet
+            FontInfo info = isStandard14BaseName(postScriptName)
+                ? findFontInfo(format, postScriptName) : getFont(format, postScriptName);
+            if (info != null)
+            {
+                return info.getFont();
+            }
+            completeFontInfo();
+        }
+        FontInfo info = findFontInfo(format, postScriptName);
+        return info != null ? info.getFont() : null;
+    }
+
+    /**
+     * Returns true if the given name is one of the 14 standard fonts, excluding alternative names
+     * such as "Arial", which may be fonts on the system.
+     */
+    private static boolean isStandard14BaseName(String postScriptName)
+    {
+        return postScriptName.equals(Standard14Fonts.getMappedFontName(postScriptName));
+    }
+
+    /**
+     * Finds the info of a font with the given PostScript name, or a suitable substitute, or null.
+     */
+    private FontInfo findFontInfo(FontFormat format, String postScriptName)
+    {
         // first try to match the PostScript name
         FontInfo info = getFont(format, postScriptName);
         if (info != null)
         {
-            return info.getFont();
+            return info;
         }
 
         // remove hyphens (e.g. Arial-Black -> ArialBlack)
         info = getFont(format, postScriptName.replaceAll("-", ""));
         if (info != null)
         {
-            return info.getFont();
+            return info;
         }
 
         // then try named substitutes
@@ -448,7 +500,7 @@ final class FontMapperImpl implements FontMapper
             info = getFont(format, substituteName);
             if (info != null)
             {
-                return info.getFont();
+                return info;
             }
         }
 
@@ -456,17 +508,11 @@ final class FontMapperImpl implements FontMapper
         info = getFont(format, postScriptName.replaceAll(",", "-"));
         if (info != null)
         {
-            return info.getFont();
+            return info;
         }
 
         // try appending "-Regular", works for Wingdings on windows
-        info = getFont(format, postScriptName + "-Regular");
-        if (info != null)
-        {
-            return info.getFont();
-        }
-        // no matches
-        return null;
+        return getFont(format, postScriptName + "-Regular");
     }
 
     /**
@@ -559,6 +605,8 @@ final class FontMapperImpl implements FontMapper
     {
         PriorityQueue<FontMatch> queue = new PriorityQueue<FontMatch>(20);
 
+        // all fonts are scored
+        completeFontInfo();
         for (FontInfo info : fontInfoByName.values())
         {
             // filter by CIDSystemInfo, if given
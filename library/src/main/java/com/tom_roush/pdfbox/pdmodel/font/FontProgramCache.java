@@ -0,0 +1,390 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.font;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.tom_roush.fontbox.cff.CFFParser;
+
+/**
+ * A process-wide cache of parsed embedded font programs, shared by all documents. Many
+ * documents of a batch embed the very same font program, e.g. documents created by the same
+ * application, and parsing it again for every document is costly. The programs are keyed by a
+ * SHA-256 hash of their bytes, so an embedded font is only shared with fonts having exactly the
+ * same program.
+ *
+ * The cache is disabled by default, it is enabled by passing an instance to
+ * {@link #setInstance(FontProgramCache)}. Each entry keeps track of the fonts using it, entries
+ * which are no longer used by any font are evicted first when the estimated size of all entries
+ * exceeds the budget, then the least recently used ones.
+ *
+ * Parsed font programs are shared by fonts of different documents, which may be used by different
+ * threads at the same time, as it is already the case for the system fonts of the
+ * {@link FontMapper}.
+ */
+public final class FontProgramCache
+{
+    /**
+     * Parses a font program.
+     *
+     * @param <T> the type of font program
+     */
+    interface Parser<T>
+    {
+        T parse(byte[] bytes) throws IOException;
+    }
+
+    /**
+     * A source of the bytes of a cached CFF font, which, unlike the stream of the embedding
+     * document, doesn't keep that document alive.
+     */
+    static final class CFFByteSource implements CFFParser.ByteSource
+    {
+        private final byte[] bytes;
+
+        CFFByteSource(byte[] bytes)
+        {
+            this.bytes = bytes;
+        }
+
+        @Override
+        public byte[] getBytes()
+        {
+            return bytes;
+        }
+    }
+
+    private static final long DEFAULT_MAX_BYTES = 64 * 1024 * 1024;
+
+    private static volatile FontProgramCache instance;
+
+    private final Map<String, Entry> entries = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+    private long maxBytes;
+    private long size;
+    private long hitCount;
+    private long missCount;
+    private long evictionCount;
+
+    /**
+     * Creates a cache holding up to 64 MB of font programs.
+     */
+    public FontProgramCache()
+    {
+        this(DEFAULT_MAX_BYTES);
+    }
+
+    /**
+     * Creates a cache with the given budget.
+     *
+     * @param maxBytes maximum size of all font programs in bytes, estimated by the size of their
+     * data
+     */
+    public FontProgramCache(long maxBytes)
+    {
+        setMaxBytes(maxBytes);
+    }
+
+    /**
+     * Returns the cache used for all embedded fonts, or null if there is none.
+     *
+     * @return the shared cache or null
+     */
+    public static FontProgramCache getInstance()
+    {
+        return instance;
+    }
+
+    /**
+     * Sets the cache used for all embedded fonts which are loaded from now on.
+     *
+     * @param cache the shared cache or null to disable the caching of font programs
+     */
+    public static void setInstance(FontProgramCache cache)
+    {
+        instance = cache;
+    }
+
+    /**
+     * Returns the budget of the cache.
+     *
+     * @return maximum size of all font programs in bytes
+     */
+    public synchronized long getMaxBytes()
+    {
+        return maxBytes;
+    }
+
+    /**
+     * Sets the budget of the cache. Entries exceeding the new budget are evicted immediately.
+     *
+     * @param maxBytes maximum size of all font programs in bytes
+     */
+    public synchronized void setMaxBytes(long maxBytes)
+    {
+        if (maxBytes < 0)
+        {
+            throw new IllegalArgumentException("maxBytes must not be negative: " + maxBytes);
+        }
+        this.maxBytes = maxBytes;
+        evict();
+    }
+
+    /**
+     * Returns the number of lookups which found a cached font program.
+     *
+     * @return the number of hits
+     */
+    public synchronized long getHitCount()
+    {
+        return hitCount;
+    }
+
+    /**
+     * Returns the number of lookups which had to parse the font program.
+     *
+     * @return the number of misses
+     */
+    public synchronized long getMissCount()
+    {
+        return missCount;
+    }
+
+    /**
+     * Returns the fraction of lookups which found a cached font program.
+     *
+     * @return the hit rate between 0 and 1, 0 if there were no lookups yet
+     */
+    public synchronized double getHitRate()
+    {
+        long lookups = hitCount + missCount;
+        return lookups == 0 ? 0 : (double) hitCount / lookups;
+    }
+
+    /**
+     * Returns the number of font programs which were evicted to stay within the budget.
+     *
+     * @return the number of evictions
+     */
+    public synchronized long getEvictionCount()
+    {
+        return evictionCount;
+    }
+
+    /**
+     * Returns the number of cached font programs.
+     *
+     * @return the number of entries
+     */
+    public synchronized int getEntryCount()
+    {
+        return entries.size();
+    }
+
+    /**
+     * Returns the estimated size of the cached font programs.
+     *
+     * @return the size in bytes
+     */
+    public synchronized long getSize()
+    {
+        return size;
+    }
+
+    /**
+     * Returns the number of cached font programs which are used by at least one font.
+     *
+     * @return the number of referenced entries
+     */
+    public synchronized int getReferencedEntryCount()
+    {
+        int count = 0;
+        for (Entry entry : entries.values())
+        {
+            if (entry.isReferenced())
+            {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Removes all font programs. Fonts using them keep working.
+     */
+    public synchronized void clear()
+    {
+        entries.clear();
+        size = 0;
+    }
+
+    /**
+     * Returns the cached font program with the given bytes, parsing and caching it if there is
+     * none. Exceptions of the parser are passed on and nothing is cached in that case.
+     *
+     * @param kind the kind of font program, parsers of different kinds must use different values
+     * @param bytes the font program
+     * @param parameters additional values the parsed program depends on, or null
+     * @param owner the font using the font program
+     * @param type the class of the font program
+     * @param parser the parser for the font program
+     * @return the parsed font program
+     * @throws IOException if the font program can't be parsed
+     */
+    <T> T getFontProgram(String kind, byte[] bytes, int[] parameters, Object owner,
+        Class<T> type, Parser<T> parser) throws IOException
+    {
+        String key = createKey(kind, bytes, parameters);
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null && type.isInstance(entry.font))
+            {
+                hitCount++;
+                entry.addOwner(owner);
+                return type.cast(entry.font);
+            }
+            missCount++;
+        }
+
+        // parse without holding the lock, another thread may parse the same program meanwhile
+        T font = parser.parse(bytes);
+        synchronized (this)
+        {
+            Entry entry = entries.get(key);
+            if (entry != null && type.isInstance(entry.font))
+            {
+                entry.addOwner(owner);
+                return type.cast(entry.font);
+            }
+            if (bytes.length <= maxBytes)
+            {
+                entry = new Entry(font, bytes.length);
+                entry.addOwner(owner);
+                Entry previous = entries.put(key, entry);
+                if (previous != null)
+                {
+                    size -= previous.size;
+                }
+                size += entry.size;
+                evict();
+            }
+        }
+        return font;
+    }
+
+    private void evict()
+    {
+        if (size <= maxBytes)
+        {
+            return;
+        }
+        // unused programs first, least recently used first
+        evict(false);
+        evict(true);
+    }
+
+    private void evict(boolean referenced)
+    {
+        Iterator<Entry> iterator = entries.values().iterator();
+        while (size > maxBytes && iterator.hasNext())
+        {
+            Entry entry = iterator.next();
+            if (referenced || !entry.isReferenced())
+            {
+                iterator.remove();
+                size -= entry.size;
+                evictionCount++;
+            }
+        }
+    }
+
+    private static String createKey(String kind, byte[] bytes, int[] parameters)
+        throws IOException
+    {
+        byte[] digest;
+        try
+        {
+            digest = MessageDigest.getInstance("SHA-256").digest(bytes);
+        }
+        catch (NoSuchAlgorithmException e)
+        {
+            // should never happen, every Java platform supports SHA-256
+            throw new IOException(e);
+        }
+        StringBuilder key = new StringBuilder(kind.length() + digest.length * 2 + 16);
+        key.append(kind).append('/').append(bytes.length);
+        if (parameters != null)
+        {
+            for (int parameter : parameters)
+            {
+                key.append('/').append(parameter);
+            }
+        }
+        key.append('/');
+        for (byte b : digest)
+        {
+            key.append(Character.forDigit((b >> 4) & 0xf, 16));
+            key.append(Character.forDigit(b & 0xf, 16));
+        }
+        return key.toString();
+    }
+
+    private static final class Entry
+    {
+        private final Object font;
+        private final long size;
+        private final List<WeakReference<Object>> owners = new ArrayList<WeakReference<Object>>(2);
+
+        Entry(Object font, long size)
+        {
+            this.font = font;
+            this.size = size;
+        }
+
+        void addOwner(Object owner)
+        {
+            purgeOwners();
+            owners.add(new WeakReference<Object>(owner));
+        }
+
+        boolean isReferenced()
+        {
+            purgeOwners();
+            return !owners.isEmpty();
+        }
+
+        private void purgeOwners()
+        {
+            Iterator<WeakReference<Object>> iterator = owners.iterator();
+            while (iterator.hasNext())
+            {
+                if (iterator.next().get() == null)
+                {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+}
@@ -35,4 +35,23 @@ public abstract class FontProvider
      * Returns a list of information about fonts on the system.
      */
     public abstract List<? extends FontInfo> getFontInfo();
+
+    /**
+     * Returns a list of information about the fonts which are available without waiting, e.g.
+     * while the fonts on the system are still searched in the background. Defaults to
+     * {@link #getFontInfo()}.
+     */
+    public List<? extends FontInfo> getAvailableFontInfo()
+    {
+        return getFontInfo();
+    }
+
+    /**
+     * Returns true if {@link #getFontInfo()} returns without waiting for the fonts on the system
+     * to be searched. Defaults to true.
+     */
+    public boolean isFontInfoReady()
+    {
+        return true;
+    }
 }
@@ -93,10 +93,28 @@ public class PDCIDFontType0 extends PDCIDFont
         }
         else if (bytes != null)
         {
-            CFFParser cffParser = new CFFParser();
             try
             {
-                cffFont = cffParser.parse(bytes, new ByteSource()).get(0);
+                FontProgramCache cache = FontProgramCache.getInstance();
+                if (cache != null)
+                {
+                    cffFont = cache.getFontProgram("CFF", bytes, null, this, CFFFont.class,
+                        new FontProgramCache.Parser<CFFFont>()
+                        {
+                            @Override
+                            public CFFFont parse(byte[] data) throws IOException
+                            {
+                                CFFParser cffParser = new CFFParser();
+                                return cffParser.parse(data,
+                                    new FontProgramCache.CFFByteSource(data)).get(0);
+                            }
+                        });
+                }
+                else
+                {
+                    CFFParser cffParser = new CFFParser();
+                    cffFont = cffParser.parse(bytes, new ByteSource()).get(0);
+                }
             }
             catch (IOException e)
             {
@@ -19,6 +19,7 @@ package com.tom_roush.pdfbox.pdmodel.font;
 import android.graphics.Path;
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 
 import com.tom_roush.fontbox.cff.Type2CharString;
@@ -104,8 +105,26 @@ public class PDCIDFontType2 extends PDCIDFont
                 try
                 {
                     // embedded OTF or TTF
-                    OTFParser otfParser = new OTFParser(true);
-                    OpenTypeFont otf = otfParser.parse(stream.createInputStream());
+                    OpenTypeFont otf;
+                    FontProgramCache cache = FontProgramCache.getInstance();
+                    if (cache != null)
+                    {
+                        otf = cache.getFontProgram("OTF", stream.toByteArray(), null, this,
+                            OpenTypeFont.class, new FontProgramCache.Parser<OpenTypeFont>()
+                            {
+                                @Override
+                                public OpenTypeFont parse(byte[] bytes) throws IOException
+                                {
+                                    return new OTFParser(true).parse(
+                                        new ByteArrayInputStream(bytes));
+                                }
+                            });
+                    }
+                    else
+                    {
+                        OTFParser otfParser = new OTFParser(true);
+                        otf = otfParser.parse(stream.createInputStream());
+                    }
                     ttfFont = otf;
 
                     if (otf.isPostScript())
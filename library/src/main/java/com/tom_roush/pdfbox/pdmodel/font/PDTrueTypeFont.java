@@ -19,6 +19,7 @@ package com.tom_roush.pdfbox.pdmodel.font;
 import android.graphics.Path;
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
@@ -192,8 +193,25 @@ public class PDTrueTypeFont extends PDSimpleFont implements PDVectorFont
                 try
                 {
                     // embedded
-                    TTFParser ttfParser = new TTFParser(true);
-                    ttfFont = ttfParser.parse(ff2Stream.createInputStream());
+                    FontProgramCache cache = FontProgramCache.getInstance();
+                    if (cache != null)
+                    {
+                        ttfFont = cache.getFontProgram("TTF", ff2Stream.toByteArray(), null, this,
+                            TrueTypeFont.class, new FontProgramCache.Parser<TrueTypeFont>()
+                            {
+                                @Override
+                                public TrueTypeFont parse(byte[] bytes) throws IOException
+                                {
+                                    return new TTFParser(true).parse(
+                                        new ByteArrayInputStream(bytes));
+                                }
+                            });
+                    }
+                    else
+                    {
+                        TTFParser ttfParser = new TTFParser(true);
+                        ttfFont = ttfParser.parse(ff2Stream.createInputStream());
+                    }
                 }
                 catch (NullPointerException e) // TTF parser is buggy
                 {
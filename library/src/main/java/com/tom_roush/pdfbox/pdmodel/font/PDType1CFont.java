@@ -97,8 +97,26 @@ public class PDType1CFont extends PDSimpleFont
             if (bytes != null)
             {
                 // note: this could be an OpenType file, fortunately CFFParser can handle that
-                CFFParser cffParser = new CFFParser();
-                cffEmbedded = (CFFType1Font)cffParser.parse(bytes, new ByteSource()).get(0);
+                FontProgramCache cache = FontProgramCache.getInstance();
+                if (cache != null)
+                {
+                    cffEmbedded = cache.getFontProgram("CFF", bytes, null, this,
+                        CFFType1Font.class, new FontProgramCache.Parser<CFFType1Font>()
+                        {
+                            @Override
+                            public CFFType1Font parse(byte[] data) throws IOException
+                            {
+                                CFFParser cffParser = new CFFParser();
+                                return (CFFType1Font)cffParser.parse(data,
+                                    new FontProgramCache.CFFByteSource(data)).get(0);
+                            }
+                        });
+                }
+                else
+                {
+                    CFFParser cffParser = new CFFParser();
+                    cffEmbedded = (CFFType1Font)cffParser.parse(bytes, new ByteSource()).get(0);
+                }
             }
         }
         catch (IOException e)
@@ -243,22 +243,24 @@ public class PDType1Font extends PDSimpleFont
                     length1 = repairLength1(bytes, length1);
                     length2 = repairLength2(bytes, length1, length2);
 
-                    if (bytes.length > 0 && (bytes[0] & 0xff) == PFB_START_MARKER)
+                    FontProgramCache cache = FontProgramCache.getInstance();
+                    if (cache != null && (isPFB(bytes) || length1 > 0 && length2 > 0))
                     {
-                        // some bad files embed the entire PFB, see PDFBOX-2607
-                        t1 = Type1Font.createWithPFB(bytes);
+                        final int segmentLength1 = length1;
+                        final int segmentLength2 = length2;
+                        t1 = cache.getFontProgram("Type1", bytes, new int[] { length1, length2 },
+                            this, Type1Font.class, new FontProgramCache.Parser<Type1Font>()
+                            {
+                                @Override
+                                public Type1Font parse(byte[] data) throws IOException
+                                {
+                                    return createType1Font(data, segmentLength1, segmentLength2);
+                                }
+                            });
                     }
                     else
                     {
-                        // the PFB embedded as two segments back-to-back
-                        byte[] segment1 = Arrays.copyOfRange(bytes, 0, length1);
-                        byte[] segment2 = Arrays.copyOfRange(bytes, length1, length1 + length2);
-
-                        // empty streams are simply ignored
-                        if (length1 > 0 && length2 > 0)
-                        {
-                            t1 = Type1Font.createWithSegments(segment1, segment2);
-                        }
+                        t1 = createType1Font(bytes, length1, length2);
                     }
                 }
                 catch (DamagedFontException e)
@@ -298,6 +300,37 @@ public class PDType1Font extends PDSimpleFont
         fontMatrixTransform.scale(1000, 1000);
     }
 
+    private static boolean isPFB(byte[] bytes)
+    {
+        return bytes.length > 0 && (bytes[0] & 0xff) == PFB_START_MARKER;
+    }
+
+    /**
+     * Parses an embedded Type 1 font with the given (repaired) segment lengths.
+     *
+     * @return the font or null if a segment is empty
+     */
+    private static Type1Font createType1Font(byte[] bytes, int length1, int length2)
+        throws IOException
+    {
+        if (isPFB(bytes))
+        {
+            // some bad files embed the entire PFB, see PDFBOX-2607
+            return Type1Font.createWithPFB(bytes);
+        }
+
+        // the PFB embedded as two segments back-to-back
+        byte[] segment1 = Arrays.copyOfRange(bytes, 0, length1);
+        byte[] segment2 = Arrays.copyOfRange(bytes, length1, length1 + length2);
+
+        // empty streams are simply ignored
+        if (length1 > 0 && length2 > 0)
+        {
+            return Type1Font.createWithSegments(segment1, segment2);
+        }
+        return null;
+    }
+
     /**
      * Some Type 1 fonts have an invalid Length1, which causes the binary segment of the font
      * to be truncated, see PDFBOX-2350, PDFBOX-3677.
@@ -17,6 +17,8 @@
 
 package com.tom_roush.pdfbox.pdmodel.font;
 
+import android.util.Log;
+
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
@@ -25,8 +27,10 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 import com.tom_roush.fontbox.afm.AFMParser;
+import com.tom_roush.fontbox.afm.CompiledAFM;
 import com.tom_roush.fontbox.afm.FontMetrics;
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
 
@@ -44,78 +48,94 @@ final class Standard14Fonts
 
     private static final Set<String> STANDARD_14_NAMES = new HashSet<String>(34);
     private static final Map<String, String> STANDARD_14_MAPPING = new HashMap<String, String>(34);
-    private static final Map<String, FontMetrics> STANDARD14_AFM_MAP =  new HashMap<String, FontMetrics>(34);
+    // the font metrics are loaded on first use of a font, keyed by the name of the AFM file
+    private static final Map<String, FontMetrics> STANDARD14_AFM_MAP =
+        new ConcurrentHashMap<String, FontMetrics>(14);
     static
     {
-        try
-        {
-            addAFM("Courier-Bold");
-            addAFM("Courier-BoldOblique");
-            addAFM("Courier");
-            addAFM("Courier-Oblique");
-            addAFM("Helvetica");
-            addAFM("Helvetica-Bold");
-            addAFM("Helvetica-BoldOblique");
-            addAFM("Helvetica-Oblique");
-            addAFM("Symbol");
-            addAFM("Times-Bold");
-            addAFM("Times-BoldItalic");
-            addAFM("Times-Italic");
-            addAFM("Times-Roman");
-            addAFM("ZapfDingbats");
-
-            // alternative names from Adobe Supplement to the ISO 32000
-            addAFM("CourierCourierNew", "Courier");
-            addAFM("CourierNew", "Courier");
-            addAFM("CourierNew,Italic", "Courier-Oblique");
-            addAFM("CourierNew,Bold", "Courier-Bold");
-            addAFM("CourierNew,BoldItalic", "Courier-BoldOblique");
-            addAFM("Arial", "Helvetica");
-            addAFM("Arial,Italic", "Helvetica-Oblique");
-            addAFM("Arial,Bold", "Helvetica-Bold");
-            addAFM("Arial,BoldItalic", "Helvetica-BoldOblique");
-            addAFM("TimesNewRoman", "Times-Roman");
-            addAFM("TimesNewRoman,Italic", "Times-Italic");
-            addAFM("TimesNewRoman,Bold", "Times-Bold");
-            addAFM("TimesNewRoman,BoldItalic", "Times-BoldItalic");
-
-            // Acrobat treats these fonts as "standard 14" too (at least Acrobat preflight says so)
-            addAFM("Symbol,Italic", "Symbol");
-            addAFM("Symbol,Bold", "Symbol");
-            addAFM("Symbol,BoldItalic", "Symbol");
-            addAFM("Times", "Times-Roman");
-            addAFM("Times,Italic", "Times-Italic");
-            addAFM("Times,Bold", "Times-Bold");
-            addAFM("Times,BoldItalic", "Times-BoldItalic");
-
-            // PDFBOX-3457: PDF.js file bug864847.pdf
-            addAFM("ArialMT", "Helvetica");
-            addAFM("Arial-ItalicMT", "Helvetica-Oblique");
-            addAFM("Arial-BoldMT", "Helvetica-Bold");
-            addAFM("Arial-BoldItalicMT", "Helvetica-BoldOblique");
-        }
-        catch (IOException e)
-        {
-            throw new RuntimeException(e);
-        }
+        addAFM("Courier-Bold");
+        addAFM("Courier-BoldOblique");
+        addAFM("Courier");
+        addAFM("Courier-Oblique");
+        addAFM("Helvetica");
+        addAFM("Helvetica-Bold");
+        addAFM("Helvetica-BoldOblique");
+        addAFM("Helvetica-Oblique");
+        addAFM("Symbol");
+        addAFM("Times-Bold");
+        addAFM("Times-BoldItalic");
+        addAFM("Times-Italic");
+        addAFM("Times-Roman");
+        addAFM("ZapfDingbats");
+
+        // alternative names from Adobe Supplement to the ISO 32000
+        addAFM("CourierCourierNew", "Courier");
+        addAFM("CourierNew", "Courier");
+        addAFM("CourierNew,Italic", "Courier-Oblique");
+        addAFM("CourierNew,Bold", "Courier-Bold");
+        addAFM("CourierNew,BoldItalic", "Courier-BoldOblique");
+        addAFM("Arial", "Helvetica");
+        addAFM("Arial,Italic", "Helvetica-Oblique");
+        addAFM("Arial,Bold", "Helvetica-Bold");
+        addAFM("Arial,BoldItalic", "Helvetica-BoldOblique");
+        addAFM("TimesNewRoman", "Times-Roman");
+        addAFM("TimesNewRoman,Italic", "Times-Italic");
+        addAFM("TimesNewRoman,Bold", "Times-Bold");
+        addAFM("TimesNewRoman,BoldItalic", "Times-BoldItalic");
+
+        // Acrobat treats these fonts as "standard 14" too (at least Acrobat preflight says so)
+        addAFM("Symbol,Italic", "Symbol");
+        addAFM("Symbol,Bold", "Symbol");
+        addAFM("Symbol,BoldItalic", "Symbol");
+        addAFM("Times", "Times-Roman");
+        addAFM("Times,Italic", "Times-Italic");
+        addAFM("Times,Bold", "Times-Bold");
+        addAFM("Times,BoldItalic", "Times-BoldItalic");
+
+        // PDFBOX-3457: PDF.js file bug864847.pdf
+        addAFM("ArialMT", "Helvetica");
+        addAFM("Arial-ItalicMT", "Helvetica-Oblique");
+        addAFM("Arial-BoldMT", "Helvetica-Bold");
+        addAFM("Arial-BoldItalicMT", "Helvetica-BoldOblique");
     }
 
-    private static void addAFM(String fontName) throws IOException
+    private static void addAFM(String fontName)
     {
         addAFM(fontName, fontName);
     }
 
-    private static void addAFM(String fontName, String afmName) throws IOException
+    private static void addAFM(String fontName, String afmName)
     {
         STANDARD_14_NAMES.add(fontName);
         STANDARD_14_MAPPING.put(fontName, afmName);
+    }
 
-        if (STANDARD14_AFM_MAP.containsKey(afmName))
+    /**
+     * Loads the font metrics of the given AFM file, from its compiled form if it exists.
+     */
+    private static FontMetrics loadAFM(String afmName) throws IOException
+    {
+        String resourceName = "com/tom_roush/pdfbox/resources/afm/" + afmName + ".afm";
+        InputStream compiledStream = PDFBoxResourceLoader.getOptionalStream(resourceName + ".bin");
+        if (compiledStream != null)
         {
-            STANDARD14_AFM_MAP.put(fontName, STANDARD14_AFM_MAP.get(afmName));
+            try
+            {
+                return CompiledAFM.read(compiledStream);
+            }
+            catch (IOException e)
+            {
+                Log.w("PdfBox-Android", "Could not read compiled font metrics of " + afmName
+                    + ", parsing the AFM file instead", e);
+            }
+            catch (RuntimeException e)
+            {
+                // a damaged file may have invalid counts or indexes
+                Log.w("PdfBox-Android", "Could not read compiled font metrics of " + afmName
+                    + ", parsing the AFM file instead", e);
+            }
         }
 
-        String resourceName = "com/tom_roush/pdfbox/resources/afm/" + afmName + ".afm";
         InputStream afmStream;
         if (PDFBoxResourceLoader.isReady())
         {
@@ -138,8 +158,7 @@ final class Standard14Fonts
         try
         {
             AFMParser parser = new AFMParser(afmStream);
-            FontMetrics metric = parser.parse(true);
-            STANDARD14_AFM_MAP.put(fontName, metric);
+            return parser.parse(true);
         }
         finally
         {
@@ -153,7 +172,32 @@ final class Standard14Fonts
      */
     public static FontMetrics getAFM(String baseName)
     {
-        return STANDARD14_AFM_MAP.get(baseName);
+        String afmName = STANDARD_14_MAPPING.get(baseName);
+        if (afmName == null)
+        {
+            return null;
+        }
+        FontMetrics metrics = STANDARD14_AFM_MAP.get(afmName);
+        if (metrics == null)
+        {
+            synchronized (STANDARD14_AFM_MAP)
+            {
+                metrics = STANDARD14_AFM_MAP.get(afmName);
+                if (metrics == null)
+                {
+                    try
+                    {
+                        metrics = loadAFM(afmName);
+                    }
+                    catch (IOException e)
+                    {
+                        throw new RuntimeException(e);
+                    }
+                    STANDARD14_AFM_MAP.put(afmName, metrics);
+                }
+            }
+        }
+        return metrics;
     }
 
     /**
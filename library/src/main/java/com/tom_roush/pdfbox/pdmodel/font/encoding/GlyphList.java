@@ -18,15 +18,21 @@ package com.tom_roush.pdfbox.pdmodel.font.encoding;
 
 import android.util.Log;
 
+import java.io.ByteArrayInputStream;
 import java.io.BufferedReader;
+import java.io.DataInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
+import com.tom_roush.pdfbox.io.IOUtils;
 
 /**
  * PostScript glyph list, maps glyph names to sequences of Unicode characters.
@@ -34,6 +40,9 @@ import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
  */
 public final class GlyphList
 {
+    // "AGL" and the version of the compiled format
+    static final int COMPILED_MAGIC = 0x41474C01;
+
     // Adobe Glyph List (AGL)
     private static final GlyphList DEFAULT = load("glyphlist.txt", 4281);
 
@@ -41,15 +50,34 @@ public final class GlyphList
     private static final GlyphList ZAPF_DINGBATS = load("zapfdingbats.txt",201);
 
     /**
-     * Loads a glyph list from disk.
+     * Loads a glyph list from disk, from its compiled form if it exists.
      */
     private static GlyphList load(String filename, int numberOfEntries)
     {
         ClassLoader loader = GlyphList.class.getClassLoader();
         String path = "com/tom_roush/pdfbox/resources/glyphlist/";
+        String resourcePath = path + filename;
+        InputStream compiledStream = PDFBoxResourceLoader.getOptionalStream(resourcePath + ".bin");
+        if (compiledStream != null)
+        {
+            try
+            {
+                return readCompiled(compiledStream);
+            }
+            catch (IOException e)
+            {
+                Log.w("PdfBox-Android", "Could not read compiled glyph list " + filename
+                    + ", parsing the text file instead", e);
+            }
+            catch (RuntimeException e)
+            {
+                // a damaged file may have invalid counts or indexes
+                Log.w("PdfBox-Android", "Could not read compiled glyph list " + filename
+                    + ", parsing the text file instead", e);
+            }
+        }
         try
         {
-            String resourcePath = path + filename;
             InputStream resourceStream;
             if (PDFBoxResourceLoader.isReady())
             {
@@ -102,7 +130,7 @@ public final class GlyphList
         return ZAPF_DINGBATS;
     }
 
-    // read-only mappings, never modified outside GlyphList's constructor
+    // read-only mappings, never modified after the GlyphList has been created or read
     private final Map<String, String> nameToUnicode;
     private final Map<String, String> unicodeToName;
 
@@ -123,6 +151,12 @@ public final class GlyphList
         loadList(input);
     }
 
+    private GlyphList(int numberOfEntries)
+    {
+        nameToUnicode = new HashMap<String, String>(numberOfEntries);
+        unicodeToName = new HashMap<String, String>(numberOfEntries);
+    }
+
     /**
      * Creates a new GlyphList from multiple glyph list files.
      *
@@ -195,6 +229,67 @@ public final class GlyphList
         }
     }
 
+    /**
+     * Reads a glyph list in the binary form written by the resource compiler at build time.
+     * The input stream is closed when the reading is finished.
+     */
+    static GlyphList readCompiled(InputStream input) throws IOException
+    {
+        try
+        {
+            // read completely, so that the counts can be checked against the remaining length
+            DataInputStream data = new DataInputStream(
+                new ByteArrayInputStream(IOUtils.toByteArray(input)));
+            if (data.readInt() != COMPILED_MAGIC)
+            {
+                throw new IOException("Unknown format of the compiled glyph list");
+            }
+            int nameCount = data.readInt();
+            // every name takes at least 4 bytes
+            if (nameCount < 0 || nameCount > data.available() / 4)
+            {
+                throw new IOException("Invalid number of names in the compiled glyph list");
+            }
+            GlyphList glyphList = new GlyphList(nameCount);
+            String[] names = new String[nameCount];
+            for (int i = 0; i < nameCount; i++)
+            {
+                names[i] = data.readUTF();
+                glyphList.nameToUnicode.put(names[i], data.readUTF());
+            }
+            int sequenceCount = data.readInt();
+            for (int i = 0; i < sequenceCount; i++)
+            {
+                String sequence = data.readUTF();
+                String name = names[data.readInt()];
+                // share the string of the forward mapping
+                String unicode = glyphList.nameToUnicode.get(name);
+                glyphList.unicodeToName.put(sequence.equals(unicode) ? unicode : sequence, name);
+            }
+            return glyphList;
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    /**
+     * Returns the mapping of glyph names to Unicode sequences, used by the resource compiler.
+     */
+    Map<String, String> getNameToUnicode()
+    {
+        return Collections.unmodifiableMap(nameToUnicode);
+    }
+
+    /**
+     * Returns the mapping of Unicode sequences to glyph names, used by the resource compiler.
+     */
+    Map<String, String> getUnicodeToName()
+    {
+        return Collections.unmodifiableMap(unicodeToName);
+    }
+
     /**
      * Returns the name for the given Unicode code point.
      *
@@ -0,0 +1,219 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.text;
+
+import java.util.Arrays;
+
+/**
+ * Positions of the glyphs shown on a page, used by {@link PDFTextStripper} to detect duplicate
+ * overlapping text.
+ *
+ * The positions are kept in a hash of grid cells keyed by the text and the quantized position.
+ * Each cell stores its coordinates in a float array, so that neither lookups nor adding a glyph
+ * to an existing cell allocate. The arrays are kept when the index is cleared and reused for the
+ * next page.
+ */
+final class DuplicateGlyphIndex
+{
+    // power of two, so that the quantization is exact
+    private static final float CELL_SIZE = 8f;
+    // scan all cells instead, if a lookup spans more cells than this in either direction
+    private static final int MAX_CELL_SPAN = 16;
+    private static final int INITIAL_CAPACITY = 64;
+
+    // open addressing hash table, holding cell index + 1, 0 means empty
+    private int[] slots = new int[INITIAL_CAPACITY * 2];
+
+    // cells
+    private String[] cellText = new String[INITIAL_CAPACITY];
+    private int[] cellX = new int[INITIAL_CAPACITY];
+    private int[] cellY = new int[INITIAL_CAPACITY];
+    // interleaved x and y coordinates of the glyphs in a cell
+    private float[][] cellPositions = new float[INITIAL_CAPACITY][];
+    private int[] cellPositionCount = new int[INITIAL_CAPACITY];
+    private int cellCount = 0;
+
+    /**
+     * Returns true if a glyph with the same text has been added whose x and y coordinates are
+     * both within [coordinate - tolerance, coordinate + tolerance).
+     */
+    boolean containsNear(String text, float x, float y, float tolerance)
+    {
+        float minX = x - tolerance;
+        float maxX = x + tolerance;
+        float minY = y - tolerance;
+        float maxY = y + tolerance;
+        if (cellCount == 0 || !(minX < maxX) || !(minY < maxY))
+        {
+            return false;
+        }
+        if (!((maxX - minX) / CELL_SIZE <= MAX_CELL_SPAN)
+            || !((maxY - minY) / CELL_SIZE <= MAX_CELL_SPAN))
+        {
+            // a huge or infinite tolerance, don't probe cell by cell
+            for (int cell = 0; cell < cellCount; cell++)
+            {
+                if (text.equals(cellText[cell]) && cellContains(cell, minX, maxX, minY, maxY))
+                {
+                    return true;
+                }
+            }
+            return false;
+        }
+        long firstCellX = quantize(minX);
+        long lastCellX = quantize(maxX);
+        long firstCellY = quantize(minY);
+        long lastCellY = quantize(maxY);
+        for (long cx = firstCellX; cx <= lastCellX; cx++)
+        {
+            for (long cy = firstCellY; cy <= lastCellY; cy++)
+            {
+                int cell = findCell(text, (int) cx, (int) cy);
+                if (cell >= 0 && cellContains(cell, minX, maxX, minY, maxY))
+                {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Adds a glyph at the given position.
+     */
+    void add(String text, float x, float y)
+    {
+        int cx = (int) quantize(x);
+        int cy = (int) quantize(y);
+        int cell = findCell(text, cx, cy);
+        if (cell < 0)
+        {
+            cell = addCell(text, cx, cy);
+        }
+        int count = cellPositionCount[cell];
+        float[] positions = cellPositions[cell];
+        if (positions == null)
+        {
+            positions = new float[4];
+            cellPositions[cell] = positions;
+        }
+        else if (count * 2 == positions.length)
+        {
+            positions = Arrays.copyOf(positions, positions.length * 2);
+            cellPositions[cell] = positions;
+        }
+        positions[count * 2] = x;
+        positions[count * 2 + 1] = y;
+        cellPositionCount[cell] = count + 1;
+    }
+
+    /**
+     * Removes all glyphs, keeping the allocated arrays.
+     */
+    void clear()
+    {
+        if (cellCount == 0)
+        {
+            return;
+        }
+        Arrays.fill(slots, 0);
+        Arrays.fill(cellText, 0, cellCount, null);
+        Arrays.fill(cellPositionCount, 0, cellCount, 0);
+        cellCount = 0;
+    }
+
+    private boolean cellContains(int cell, float minX, float maxX, float minY, float maxY)
+    {
+        float[] positions = cellPositions[cell];
+        int end = cellPositionCount[cell] * 2;
+        for (int i = 0; i < end; i += 2)
+        {
+            // same ordering as Float.compareTo, as used by the sorted maps this replaces
+            if (Float.compare(positions[i], minX) >= 0 && Float.compare(positions[i], maxX) < 0
+                && Float.compare(positions[i + 1], minY) >= 0
+                && Float.compare(positions[i + 1], maxY) < 0)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private int findCell(String text, int cx, int cy)
+    {
+        int mask = slots.length - 1;
+        int slot = hash(text, cx, cy) & mask;
+        while (slots[slot] != 0)
+        {
+            int cell = slots[slot] - 1;
+            if (cellX[cell] == cx && cellY[cell] == cy && text.equals(cellText[cell]))
+            {
+                return cell;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private int addCell(String text, int cx, int cy)
+    {
+        if (cellCount == cellText.length)
+        {
+            int capacity = cellCount * 2;
+            cellText = Arrays.copyOf(cellText, capacity);
+            cellX = Arrays.copyOf(cellX, capacity);
+            cellY = Arrays.copyOf(cellY, capacity);
+            cellPositions = Arrays.copyOf(cellPositions, capacity);
+            cellPositionCount = Arrays.copyOf(cellPositionCount, capacity);
+            slots = new int[capacity * 2];
+            for (int cell = 0; cell < cellCount; cell++)
+            {
+                insertSlot(cell);
+            }
+        }
+        int cell = cellCount++;
+        cellText[cell] = text;
+        cellX[cell] = cx;
+        cellY[cell] = cy;
+        insertSlot(cell);
+        return cell;
+    }
+
+    private void insertSlot(int cell)
+    {
+        int mask = slots.length - 1;
+        int slot = hash(cellText[cell], cellX[cell], cellY[cell]) & mask;
+        while (slots[slot] != 0)
+        {
+            slot = (slot + 1) & mask;
+        }
+        slots[slot] = cell + 1;
+    }
+
+    private static long quantize(float coordinate)
+    {
+        // NaN ends up in cell 0, it never matches a lookup anyway
+        return (long) Math.floor(coordinate / CELL_SIZE);
+    }
+
+    private static int hash(String text, int cx, int cy)
+    {
+        int h = (text.hashCode() * 31 + cx) * 31 + cy;
+        // spread the bits, as the table size is a power of two
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,303 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.text;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+import com.tom_roush.pdfbox.cos.COSDictionary;
+import com.tom_roush.pdfbox.pdmodel.DefaultResourceCache;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.ResourceCache;
+
+/**
+ * Extracts the text of a document using several threads. The pages are split into ranges of
+ * consecutive pages, each range is processed by a task of the given executor and the text is
+ * reassembled in page order.
+ *
+ * Every task uses its own {@link PDFTextStripper} and its own {@link ResourceCache}, so fonts and
+ * other resources are never shared between threads, only the underlying COS objects are. The
+ * objects of a document opened in fast open mode are read when a task accesses them for the
+ * first time, the parser reads one object at a time and the other tasks wait for it. The
+ * document must not be modified while the text is being extracted. The bookmarks of the
+ * strippers are ignored and their page range should be left at the default, the page range is
+ * given to the extraction methods instead.
+ */
+public class PDFParallelTextExtractor
+{
+    /**
+     * Creates the text strippers used by the extraction tasks. A new stripper is created for
+     * every task, so the factory may be called from any thread.
+     */
+    public interface StripperFactory
+    {
+        /**
+         * Creates a new, configured text stripper.
+         *
+         * @return a text stripper
+         * @throws IOException if the stripper can't be created
+         */
+        PDFTextStripper createStripper() throws IOException;
+    }
+
+    private static final int DEFAULT_PAGES_PER_TASK = 4;
+
+    private final ExecutorService executor;
+    private final StripperFactory stripperFactory;
+    private int pagesPerTask = DEFAULT_PAGES_PER_TASK;
+
+    /**
+     * Creates an extractor using text strippers with the default settings.
+     *
+     * @param executor the executor running the extraction tasks
+     */
+    public PDFParallelTextExtractor(ExecutorService executor)
+    {
+        this(executor, new StripperFactory()
+        {
+            @Override
+            public PDFTextStripper createStripper() throws IOException
+            {
+                return new PDFTextStripper();
+            }
+        });
+    }
+
+    /**
+     * Creates an extractor using text strippers created by the given factory.
+     *
+     * @param executor the executor running the extraction tasks
+     * @param stripperFactory the factory creating a text stripper for each task
+     */
+    public PDFParallelTextExtractor(ExecutorService executor, StripperFactory stripperFactory)
+    {
+        this.executor = executor;
+        this.stripperFactory = stripperFactory;
+    }
+
+    /**
+     * Returns the number of consecutive pages processed by a single task.
+     *
+     * @return the number of pages per task
+     */
+    public int getPagesPerTask()
+    {
+        return pagesPerTask;
+    }
+
+    /**
+     * Sets the number of consecutive pages processed by a single task. Smaller values balance
+     * the load better, larger values reuse the resources cached by a task more often.
+     *
+     * @param pagesPerTask the number of pages per task, must be positive
+     */
+    public void setPagesPerTask(int pagesPerTask)
+    {
+        if (pagesPerTask < 1)
+        {
+            throw new IllegalArgumentException("pagesPerTask must be positive: " + pagesPerTask);
+        }
+        this.pagesPerTask = pagesPerTask;
+    }
+
+    /**
+     * Returns the text of every page of the document.
+     *
+     * @param document the document to get the text from
+     * @return the text of each page, in page order
+     * @throws IOException if the text of a page can't be extracted
+     */
+    public List<String> getPageTexts(PDDocument document) throws IOException
+    {
+        return getPageTexts(document, 1, document.getNumberOfPages());
+    }
+
+    /**
+     * Returns the text of the given range of pages.
+     *
+     * @param document the document to get the text from
+     * @param startPage the 1-based number of the first page
+     * @param endPage the 1-based number of the last page, inclusive
+     * @return the text of each page, in page order
+     * @throws IOException if the text of a page can't be extracted
+     */
+    public List<String> getPageTexts(PDDocument document, int startPage, int endPage)
+        throws IOException
+    {
+        List<Future<List<String>>> futures = submit(document, startPage, endPage);
+        List<String> pageTexts = new ArrayList<String>();
+        boolean completed = false;
+        try
+        {
+            for (Future<List<String>> future : futures)
+            {
+                pageTexts.addAll(getResult(future));
+            }
+            completed = true;
+        }
+        finally
+        {
+            if (!completed)
+            {
+                cancel(futures);
+            }
+        }
+        return pageTexts;
+    }
+
+    /**
+     * Writes the text of the document to the given writer. The text of a range of pages is
+     * written as soon as it and all preceding ranges are available.
+     *
+     * @param document the document to get the text from
+     * @param output the location to put the text
+     * @throws IOException if the text of a page can't be extracted or written
+     */
+    public void writeText(PDDocument document, Writer output) throws IOException
+    {
+        writeText(document, output, 1, document.getNumberOfPages());
+    }
+
+    /**
+     * Writes the text of the given range of pages to the given writer. The text of a range of
+     * pages is written as soon as it and all preceding ranges are available.
+     *
+     * @param document the document to get the text from
+     * @param output the location to put the text
+     * @param startPage the 1-based number of the first page
+     * @param endPage the 1-based number of the last page, inclusive
+     * @throws IOException if the text of a page can't be extracted or written
+     */
+    public void writeText(PDDocument document, Writer output, int startPage, int endPage)
+        throws IOException
+    {
+        List<Future<List<String>>> futures = submit(document, startPage, endPage);
+        boolean completed = false;
+        try
+        {
+            for (Future<List<String>> future : futures)
+            {
+                for (String pageText : getResult(future))
+                {
+                    output.write(pageText);
+                }
+            }
+            completed = true;
+        }
+        finally
+        {
+            if (!completed)
+            {
+                cancel(futures);
+            }
+        }
+    }
+
+    private List<Future<List<String>>> submit(final PDDocument document, int startPage,
+        int endPage)
+    {
+        // collect the page dictionaries on this thread, the page tree isn't walked concurrently
+        final List<COSDictionary> pageDictionaries = new ArrayList<COSDictionary>();
+        int pageNo = 0;
+        for (PDPage page : document.getPages())
+        {
+            pageNo++;
+            if (pageNo > endPage)
+            {
+                break;
+            }
+            if (pageNo >= startPage)
+            {
+                pageDictionaries.add(page.getCOSObject());
+            }
+        }
+
+        final int firstPageNo = Math.max(startPage, 1);
+        List<Future<List<String>>> futures = new ArrayList<Future<List<String>>>();
+        for (int from = 0; from < pageDictionaries.size(); from += pagesPerTask)
+        {
+            final int start = from;
+            final int end = Math.min(from + pagesPerTask, pageDictionaries.size());
+            futures.add(executor.submit(new Callable<List<String>>()
+            {
+                @Override
+                public List<String> call() throws IOException
+                {
+                    PDFTextStripper stripper = stripperFactory.createStripper();
+                    ResourceCache resourceCache = new DefaultResourceCache();
+                    List<String> pageTexts = new ArrayList<String>(end - start);
+                    for (int i = start; i < end; i++)
+                    {
+                        PDPage page = new PDPage(pageDictionaries.get(i), resourceCache);
+                        StringWriter pageText = new StringWriter();
+                        stripper.writePageText(document, page, firstPageNo + i, pageText);
+                        pageTexts.add(pageText.toString());
+                    }
+                    return pageTexts;
+                }
+            }));
+        }
+        return futures;
+    }
+
+    private List<String> getResult(Future<List<String>> future) throws IOException
+    {
+        try
+        {
+            return future.get();
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Text extraction was interrupted");
+        }
+        catch (ExecutionException e)
+        {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException)
+            {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException)
+            {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error)
+            {
+                throw (Error) cause;
+            }
+            throw new IOException(cause);
+        }
+    }
+
+    private void cancel(List<Future<List<String>>> futures)
+    {
+        for (Future<List<String>> future : futures)
+        {
+            future.cancel(true);
+        }
+    }
+}
@@ -33,11 +33,7 @@ import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
-import java.util.SortedMap;
-import java.util.SortedSet;
 import java.util.StringTokenizer;
-import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.regex.Pattern;
 
 import com.tom_roush.pdfbox.android.PDFBoxResourceLoader;
@@ -193,7 +189,7 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
      */
     protected ArrayList<List<TextPosition>> charactersByArticle = new ArrayList<List<TextPosition>>();
 
-    private Map<String, TreeMap<Float, TreeSet<Float>>> characterListMapping = new HashMap<String, TreeMap<Float, TreeSet<Float>>>();
+    private final DuplicateGlyphIndex characterListMapping = new DuplicateGlyphIndex();
 
     protected PDDocument document;
     protected Writer output;
@@ -235,10 +231,7 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
         {
             charactersByArticle.clear();
         }
-        if (characterListMapping != null)
-        {
-            characterListMapping.clear();
-        }
+        characterListMapping.clear();
     }
 
     /**
@@ -254,6 +247,42 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
         resetEngine();
         document = doc;
         output = outputStream;
+        applyMoreFormatting();
+        startDocument(document);
+        processPages(document.getPages());
+        endDocument(document);
+    }
+
+    /**
+     * Writes the text of a single page of a document. This is used by
+     * {@link PDFParallelTextExtractor}; bookmarks are ignored and neither startDocument() nor
+     * endDocument() are called.
+     *
+     * @param doc The document the page belongs to.
+     * @param page The page to get the text from.
+     * @param pageNo The 1-based number of the page within the document.
+     * @param outputStream The location to put the text.
+     *
+     * @throws IOException If there is an error processing the page.
+     */
+    void writePageText(PDDocument doc, PDPage page, int pageNo, Writer outputStream)
+        throws IOException
+    {
+        resetEngine();
+        document = doc;
+        output = outputStream;
+        applyMoreFormatting();
+        startBookmarkPageNumber = -1;
+        endBookmarkPageNumber = -1;
+        currentPageNo = pageNo;
+        if (page.hasContents())
+        {
+            processPage(page);
+        }
+    }
+
+    private void applyMoreFormatting()
+    {
         if (getAddMoreFormatting())
         {
             paragraphEnd = lineSeparator;
@@ -261,9 +290,6 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             articleStart = lineSeparator;
             articleEnd = lineSeparator;
         }
-        startDocument(document);
-        processPages(document.getPages());
-        endDocument(document);
     }
 
     /**
@@ -808,13 +834,6 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             String textCharacter = text.getUnicode();
             float textX = text.getX();
             float textY = text.getY();
-            TreeMap<Float, TreeSet<Float>> sameTextCharacters = characterListMapping
-                .get(textCharacter);
-            if (sameTextCharacters == null)
-            {
-                sameTextCharacters = new TreeMap<Float, TreeSet<Float>>();
-                characterListMapping.put(textCharacter, sameTextCharacters);
-            }
             // RDD - Here we compute the value that represents the end of the rendered
             // text. This value is used to determine whether subsequent text rendered
             // on the same line overwrites the current text.
@@ -825,29 +844,11 @@ public class PDFTextStripper extends LegacyPDFStreamEngine
             // the TJ just backs up to compensate after each character). Also, we subtract
             // an amount to allow for kerning (a percentage of the width of the last
             // character).
-            boolean suppressCharacter = false;
             float tolerance = text.getWidth() / textCharacter.length() / 3.0f;
 
-            SortedMap<Float, TreeSet<Float>> xMatches = sameTextCharacters.subMap(textX - tolerance,
-                textX + tolerance);
-            for (TreeSet<Float> xMatch : xMatches.values())
-            {
-                SortedSet<Float> yMatches = xMatch.subSet(textY - tolerance, textY + tolerance);
-                if (!yMatches.isEmpty())
-                {
-                    suppressCharacter = true;
-                    break;
-                }
-            }
-            if (!suppressCharacter)
+            if (!characterListMapping.containsNear(textCharacter, textX, textY, tolerance))
             {
-                TreeSet<Float> ySet = sameTextCharacters.get(textX);
-                if (ySet == null)
-                {
-                    ySet = new TreeSet<Float>();
-                    sameTextCharacters.put(textX, ySet);
-                }
-                ySet.add(textY);
+                characterListMapping.add(textCharacter, textX, textY);
                 showCharacter = true;
             }
         }
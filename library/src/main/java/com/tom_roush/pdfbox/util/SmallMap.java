@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.util;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A map keeping its entries in insertion order, like {@link LinkedHashMap}, but with a much
+ * smaller footprint for few entries. Up to {@value #MAX_ARRAY_SIZE} entries are kept in a single
+ * array of alternating keys and values, which is searched linearly. Larger maps are turned into
+ * a {@link LinkedHashMap} and stay one.
+ *
+ * Most PDF dictionaries have less than ten entries, so this saves most of the memory needed for
+ * the hash table and the entry objects of a {@link LinkedHashMap}.
+ *
+ * @param <K> the type of the keys
+ * @param <V> the type of the values
+ */
+public class SmallMap<K, V> extends AbstractMap<K, V>
+{
+    private static final int MAX_ARRAY_SIZE = 16;
+    private static final int INITIAL_CAPACITY = 4;
+
+    // alternating keys and values, null until the first entry is added
+    private Object[] entries;
+    private int size;
+    // used instead of the array once there are too many entries
+    private LinkedHashMap<K, V> map;
+    private int modCount;
+    private Set<Map.Entry<K, V>> entrySet;
+
+    /**
+     * Creates an empty map.
+     */
+    public SmallMap()
+    {
+    }
+
+    /**
+     * Creates a map with the entries of the given map, in its iteration order.
+     *
+     * @param map the entries to add
+     */
+    public SmallMap(Map<? extends K, ? extends V> map)
+    {
+        putAll(map);
+    }
+
+    @Override
+    public int size()
+    {
+        return map != null ? map.size() : size;
+    }
+
+    @Override
+    public boolean isEmpty()
+    {
+        return size() == 0;
+    }
+
+    @Override
+    public boolean containsKey(Object key)
+    {
+        return map != null ? map.containsKey(key) : indexOf(key) >= 0;
+    }
+
+    @Override
+    public boolean containsValue(Object value)
+    {
+        if (map != null)
+        {
+            return map.containsValue(value);
+        }
+        for (int i = 1; i < size * 2; i += 2)
+        {
+            if (equal(value, entries[i]))
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key)
+    {
+        if (map != null)
+        {
+            return map.get(key);
+        }
+        int index = indexOf(key);
+        return index >= 0 ? (V) entries[index + 1] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V put(K key, V value)
+    {
+        if (map != null)
+        {
+            return map.put(key, value);
+        }
+        int index = indexOf(key);
+        if (index >= 0)
+        {
+            V previous = (V) entries[index + 1];
+            entries[index + 1] = value;
+            return previous;
+        }
+        if (size == MAX_ARRAY_SIZE)
+        {
+            map = new LinkedHashMap<K, V>(MAX_ARRAY_SIZE * 4);
+            for (int i = 0; i < size * 2; i += 2)
+            {
+                map.put((K) entries[i], (V) entries[i + 1]);
+            }
+            entries = null;
+            size = 0;
+            modCount++;
+            return map.put(key, value);
+        }
+        if (entries == null)
+        {
+            entries = new Object[INITIAL_CAPACITY * 2];
+        }
+        else if (size * 2 == entries.length)
+        {
+            entries = Arrays.copyOf(entries, Math.min(entries.length * 2, MAX_ARRAY_SIZE * 2));
+        }
+        entries[size * 2] = key;
+        entries[size * 2 + 1] = value;
+        size++;
+        modCount++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key)
+    {
+        if (map != null)
+        {
+            return map.remove(key);
+        }
+        int index = indexOf(key);
+        if (index < 0)
+        {
+            return null;
+        }
+        V previous = (V) entries[index + 1];
+        removeAt(index);
+        return previous;
+    }
+
+    @Override
+    public void clear()
+    {
+        if (map != null)
+        {
+            map.clear();
+        }
+        else if (size > 0)
+        {
+            Arrays.fill(entries, 0, size * 2, null);
+            size = 0;
+            modCount++;
+        }
+    }
+
+    @Override
+    public Set<Map.Entry<K, V>> entrySet()
+    {
+        if (entrySet == null)
+        {
+            entrySet = new EntrySet();
+        }
+        return entrySet;
+    }
+
+    private int indexOf(Object key)
+    {
+        for (int i = 0; i < size * 2; i += 2)
+        {
+            if (equal(key, entries[i]))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private void removeAt(int index)
+    {
+        System.arraycopy(entries, index + 2, entries, index, size * 2 - index - 2);
+        size--;
+        entries[size * 2] = null;
+        entries[size * 2 + 1] = null;
+        modCount++;
+    }
+
+    private static boolean equal(Object a, Object b)
+    {
+        return a == b || a != null && a.equals(b);
+    }
+
+    /**
+     * The entries of the map, delegating to the {@link LinkedHashMap} once there is one.
+     */
+    private final class EntrySet extends AbstractSet<Map.Entry<K, V>>
+    {
+        @Override
+        public Iterator<Map.Entry<K, V>> iterator()
+        {
+            if (map != null)
+            {
+                return map.entrySet().iterator();
+            }
+            return new ArrayIterator();
+        }
+
+        @Override
+        public int size()
+        {
+            return SmallMap.this.size();
+        }
+
+        @Override
+        public void clear()
+        {
+            SmallMap.this.clear();
+        }
+    }
+
+    private final class ArrayIterator implements Iterator<Map.Entry<K, V>>
+    {
+        // index of the next key
+        private int next = 0;
+        // index of the key returned last, -1 if there is none
+        private int last = -1;
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext()
+        {
+            return next < size * 2;
+        }
+
+        @Override
+        public Map.Entry<K, V> next()
+        {
+            checkForComodification();
+            if (!hasNext())
+            {
+                throw new NoSuchElementException();
+            }
+            last = next;
+            next += 2;
+            return new ArrayEntry(last, expectedModCount);
+        }
+
+        @Override
+        public void remove()
+        {
+            if (last < 0)
+            {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            removeAt(last);
+            next = last;
+            last = -1;
+            expectedModCount = modCount;
+        }
+
+        private void checkForComodification()
+        {
+            if (modCount != expectedModCount || map != null)
+            {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+
+    private final class ArrayEntry implements Map.Entry<K, V>
+    {
+        private final int index;
+        private final int expectedModCount;
+
+        ArrayEntry(int index, int expectedModCount)
+        {
+            this.index = index;
+            this.expectedModCount = expectedModCount;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public K getKey()
+        {
+            checkForComodification();
+            return (K) entries[index];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V getValue()
+        {
+            checkForComodification();
+            return (V) entries[index + 1];
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public V setValue(V value)
+        {
+            checkForComodification();
+            V previous = (V) entries[index + 1];
+            entries[index + 1] = value;
+            return previous;
+        }
+
+        private void checkForComodification()
+        {
+            if (modCount != expectedModCount || map != null)
+            {
+                throw new ConcurrentModificationException();
+            }
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (!(o instanceof Map.Entry))
+            {
+                return false;
+            }
+            Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+            return equal(getKey(), entry.getKey()) && equal(getValue(), entry.getValue());
+        }
+
+        @Override
+        public int hashCode()
+        {
+            K key = getKey();
+            V value = getValue();
+            return (key == null ? 0 : key.hashCode()) ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString()
+        {
+            return getKey() + "=" + getValue();
+        }
+    }
+}
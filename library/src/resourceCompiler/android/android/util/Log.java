@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package android.util;
+
+/**
+ * Replaces android.util.Log when the resource compiler runs on the JVM of the build, which
+ * doesn't have the Android classes. Warnings and errors are printed, all other messages are
+ * dropped. Only the methods used by the library are provided.
+ */
+public final class Log
+{
+    private Log()
+    {
+    }
+
+    public static int v(String tag, String msg)
+    {
+        return 0;
+    }
+
+    public static int d(String tag, String msg)
+    {
+        return 0;
+    }
+
+    public static int d(String tag, String msg, Throwable tr)
+    {
+        return 0;
+    }
+
+    public static int i(String tag, String msg)
+    {
+        return 0;
+    }
+
+    public static int i(String tag, String msg, Throwable tr)
+    {
+        return 0;
+    }
+
+    public static int w(String tag, String msg)
+    {
+        return print("W", tag, msg, null);
+    }
+
+    public static int w(String tag, String msg, Throwable tr)
+    {
+        return print("W", tag, msg, tr);
+    }
+
+    public static int w(String tag, Throwable tr)
+    {
+        return print("W", tag, null, tr);
+    }
+
+    public static int e(String tag, String msg)
+    {
+        return print("E", tag, msg, null);
+    }
+
+    public static int e(String tag, String msg, Throwable tr)
+    {
+        return print("E", tag, msg, tr);
+    }
+
+    private static int print(String level, String tag, String msg, Throwable tr)
+    {
+        System.err.println(level + "/" + tag + ": " + (msg != null ? msg : ""));
+        if (tr != null)
+        {
+            tr.printStackTrace();
+        }
+        return 0;
+    }
+}
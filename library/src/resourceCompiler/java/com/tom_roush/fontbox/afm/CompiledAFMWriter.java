@@ -0,0 +1,197 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.afm;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+
+import com.tom_roush.fontbox.util.BoundingBox;
+
+/**
+ * Writes font metrics in the binary form read by {@link CompiledAFM}. It is only used at build
+ * time, by the resource compiler.
+ */
+public final class CompiledAFMWriter
+{
+    private CompiledAFMWriter()
+    {
+    }
+
+    /**
+     * Parses an AFM file and writes its font metrics in the binary form. The input stream is
+     * closed when the parsing is finished.
+     *
+     * @param afm the AFM file
+     * @param out the stream to write the binary form to
+     * @param reducedDataset compile a reduced subset of data if set to true, see
+     * {@link AFMParser#parse(boolean)}
+     * @throws IOException If there is an error reading or writing the data.
+     */
+    public static void compile(InputStream afm, OutputStream out, boolean reducedDataset)
+        throws IOException
+    {
+        write(new AFMParser(afm).parse(reducedDataset), out);
+    }
+
+    /**
+     * Writes the given font metrics in the binary form.
+     *
+     * @param metrics the font metrics
+     * @param out the stream to write to, it isn't closed
+     * @throws IOException If there is an error writing the data.
+     */
+    public static void write(FontMetrics metrics, OutputStream out) throws IOException
+    {
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(CompiledAFM.MAGIC);
+        data.writeFloat(metrics.getAFMVersion());
+        data.writeInt(metrics.getMetricSets());
+        writeString(data, metrics.getFontName());
+        writeString(data, metrics.getFullName());
+        writeString(data, metrics.getFamilyName());
+        writeString(data, metrics.getWeight());
+        writeBoundingBox(data, metrics.getFontBBox());
+        writeString(data, metrics.getFontVersion());
+        writeString(data, metrics.getNotice());
+        writeString(data, metrics.getEncodingScheme());
+        data.writeInt(metrics.getMappingScheme());
+        data.writeInt(metrics.getEscChar());
+        writeString(data, metrics.getCharacterSet());
+        data.writeInt(metrics.getCharacters());
+        data.writeBoolean(metrics.isBaseFont());
+        writeFloats(data, metrics.getVVector());
+        data.writeBoolean(metrics.isFixedV());
+        data.writeFloat(metrics.getCapHeight());
+        data.writeFloat(metrics.getXHeight());
+        data.writeFloat(metrics.getAscender());
+        data.writeFloat(metrics.getDescender());
+        data.writeInt(metrics.getComments().size());
+        for (String comment : metrics.getComments())
+        {
+            writeString(data, comment);
+        }
+        data.writeFloat(metrics.getUnderlinePosition());
+        data.writeFloat(metrics.getUnderlineThickness());
+        data.writeFloat(metrics.getItalicAngle());
+        writeFloats(data, metrics.getCharWidth());
+        data.writeBoolean(metrics.isFixedPitch());
+        data.writeFloat(metrics.getStandardHorizontalWidth());
+        data.writeFloat(metrics.getStandardVerticalWidth());
+
+        data.writeInt(metrics.getCharMetrics().size());
+        for (CharMetric metric : metrics.getCharMetrics())
+        {
+            data.writeInt(metric.getCharacterCode());
+            data.writeFloat(metric.getWx());
+            data.writeFloat(metric.getW0x());
+            data.writeFloat(metric.getW1x());
+            data.writeFloat(metric.getWy());
+            data.writeFloat(metric.getW0y());
+            data.writeFloat(metric.getW1y());
+            writeFloats(data, metric.getW());
+            writeFloats(data, metric.getW0());
+            writeFloats(data, metric.getW1());
+            writeFloats(data, metric.getVv());
+            writeString(data, metric.getName());
+            writeBoundingBox(data, metric.getBoundingBox());
+            data.writeInt(metric.getLigatures().size());
+            for (Ligature ligature : metric.getLigatures())
+            {
+                writeString(data, ligature.getSuccessor());
+                writeString(data, ligature.getLigature());
+            }
+        }
+
+        data.writeInt(metrics.getTrackKern().size());
+        for (TrackKern kern : metrics.getTrackKern())
+        {
+            data.writeInt(kern.getDegree());
+            data.writeFloat(kern.getMinPointSize());
+            data.writeFloat(kern.getMinKern());
+            data.writeFloat(kern.getMaxPointSize());
+            data.writeFloat(kern.getMaxKern());
+        }
+
+        data.writeInt(metrics.getComposites().size());
+        for (Composite composite : metrics.getComposites())
+        {
+            writeString(data, composite.getName());
+            data.writeInt(composite.getParts().size());
+            for (CompositePart part : composite.getParts())
+            {
+                writeString(data, part.getName());
+                data.writeInt(part.getXDisplacement());
+                data.writeInt(part.getYDisplacement());
+            }
+        }
+
+        writeKernPairs(data, metrics.getKernPairs());
+        writeKernPairs(data, metrics.getKernPairs0());
+        writeKernPairs(data, metrics.getKernPairs1());
+        data.flush();
+    }
+
+    private static void writeKernPairs(DataOutputStream data, List<KernPair> kernPairs)
+        throws IOException
+    {
+        data.writeInt(kernPairs.size());
+        for (KernPair kernPair : kernPairs)
+        {
+            writeString(data, kernPair.getFirstKernCharacter());
+            writeString(data, kernPair.getSecondKernCharacter());
+            data.writeFloat(kernPair.getX());
+            data.writeFloat(kernPair.getY());
+        }
+    }
+
+    private static void writeString(DataOutputStream data, String value) throws IOException
+    {
+        data.writeBoolean(value != null);
+        if (value != null)
+        {
+            data.writeUTF(value);
+        }
+    }
+
+    private static void writeFloats(DataOutputStream data, float[] values) throws IOException
+    {
+        data.writeInt(values == null ? -1 : values.length);
+        if (values != null)
+        {
+            for (float value : values)
+            {
+                data.writeFloat(value);
+            }
+        }
+    }
+
+    private static void writeBoundingBox(DataOutputStream data, BoundingBox box) throws IOException
+    {
+        data.writeBoolean(box != null);
+        if (box != null)
+        {
+            data.writeFloat(box.getLowerLeftX());
+            data.writeFloat(box.getLowerLeftY());
+            data.writeFloat(box.getUpperRightX());
+            data.writeFloat(box.getUpperRightY());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.cmap;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Writes predefined CMaps in the binary form read by {@link CMapParser#parsePredefined(String)}.
+ * It is only used at build time, by the resource compiler.
+ */
+public final class CMapCompiler
+{
+    private CMapCompiler()
+    {
+    }
+
+    /**
+     * Parses a predefined CMap and writes it in a compact binary form, which is loaded much
+     * faster than the CMap file.
+     *
+     * @param parser the parser reading the CMap and the CMaps it uses
+     * @param name CMap name.
+     * @param out the stream to write the binary form to, it isn't closed.
+     * @throws IOException If the CMap could not be parsed or written.
+     */
+    public static void compile(CMapParser parser, String name, OutputStream out)
+        throws IOException
+    {
+        InputStream input = parser.getExternalCMap(name);
+        try
+        {
+            DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+            parser.parse(input).writeCompiled(data);
+            data.flush();
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+}
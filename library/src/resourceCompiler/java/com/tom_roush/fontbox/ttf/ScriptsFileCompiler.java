@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.ttf;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+
+/**
+ * Writes the unicode ranges of Scripts.txt in the binary form read by {@link OpenTypeScript}.
+ * It is only used at build time, by the resource compiler.
+ */
+public final class ScriptsFileCompiler
+{
+    private ScriptsFileCompiler()
+    {
+    }
+
+    /**
+     * Parses a Scripts.txt file and writes its unicode ranges in a compact binary form, which is
+     * loaded much faster than the text file.
+     *
+     * @param input the Scripts.txt file, it is closed when the parsing is finished
+     * @param out the stream to write the binary form to, it isn't closed
+     * @throws IOException if the file could not be read or written
+     */
+    public static void compile(InputStream input, OutputStream out) throws IOException
+    {
+        Map<int[], String> unicodeRanges = OpenTypeScript.parseScriptsFile(input);
+        List<String> scripts = new ArrayList<String>();
+        Map<String, Integer> scriptIndexes = new HashMap<String, Integer>();
+        for (String script : unicodeRanges.values())
+        {
+            if (!scriptIndexes.containsKey(script))
+            {
+                scriptIndexes.put(script, scripts.size());
+                scripts.add(script);
+            }
+        }
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(OpenTypeScript.COMPILED_MAGIC);
+        data.writeShort(scripts.size());
+        for (String script : scripts)
+        {
+            data.writeUTF(script);
+        }
+        data.writeInt(unicodeRanges.size());
+        for (Entry<int[], String> e : unicodeRanges.entrySet())
+        {
+            data.writeInt(e.getKey()[0]);
+            data.writeShort(scriptIndexes.get(e.getValue()));
+        }
+        data.flush();
+    }
+}
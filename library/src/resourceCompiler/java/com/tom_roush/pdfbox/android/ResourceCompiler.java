@@ -0,0 +1,158 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.android;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+
+import com.tom_roush.fontbox.afm.CompiledAFMWriter;
+import com.tom_roush.fontbox.cmap.CMapCompiler;
+import com.tom_roush.fontbox.cmap.CMapParser;
+import com.tom_roush.fontbox.ttf.ScriptsFileCompiler;
+import com.tom_roush.pdfbox.pdmodel.font.encoding.GlyphListCompiler;
+
+/**
+ * Compiles the text resources in the assets folder into the binary resources loaded at runtime,
+ * i.e. the AFM files of the standard 14 fonts, the glyph lists, Scripts.txt and the predefined
+ * CMaps. The compiled form of a resource has the path of the text resource with the suffix
+ * ".bin". The text resources are still used if the compiled form is missing.
+ * <p>
+ * It is run by the gradle tasks "compile&lt;Variant&gt;Resources" when the assets of a variant are
+ * merged, and isn't part of the library.
+ */
+public final class ResourceCompiler
+{
+    private static final String SUFFIX = ".bin";
+    private static final String AFM_PATH = "com/tom_roush/pdfbox/resources/afm/";
+    private static final String GLYPHLIST_PATH = "com/tom_roush/pdfbox/resources/glyphlist/";
+    private static final String SCRIPTS_PATH = "com/tom_roush/fontbox/resources/unicode/Scripts.txt";
+    private static final String CMAP_PATH = "com/tom_roush/fontbox/resources/cmap/";
+
+    private ResourceCompiler()
+    {
+    }
+
+    /**
+     * Writes the compiled resources of an assets folder into another folder.
+     *
+     * @param args the path of the assets folder and of the output folder
+     * @throws IOException if a resource could not be compiled or written
+     */
+    public static void main(String[] args) throws IOException
+    {
+        if (args.length != 2)
+        {
+            throw new IllegalArgumentException("usage: " + ResourceCompiler.class.getName()
+                + " <assets folder> <output folder>");
+        }
+        File output = new File(args[1]);
+        for (Map.Entry<String, byte[]> entry : compile(new File(args[0])).entrySet())
+        {
+            File file = new File(output, entry.getKey());
+            if (!file.getParentFile().isDirectory() && !file.getParentFile().mkdirs())
+            {
+                throw new IOException("Could not create " + file.getParentFile());
+            }
+            OutputStream out = new FileOutputStream(file);
+            try
+            {
+                out.write(entry.getValue());
+            }
+            finally
+            {
+                out.close();
+            }
+        }
+    }
+
+    /**
+     * Compiles the text resources of the given assets folder.
+     *
+     * @param assets the assets folder
+     * @return the compiled resources, keyed by their path in the assets
+     * @throws IOException if a resource could not be compiled
+     */
+    public static Map<String, byte[]> compile(File assets) throws IOException
+    {
+        Map<String, byte[]> compiled = new TreeMap<String, byte[]>();
+
+        for (String name : list(new File(assets, AFM_PATH)))
+        {
+            if (name.endsWith(".afm"))
+            {
+                ByteArrayOutputStream out = new ByteArrayOutputStream();
+                // Standard14Fonts only uses the reduced dataset
+                CompiledAFMWriter.compile(open(assets, AFM_PATH + name), out, true);
+                compiled.put(AFM_PATH + name + SUFFIX, out.toByteArray());
+            }
+        }
+
+        // additional.txt is only used with the Adobe Glyph List in LegacyPDFStreamEngine
+        for (String name : new String[] { "glyphlist.txt", "zapfdingbats.txt" })
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            GlyphListCompiler.compile(open(assets, GLYPHLIST_PATH + name), out);
+            compiled.put(GLYPHLIST_PATH + name + SUFFIX, out.toByteArray());
+        }
+
+        ByteArrayOutputStream scripts = new ByteArrayOutputStream();
+        ScriptsFileCompiler.compile(open(assets, SCRIPTS_PATH), scripts);
+        compiled.put(SCRIPTS_PATH + SUFFIX, scripts.toByteArray());
+
+        final File cmapDir = new File(assets, CMAP_PATH);
+        // the CMaps referenced by usecmap are read from the assets folder too
+        CMapParser parser = new CMapParser()
+        {
+            @Override
+            protected InputStream getExternalCMap(String name) throws IOException
+            {
+                return new FileInputStream(new File(cmapDir, name));
+            }
+        };
+        for (String name : list(cmapDir))
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CMapCompiler.compile(parser, name, out);
+            compiled.put(CMAP_PATH + name + SUFFIX, out.toByteArray());
+        }
+        return compiled;
+    }
+
+    private static String[] list(File dir) throws IOException
+    {
+        String[] names = dir.list();
+        if (names == null)
+        {
+            throw new IOException("Could not find " + dir);
+        }
+        Arrays.sort(names);
+        return names;
+    }
+
+    private static InputStream open(File assets, String path) throws IOException
+    {
+        return new FileInputStream(new File(assets, path));
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.font.encoding;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Writes glyph lists in the binary form read by {@link GlyphList}. It is only used at build
+ * time, by the resource compiler.
+ */
+public final class GlyphListCompiler
+{
+    private GlyphListCompiler()
+    {
+    }
+
+    /**
+     * Parses a glyph list file and writes its mappings in a compact binary form, which is loaded
+     * much faster than the text file. The input stream is closed when the parsing is finished.
+     *
+     * @param input glyph list in Adobe format
+     * @param out the stream to write the binary form to, it isn't closed
+     * @throws IOException if the glyph list could not be read or written
+     */
+    public static void compile(InputStream input, OutputStream out) throws IOException
+    {
+        GlyphList glyphList = new GlyphList(input, 16);
+        Map<String, String> nameToUnicode = glyphList.getNameToUnicode();
+        Map<String, String> unicodeToName = glyphList.getUnicodeToName();
+        // sorted, so that the same glyph list is always written the same way
+        List<String> names = new ArrayList<String>(nameToUnicode.keySet());
+        Collections.sort(names);
+        Map<String, Integer> nameIndexes = new HashMap<String, Integer>(names.size());
+        List<String> sequences = new ArrayList<String>(unicodeToName.keySet());
+        Collections.sort(sequences);
+
+        DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+        data.writeInt(GlyphList.COMPILED_MAGIC);
+        data.writeInt(names.size());
+        for (String name : names)
+        {
+            nameIndexes.put(name, nameIndexes.size());
+            data.writeUTF(name);
+            data.writeUTF(nameToUnicode.get(name));
+        }
+        data.writeInt(sequences.size());
+        for (String sequence : sequences)
+        {
+            data.writeUTF(sequence);
+            data.writeInt(nameIndexes.get(unicodeToName.get(sequence)));
+        }
+        data.flush();
+    }
+}
@@ -50,6 +50,39 @@ public class TestCMap
         Assert.assertTrue("a".equals(cMap.toUnicode(200)));
     }
 
+    /**
+     * Check the precedence of single CID mappings over ranges and of earlier over later ranges,
+     * and the lookup of Unicode ranges.
+     */
+    @Test
+    public void testCompiledMappings()
+    {
+        CMap cMap = new CMap();
+        cMap.addCIDRange((char) 0x100, (char) 0x1FF, 1000);
+        cMap.addCIDRange((char) 0x180, (char) 0x2FF, 5000);
+        cMap.addCIDMapping(7, 0x110);
+        cMap.addCIDMapping(0x12345, 0x10000);
+        for (int code = 0x20; code < 0x80; code++)
+        {
+            cMap.addCharMapping(new byte[] { (byte) code }, String.valueOf((char) code));
+        }
+        cMap.addCharMapping(new byte[] { 0x41 }, "fi");
+
+        Assert.assertEquals(1001, cMap.toCID(0x101));
+        Assert.assertEquals(7, cMap.toCID(0x110));
+        Assert.assertEquals(1000 + 0x1FF - 0x100, cMap.toCID(0x1FF));
+        Assert.assertEquals(5000 + 0x200 - 0x180, cMap.toCID(0x200));
+        Assert.assertEquals(0x12345, cMap.toCID(0x10000));
+        Assert.assertEquals(0, cMap.toCID(0x300));
+        Assert.assertEquals(0, cMap.toCID(0x10001));
+
+        Assert.assertEquals("@", cMap.toUnicode(0x40));
+        Assert.assertEquals("fi", cMap.toUnicode(0x41));
+        Assert.assertEquals("B", cMap.toUnicode(0x42));
+        Assert.assertSame(cMap.toUnicode(0x42), cMap.toUnicode(0x42));
+        Assert.assertNull(cMap.toUnicode(0x80));
+    }
+
     /**
      * PDFBOX-3997: test unicode that is above the basic multilingual plane, here: helicopter
      * symbol, or D83D DE81 in the Noto Emoji font.
@@ -16,8 +16,12 @@
  */
 package com.tom_roush.fontbox.cmap;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.InputStream;
 
 import junit.framework.TestCase;
 
@@ -110,4 +114,37 @@ public class TestCMapParser extends TestCase
 
         assertNotNull("Failed to parse nasty CMap file", cMap);
     }
+
+    /**
+     * The compiled form of a predefined CMap maps the same codes as the CMap file.
+     *
+     * @throws IOException If something went wrong
+     */
+    public void testCompiledCMap() throws IOException
+    {
+        CMapParser parser = new CMapParser();
+        // UniJIS-UCS2-V uses the CMap UniJIS-UCS2-H
+        for (String name : new String[] { "UniJIS-UCS2-V", "Adobe-Japan1-UCS2", "Identity-H" })
+        {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            CMapCompiler.compile(parser, name, out);
+            CMap actual = CMap.readCompiled(
+                new DataInputStream(new ByteArrayInputStream(out.toByteArray())));
+            CMap expected = parser.parsePredefined(name);
+            assertEquals(expected.getName(), actual.getName());
+            assertEquals(expected.getWMode(), actual.getWMode());
+            assertEquals(expected.getOrdering(), actual.getOrdering());
+            assertEquals(expected.getSpaceMapping(), actual.getSpaceMapping());
+            for (int code = 0; code <= 0xFFFF; code++)
+            {
+                assertEquals(expected.toCID(code), actual.toCID(code));
+                assertEquals(expected.toUnicode(code), actual.toUnicode(code));
+            }
+            byte[] bytes = { 0x30, 0x42, (byte) 0xFF, 0x01 };
+            InputStream expectedIn = new ByteArrayInputStream(bytes);
+            InputStream actualIn = new ByteArrayInputStream(bytes);
+            assertEquals(expected.readCode(expectedIn), actual.readCode(actualIn));
+            assertEquals(expected.readCode(expectedIn), actual.readCode(actualIn));
+        }
+    }
 }
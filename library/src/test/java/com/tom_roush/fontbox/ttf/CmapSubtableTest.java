@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.ttf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class CmapSubtableTest extends TestCase
+{
+    /**
+     * Format 4 with a delta segment, a segment using the glyph id array and the final segment.
+     */
+    public void testFormat4() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeShort(6); // segCountX2
+        out.writeShort(4);
+        out.writeShort(1);
+        out.writeShort(2);
+        writeShorts(out, 0x7E, 0x4E03, 0xFFFF); // endCode
+        out.writeShort(0);
+        writeShorts(out, 0x20, 0x4E00, 0xFFFF); // startCode
+        writeShorts(out, -29, 0, 1); // idDelta
+        writeShorts(out, 0, 4, 0); // idRangeOffset
+        writeShorts(out, 110, 0, 111, 110); // glyphIdArray
+
+        CmapSubtable cmap = new CmapSubtable();
+        cmap.processSubtype4(new MemoryTTFDataStream(new ByteArrayInputStream(bytes.toByteArray())), 200);
+
+        assertEquals(36, cmap.getGlyphId('A'));
+        assertEquals(3, cmap.getGlyphId(' '));
+        assertEquals(0, cmap.getGlyphId(0x1F));
+        assertEquals(110, cmap.getGlyphId(0x4E00));
+        assertEquals(0, cmap.getGlyphId(0x4E01));
+        assertEquals(111, cmap.getGlyphId(0x4E02));
+        assertEquals(0, cmap.getGlyphId(0xFFFF));
+
+        assertEquals(Arrays.asList(0x4E00, 0x4E03), cmap.getCharCodes(110));
+        assertEquals(Arrays.asList((int) 'A'), cmap.getCharCodes(36));
+        assertEquals(Integer.valueOf(0x4E00), cmap.getCharacterCode(110));
+        assertNull(cmap.getCharCodes(112));
+        assertNull(cmap.getCharCodes(70000));
+        assertNull(cmap.getCharacterCode(-1));
+    }
+
+    /**
+     * Format 12 groups which overlap, the later group wins like in an expanded map.
+     */
+    public void testFormat12Overlapping() throws IOException
+    {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(3);
+        writeGroup(out, 0x4E00, 0x4E09, 1);
+        writeGroup(out, 0x4E05, 0x4E06, 50);
+        // truncated to the number of glyphs
+        writeGroup(out, 0x20000, 0x20010, 190);
+
+        CmapSubtable cmap = new CmapSubtable();
+        cmap.processSubtype12(new MemoryTTFDataStream(new ByteArrayInputStream(bytes.toByteArray())), 200);
+
+        assertEquals(5, cmap.getGlyphId(0x4E04));
+        assertEquals(50, cmap.getGlyphId(0x4E05));
+        assertEquals(51, cmap.getGlyphId(0x4E06));
+        assertEquals(8, cmap.getGlyphId(0x4E07));
+        assertEquals(199, cmap.getGlyphId(0x20009));
+        assertEquals(0, cmap.getGlyphId(0x2000A));
+        assertNull(cmap.getCharCodes(6));
+        assertEquals(Arrays.asList(0x4E06), cmap.getCharCodes(51));
+    }
+
+    /**
+     * Every mapped code of a real font must be returned by the reverse lookup of its glyph.
+     */
+    public void testReverseLookup() throws IOException
+    {
+        TrueTypeFont ttf = new TTFParser().parse(
+            getClass().getResourceAsStream("/fontbox/ttf/LiberationSans-Regular.ttf"));
+        CmapSubtable cmap = ttf.getCmap().getSubtable(CmapTable.PLATFORM_WINDOWS,
+            CmapTable.ENCODING_WIN_UNICODE_BMP);
+        int mapped = 0;
+        for (int code = 0; code <= 0xFFFF; code++)
+        {
+            int gid = cmap.getGlyphId(code);
+            if (gid != 0)
+            {
+                List<Integer> codes = cmap.getCharCodes(gid);
+                assertNotNull(codes);
+                assertTrue(codes.contains(code));
+                mapped++;
+            }
+        }
+        assertTrue(mapped > 2000);
+        ttf.close();
+    }
+
+    private static void writeShorts(DataOutputStream out, int... values) throws IOException
+    {
+        for (int value : values)
+        {
+            out.writeShort(value);
+        }
+    }
+
+    private static void writeGroup(DataOutputStream out, int startCode, int endCode,
+        int startGlyph) throws IOException
+    {
+        out.writeInt(startCode);
+        out.writeInt(endCode);
+        out.writeInt(startGlyph);
+    }
+}
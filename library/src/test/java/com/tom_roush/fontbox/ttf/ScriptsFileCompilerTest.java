@@ -0,0 +1,56 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.fontbox.ttf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * The compiled Scripts.txt must give the same script tags as the text file it is compiled from.
+ */
+public class ScriptsFileCompilerTest extends TestCase
+{
+    private static final File SCRIPTS_FILE =
+        new File("src/main/assets/com/tom_roush/fontbox/resources/unicode/Scripts.txt");
+
+    public void testRoundTrip() throws IOException
+    {
+        OpenTypeScript.UnicodeRanges expected = new OpenTypeScript.UnicodeRanges(
+            OpenTypeScript.parseScriptsFile(new FileInputStream(SCRIPTS_FILE)));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ScriptsFileCompiler.compile(new FileInputStream(SCRIPTS_FILE), out);
+        OpenTypeScript.UnicodeRanges actual = OpenTypeScript.readCompiledScriptsFile(
+            new ByteArrayInputStream(out.toByteArray()));
+
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++)
+        {
+            String[] expectedTags = expected.getScriptTags(codePoint);
+            String[] actualTags = actual.getScriptTags(codePoint);
+            if (!Arrays.equals(expectedTags, actualTags))
+            {
+                fail("U+" + Integer.toHexString(codePoint) + ": " + Arrays.toString(expectedTags)
+                    + " != " + Arrays.toString(actualTags));
+            }
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package com.tom_roush.pdfbox.android;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Map;
+
+import com.tom_roush.fontbox.afm.AFMParser;
+import com.tom_roush.fontbox.afm.CharMetric;
+import com.tom_roush.fontbox.afm.CompiledAFM;
+import com.tom_roush.fontbox.afm.FontMetrics;
+
+import junit.framework.TestCase;
+
+public class ResourceCompilerTest extends TestCase
+{
+    private static final File ASSETS = new File("src/main/assets");
+
+    /**
+     * All text resources which are loaded at runtime are compiled.
+     */
+    public void testCompileResources() throws IOException
+    {
+        Map<String, byte[]> compiled = ResourceCompiler.compile(ASSETS);
+        assertEquals(14 + 2 + 1 + 91, compiled.size());
+        for (Map.Entry<String, byte[]> entry : compiled.entrySet())
+        {
+            String path = entry.getKey();
+            assertTrue(path, path.endsWith(".bin"));
+            assertTrue(path, new File(ASSETS, path.substring(0, path.length() - 4)).exists());
+            assertTrue(path, entry.getValue().length > 0);
+        }
+    }
+
+    public void testCompiledAFM() throws IOException
+    {
+        String path = "com/tom_roush/pdfbox/resources/afm/Helvetica.afm";
+        FontMetrics expected = new AFMParser(new FileInputStream(new File(ASSETS, path))).parse(true);
+        byte[] compiled = ResourceCompiler.compile(ASSETS).get(path + ".bin");
+        FontMetrics actual = CompiledAFM.read(new ByteArrayInputStream(compiled));
+
+        assertEquals(expected.getFontName(), actual.getFontName());
+        assertEquals(expected.getFontBBox().toString(), actual.getFontBBox().toString());
+        assertEquals(expected.getCapHeight(), actual.getCapHeight());
+        assertEquals(expected.getCharMetrics().size(), actual.getCharMetrics().size());
+        for (CharMetric metric : expected.getCharMetrics())
+        {
+            assertEquals(metric.getWx(), actual.getCharacterWidth(metric.getName()));
+            assertEquals(metric.getBoundingBox().getHeight(),
+                actual.getCharacterHeight(metric.getName()));
+        }
+        assertEquals(expected.getCharMetrics().get(0).getLigatures().size(),
+            actual.getCharMetrics().get(0).getLigatures().size());
+    }
+}
@@ -307,6 +307,54 @@ public class TestCOSFloat extends TestCOSNumber
         assertEquals(-16.33f, cosFloat.floatValue());
     }
 
+    public void testMalformed() throws IOException
+    {
+        // PDFBOX-2990
+        assertEquals(-0.0000033917698f, new COSFloat("0.00000-33917698").floatValue());
+        // PDFBOX-3500
+        assertEquals(-0.262f, new COSFloat("0.-262").floatValue());
+        String[] invalid = { "1.0.0", "NaN", "Infinity", "1.5f", "0x1p3", "1e", "-", "." };
+        for (String number : invalid)
+        {
+            try
+            {
+                new COSFloat(number);
+                fail("IOException expected for " + number);
+            }
+            catch (IOException e)
+            {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Tests the constructor used by the parsers, it must give the same values as parsing the
+     * number from a string, and its string representation must be parsed to the same value.
+     */
+    public void testUnscaledValue() throws IOException
+    {
+        Random rnd = new Random(4711);
+        for (int i = 0; i < 100000; i++)
+        {
+            long unscaledValue = rnd.nextLong() % (long) Math.pow(10, 1 + rnd.nextInt(18));
+            int scale = rnd.nextInt(20);
+            String number = BigDecimal.valueOf(unscaledValue, scale).toPlainString();
+            COSFloat parsed = new COSFloat(unscaledValue, scale);
+            COSFloat expected = new COSFloat(number);
+            assertEquals(number, expected.floatValue(), parsed.floatValue());
+            assertEquals(number, expected.doubleValue(), parsed.doubleValue());
+
+            ByteArrayOutputStream outStream = new ByteArrayOutputStream();
+            parsed.writePDF(outStream);
+            assertEquals(number, parsed.doubleValue(),
+                new COSFloat(outStream.toString("ISO-8859-1")).doubleValue());
+        }
+        assertEquals("COSFloat{1.5}", new COSFloat(15, 1).toString());
+        assertEquals(0.5f, new COSFloat(5, 1).floatValue());
+        assertEquals(-123.456f, new COSFloat(-123456, 3).floatValue());
+    }
+
     private String floatToString(float value)
     {
         // use a BigDecimal as intermediate state to avoid 
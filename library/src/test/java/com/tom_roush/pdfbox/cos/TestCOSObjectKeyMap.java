@@ -0,0 +1,163 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.cos;
+
+import java.io.IOException;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestCOSObjectKeyMap extends TestCase
+{
+    /**
+     * Compare random operations with a HashMap, including keys which can't be packed and
+     * enough keys to rehash several times.
+     */
+    public void testSameAsHashMap()
+    {
+        Random random = new Random(4711);
+        for (int keyCount : new int[] { 5, 100, 5000 })
+        {
+            Map<COSObjectKey, Long> expected = new HashMap<COSObjectKey, Long>();
+            Map<COSObjectKey, Long> actual = new COSObjectKeyLongMap();
+            for (int i = 0; i < 20000; i++)
+            {
+                COSObjectKey key = randomKey(random, keyCount);
+                switch (random.nextInt(6))
+                {
+                    case 0:
+                    case 1:
+                        long value = random.nextLong();
+                        assertEquals(expected.put(key, value), actual.put(key, value));
+                        break;
+                    case 2:
+                        assertEquals(expected.remove(key), actual.remove(key));
+                        break;
+                    case 3:
+                        assertEquals(expected.get(key), actual.get(key));
+                        assertEquals(expected.containsKey(key), actual.containsKey(key));
+                        break;
+                    case 4:
+                        removeWithIterator(expected, key);
+                        removeWithIterator(actual, key);
+                        break;
+                    default:
+                        if (random.nextInt(1000) == 0)
+                        {
+                            expected.clear();
+                            actual.clear();
+                        }
+                        break;
+                }
+                assertEquals(expected.size(), actual.size());
+            }
+            assertEquals(expected, actual);
+            assertEquals(actual, expected);
+            assertEquals(expected.hashCode(), actual.hashCode());
+        }
+    }
+
+    private static COSObjectKey randomKey(Random random, int keyCount)
+    {
+        switch (random.nextInt(20))
+        {
+            case 0:
+                return new COSObjectKey(-1 - random.nextInt(3), 0);
+            case 1:
+                return new COSObjectKey(random.nextInt(3), 65536 + random.nextInt(3));
+            case 2:
+                return new COSObjectKey(Long.MAX_VALUE - random.nextInt(3), 0);
+            default:
+                return new COSObjectKey(random.nextInt(keyCount), random.nextInt(3));
+        }
+    }
+
+    private static void removeWithIterator(Map<COSObjectKey, Long> map, COSObjectKey key)
+    {
+        for (Iterator<Map.Entry<COSObjectKey, Long>> it = map.entrySet().iterator(); it.hasNext();)
+        {
+            if (it.next().getKey().equals(key))
+            {
+                it.remove();
+            }
+        }
+    }
+
+    public void testObjectValues() throws IOException
+    {
+        Map<COSObjectKey, COSObject> map = new COSObjectKeyMap<COSObject>();
+        COSObject object = new COSObject(COSInteger.ONE);
+        assertNull(map.put(new COSObjectKey(7, 0), object));
+        assertNull(map.put(new COSObjectKey(7, 1), null));
+        assertSame(object, map.get(new COSObjectKey(7, 0)));
+        assertTrue(map.containsKey(new COSObjectKey(7, 1)));
+        assertNull(map.get(new COSObjectKey(7, 1)));
+        assertNull(map.get(new COSObjectKey(8, 0)));
+        assertNull(map.get("7 0 R"));
+        assertEquals(2, map.size());
+        assertSame(object, map.remove(new COSObjectKey(7, 0)));
+        assertEquals(1, map.size());
+    }
+
+    public void testEntrySetValue()
+    {
+        Map<COSObjectKey, Long> map = new COSObjectKeyLongMap();
+        map.put(new COSObjectKey(3, 0), 10L);
+        Map.Entry<COSObjectKey, Long> entry = map.entrySet().iterator().next();
+        assertEquals(new COSObjectKey(3, 0), entry.getKey());
+        assertEquals(Long.valueOf(10), entry.setValue(20L));
+        assertEquals(Long.valueOf(20), map.get(new COSObjectKey(3, 0)));
+    }
+
+    public void testNullOffset()
+    {
+        Map<COSObjectKey, Long> map = new COSObjectKeyLongMap();
+        try
+        {
+            map.put(new COSObjectKey(1, 0), null);
+            fail("NullPointerException expected");
+        }
+        catch (NullPointerException e)
+        {
+            // expected
+        }
+        assertTrue(map.isEmpty());
+    }
+
+    public void testConcurrentModification()
+    {
+        Map<COSObjectKey, Long> map = new COSObjectKeyLongMap();
+        map.put(new COSObjectKey(1, 0), 1L);
+        map.put(new COSObjectKey(2, 0), 2L);
+        Iterator<COSObjectKey> it = map.keySet().iterator();
+        it.next();
+        map.put(new COSObjectKey(3, 0), 3L);
+        try
+        {
+            it.next();
+            fail("ConcurrentModificationException expected");
+        }
+        catch (ConcurrentModificationException e)
+        {
+            // expected
+        }
+    }
+}
@@ -25,6 +25,9 @@ import java.util.Arrays;
 import com.tom_roush.pdfbox.filter.Filter;
 import com.tom_roush.pdfbox.filter.FilterFactory;
 import com.tom_roush.pdfbox.io.IOUtils;
+import com.tom_roush.pdfbox.io.RandomAccessBuffer;
+import com.tom_roush.pdfbox.io.RandomAccessReadView;
+import com.tom_roush.pdfbox.io.ScratchFile;
 
 import junit.framework.TestCase;
 
@@ -148,6 +151,55 @@ public class TestCOSStream extends TestCase
         validateEncoded(stream, testStringEncoded);
     }
 
+    /**
+     * A stream sharing the data of another one keeps it when the other one is closed or
+     * rewritten, and rewriting it doesn't change the other one.
+     */
+    public void testSharedRawData() throws IOException
+    {
+        byte[] testString = "This is a test string to be shared".getBytes("ASCII");
+        COSStream source = createStream(testString, COSName.FLATE_DECODE);
+        COSStream shared = new COSStream();
+        shared.shareRawData(source);
+        shared.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        assertTrue(Arrays.equals(IOUtils.toByteArray(source.createRawInputStream()),
+            IOUtils.toByteArray(shared.createRawInputStream())));
+
+        COSStream rewritten = new COSStream();
+        rewritten.shareRawData(source);
+        OutputStream output = rewritten.createRawOutputStream();
+        output.write(1);
+        output.close();
+        assertEquals(1, IOUtils.toByteArray(rewritten.createRawInputStream()).length);
+
+        OutputStream sourceOutput = source.createOutputStream();
+        sourceOutput.write("changed".getBytes("ASCII"));
+        sourceOutput.close();
+        source.close();
+        validateDecoded(shared, testString);
+        rewritten.close();
+    }
+
+    /**
+     * A stream sharing data read on demand from a source gets a copy when the stream owning the
+     * data is closed, e.g. with its document.
+     */
+    public void testSharedRawDataOfView() throws IOException
+    {
+        byte[] file = "xxxstream datayyy".getBytes("ASCII");
+        RandomAccessBuffer buffer = new RandomAccessBuffer(file);
+        COSStream source = new COSStream(ScratchFile.getMainMemoryOnlyInstance(),
+            new RandomAccessReadView(buffer, 3, 11));
+        COSStream shared = new COSStream();
+        shared.shareRawData(source);
+        COSStream sharedTwice = new COSStream();
+        sharedTwice.shareRawData(shared);
+        shared.close();
+        source.close();
+        buffer.close();
+        validateEncoded(sharedTwice, "stream data".getBytes("ASCII"));
+    }
+
     private byte[] encodeData(byte[] original, COSName filter) throws IOException
     {
         Filter encodingFilter = FilterFactory.INSTANCE.getFilter(filter);
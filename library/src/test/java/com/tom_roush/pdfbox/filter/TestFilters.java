@@ -19,6 +19,7 @@ package com.tom_roush.pdfbox.filter;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Random;
 
@@ -142,5 +143,82 @@ public class TestFilters extends TestCase
             "Data that is encoded and then decoded through "
                 + filter.getClass() + " does not match the original data",
             Arrays.equals(original, decoded.toByteArray()));
+
+        InputStream streaming = filter.decodeStreaming(new ByteArrayInputStream(encoded.toByteArray()),
+            new COSDictionary(), 0, DecodeOptions.DEFAULT);
+        if (streaming != null)
+        {
+            assertTrue(
+                "Data that is encoded and then decoded on demand through "
+                    + filter.getClass() + " does not match the original data",
+                Arrays.equals(original, IOUtils.toByteArray(streaming)));
+        }
+    }
+
+    /**
+     * Test that streaming decoding with a PNG predictor gives the same result as buffered
+     * decoding, including an incomplete last row.
+     *
+     * @throws IOException
+     */
+    public void testStreamingPredictor() throws IOException
+    {
+        Random random = new Random(4711);
+        int columns = 17;
+        int rowLength = columns * 3;
+        ByteArrayOutputStream predicted = new ByteArrayOutputStream();
+        for (int row = 0; row < 40; row++)
+        {
+            predicted.write(random.nextInt(5));
+            for (int i = 0; i < rowLength; i++)
+            {
+                predicted.write(random.nextInt(256));
+            }
+        }
+        // incomplete last row
+        predicted.write(4);
+        predicted.write(17);
+
+        COSDictionary decodeParms = new COSDictionary();
+        decodeParms.setInt(COSName.PREDICTOR, 15);
+        decodeParms.setInt(COSName.COLORS, 3);
+        decodeParms.setInt(COSName.COLUMNS, columns);
+        COSDictionary parameters = new COSDictionary();
+        parameters.setItem(COSName.FILTER, COSName.FLATE_DECODE);
+        parameters.setItem(COSName.DECODE_PARMS, decodeParms);
+
+        Filter filter = FilterFactory.INSTANCE.getFilter(COSName.FLATE_DECODE);
+        ByteArrayOutputStream encoded = new ByteArrayOutputStream();
+        filter.encode(new ByteArrayInputStream(predicted.toByteArray()), encoded, new COSDictionary());
+
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        filter.decode(new ByteArrayInputStream(encoded.toByteArray()), decoded, parameters, 0);
+        InputStream streaming = filter.decodeStreaming(new ByteArrayInputStream(encoded.toByteArray()),
+            parameters, 0, DecodeOptions.DEFAULT);
+        byte[] streamed = IOUtils.toByteArray(streaming);
+
+        assertEquals(41 * rowLength, streamed.length);
+        assertTrue(Arrays.equals(decoded.toByteArray(), streamed));
+    }
+
+    /**
+     * Test that streaming run length decoding gives the same result as buffered decoding.
+     *
+     * @throws IOException
+     */
+    public void testStreamingRunLength() throws IOException
+    {
+        byte[] encoded = { 2, 'a', 'b', 'c', (byte) 253, 'x', 0, 'y', (byte) 129, 'z', (byte) 128, 'q' };
+        Filter filter = FilterFactory.INSTANCE.getFilter(COSName.RUN_LENGTH_DECODE);
+        ByteArrayOutputStream decoded = new ByteArrayOutputStream();
+        filter.decode(new ByteArrayInputStream(encoded), decoded, new COSDictionary(), 0);
+        InputStream streaming = filter.decodeStreaming(new ByteArrayInputStream(encoded),
+            new COSDictionary(), 0, DecodeOptions.DEFAULT);
+        byte[] streamed = IOUtils.toByteArray(streaming);
+
+        // 3 literal bytes, 4 times 'x', 1 literal byte, 128 times 'z', then EOD
+        assertEquals(136, streamed.length);
+        assertTrue(new String(streamed, "US-ASCII").startsWith("abcxxxxyzz"));
+        assertTrue(Arrays.equals(decoded.toByteArray(), streamed));
     }
 }
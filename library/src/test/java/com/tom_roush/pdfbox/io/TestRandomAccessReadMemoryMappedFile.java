@@ -0,0 +1,113 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.io;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+/**
+ * This is a unit test for {@link RandomAccessReadMemoryMappedFile}.
+ */
+public class TestRandomAccessReadMemoryMappedFile extends TestCase
+{
+    private File file;
+
+    @Override
+    protected void setUp() throws IOException
+    {
+        byte[] data = new byte[100];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) i;
+        }
+        file = File.createTempFile("pdfbox", ".bin");
+        FileOutputStream out = new FileOutputStream(file);
+        out.write(data);
+        out.close();
+    }
+
+    @Override
+    protected void tearDown()
+    {
+        file.delete();
+    }
+
+    public void testReadAcrossChunks() throws IOException
+    {
+        // 16 byte chunks, so that most reads cross a chunk boundary
+        RandomAccessReadMemoryMappedFile mapped = new RandomAccessReadMemoryMappedFile(file, 4);
+        assertEquals(100, mapped.length());
+        assertEquals(0, mapped.read());
+
+        byte[] b = new byte[40];
+        assertEquals(40, mapped.read(b, 0, b.length));
+        assertEquals(1, b[0]);
+        assertEquals(40, b[39]);
+        assertEquals(41, mapped.getPosition());
+
+        mapped.seek(95);
+        assertEquals(95, mapped.peek());
+        assertEquals(5, mapped.available());
+        assertEquals(5, mapped.read(b, 0, b.length));
+        assertEquals(99, b[4]);
+        assertTrue(mapped.isEOF());
+        assertEquals(-1, mapped.read());
+        assertEquals(-1, mapped.read(b));
+
+        mapped.rewind(20);
+        assertTrue(Arrays.equals(new byte[] { 80, 81, 82 }, mapped.readFully(3)));
+        mapped.close();
+    }
+
+    public void testReadFullyBeyondEOF() throws IOException
+    {
+        RandomAccessReadMemoryMappedFile mapped = new RandomAccessReadMemoryMappedFile(file);
+        mapped.seek(90);
+        try
+        {
+            mapped.readFully(11);
+            fail("readFully beyond the end of the file must fail");
+        }
+        catch (EOFException e)
+        {
+            // expected
+        }
+        assertEquals(90, mapped.getPosition());
+        mapped.close();
+    }
+
+    public void testClose() throws IOException
+    {
+        RandomAccessReadMemoryMappedFile mapped = new RandomAccessReadMemoryMappedFile(file);
+        mapped.close();
+        assertTrue(mapped.isClosed());
+        try
+        {
+            mapped.read();
+            fail("reading from a closed file must fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+}
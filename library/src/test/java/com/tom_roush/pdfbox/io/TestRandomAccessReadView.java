@@ -0,0 +1,85 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.io;
+
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * This is a unit test for {@link RandomAccessReadView}.
+ */
+public class TestRandomAccessReadView extends TestCase
+{
+    private static final byte[] DATA = { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 };
+
+    public void testReadWithinWindow() throws IOException
+    {
+        RandomAccessBuffer buffer = new RandomAccessBuffer(DATA);
+        RandomAccessReadView view = new RandomAccessReadView(buffer, 3, 4);
+        assertEquals(4, view.length());
+        assertEquals(3, view.read());
+        assertEquals(4, view.peek());
+        assertEquals(1, view.getPosition());
+
+        byte[] b = new byte[10];
+        assertEquals(3, view.read(b, 0, b.length));
+        assertEquals(4, b[0]);
+        assertEquals(6, b[2]);
+        assertTrue(view.isEOF());
+        assertEquals(-1, view.read());
+
+        view.rewind(2);
+        assertEquals(2, view.available());
+        assertEquals(5, view.readFully(2)[0]);
+        buffer.close();
+    }
+
+    public void testSourcePositionIsRestored() throws IOException
+    {
+        RandomAccessBuffer buffer = new RandomAccessBuffer(DATA);
+        buffer.seek(8);
+        RandomAccessReadView view = new RandomAccessReadView(buffer, 2, 5);
+        view.seek(1);
+        assertEquals(3, view.read());
+        assertEquals(8, buffer.getPosition());
+        assertEquals(8, buffer.read());
+        buffer.close();
+    }
+
+    public void testClose() throws IOException
+    {
+        RandomAccessBuffer buffer = new RandomAccessBuffer(DATA);
+        RandomAccessReadView view = new RandomAccessReadView(buffer, 2, 5);
+        view.close();
+        assertTrue(view.isClosed());
+        assertFalse(buffer.isClosed());
+
+        view = new RandomAccessReadView(buffer, 2, 5);
+        buffer.close();
+        assertTrue(view.isClosed());
+        try
+        {
+            view.read();
+            fail("reading from a view of a closed source must fail");
+        }
+        catch (IOException e)
+        {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,137 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.multipdf;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Collections;
+
+import com.tom_roush.pdfbox.cos.COSName;
+import com.tom_roush.pdfbox.io.MemoryUsageSetting;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDDocumentInformation;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.common.PDRectangle;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.pdmodel.interactive.annotation.PDAnnotation;
+import com.tom_roush.pdfbox.pdmodel.interactive.annotation.PDAnnotationLink;
+import com.tom_roush.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageDestination;
+import com.tom_roush.pdfbox.pdmodel.interactive.documentnavigation.destination.PDPageFitDestination;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import junit.framework.TestCase;
+
+/**
+ * Test suite for PDFMergerUtility.
+ */
+public class PDFMergerUtilityTest extends TestCase
+{
+    /**
+     * The streaming mode must give the same pages as merging in memory, with the resources
+     * shared by the pages of a source document and the links between them kept.
+     */
+    public void testStreamingMerge() throws IOException
+    {
+        byte[] first = createDocument("first", 3);
+        byte[] second = createDocument("second", 2);
+
+        PDFMergerUtility merger = new PDFMergerUtility();
+        merger.setDocumentMergeMode(PDFMergerUtility.DocumentMergeMode.STREAMING_MODE);
+        merger.addSource(new ByteArrayInputStream(first));
+        merger.addSource(new ByteArrayInputStream(second));
+        PDDocumentInformation info = new PDDocumentInformation();
+        info.setTitle("Merged");
+        merger.setDestinationDocumentInformation(info);
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        merger.setDestinationStream(output);
+        merger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
+
+        PDDocument merged = PDDocument.load(output.toByteArray());
+        assertEquals(5, merged.getNumberOfPages());
+        assertEquals("Merged", merged.getDocumentInformation().getTitle());
+        assertEquals(2, merged.getDocument().getTrailer().getCOSArray(COSName.ID).size());
+        String text = new PDFTextStripper().getText(merged);
+        assertTrue(text.indexOf("first 0") < text.indexOf("first 2"));
+        assertTrue(text.indexOf("first 2") < text.indexOf("second 0"));
+        assertTrue(text.indexOf("second 0") < text.indexOf("second 1"));
+
+        // the font is written once per source document
+        COSName font = COSName.getPDFName("F1");
+        assertSame(merged.getPage(0).getResources().getFont(font).getCOSObject(),
+            merged.getPage(2).getResources().getFont(font).getCOSObject());
+
+        // the link on the first page of each source still points to its last page
+        PDAnnotationLink link = (PDAnnotationLink) merged.getPage(3).getAnnotations().get(0);
+        PDPageDestination destination = (PDPageDestination) link.getDestination();
+        assertEquals(4, merged.getPages().indexOf(destination.getPage()));
+        link = (PDAnnotationLink) merged.getPage(0).getAnnotations().get(0);
+        destination = (PDPageDestination) link.getDestination();
+        assertEquals(2, merged.getPages().indexOf(destination.getPage()));
+        merged.close();
+    }
+
+    /**
+     * The OPTIMIZE_RESOURCES_MODE closes each source before the result is saved, the cloned
+     * streams which share the data of the source must get a copy of it then.
+     */
+    public void testOptimizedMergeClosesSources() throws IOException
+    {
+        PDFMergerUtility merger = new PDFMergerUtility();
+        merger.setDocumentMergeMode(PDFMergerUtility.DocumentMergeMode.OPTIMIZE_RESOURCES_MODE);
+        merger.addSource(new ByteArrayInputStream(createDocument("first", 2)));
+        merger.addSource(new ByteArrayInputStream(createDocument("second", 1)));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        merger.setDestinationStream(output);
+        merger.mergeDocuments(MemoryUsageSetting.setupMainMemoryOnly());
+
+        PDDocument merged = PDDocument.load(output.toByteArray());
+        assertEquals(3, merged.getNumberOfPages());
+        String text = new PDFTextStripper().getText(merged);
+        assertTrue(text.contains("first 1"));
+        assertTrue(text.contains("second 0"));
+        merged.close();
+    }
+
+    private static byte[] createDocument(String name, int pageCount) throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        for (int i = 0; i < pageCount; i++)
+        {
+            PDPage page = new PDPage(PDRectangle.A4);
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText(name + " " + i);
+            contents.endText();
+            contents.close();
+        }
+        PDPageFitDestination destination = new PDPageFitDestination();
+        destination.setPage(doc.getPage(pageCount - 1));
+        PDAnnotationLink link = new PDAnnotationLink();
+        link.setRectangle(new PDRectangle(50, 50, 100, 20));
+        link.setDestination(destination);
+        doc.getPage(0).setAnnotations(Collections.<PDAnnotation>singletonList(link));
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        doc.save(output);
+        doc.close();
+        return output.toByteArray();
+    }
+}
@@ -0,0 +1,279 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.multipdf;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tom_roush.pdfbox.io.RandomAccessBuffer;
+import com.tom_roush.pdfbox.pdfparser.PDFParser;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import junit.framework.TestCase;
+
+/**
+ * Test suite for Splitter.
+ */
+public class SplitterTest extends TestCase
+{
+    /**
+     * Splitting on an executor must give the same parts as splitting into a list, with no more
+     * parts in memory than allowed.
+     */
+    public void testParallelSplit() throws IOException, InterruptedException
+    {
+        PDDocument source = createDocument(7);
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        source.save(saved);
+        source.close();
+        source = PDDocument.load(saved.toByteArray());
+
+        Splitter splitter = new Splitter();
+        splitter.setSplitAtPage(2);
+        List<PDDocument> expected = splitter.split(source);
+        assertEquals(4, expected.size());
+
+        final ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[expected.size()];
+        final AtomicInteger resident = new AtomicInteger();
+        final AtomicInteger maxResident = new AtomicInteger();
+        splitter = new Splitter()
+        {
+            @Override
+            protected PDDocument createNewDocument() throws IOException
+            {
+                int count = resident.incrementAndGet();
+                if (count > maxResident.get())
+                {
+                    maxResident.set(count);
+                }
+                return super.createNewDocument();
+            }
+        };
+        splitter.setSplitAtPage(2);
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try
+        {
+            splitter.split(source, executor, 2, new Splitter.OutputStreamFactory()
+            {
+                @Override
+                public OutputStream createOutputStream(int index)
+                {
+                    outputs[index] = new ByteArrayOutputStream()
+                    {
+                        @Override
+                        public void close() throws IOException
+                        {
+                            super.close();
+                            resident.decrementAndGet();
+                        }
+                    };
+                    return outputs[index];
+                }
+            });
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        assertTrue(maxResident.get() <= 2);
+
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int i = 0; i < expected.size(); i++)
+        {
+            PDDocument part = PDDocument.load(outputs[i].toByteArray());
+            assertEquals(expected.get(i).getNumberOfPages(), part.getNumberOfPages());
+            assertEquals(stripper.getText(expected.get(i)), stripper.getText(part));
+            part.close();
+            expected.get(i).close();
+        }
+        source.close();
+    }
+
+    /**
+     * The objects of a fast opened source are read on demand, possibly while the parts are
+     * saved by several threads.
+     */
+    public void testParallelSplitFastOpen() throws IOException
+    {
+        PDDocument source = createDocument(12);
+        ByteArrayOutputStream saved = new ByteArrayOutputStream();
+        source.save(saved);
+        source.close();
+        source = PDDocument.load(saved.toByteArray());
+        List<PDDocument> expected = new Splitter().split(source);
+
+        PDFParser parser = new PDFParser(new RandomAccessBuffer(saved.toByteArray()));
+        parser.setFastOpen(true);
+        parser.parse();
+        PDDocument fastSource = parser.getPDDocument();
+        final ByteArrayOutputStream[] outputs = new ByteArrayOutputStream[expected.size()];
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            new Splitter().split(fastSource, executor, 4, new Splitter.OutputStreamFactory()
+            {
+                @Override
+                public OutputStream createOutputStream(int index)
+                {
+                    outputs[index] = new ByteArrayOutputStream();
+                    return outputs[index];
+                }
+            });
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        PDFTextStripper stripper = new PDFTextStripper();
+        for (int i = 0; i < expected.size(); i++)
+        {
+            PDDocument part = PDDocument.load(outputs[i].toByteArray());
+            assertEquals(stripper.getText(expected.get(i)), stripper.getText(part));
+            part.close();
+            expected.get(i).close();
+        }
+        fastSource.close();
+        source.close();
+    }
+
+    /**
+     * A failing part is reported after the other parts have been processed.
+     */
+    public void testParallelSplitFailure() throws IOException
+    {
+        PDDocument source = createDocument(5);
+        final AtomicInteger processed = new AtomicInteger();
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            new Splitter().split(source, executor, 1, new Splitter.PartConsumer()
+            {
+                @Override
+                public void accept(PDDocument part, int index) throws IOException
+                {
+                    processed.incrementAndGet();
+                    if (index == 1)
+                    {
+                        throw new IOException("part " + index);
+                    }
+                }
+            });
+            fail("IOException expected");
+        }
+        catch (IOException e)
+        {
+            assertEquals("part 1", e.getMessage());
+            // no new parts are started once a part failed
+            assertTrue(processed.get() < 5);
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        source.close();
+    }
+
+    /**
+     * An error while splitting isn't replaced by the failure of a part which is still being
+     * processed.
+     */
+    public void testParallelSplitFailureWhileSplitting() throws IOException
+    {
+        PDDocument source = createDocument(3);
+        final CountDownLatch splitFailed = new CountDownLatch(1);
+        Splitter splitter = new Splitter()
+        {
+            private int pageCount;
+
+            @Override
+            protected void processPage(PDPage page) throws IOException
+            {
+                // the first part has been handed to the executor when the second page is added
+                super.processPage(page);
+                if (pageCount++ == 1)
+                {
+                    splitFailed.countDown();
+                    throw new IOException("page 1");
+                }
+            }
+        };
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try
+        {
+            splitter.split(source, executor, 2, new Splitter.PartConsumer()
+            {
+                @Override
+                public void accept(PDDocument part, int index) throws IOException
+                {
+                    try
+                    {
+                        splitFailed.await();
+                    }
+                    catch (InterruptedException e)
+                    {
+                        Thread.currentThread().interrupt();
+                    }
+                    throw new IOException("part " + index);
+                }
+            });
+            fail("IOException expected");
+        }
+        catch (IOException e)
+        {
+            assertEquals("page 1", e.getMessage());
+            // the failed part is only logged before Android 4.4
+            for (Throwable suppressed : e.getSuppressed())
+            {
+                assertEquals("part 0", suppressed.getMessage());
+            }
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+        source.close();
+    }
+
+    private static PDDocument createDocument(int pageCount) throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        for (int i = 0; i < pageCount; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText("Page " + i);
+            contents.endText();
+            contents.close();
+        }
+        return doc;
+    }
+}
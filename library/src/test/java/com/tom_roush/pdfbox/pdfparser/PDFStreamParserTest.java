@@ -19,6 +19,8 @@ import java.io.IOException;
 import java.util.List;
 
 import com.tom_roush.pdfbox.contentstream.operator.Operator;
+import com.tom_roush.pdfbox.cos.COSFloat;
+import com.tom_roush.pdfbox.cos.COSInteger;
 
 import junit.framework.TestCase;
 
@@ -88,6 +90,35 @@ public class PDFStreamParserTest extends TestCase
         testInlineImage2ops("ID\n12EI5EI          Q   ", "12EI5", "Q");
     }
 
+    /**
+     * Test that numbers and operators are tokenized as before they were parsed without creating
+     * strings.
+     *
+     * @throws IOException
+     */
+    public void testNumbersAndOperators() throws IOException
+    {
+        List<Object> tokens = parseTokenString(
+            "7 +12 -3 --4 0-5 1234567890123 -.5 12345678901234567890 - d0 Tj T* \001");
+
+        assertEquals(COSInteger.get(7), tokens.get(0));
+        assertEquals(COSInteger.get(12), tokens.get(1));
+        assertEquals(COSInteger.get(-3), tokens.get(2));
+        assertEquals(COSInteger.get(-4), tokens.get(3));
+        // PDFBOX-4064: "-" in the middle of a number is ignored
+        assertEquals(COSInteger.get(5), tokens.get(4));
+        assertEquals(COSInteger.get(1234567890123L), tokens.get(5));
+        assertEquals(-0.5f, ((COSFloat) tokens.get(6)).floatValue(), 0);
+        // too large for a long
+        assertTrue(tokens.get(7) instanceof COSFloat);
+        assertEquals(COSInteger.ZERO, tokens.get(8));
+        assertSame(Operator.getOperator("d0"), tokens.get(9));
+        assertSame(Operator.getOperator("Tj"), tokens.get(10));
+        assertSame(Operator.getOperator("T*"), tokens.get(11));
+        // a blank operator stops the parsing
+        assertEquals(12, tokens.size());
+    }
+
     // checks whether there are two operators, one inline image and the named operator
     private void testInlineImage2ops(String s, String imageDataString, String opName) throws IOException
     {
@@ -21,26 +21,48 @@
 
 package com.tom_roush.pdfbox.pdfparser;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.FilenameFilter;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URISyntaxException;
-
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.tom_roush.pdfbox.cos.COSBase;
+import com.tom_roush.pdfbox.cos.COSDictionary;
 import com.tom_roush.pdfbox.cos.COSDocument;
+import com.tom_roush.pdfbox.cos.COSObject;
+import com.tom_roush.pdfbox.cos.COSObjectKey;
+import com.tom_roush.pdfbox.cos.COSStream;
+import com.tom_roush.pdfbox.io.IOUtils;
 import com.tom_roush.pdfbox.io.MemoryUsageSetting;
+import com.tom_roush.pdfbox.io.RandomAccessBuffer;
 import com.tom_roush.pdfbox.io.RandomAccessBufferedFileInputStream;
 import com.tom_roush.pdfbox.io.RandomAccessRead;
+import com.tom_roush.pdfbox.io.RandomAccessReadMemoryMappedFile;
 import com.tom_roush.pdfbox.io.ScratchFile;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
 import com.tom_roush.pdfbox.pdmodel.PDDocumentInformation;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
 import com.tom_roush.pdfbox.util.DateConverter;
 
 import org.junit.Before;
 import org.junit.Test;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.junit.Assume.assumeTrue;
 
 public class TestPDFParser
@@ -112,6 +134,312 @@ public class TestPDFParser
         executeParserTest(new RandomAccessBufferedFileInputStream(new FileInputStream(PATH_OF_PDF)), MemoryUsageSetting.setupTempFileOnly());
     }
 
+    @Test
+    public void testPDFParserMemoryMappedFile() throws IOException
+    {
+        executeParserTest(new RandomAccessReadMemoryMappedFile(new File(PATH_OF_PDF)), MemoryUsageSetting.setupMainMemoryOnly());
+    }
+
+    /**
+     * Test that streams read on demand from the source contain the same data as copied streams.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testPDFParserLazyStreamLoading() throws IOException
+    {
+        RandomAccessRead eagerSource = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        PDFParser eagerParser = new PDFParser(eagerSource);
+        eagerParser.parse();
+        COSDocument eagerDoc = eagerParser.getDocument();
+
+        RandomAccessRead lazySource = new RandomAccessBufferedFileInputStream(new File(PATH_OF_PDF));
+        PDFParser lazyParser = new PDFParser(lazySource);
+        lazyParser.setLazyStreamLoading(true);
+        lazyParser.parse();
+        COSDocument lazyDoc = lazyParser.getDocument();
+
+        List<COSObject> eagerObjects = eagerDoc.getObjects();
+        int streamCount = 0;
+        for (COSObject eagerObject : eagerObjects)
+        {
+            COSBase eagerBase = eagerObject.getObject();
+            if (!(eagerBase instanceof COSStream))
+            {
+                continue;
+            }
+            COSStream lazyStream = (COSStream) lazyDoc.getObjectFromPool(
+                new COSObjectKey(eagerObject)).getObject();
+            assertArrayEquals(readStream((COSStream) eagerBase, true), readStream(lazyStream, true));
+            assertArrayEquals(readStream((COSStream) eagerBase, false), readStream(lazyStream, false));
+            streamCount++;
+        }
+        assertTrue(streamCount > 0);
+
+        eagerDoc.close();
+        eagerSource.close();
+        lazyDoc.close();
+        lazySource.close();
+    }
+
+    /**
+     * Test that a document with incremental updates opened in fast open mode parses the newest
+     * xref section only and gives the same content as a fully parsed document.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testPDFParserFastOpen() throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        for (int i = 0; i < 3; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText("Page " + i);
+            contents.endText();
+            contents.close();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        doc.save(output);
+        doc.close();
+        for (int revision = 1; revision <= 3; revision++)
+        {
+            doc = PDDocument.load(output.toByteArray());
+            PDDocumentInformation info = doc.getDocumentInformation();
+            info.setTitle("Revision " + revision);
+            info.getCOSObject().setNeedToBeUpdated(true);
+            doc.getDocumentCatalog().getCOSObject().setNeedToBeUpdated(true);
+            doc.getPages().getCOSObject().setNeedToBeUpdated(true);
+            output = new ByteArrayOutputStream();
+            doc.saveIncremental(output);
+            doc.close();
+        }
+        byte[] updated = output.toByteArray();
+
+        PDDocument eagerDoc = PDDocument.load(updated);
+        String expectedText = new PDFTextStripper().getText(eagerDoc);
+        int objectCount = eagerDoc.getDocument().getXrefTable().size();
+        eagerDoc.close();
+
+        PDFParser parser = new PDFParser(new RandomAccessBuffer(updated));
+        parser.setFastOpen(true);
+        parser.parse();
+        PDDocument fastDoc = parser.getPDDocument();
+        COSDocument cosDoc = fastDoc.getDocument();
+        // the catalog and the page tree root are part of the newest xref section
+        assertTrue(cosDoc.getLoadedXrefTable().size() < objectCount);
+        assertEquals("Revision 3", fastDoc.getDocumentInformation().getTitle());
+        assertEquals(3, fastDoc.getNumberOfPages());
+        assertEquals(expectedText, new PDFTextStripper().getText(fastDoc));
+        assertEquals(objectCount, cosDoc.getXrefTable().size());
+
+        // saving parses all objects
+        output = new ByteArrayOutputStream();
+        fastDoc.save(output);
+        fastDoc.close();
+        PDDocument savedDoc = PDDocument.load(output.toByteArray());
+        assertEquals("Revision 3", savedDoc.getDocumentInformation().getTitle());
+        assertEquals(expectedText, new PDFTextStripper().getText(savedDoc));
+        savedDoc.close();
+    }
+
+    /**
+     * Test that the objects of a document opened in fast open mode can be accessed by several
+     * threads at once, the threads which don't read an object wait until it has been read.
+     *
+     * @throws Exception
+     */
+    @Test
+    public void testPDFParserFastOpenConcurrentAccess() throws Exception
+    {
+        PDDocument doc = new PDDocument();
+        for (int i = 0; i < 50; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText("Page " + i);
+            contents.endText();
+            contents.close();
+        }
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        doc.save(output);
+        doc.close();
+
+        for (int run = 0; run < 20; run++)
+        {
+            PDFParser parser = new PDFParser(new RandomAccessBuffer(output.toByteArray()));
+            parser.setFastOpen(true);
+            parser.parse();
+            final COSDocument cosDoc = parser.getPDDocument().getDocument();
+            final List<COSObjectKey> keys = new ArrayList<COSObjectKey>(cosDoc.getXrefTable().keySet());
+            final CountDownLatch start = new CountDownLatch(1);
+            final AtomicInteger missing = new AtomicInteger();
+            List<Thread> threads = new ArrayList<Thread>();
+            for (int i = 0; i < 4; i++)
+            {
+                Thread thread = new Thread()
+                {
+                    @Override
+                    public void run()
+                    {
+                        try
+                        {
+                            start.await();
+                            for (COSObjectKey key : keys)
+                            {
+                                if (cosDoc.getObjectFromPool(key).getObject() == null)
+                                {
+                                    missing.incrementAndGet();
+                                }
+                            }
+                        }
+                        catch (Exception e)
+                        {
+                            missing.incrementAndGet();
+                        }
+                    }
+                };
+                thread.start();
+                threads.add(thread);
+            }
+            start.countDown();
+            for (Thread thread : threads)
+            {
+                thread.join();
+            }
+            assertEquals(0, missing.get());
+            parser.getPDDocument().close();
+        }
+    }
+
+    /**
+     * Test that the xref index is written on the first parse, used on the next one and ignored
+     * when the source has changed.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testPDFParserXrefIndex() throws IOException
+    {
+        File pdfFile = File.createTempFile("xrefindex", ".pdf");
+        File indexFile = new File(pdfFile.getPath() + ".idx");
+        try
+        {
+            PDDocument doc = PDDocument.load(new File(PATH_OF_PDF));
+            String expectedText = new PDFTextStripper().getText(doc);
+            doc.save(pdfFile);
+            doc.close();
+
+            assertEquals(1, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+            assertTrue(indexFile.isFile());
+            assertEquals(0, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+
+            // an incremental update makes the index stale
+            doc = PDDocument.load(pdfFile);
+            doc.getDocumentInformation().setTitle("Updated");
+            doc.getDocumentInformation().getCOSObject().setNeedToBeUpdated(true);
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            doc.saveIncremental(output);
+            doc.close();
+            FileOutputStream fos = new FileOutputStream(pdfFile);
+            fos.write(output.toByteArray());
+            fos.close();
+            assertEquals(1, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+            assertEquals(0, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+
+            // a damaged index is parsed again and replaced, the header of 37 bytes still matches
+            byte[] index = readFile(indexFile);
+            byte[] damaged = Arrays.copyOf(index, index.length);
+            // the count of xref entries
+            Arrays.fill(damaged, 55, 59, (byte) 0x7f);
+            writeFile(indexFile, damaged);
+            assertEquals(1, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+            assertArrayEquals(index, readFile(indexFile));
+            writeFile(indexFile, Arrays.copyOf(index, 40));
+            assertEquals(1, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+            assertArrayEquals(index, readFile(indexFile));
+            assertEquals(0, parseWithXrefIndex(pdfFile, indexFile, expectedText));
+        }
+        finally
+        {
+            pdfFile.delete();
+            indexFile.delete();
+        }
+    }
+
+    private static byte[] readFile(File file) throws IOException
+    {
+        InputStream input = new FileInputStream(file);
+        try
+        {
+            return IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private static void writeFile(File file, byte[] bytes) throws IOException
+    {
+        FileOutputStream output = new FileOutputStream(file);
+        try
+        {
+            output.write(bytes);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+
+    /**
+     * Parses the given file with the given xref index and returns the count of parsed xrefs.
+     */
+    private static int parseWithXrefIndex(File pdfFile, File indexFile, String expectedText)
+        throws IOException
+    {
+        final int[] xrefCount = new int[1];
+        RandomAccessRead source = new RandomAccessBufferedFileInputStream(pdfFile);
+        PDFParser parser = new PDFParser(source)
+        {
+            @Override
+            protected COSDictionary parseXref(long startXRefOffset) throws IOException
+            {
+                xrefCount[0]++;
+                return super.parseXref(startXRefOffset);
+            }
+        };
+        parser.setXrefIndexFile(indexFile);
+        parser.parse();
+        PDDocument doc = parser.getPDDocument();
+        assertEquals(expectedText, new PDFTextStripper().getText(doc));
+        doc.close();
+        return xrefCount[0];
+    }
+
+    private static byte[] readStream(COSStream stream, boolean raw) throws IOException
+    {
+        InputStream is = raw ? stream.createRawInputStream() : stream.createInputStream();
+        try
+        {
+            return IOUtils.toByteArray(is);
+        }
+        finally
+        {
+            is.close();
+        }
+    }
+
     @Test
     public void testPDFParserMissingCatalog() throws IOException, URISyntaxException
     {
@@ -19,10 +19,26 @@ package com.tom_roush.pdfbox.pdfwriter;
 import java.io.BufferedOutputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.tom_roush.pdfbox.cos.COSName;
+import com.tom_roush.pdfbox.cos.COSStream;
 import com.tom_roush.pdfbox.pdmodel.PDDocument;
 import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.encryption.AccessPermission;
+import com.tom_roush.pdfbox.pdmodel.encryption.StandardProtectionPolicy;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
 import org.junit.Test;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
 public class COSWriterTest
 {
     /**
@@ -62,4 +78,202 @@ public class COSWriterTest
         }));
         doc.close();
     }
+
+    /**
+     * Compressing the streams in the background must give the same output as compressing them
+     * on the writing thread.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testParallelStreamCompression() throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        doc.setDocumentId(4711L);
+        for (int i = 0; i < 40; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page,
+                PDPageContentStream.AppendMode.OVERWRITE, false);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            for (int j = 0; j < 20; j++)
+            {
+                contents.showText("Page " + (i + 1) + " line " + (j + 1));
+                contents.newLineAtOffset(0, -14);
+            }
+            contents.endText();
+            contents.close();
+        }
+        String expectedText = new PDFTextStripper().getText(doc);
+
+        byte[] sequential = save(doc, null, 0);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try
+        {
+            // a small budget, so that the writer has to wait for the executor
+            assertTrue(Arrays.equals(sequential, save(doc, executor, 1024)));
+            assertTrue(Arrays.equals(sequential, save(doc, executor, 32 * 1024 * 1024)));
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+
+        // the streams of the document aren't modified
+        assertNull(((COSStream) doc.getPage(0).getCOSObject()
+            .getDictionaryObject(COSName.CONTENTS)).getFilters());
+        doc.close();
+
+        PDDocument saved = PDDocument.load(sequential);
+        assertEquals(COSName.FLATE_DECODE, ((COSStream) saved.getPage(0).getCOSObject()
+            .getDictionaryObject(COSName.CONTENTS)).getFilters());
+        assertEquals(expectedText, new PDFTextStripper().getText(saved));
+        saved.close();
+    }
+
+    /**
+     * Save a document with object streams and check that it can be read again.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testObjectStreams() throws IOException
+    {
+        PDDocument doc = createDocument(30);
+        String expectedText = new PDFTextStripper().getText(doc);
+        ByteArrayOutputStream classic = new ByteArrayOutputStream();
+        doc.save(classic);
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        COSWriter writer = new COSWriter(compact);
+        writer.setUseObjectStreams(true);
+        writer.setObjectStreamSize(7);
+        writer.setCompressionLevel(9);
+        doc.save(writer);
+        doc.close();
+
+        assertTrue(compact.size() < classic.size());
+        String start = new String(compact.toByteArray(), 0, 8, "ISO-8859-1");
+        assertEquals("%PDF-1.5", start);
+
+        PDDocument saved = PDDocument.load(compact.toByteArray());
+        assertTrue(saved.getDocument().isXRefStream());
+        // objects in object streams have the negated number of their object stream as offset
+        int packed = 0;
+        for (Long offset : saved.getDocument().getXrefTable().values())
+        {
+            if (offset < 0)
+            {
+                packed++;
+            }
+        }
+        assertTrue(packed > 30);
+        assertEquals(30, saved.getNumberOfPages());
+        assertEquals(expectedText, new PDFTextStripper().getText(saved));
+        saved.close();
+    }
+
+    /**
+     * Strings in object streams aren't encrypted on their own, the object stream is.
+     *
+     * @throws IOException
+     */
+    @Test
+    public void testObjectStreamsEncrypted() throws IOException
+    {
+        PDDocument doc = createDocument(3);
+        doc.getDocumentInformation().setTitle("Object streams");
+        String expectedText = new PDFTextStripper().getText(doc);
+        StandardProtectionPolicy policy =
+            new StandardProtectionPolicy("owner", "user", new AccessPermission());
+        policy.setEncryptionKeyLength(128);
+        doc.protect(policy);
+
+        ByteArrayOutputStream compact = new ByteArrayOutputStream();
+        COSWriter writer = new COSWriter(compact);
+        writer.setUseObjectStreams(true);
+        doc.save(writer);
+        doc.close();
+
+        PDDocument saved = PDDocument.load(compact.toByteArray(), "user");
+        assertTrue(saved.isEncrypted());
+        assertEquals("Object streams", saved.getDocumentInformation().getTitle());
+        assertEquals(expectedText, new PDFTextStripper().getText(saved));
+        saved.close();
+    }
+
+    private static PDDocument createDocument(int pageCount) throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        for (int i = 0; i < pageCount; i++)
+        {
+            PDPage page = new PDPage();
+            doc.addPage(page);
+            PDPageContentStream contents = new PDPageContentStream(doc, page);
+            contents.beginText();
+            contents.setFont(PDType1Font.HELVETICA, 12);
+            contents.newLineAtOffset(50, 700);
+            contents.showText("Page " + (i + 1));
+            contents.endText();
+            contents.close();
+        }
+        return doc;
+    }
+
+    private static byte[] save(PDDocument doc, ExecutorService executor, long maxPendingBytes)
+        throws IOException
+    {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        COSWriter writer = new COSWriter(output);
+        writer.setCompressStreams(true);
+        writer.setEncodingExecutor(executor);
+        writer.setMaxPendingEncodingBytes(maxPendingBytes);
+        try
+        {
+            writer.write(doc);
+        }
+        finally
+        {
+            writer.close();
+        }
+        return output.toByteArray();
+    }
+
+    /**
+     * Object streams aren't supported when appending, enabling them must fail instead of being
+     * ignored.
+     */
+    @Test
+    public void testObjectStreamsNotAppended() throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        COSWriter writer = new COSWriter(new ByteArrayOutputStream());
+        writer.setUseObjectStreams(true);
+        try
+        {
+            writer.startAppending(doc);
+            fail("object streams must be rejected when appending");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+
+        writer = new COSWriter(new ByteArrayOutputStream());
+        writer.startAppending(doc);
+        try
+        {
+            writer.setUseObjectStreams(true);
+            fail("object streams must be rejected when appending");
+        }
+        catch (IllegalStateException e)
+        {
+            // expected
+        }
+        writer.setUseObjectStreams(false);
+        doc.close();
+    }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel;
+
+import java.io.IOException;
+
+import com.tom_roush.pdfbox.cos.COSDictionary;
+import com.tom_roush.pdfbox.cos.COSObject;
+import com.tom_roush.pdfbox.pdmodel.BoundedResourceCache.ResourceType;
+import com.tom_roush.pdfbox.pdmodel.graphics.state.PDExtendedGraphicsState;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+public class TestBoundedResourceCache
+{
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache();
+        cache.setBudget(ResourceType.EXT_G_STATE, 2, -1);
+
+        COSObject key1 = new COSObject(new COSDictionary());
+        COSObject key2 = new COSObject(new COSDictionary());
+        COSObject key3 = new COSObject(new COSDictionary());
+        PDExtendedGraphicsState state1 = new PDExtendedGraphicsState();
+        PDExtendedGraphicsState state2 = new PDExtendedGraphicsState();
+        PDExtendedGraphicsState state3 = new PDExtendedGraphicsState();
+
+        cache.put(key1, state1);
+        cache.put(key2, state2);
+        // touch key1, so that key2 is the least recently used entry
+        assertSame(state1, cache.getExtGState(key1));
+        cache.put(key3, state3);
+
+        assertNull(cache.getExtGState(key2));
+        assertSame(state1, cache.getExtGState(key1));
+        assertSame(state3, cache.getExtGState(key3));
+        assertEquals(2, cache.getEntryCount(ResourceType.EXT_G_STATE));
+        assertEquals(3, cache.getHitCount(ResourceType.EXT_G_STATE));
+        assertEquals(1, cache.getMissCount(ResourceType.EXT_G_STATE));
+        assertEquals(1, cache.getEvictionCount(ResourceType.EXT_G_STATE));
+        // other types are not affected
+        assertEquals(0, cache.getMissCount(ResourceType.FONT));
+    }
+
+    @Test
+    public void testSizeBudget() throws IOException
+    {
+        BoundedResourceCache cache = new BoundedResourceCache()
+        {
+            @Override
+            protected long estimateSize(Object resource)
+            {
+                return 100;
+            }
+        };
+        cache.setBudget(ResourceType.EXT_G_STATE, -1, 250);
+        for (int i = 0; i < 5; i++)
+        {
+            cache.put(new COSObject(new COSDictionary()), new PDExtendedGraphicsState());
+        }
+        assertEquals(2, cache.getEntryCount(ResourceType.EXT_G_STATE));
+        assertEquals(200, cache.getSize(ResourceType.EXT_G_STATE));
+        assertEquals(3, cache.getEvictionCount(ResourceType.EXT_G_STATE));
+
+        // shrinking the budget evicts right away
+        cache.setBudget(ResourceType.EXT_G_STATE, -1, 50);
+        assertEquals(0, cache.getEntryCount(ResourceType.EXT_G_STATE));
+        assertEquals(0, cache.getSize(ResourceType.EXT_G_STATE));
+    }
+}
@@ -23,8 +23,12 @@ import org.junit.After;
 import org.junit.Test;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
 
 /**
  * @author Andrea Vacondio
@@ -82,4 +86,70 @@ public class TestPDPageTree
         doc = PDDocument.load(TestPDPageTree.class.getResourceAsStream("/pdfbox/com/tom_roush/pdfbox/pdmodel/with_outline.pdf"));
         assertEquals(-1, doc.getPages().indexOf(new PDPage()));
     }
-}
\ No newline at end of file
+
+    /**
+     * The cached page index must follow all changes made through the page tree.
+     */
+    @Test
+    public void indexFollowsChanges() throws IOException
+    {
+        doc = new PDDocument();
+        PDPageTree tree = doc.getPages();
+        assertSame(tree, doc.getPages());
+        List<PDPage> expected = new ArrayList<PDPage>();
+        Random random = new Random(4711);
+        for (int i = 0; i < 500; i++)
+        {
+            PDPage page = new PDPage();
+            int size = expected.size();
+            switch (size == 0 ? 0 : random.nextInt(4))
+            {
+                case 0:
+                    tree.add(page);
+                    expected.add(page);
+                    break;
+                case 1:
+                {
+                    int index = random.nextInt(size);
+                    tree.insertBefore(page, expected.get(index));
+                    expected.add(index, page);
+                    break;
+                }
+                case 2:
+                {
+                    int index = random.nextInt(size);
+                    tree.insertAfter(page, expected.get(index));
+                    expected.add(index + 1, page);
+                    break;
+                }
+                default:
+                {
+                    int index = random.nextInt(size);
+                    if (random.nextBoolean())
+                    {
+                        tree.remove(index);
+                    }
+                    else
+                    {
+                        tree.remove(expected.get(index));
+                    }
+                    expected.remove(index);
+                    break;
+                }
+            }
+            assertEquals(expected.size(), tree.getCount());
+            int index = expected.isEmpty() ? -1 : random.nextInt(expected.size());
+            if (index >= 0)
+            {
+                assertEquals(expected.get(index), tree.get(index));
+                assertEquals(index, tree.indexOf(expected.get(index)));
+            }
+        }
+        for (int i = 0; i < expected.size(); i++)
+        {
+            assertEquals(expected.get(i), doc.getPage(i));
+            assertEquals(i, doc.getPages().indexOf(expected.get(i)));
+        }
+        assertEquals(-1, tree.indexOf(new PDPage()));
+    }
+}
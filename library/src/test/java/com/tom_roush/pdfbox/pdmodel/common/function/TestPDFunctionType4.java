@@ -102,4 +102,79 @@ public class TestPDFunctionType4 extends TestCase
         assertEquals(-0.7f, output[0], 0.0001f);
     }
 
+    /**
+     * Checks a function with "ifelse" and stack operators, like a tint transform.
+     * @throws Exception if an error occurs
+     */
+    public void testFunctionConditional() throws Exception
+    {
+        String functionText = "{ dup 0.5 gt { 0.5 sub 2 mul 0 exch } { 2 mul 1 exch } ifelse "
+            + "2 copy add 3 1 roll }";
+
+        PDFunctionType4 function = createFunction(functionText,
+            new float[] {0.0f, 1.0f},
+            new float[] {0.0f, 1.0f, 0.0f, 1.0f, 0.0f, 1.0f});
+
+        float[] output = function.eval(new float[] {0.25f});
+        assertEquals(3, output.length);
+        assertEquals(1f, output[0]); // 1.5 is outside Range
+        assertEquals(1f, output[1]);
+        assertEquals(0.5f, output[2], 0.0001f);
+
+        output = function.eval(new float[] {0.75f});
+        assertEquals(0.5f, output[0], 0.0001f);
+        assertEquals(0f, output[1]);
+        assertEquals(0.5f, output[2], 0.0001f);
+    }
+
+    /**
+     * Checks that a function which can't be compiled is still interpreted.
+     * @throws Exception if an error occurs
+     */
+    public void testFunctionInterpreted() throws Exception
+    {
+        // the first proc isn't used by "if"
+        String functionText = "{ { 1 } pop 0.5 mul }";
+
+        PDFunctionType4 function = createFunction(functionText,
+            new float[] {0.0f, 1.0f},
+            new float[] {0.0f, 1.0f});
+
+        assertEquals(0.3f, function.eval(new float[] {0.6f})[0], 0.0001f);
+    }
+
+    /**
+     * Checks the sampled lookup table of a smooth function and of one with a threshold.
+     * @throws Exception if an error occurs
+     */
+    public void testLookupTable() throws Exception
+    {
+        String functionText = "{ 2 copy mul 3 1 roll 180 mul sin exch 90 mul cos mul }";
+        float[] domain = new float[] {0.0f, 1.0f, -1.0f, 1.0f};
+        float[] range = new float[] {-1.0f, 1.0f, -1.0f, 1.0f};
+        PDFunctionType4 exact = createFunction(functionText, domain, range);
+        PDFunctionType4 sampled = createFunction(functionText, domain, range);
+        sampled.setLookupTableTolerance(0.001f);
+
+        for (float x = 0; x <= 1; x += 0.013f)
+        {
+            for (float y = -1; y <= 1; y += 0.017f)
+            {
+                float[] expected = exact.eval(new float[] {x, y});
+                float[] actual = sampled.eval(new float[] {x, y});
+                assertEquals(expected[0], actual[0], 0.002f);
+                assertEquals(expected[1], actual[1], 0.002f);
+            }
+        }
+        // inputs outside the domain are clipped
+        assertEquals(exact.eval(new float[] {2, 2})[1], sampled.eval(new float[] {2, 2})[1], 0.002f);
+
+        // a threshold can't be interpolated, the function is evaluated exactly
+        PDFunctionType4 threshold = createFunction("{ 0.5 gt { 1 } { 0 } ifelse }",
+            new float[] {0.0f, 1.0f}, new float[] {0.0f, 1.0f});
+        threshold.setLookupTableTolerance(0.01f);
+        assertEquals(0f, threshold.eval(new float[] {0.5f})[0]);
+        assertEquals(1f, threshold.eval(new float[] {0.50001f})[0]);
+    }
+
 }
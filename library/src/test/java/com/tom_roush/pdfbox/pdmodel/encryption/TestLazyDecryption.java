@@ -0,0 +1,148 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.encryption;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import com.tom_roush.pdfbox.cos.COSStream;
+import com.tom_roush.pdfbox.io.IOUtils;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDPage;
+import com.tom_roush.pdfbox.pdmodel.PDPageContentStream;
+import com.tom_roush.pdfbox.pdmodel.font.PDType1Font;
+import com.tom_roush.pdfbox.text.PDFTextStripper;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestLazyDecryption
+{
+    @Test
+    public void testRC4() throws IOException
+    {
+        checkRoundTrip(128, false);
+    }
+
+    @Test
+    public void testAES128() throws IOException
+    {
+        checkRoundTrip(128, true);
+    }
+
+    @Test
+    public void testAES256() throws IOException
+    {
+        checkRoundTrip(256, true);
+    }
+
+    /**
+     * Reading byte by byte, in chunks and skipping must give the same data.
+     */
+    @Test
+    public void testDecryptingInputStream() throws IOException
+    {
+        byte[] key = new byte[16];
+        Arrays.fill(key, (byte) 7);
+        byte[] data = new byte[10000];
+        for (int i = 0; i < data.length; i++)
+        {
+            data[i] = (byte) (i * 31);
+        }
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        RC4Cipher rc4 = new RC4Cipher();
+        rc4.setKey(key);
+        rc4.write(data, encrypted);
+
+        InputStream bulk = DecryptingInputStream.createRC4(
+            new ByteArrayInputStream(encrypted.toByteArray()), key);
+        assertArrayEquals(data, IOUtils.toByteArray(bulk));
+
+        InputStream single = DecryptingInputStream.createRC4(
+            new ByteArrayInputStream(encrypted.toByteArray()), key);
+        assertEquals(data[0] & 0xff, single.read());
+        assertEquals(5000, single.skip(5000));
+        assertEquals(data[5001] & 0xff, single.read());
+        byte[] rest = IOUtils.toByteArray(single);
+        assertArrayEquals(Arrays.copyOfRange(data, 5002, data.length), rest);
+        assertEquals(-1, single.read());
+    }
+
+    private void checkRoundTrip(int keyLength, boolean preferAES) throws IOException
+    {
+        PDDocument doc = new PDDocument();
+        PDPage page = new PDPage();
+        doc.addPage(page);
+        PDPageContentStream contents = new PDPageContentStream(doc, page);
+        contents.beginText();
+        contents.setFont(PDType1Font.HELVETICA, 12);
+        contents.newLineAtOffset(50, 700);
+        contents.showText("Decrypted on demand");
+        contents.endText();
+        contents.close();
+        doc.getDocumentInformation().setTitle("Lazy");
+        String expectedText = new PDFTextStripper().getText(doc);
+
+        StandardProtectionPolicy policy =
+            new StandardProtectionPolicy("owner", "user", new AccessPermission());
+        policy.setEncryptionKeyLength(keyLength);
+        policy.setPreferAES(preferAES);
+        doc.protect(policy);
+        ByteArrayOutputStream encrypted = new ByteArrayOutputStream();
+        doc.save(encrypted);
+        doc.close();
+
+        PDDocument loaded = PDDocument.load(encrypted.toByteArray(), "user");
+        assertTrue(loaded.isEncrypted());
+        assertEquals("Lazy", loaded.getDocumentInformation().getTitle());
+        COSStream stream = loaded.getPage(0).getContentStreams().next().getCOSObject();
+        byte[] raw = IOUtils.toByteArray(stream.createRawInputStream());
+        // the raw data is decrypted, but still Flate encoded
+        assertFalse(new String(raw, "ISO-8859-1").contains("Decrypted on demand"));
+        assertEquals(expectedText, new PDFTextStripper().getText(loaded));
+
+        // /Length is the length of the encrypted data until the stream is decrypted
+        long encryptedLength = preferAES ? (raw.length / 16 + 2) * 16 : raw.length;
+        assertEquals(encryptedLength, stream.getLength());
+        stream.decrypt();
+        assertEquals(raw.length, stream.getLength());
+        assertArrayEquals(raw, IOUtils.toByteArray(stream.createRawInputStream()));
+
+        // saving without encryption writes the decrypted data with its length
+        loaded.setAllSecurityToBeRemoved(true);
+        ByteArrayOutputStream decrypted = new ByteArrayOutputStream();
+        loaded.save(decrypted);
+        loaded.close();
+
+        PDDocument reloaded = PDDocument.load(decrypted.toByteArray());
+        assertFalse(reloaded.isEncrypted());
+        assertEquals("Lazy", reloaded.getDocumentInformation().getTitle());
+        assertEquals(expectedText, new PDFTextStripper().getText(reloaded));
+        COSStream reloadedStream =
+            reloaded.getPage(0).getContentStreams().next().getCOSObject();
+        assertArrayEquals(raw, IOUtils.toByteArray(reloadedStream.createRawInputStream()));
+        assertEquals(raw.length, reloadedStream.getLength());
+        reloaded.close();
+    }
+}
@@ -0,0 +1,333 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.font;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import com.tom_roush.fontbox.FontBoxFont;
+import com.tom_roush.fontbox.ttf.TTFParser;
+import com.tom_roush.pdfbox.io.IOUtils;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestFileSystemFontProvider
+{
+    private static final File TTF_DIR = new File("src/test/resources/fontbox/ttf");
+
+    private final File outDir = new File("target/test-output/fontprovider");
+    private String fontCacheProperty;
+
+    @Before
+    public void setUp()
+    {
+        outDir.mkdirs();
+        new File(outDir, ".pdfbox.cache").delete();
+        fontCacheProperty = System.getProperty("pdfbox.fontcache");
+        System.setProperty("pdfbox.fontcache", outDir.getPath());
+    }
+
+    @After
+    public void tearDown()
+    {
+        if (fontCacheProperty == null)
+        {
+            System.clearProperty("pdfbox.fontcache");
+        }
+        else
+        {
+            System.setProperty("pdfbox.fontcache", fontCacheProperty);
+        }
+    }
+
+    @Test
+    public void testIndexInBackground() throws IOException
+    {
+        File liberation = copy("LiberationSans-Regular.ttf");
+        File broken = new File(outDir, "Broken.ttf");
+        write(broken, new byte[] { 1, 2, 3 });
+
+        FileSystemFontProvider provider = new FileSystemFontProvider(new FontCache(),
+            Arrays.asList(liberation, broken));
+        List<String> names = getPostScriptNames(provider.getFontInfo());
+        assertTrue(provider.isFontInfoReady());
+        assertTrue(names.contains("LiberationSans"));
+        // the broken file is remembered, so that it isn't parsed again
+        assertEquals(2, names.size());
+        assertEquals(names, getPostScriptNames(provider.getAvailableFontInfo()));
+        assertTrue(new File(outDir, ".pdfbox.cache").exists());
+
+        // the cached fonts are available at once
+        provider = new FileSystemFontProvider(new FontCache(), Arrays.asList(liberation, broken));
+        assertEquals(names, getPostScriptNames(provider.getAvailableFontInfo()));
+        assertEquals(names, getPostScriptNames(provider.getFontInfo()));
+    }
+
+    @Test
+    public void testIncrementalUpdate() throws IOException
+    {
+        File liberation = copy("LiberationSans-Regular.ttf");
+        new FileSystemFontProvider(new FontCache(), Arrays.asList(liberation)).getFontInfo();
+
+        // rename the font in the cache, an unchanged file isn't parsed again
+        File cacheFile = new File(outDir, ".pdfbox.cache");
+        String cache = new String(read(cacheFile), "UTF-8");
+        assertTrue(cache.startsWith("LiberationSans|"));
+        write(cacheFile, cache.replace("LiberationSans|", "CachedSans|").getBytes("UTF-8"));
+
+        File lohit = copy("Lohit-Bengali.ttf");
+        FileSystemFontProvider provider = new FileSystemFontProvider(new FontCache(),
+            Arrays.asList(liberation, lohit));
+        assertEquals(Arrays.asList("CachedSans"),
+            getPostScriptNames(provider.getAvailableFontInfo()));
+        assertEquals(Arrays.asList("CachedSans", "Lohit-Bengali"),
+            getPostScriptNames(provider.getFontInfo()));
+
+        // a changed file is parsed again, a removed one is dropped
+        assertTrue(liberation.setLastModified(liberation.lastModified() - 10000));
+        provider = new FileSystemFontProvider(new FontCache(), Arrays.asList(liberation));
+        assertEquals(Arrays.asList("LiberationSans"), getPostScriptNames(provider.getFontInfo()));
+        cache = new String(read(cacheFile), "UTF-8");
+        assertFalse(cache.contains("Lohit-Bengali"));
+
+        FontInfo info = provider.getFontInfo().get(0);
+        assertNotNull(info.getFont());
+    }
+
+    @Test
+    public void testInterruptedWaitForFontInfo()
+    {
+        // getFontInfo() returns the fonts indexed so far if the wait is interrupted
+        TestFontProvider provider = new TestFontProvider();
+        provider.fontInfo.add(new TestFontInfo("LiberationSans"));
+        provider.interrupted = true;
+        FontMapperImpl mapper = new FontMapperImpl();
+        mapper.setProvider(provider);
+        assertTrue(mapper.getTrueTypeFont("LiberationSans", null).isFallback());
+
+        // the complete fonts are used once they are indexed
+        provider.ready = true;
+        assertFalse(mapper.getTrueTypeFont("LiberationSans", null).isFallback());
+    }
+
+    @Test
+    public void testSubstituteWhileIndexing()
+    {
+        TestFontInfo liberation = new TestFontInfo("LiberationSans");
+        TestFontInfo arial = new TestFontInfo("ArialMT");
+        TestFontProvider provider = new TestFontProvider();
+        provider.availableFontInfo.add(liberation);
+        provider.fontInfo.add(liberation);
+        provider.fontInfo.add(arial);
+        FontMapperImpl mapper = new FontMapperImpl();
+        mapper.setProvider(provider);
+
+        // a standard 14 font is substituted with the fonts available so far
+        assertSame(liberation.getFont(), mapper.getTrueTypeFont("Helvetica", null).getFont());
+        assertEquals(0, provider.waits);
+
+        // other fonts may be on the system, the complete fonts are searched for a substitute
+        assertSame(arial.getFont(), mapper.getTrueTypeFont("Arial", null).getFont());
+        assertEquals(1, provider.waits);
+    }
+
+    /**
+     * A font provider which finishes indexing when its fonts are waited for, unless the wait is
+     * interrupted.
+     */
+    private static class TestFontProvider extends FontProvider
+    {
+        private final List<FontInfo> availableFontInfo = new ArrayList<FontInfo>();
+        private final List<FontInfo> fontInfo = new ArrayList<FontInfo>();
+        private boolean ready;
+        private boolean interrupted;
+        private int waits;
+
+        @Override
+        public String toDebugString()
+        {
+            return null;
+        }
+
+        @Override
+        public List<? extends FontInfo> getFontInfo()
+        {
+            if (!ready)
+            {
+                waits++;
+                if (interrupted)
+                {
+                    return availableFontInfo;
+                }
+                ready = true;
+            }
+            return fontInfo;
+        }
+
+        @Override
+        public List<? extends FontInfo> getAvailableFontInfo()
+        {
+            return availableFontInfo;
+        }
+
+        @Override
+        public boolean isFontInfoReady()
+        {
+            return ready;
+        }
+    }
+
+    private static class TestFontInfo extends FontInfo
+    {
+        private final String postScriptName;
+        private FontBoxFont font;
+
+        TestFontInfo(String postScriptName)
+        {
+            this.postScriptName = postScriptName;
+        }
+
+        @Override
+        public String getPostScriptName()
+        {
+            return postScriptName;
+        }
+
+        @Override
+        public FontFormat getFormat()
+        {
+            return FontFormat.TTF;
+        }
+
+        @Override
+        public CIDSystemInfo getCIDSystemInfo()
+        {
+            return null;
+        }
+
+        @Override
+        public FontBoxFont getFont()
+        {
+            if (font == null)
+            {
+                try
+                {
+                    font = new TTFParser().parse(new File(TTF_DIR, "LiberationSans-Regular.ttf"));
+                }
+                catch (IOException e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+            return font;
+        }
+
+        @Override
+        public int getFamilyClass()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getWeightClass()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getCodePageRange1()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getCodePageRange2()
+        {
+            return 0;
+        }
+
+        @Override
+        public int getMacStyle()
+        {
+            return 0;
+        }
+
+        @Override
+        public PDPanoseClassification getPanose()
+        {
+            return null;
+        }
+    }
+
+    private static List<String> getPostScriptNames(List<? extends FontInfo> infos)
+    {
+        List<String> names = new ArrayList<String>();
+        for (FontInfo info : infos)
+        {
+            names.add(info.getPostScriptName());
+        }
+        return names;
+    }
+
+    private File copy(String name) throws IOException
+    {
+        File file = new File(outDir, name);
+        write(file, read(new File(TTF_DIR, name)));
+        return file;
+    }
+
+    private static byte[] read(File file) throws IOException
+    {
+        InputStream input = new FileInputStream(file);
+        try
+        {
+            return IOUtils.toByteArray(input);
+        }
+        finally
+        {
+            input.close();
+        }
+    }
+
+    private static void write(File file, byte[] bytes) throws IOException
+    {
+        OutputStream output = new FileOutputStream(file);
+        try
+        {
+            output.write(bytes);
+        }
+        finally
+        {
+            output.close();
+        }
+    }
+}
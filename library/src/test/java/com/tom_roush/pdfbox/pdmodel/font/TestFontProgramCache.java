@@ -0,0 +1,135 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.font;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.tom_roush.fontbox.FontBoxFont;
+import com.tom_roush.pdfbox.cos.COSName;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+import com.tom_roush.pdfbox.pdmodel.PDResources;
+
+import org.junit.After;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class TestFontProgramCache
+{
+    private static final File IN_DIR = new File("src/test/resources/pdfbox/input");
+
+    @After
+    public void tearDown()
+    {
+        FontProgramCache.setInstance(null);
+    }
+
+    @Test
+    public void testSharedAcrossDocuments() throws IOException
+    {
+        FontProgramCache cache = new FontProgramCache();
+        FontProgramCache.setInstance(cache);
+
+        PDDocument document1 = PDDocument.load(new File(IN_DIR, "FC60_Times.pdf"));
+        PDDocument document2 = PDDocument.load(new File(IN_DIR, "FC60_Times.pdf"));
+        try
+        {
+            List<FontBoxFont> programs1 = getEmbeddedPrograms(document1);
+            assertFalse(programs1.isEmpty());
+            assertEquals(0, cache.getHitCount());
+            long misses = cache.getMissCount();
+            assertTrue(misses >= programs1.size());
+            assertEquals(misses, cache.getEntryCount());
+
+            List<FontBoxFont> programs2 = getEmbeddedPrograms(document2);
+            assertEquals(programs1.size(), programs2.size());
+            for (int i = 0; i < programs1.size(); i++)
+            {
+                assertSame(programs1.get(i), programs2.get(i));
+            }
+            assertEquals(misses, cache.getMissCount());
+            assertEquals(misses, cache.getHitCount());
+            assertEquals(0.5, cache.getHitRate(), 0);
+            assertTrue(cache.getSize() > 0);
+        }
+        finally
+        {
+            document1.close();
+            document2.close();
+        }
+    }
+
+    @Test
+    public void testBudget() throws IOException
+    {
+        FontProgramCache cache = new FontProgramCache(0);
+        FontProgramCache.setInstance(cache);
+
+        PDDocument document = PDDocument.load(new File(IN_DIR, "FC60_Times.pdf"));
+        try
+        {
+            // nothing fits, the fonts are parsed anyway
+            assertFalse(getEmbeddedPrograms(document).isEmpty());
+            assertEquals(0, cache.getEntryCount());
+            assertEquals(0, cache.getSize());
+        }
+        finally
+        {
+            document.close();
+        }
+    }
+
+    @Test
+    public void testDisabledByDefault() throws IOException
+    {
+        PDDocument document1 = PDDocument.load(new File(IN_DIR, "FC60_Times.pdf"));
+        PDDocument document2 = PDDocument.load(new File(IN_DIR, "FC60_Times.pdf"));
+        try
+        {
+            List<FontBoxFont> programs1 = getEmbeddedPrograms(document1);
+            List<FontBoxFont> programs2 = getEmbeddedPrograms(document2);
+            assertFalse(programs1.isEmpty());
+            assertTrue(programs1.get(0) != programs2.get(0));
+        }
+        finally
+        {
+            document1.close();
+            document2.close();
+        }
+    }
+
+    private static List<FontBoxFont> getEmbeddedPrograms(PDDocument document) throws IOException
+    {
+        List<FontBoxFont> programs = new ArrayList<FontBoxFont>();
+        PDResources resources = document.getPage(0).getResources();
+        for (COSName name : resources.getFontNames())
+        {
+            PDFont font = resources.getFont(name);
+            if (font instanceof PDSimpleFont && font.isEmbedded())
+            {
+                programs.add(((PDSimpleFont) font).getFontBoxFont());
+            }
+        }
+        return programs;
+    }
+}
@@ -0,0 +1,68 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.pdmodel.font.encoding;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+
+import junit.framework.TestCase;
+
+/**
+ * The compiled glyph lists must give the same mappings as the text files they are compiled from.
+ */
+public class GlyphListCompilerTest extends TestCase
+{
+    private static final File GLYPHLIST_DIR =
+        new File("src/main/assets/com/tom_roush/pdfbox/resources/glyphlist");
+
+    public void testAdobeGlyphList() throws IOException
+    {
+        checkRoundTrip("glyphlist.txt");
+    }
+
+    public void testZapfDingbats() throws IOException
+    {
+        checkRoundTrip("zapfdingbats.txt");
+    }
+
+    private void checkRoundTrip(String name) throws IOException
+    {
+        File file = new File(GLYPHLIST_DIR, name);
+        GlyphList expected = new GlyphList(new FileInputStream(file), 16);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GlyphListCompiler.compile(new FileInputStream(file), out);
+        GlyphList actual = GlyphList.readCompiled(new ByteArrayInputStream(out.toByteArray()));
+
+        assertEquals(expected.getNameToUnicode(), actual.getNameToUnicode());
+        assertEquals(expected.getUnicodeToName(), actual.getUnicodeToName());
+        for (String glyphName : expected.getNameToUnicode().keySet())
+        {
+            assertEquals(glyphName, expected.toUnicode(glyphName), actual.toUnicode(glyphName));
+        }
+        for (int codePoint = 0; codePoint <= Character.MAX_CODE_POINT; codePoint++)
+        {
+            assertEquals(expected.codePointToName(codePoint), actual.codePointToName(codePoint));
+        }
+        for (String sequence : expected.getUnicodeToName().keySet())
+        {
+            assertEquals(expected.sequenceToName(sequence), actual.sequenceToName(sequence));
+        }
+    }
+}
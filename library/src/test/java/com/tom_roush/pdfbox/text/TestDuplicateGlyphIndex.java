@@ -0,0 +1,99 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.text;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestDuplicateGlyphIndex
+{
+    @Test
+    public void testContainsNear()
+    {
+        DuplicateGlyphIndex index = new DuplicateGlyphIndex();
+        index.add("a", 100, 200);
+        assertTrue(index.containsNear("a", 101, 199, 2));
+        // the upper bound is exclusive
+        assertFalse(index.containsNear("a", 98, 200, 2));
+        assertTrue(index.containsNear("a", 102, 200, 2));
+        assertFalse(index.containsNear("b", 100, 200, 2));
+        assertFalse(index.containsNear("a", 100, 200, 0));
+        // a huge tolerance doesn't probe cell by cell
+        assertTrue(index.containsNear("a", 0, 0, Float.POSITIVE_INFINITY));
+
+        index.clear();
+        assertFalse(index.containsNear("a", 100, 200, 2));
+    }
+
+    /**
+     * Compare the suppression with the sorted maps that were used before.
+     */
+    @Test
+    public void testSameResultAsSortedMaps()
+    {
+        Random random = new Random(4711);
+        String[] texts = { "a", "b", "c", "fi" };
+        DuplicateGlyphIndex index = new DuplicateGlyphIndex();
+        Map<String, TreeMap<Float, TreeSet<Float>>> mapping =
+            new HashMap<String, TreeMap<Float, TreeSet<Float>>>();
+        for (int i = 0; i < 20000; i++)
+        {
+            String text = texts[random.nextInt(texts.length)];
+            // coarse coordinates, so that there are many duplicates
+            float x = random.nextInt(2000) / 4f - 100;
+            float y = random.nextInt(2000) / 4f - 100;
+            float tolerance = random.nextInt(100) / 10f;
+
+            TreeMap<Float, TreeSet<Float>> sameText = mapping.get(text);
+            if (sameText == null)
+            {
+                sameText = new TreeMap<Float, TreeSet<Float>>();
+                mapping.put(text, sameText);
+            }
+            boolean expected = false;
+            for (TreeSet<Float> xMatch : sameText.subMap(x - tolerance, x + tolerance).values())
+            {
+                if (!xMatch.subSet(y - tolerance, y + tolerance).isEmpty())
+                {
+                    expected = true;
+                    break;
+                }
+            }
+            assertEquals(expected, index.containsNear(text, x, y, tolerance));
+            if (!expected)
+            {
+                TreeSet<Float> ySet = sameText.get(x);
+                if (ySet == null)
+                {
+                    ySet = new TreeSet<Float>();
+                    sameText.put(x, ySet);
+                }
+                ySet.add(y);
+                index.add(text, x, y);
+            }
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.text;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import com.tom_roush.pdfbox.io.RandomAccessBufferedFileInputStream;
+import com.tom_roush.pdfbox.pdfparser.PDFParser;
+import com.tom_roush.pdfbox.pdmodel.PDDocument;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestPDFParallelTextExtractor
+{
+    private static final File IN_DIR = new File("src/test/resources/pdfbox/input");
+
+    private ExecutorService executor;
+    private PDDocument document;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        executor = Executors.newFixedThreadPool(4);
+        document = PDDocument.load(new File(IN_DIR, "cweb.pdf"));
+    }
+
+    @After
+    public void tearDown() throws IOException
+    {
+        executor.shutdownNow();
+        document.close();
+    }
+
+    @Test
+    public void testSameTextAsSequentialExtraction() throws IOException
+    {
+        String expected = new PDFTextStripper().getText(document);
+
+        PDFParallelTextExtractor extractor = new PDFParallelTextExtractor(executor);
+        extractor.setPagesPerTask(1);
+        StringWriter output = new StringWriter();
+        extractor.writeText(document, output);
+        assertEquals(expected, output.toString());
+
+        extractor.setPagesPerTask(3);
+        List<String> pageTexts = extractor.getPageTexts(document);
+        assertEquals(document.getNumberOfPages(), pageTexts.size());
+        StringBuilder joined = new StringBuilder();
+        for (String pageText : pageTexts)
+        {
+            joined.append(pageText);
+        }
+        assertEquals(expected, joined.toString());
+    }
+
+    @Test
+    public void testPageRange() throws IOException
+    {
+        assertTrue(document.getNumberOfPages() >= 3);
+        PDFTextStripper stripper = new PDFTextStripper();
+        stripper.setSortByPosition(true);
+        stripper.setStartPage(2);
+        stripper.setEndPage(3);
+        String expected = stripper.getText(document);
+
+        PDFParallelTextExtractor extractor = new PDFParallelTextExtractor(executor,
+            new PDFParallelTextExtractor.StripperFactory()
+            {
+                @Override
+                public PDFTextStripper createStripper() throws IOException
+                {
+                    PDFTextStripper stripper = new PDFTextStripper();
+                    stripper.setSortByPosition(true);
+                    return stripper;
+                }
+            });
+        List<String> pageTexts = extractor.getPageTexts(document, 2, 3);
+        assertEquals(2, pageTexts.size());
+        assertEquals(expected, pageTexts.get(0) + pageTexts.get(1));
+    }
+
+    @Test
+    public void testFastOpenDocument() throws IOException
+    {
+        String expected = new PDFTextStripper().getText(document);
+
+        // the objects are read by the tasks when they access them
+        for (int run = 0; run < 5; run++)
+        {
+            PDFParser parser = new PDFParser(
+                new RandomAccessBufferedFileInputStream(new File(IN_DIR, "cweb.pdf")));
+            parser.setFastOpen(true);
+            parser.parse();
+            PDDocument fastDocument = parser.getPDDocument();
+            try
+            {
+                PDFParallelTextExtractor extractor = new PDFParallelTextExtractor(executor);
+                extractor.setPagesPerTask(1);
+                StringWriter output = new StringWriter();
+                extractor.writeText(fastDocument, output);
+                assertEquals(expected, output.toString());
+            }
+            finally
+            {
+                fastDocument.close();
+            }
+        }
+    }
+}
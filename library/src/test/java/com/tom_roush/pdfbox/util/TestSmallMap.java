@@ -0,0 +1,143 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one or more
+ * contributor license agreements.  See the NOTICE file distributed with
+ * this work for additional information regarding copyright ownership.
+ * The ASF licenses this file to You under the Apache License, Version 2.0
+ * (the "License"); you may not use this file except in compliance with
+ * the License.  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.tom_roush.pdfbox.util;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class TestSmallMap extends TestCase
+{
+    /**
+     * Compare random operations with a LinkedHashMap, for small maps and maps growing beyond the
+     * array representation.
+     */
+    public void testSameAsLinkedHashMap()
+    {
+        Random random = new Random(4711);
+        for (int keyCount : new int[] { 3, 10, 40 })
+        {
+            Map<String, Integer> expected = new LinkedHashMap<String, Integer>();
+            Map<String, Integer> actual = new SmallMap<String, Integer>();
+            for (int i = 0; i < 5000; i++)
+            {
+                // new String instances, so that keys are not only found by identity
+                String key = new String("k" + random.nextInt(keyCount));
+                switch (random.nextInt(6))
+                {
+                    case 0:
+                    case 1:
+                        assertEquals(expected.put(key, i), actual.put(key, i));
+                        break;
+                    case 2:
+                        assertEquals(expected.remove(key), actual.remove(key));
+                        break;
+                    case 3:
+                        assertEquals(expected.get(key), actual.get(key));
+                        assertEquals(expected.containsKey(key), actual.containsKey(key));
+                        break;
+                    case 4:
+                        removeWithIterator(expected, key);
+                        removeWithIterator(actual, key);
+                        break;
+                    default:
+                        if (random.nextInt(100) == 0)
+                        {
+                            expected.clear();
+                            actual.clear();
+                        }
+                        break;
+                }
+                assertEquals(expected.size(), actual.size());
+                assertEquals(new ArrayList<String>(expected.keySet()),
+                    new ArrayList<String>(actual.keySet()));
+                assertEquals(new ArrayList<Integer>(expected.values()),
+                    new ArrayList<Integer>(actual.values()));
+            }
+            assertEquals(expected, actual);
+            assertEquals(actual, expected);
+            assertEquals(expected.hashCode(), actual.hashCode());
+        }
+    }
+
+    public void testSetValue()
+    {
+        Map<String, Integer> map = new SmallMap<String, Integer>();
+        map.put("a", 1);
+        map.put("b", 2);
+        for (Map.Entry<String, Integer> entry : map.entrySet())
+        {
+            entry.setValue(entry.getValue() * 10);
+        }
+        assertEquals(Integer.valueOf(10), map.get("a"));
+        assertEquals(Integer.valueOf(20), map.get("b"));
+        assertEquals("{a=10, b=20}", map.toString());
+    }
+
+    public void testConcurrentModification()
+    {
+        Map<String, Integer> map = new SmallMap<String, Integer>();
+        map.put("a", 1);
+        map.put("b", 2);
+        Iterator<String> iterator = map.keySet().iterator();
+        iterator.next();
+        map.put("c", 3);
+        try
+        {
+            iterator.next();
+            fail("ConcurrentModificationException expected");
+        }
+        catch (ConcurrentModificationException e)
+        {
+            // expected
+        }
+    }
+
+    public void testNullKeyAndValue()
+    {
+        Map<String, Integer> map = new SmallMap<String, Integer>();
+        assertNull(map.get(null));
+        map.put(null, 1);
+        map.put("a", null);
+        assertEquals(Integer.valueOf(1), map.get(null));
+        assertTrue(map.containsKey("a"));
+        assertTrue(map.containsValue(null));
+        assertEquals(Integer.valueOf(1), map.remove(null));
+        assertEquals(1, map.size());
+    }
+
+    private static void removeWithIterator(Map<String, Integer> map, String key)
+    {
+        List<String> removed = new ArrayList<String>();
+        Iterator<Map.Entry<String, Integer>> iterator = map.entrySet().iterator();
+        while (iterator.hasNext())
+        {
+            Map.Entry<String, Integer> entry = iterator.next();
+            if (entry.getKey().compareTo(key) >= 0 && removed.size() < 2)
+            {
+                removed.add(entry.getKey());
+                iterator.remove();
+            }
+        }
+    }
+}